@@ -99,6 +99,7 @@ public class CoordinatedPhraseElement extends NLGElement {
 			setFeature(InternalFeature.COORDINATES, coordinates);
 		}
 		if(newCoordinate instanceof NLGElement) {
+			newCoordinate = copyIfFrozen((NLGElement) newCoordinate);
 			if(((NLGElement) newCoordinate).isA(PhraseCategory.CLAUSE) && coordinates.size() > 0) {
 
 				((NLGElement) newCoordinate).setFeature(Feature.SUPRESSED_COMPLEMENTISER, true);
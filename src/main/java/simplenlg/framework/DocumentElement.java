@@ -145,6 +145,7 @@ public class DocumentElement extends NLGElement {
 	 * add an element to a components list
 	 */
 	private void addElementToComponents(NLGElement element) {
+		element = copyIfFrozen(element);
 		List<NLGElement> components = getComponents();
 		components.add(element);
 		element.setParent(this);
@@ -203,8 +204,9 @@ public class DocumentElement extends NLGElement {
 					category = ((NLGElement) eachElement).getCategory();
 					if(category != null && thisCategory instanceof DocumentCategory) {
 						if(((DocumentCategory) thisCategory).hasSubPart(category)) {
-							elementsToAdd.add((NLGElement) eachElement);
-							((NLGElement) eachElement).setParent(this);
+							NLGElement component = copyIfFrozen((NLGElement) eachElement);
+							elementsToAdd.add(component);
+							component.setParent(this);
 						}
 					}
 				}
@@ -0,0 +1,272 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.framework;
+
+import java.util.List;
+
+/**
+ * A 128-bit fingerprint of the structure of an element: its class, category,
+ * realisation and features, including the elements beneath it, and for
+ * words their base form and id. Elements with the same structure have the
+ * same fingerprint, and elements with different structures almost certainly
+ * have different fingerprints, so fingerprints can be compared instead of
+ * trees, and used as keys, for example of a cache of realisations.
+ * <p>
+ * Fingerprints do not depend on the order in which features were set, or on
+ * the JVM, so can be stored; they do depend on the string form of feature
+ * values which are not strings, numbers, booleans, enums, elements or lists
+ * of these. {@link #asLong()} gives a 64-bit fingerprint.
+ *
+ * @see NLGElement#getFingerprint()
+ */
+public final class ElementFingerprint {
+
+	private final long high;
+	private final long low;
+
+	ElementFingerprint(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * @return the first 64 bits of the fingerprint
+	 */
+	public long getHigh() {
+		return this.high;
+	}
+
+	/**
+	 * @return the last 64 bits of the fingerprint
+	 */
+	public long getLow() {
+		return this.low;
+	}
+
+	/**
+	 * @return a 64-bit fingerprint, for where 128 bits are more than needed
+	 */
+	public long asLong() {
+		return this.low;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) this.low;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof ElementFingerprint))
+			return false;
+		ElementFingerprint other = (ElementFingerprint) o;
+		return this.high == other.high && this.low == other.low;
+	}
+
+	/**
+	 * @return the fingerprint as 32 hexadecimal digits
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", this.high, this.low);
+	}
+
+	/**
+	 * Builds a fingerprint from a sequence of values, in the manner of the
+	 * 128-bit MurmurHash3: two lanes of 64 bits, which are mixed together when
+	 * the fingerprint is finished.
+	 */
+	static final class Hasher {
+
+		private static final long C1 = 0x87c37b91114253d5L;
+		private static final long C2 = 0x4cf5ad432745937fL;
+
+		// tags, so that values of different kinds do not collide
+		private static final int NULL    = 1;
+		private static final int STRING  = 2;
+		private static final int BOOLEAN = 3;
+		private static final int INTEGER = 4;
+		private static final int REAL    = 5;
+		private static final int ENUM    = 6;
+		private static final int ELEMENT = 7;
+		private static final int LIST    = 8;
+		private static final int OTHER   = 9;
+
+		// the hashes of the names of classes, and of enum constants, which are
+		// worked out once as they are long and hashed often
+		private static final ClassValue<Long>   CLASS_HASHES = new ClassValue<Long>() {
+			@Override
+			protected Long computeValue(Class<?> type) {
+				return new Hasher().add(type.getName()).mix().getLow();
+			}
+		};
+		private static final ClassValue<long[]> ENUM_HASHES  = new ClassValue<long[]>() {
+			@Override
+			protected long[] computeValue(Class<?> type) {
+				Object[] constants = type.getEnumConstants();
+				long[] hashes = new long[constants.length];
+				Hasher hasher = new Hasher();
+				for(int i = 0; i < constants.length; i++)
+					hashes[i] = hasher.reset().add(type.getName()).add(((Enum<?>) constants[i]).name()).mix().getLow();
+				return hashes;
+			}
+		};
+
+		// the hashes of the names of the features which have slots in feature
+		// maps, by slot
+		private static final long[] SLOT_NAME_HASHES = new long[FeatureMap.slotCount()];
+
+		static {
+			Hasher hasher = new Hasher();
+			for(int slot = 0; slot < SLOT_NAME_HASHES.length; slot++)
+				SLOT_NAME_HASHES[slot] = hasher.reset().add(FeatureMap.slotName(slot)).mix().getLow();
+		}
+
+		private long h1;
+		private long h2;
+		private long length;
+
+		/**
+		 * Start again, to hash another sequence of values.
+		 */
+		Hasher reset() {
+			this.h1 = 0;
+			this.h2 = 0;
+			this.length = 0;
+			return this;
+		}
+
+		Hasher add(long value) {
+			long k1 = value * C1;
+			k1 = Long.rotateLeft(k1, 31) * C2;
+			this.h1 ^= k1;
+			this.h1 = (Long.rotateLeft(this.h1, 27) + this.h2) * 5 + 0x52dce729;
+
+			long k2 = value * C2;
+			k2 = Long.rotateLeft(k2, 33) * C1;
+			this.h2 ^= k2;
+			this.h2 = (Long.rotateLeft(this.h2, 31) + this.h1) * 5 + 0x38495ab5;
+
+			this.length++;
+			return this;
+		}
+
+		Hasher add(String value) {
+			if(value == null)
+				return add(NULL);
+			add(STRING);
+			add(value.length());
+			int i = 0;
+			for(; i + 4 <= value.length(); i += 4) {
+				add((long) value.charAt(i) | (long) value.charAt(i + 1) << 16 | (long) value.charAt(i + 2) << 32
+				    | (long) value.charAt(i + 3) << 48);
+			}
+			long rest = 0;
+			for(int shift = 0; i < value.length(); i++, shift += 16)
+				rest |= (long) value.charAt(i) << shift;
+			return add(rest);
+		}
+
+		/**
+		 * Add the name of the feature held in a slot of feature maps.
+		 */
+		Hasher addSlotName(int slot) {
+			return add(SLOT_NAME_HASHES[slot]);
+		}
+
+		Hasher add(Class<?> type) {
+			return add(CLASS_HASHES.get(type).longValue());
+		}
+
+		Hasher add(ElementFingerprint fingerprint) {
+			return add(fingerprint.high).add(fingerprint.low);
+		}
+
+		/**
+		 * Add a feature value. Elements are added by their fingerprints, which
+		 * they work out if they need to.
+		 */
+		Hasher addValue(Object value) {
+			if(value == null)
+				return add(NULL);
+			if(value instanceof String)
+				return add((String) value);
+			if(value instanceof Boolean)
+				return add(BOOLEAN).add(((Boolean) value).booleanValue() ? 1 : 0);
+			if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+				return add(INTEGER).add(((Number) value).longValue());
+			if(value instanceof Double || value instanceof Float)
+				return add(REAL).add(Double.doubleToLongBits(((Number) value).doubleValue()));
+			if(value instanceof Enum<?>) {
+				Enum<?> constant = (Enum<?>) value;
+				return add(ENUM).add(ENUM_HASHES.get(constant.getDeclaringClass())[constant.ordinal()]);
+			}
+			if(value instanceof NLGElement)
+				return add(ELEMENT).add(((NLGElement) value).getFingerprint());
+			if(value instanceof List<?>) {
+				List<?> values = (List<?>) value;
+				add(LIST).add(values.size());
+				for(int i = 0; i < values.size(); i++)
+					addValue(values.get(i));
+				return this;
+			}
+			return add(OTHER).add(value.getClass()).add(value.toString());
+		}
+
+		/**
+		 * Mix the lanes together, which finishes the hash; then the lanes are
+		 * the 128 bits of the hash.
+		 */
+		Hasher mix() {
+			long a = this.h1 ^ this.length;
+			long b = this.h2 ^ this.length;
+			a += b;
+			b += a;
+			a = fmix(a);
+			b = fmix(b);
+			a += b;
+			b += a;
+			this.h1 = a;
+			this.h2 = b;
+			return this;
+		}
+
+		long getHigh() {
+			return this.h1;
+		}
+
+		long getLow() {
+			return this.h2;
+		}
+
+		ElementFingerprint finish() {
+			mix();
+			return new ElementFingerprint(this.h1, this.h2);
+		}
+
+		private static long fmix(long k) {
+			k ^= k >>> 33;
+			k *= 0xff51afd7ed558ccdL;
+			k ^= k >>> 33;
+			k *= 0xc4ceb9fe1a85ec53L;
+			k ^= k >>> 33;
+			return k;
+		}
+	}
+}
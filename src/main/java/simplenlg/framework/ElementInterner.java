@@ -0,0 +1,277 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.framework;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import simplenlg.features.InternalFeature;
+
+/**
+ * Freezes trees of elements and hash-conses them: equal frozen elements are
+ * replaced by a single, canonical instance. Elements are equal if they are of
+ * the same class, with the same category, realisation and features, where
+ * elements beneath them are compared by identity; as the elements beneath
+ * have been interned first, that is the same as comparing them by structure.
+ * So a phrase which is built many times, such as "the patient's heart rate",
+ * takes the memory of one phrase once it has been interned, however many
+ * documents use it.
+ * <p>
+ * Interning freezes every element of the tree, except words which are only
+ * referred to as the base word of another word (such as the words of a
+ * lexicon). Frozen elements are read-only, so can be shared between threads;
+ * {@link NLGElement#thaw()} gives a copy which can be changed. As a frozen
+ * element can be beneath many others, it has no parent; it records whether
+ * its parent was the element above it, so that copies can restore it.
+ * <p>
+ * Base words are left as they are, so a frozen tree is only safe to share
+ * between threads if its base words are not changed while it is shared.
+ * Words from a frozen lexicon, such as the default lexicon, cannot be
+ * changed (see {@link simplenlg.lexicon.XMLLexicon#freeze()}); any other
+ * base word is mutable, and it is up to the caller not to change it.
+ * <p>
+ * The interner only refers weakly to the canonical elements, so it does not
+ * keep them in memory once they are no longer used. Interning is thread-safe.
+ *
+ * @see PhraseElement#freeze()
+ */
+public final class ElementInterner {
+
+	private static final ElementInterner SHARED = new ElementInterner();
+
+	private final ConcurrentHashMap<Shape, CanonicalReference> canonical =
+			new ConcurrentHashMap<Shape, CanonicalReference>();
+	private final ReferenceQueue<NLGElement>                   collected = new ReferenceQueue<NLGElement>();
+
+	/**
+	 * @return the interner used by {@link PhraseElement#freeze()}
+	 */
+	public static ElementInterner getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Freeze a tree of elements, and replace it and each element beneath it by
+	 * the canonical element equal to it.
+	 * <p>
+	 * The tree is frozen in place, not copied: its elements become frozen and
+	 * lose their parents, and the elements beneath them are replaced by the
+	 * canonical ones. So the tree still has the same structure as the
+	 * element returned, but if it was not already canonical it should no
+	 * longer be used. {@link PhraseElement#freeze()} interns a copy instead,
+	 * so that the phrase it is called on can still be changed.
+	 *
+	 * @param element -- the root of the tree, which should not be changed
+	 *                by other threads while it is interned
+	 * @return the canonical element equal to the root, which is frozen
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends NLGElement> T intern(T element) {
+		purge();
+		return element == null ? null : (T) intern(element, false);
+	}
+
+	/**
+	 * @return the number of canonical elements which are still in use
+	 */
+	public int size() {
+		purge();
+		return canonical.size();
+	}
+
+	private NLGElement intern(NLGElement element, boolean linked) {
+		if(!element.frozen) {
+			for(Map.Entry<String, Object> entry : element.features.entrySet()) {
+				Object value = entry.getValue();
+				if(InternalFeature.BASE_WORD.equals(entry.getKey())) {
+					continue;
+				} else if(value instanceof NLGElement) {
+					NLGElement child = (NLGElement) value;
+					entry.setValue(intern(child, child.getParent() == element));
+				} else if(value instanceof List<?>) {
+					List<Object> values = new ArrayList<Object>((List<?>) value);
+					for(int i = 0; i < values.size(); i++) {
+						if(values.get(i) instanceof NLGElement) {
+							NLGElement child = (NLGElement) values.get(i);
+							values.set(i, intern(child, child.getParent() == element));
+						}
+					}
+					entry.setValue(Collections.unmodifiableList(values));
+				}
+			}
+			element.featureMap().trimToSize();
+			element.setParent(null);
+			element.linked = linked;
+			element.frozen = true;
+		}
+
+		Shape shape = new Shape(element);
+		while(true) {
+			CanonicalReference reference = canonical.get(shape);
+			if(reference == null) {
+				reference = new CanonicalReference(element, shape, collected);
+				if(canonical.putIfAbsent(shape, reference) == null)
+					return element;
+			} else {
+				NLGElement existing = reference.get();
+				if(existing != null)
+					return existing;
+				canonical.remove(shape, reference);
+			}
+		}
+	}
+
+	/**
+	 * remove the shapes of canonical elements which have been collected
+	 */
+	private void purge() {
+		for(CanonicalReference reference = (CanonicalReference) collected.poll();
+		    reference != null;
+		    reference = (CanonicalReference) collected.poll()) {
+			canonical.remove(reference.shape, reference);
+		}
+	}
+
+	/**
+	 * A weak reference to a canonical element, which knows the shape it is
+	 * held under.
+	 */
+	private static class CanonicalReference extends WeakReference<NLGElement> {
+
+		private final Shape shape;
+
+		CanonicalReference(NLGElement element, Shape shape, ReferenceQueue<NLGElement> queue) {
+			super(element, queue);
+			this.shape = shape;
+		}
+	}
+
+	/**
+	 * What makes frozen elements equal. It refers to the features of the
+	 * element, but not to the element itself.
+	 */
+	private static final class Shape {
+
+		private final Class<?>        type;
+		private final ElementCategory category;
+		private final String          realisation;
+		private final boolean         linked;
+		private final Map<String, Object> features;
+		private final String          baseForm;        // words only
+		private final String          id;              // words only
+		private final Object          inflectionalVariants; // words only, compared by identity
+		private final Object          defaultInflection;    // words only
+		private final int             hash;
+
+		Shape(NLGElement element) {
+			this.type = element.getClass();
+			this.category = element.getCategory();
+			this.realisation = element.getRealisation();
+			this.linked = element.linked;
+			this.features = element.features;
+			if(element instanceof WordElement) {
+				WordElement word = (WordElement) element;
+				this.baseForm = word.baseForm;
+				this.id = word.id;
+				this.inflectionalVariants = word.inflVars;
+				this.defaultInflection = word.defaultInfl;
+			} else {
+				this.baseForm = null;
+				this.id = null;
+				this.inflectionalVariants = null;
+				this.defaultInflection = null;
+			}
+
+			int h = this.type.hashCode();
+			h = 31 * h + (this.category == null ? 0 : this.category.hashCode());
+			h = 31 * h + (this.realisation == null ? 0 : this.realisation.hashCode());
+			h = 31 * h + (this.linked ? 1 : 0);
+			h = 31 * h + (this.baseForm == null ? 0 : this.baseForm.hashCode());
+			h = 31 * h + System.identityHashCode(this.inflectionalVariants);
+			int featureHash = 0;
+			for(Map.Entry<String, Object> entry : this.features.entrySet())
+				featureHash += entry.getKey().hashCode() ^ valueHash(entry.getValue());
+			this.hash = 31 * h + featureHash;
+		}
+
+		private static int valueHash(Object value) {
+			if(value instanceof NLGElement)
+				return System.identityHashCode(value);
+			if(value instanceof List<?>) {
+				int h = 1;
+				for(Object item : (List<?>) value)
+					h = 31 * h + valueHash(item);
+				return h;
+			}
+			return value == null ? 0 : value.hashCode();
+		}
+
+		private static boolean sameValue(Object value, Object other) {
+			if(value == other)
+				return true;
+			if(value == null || other == null || value instanceof NLGElement || other instanceof NLGElement)
+				return false;
+			if(value instanceof List<?> && other instanceof List<?>) {
+				List<?> values = (List<?>) value;
+				List<?> others = (List<?>) other;
+				if(values.size() != others.size())
+					return false;
+				for(int i = 0; i < values.size(); i++) {
+					if(!sameValue(values.get(i), others.get(i)))
+						return false;
+				}
+				return true;
+			}
+			return value.equals(other);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o)
+				return true;
+			if(!(o instanceof Shape))
+				return false;
+			Shape other = (Shape) o;
+			if(this.hash != other.hash || this.type != other.type || this.linked != other.linked
+			   || this.inflectionalVariants != other.inflectionalVariants
+			   || this.features.size() != other.features.size()
+			   || !Objects.equals(this.category, other.category)
+			   || !Objects.equals(this.realisation, other.realisation)
+			   || !Objects.equals(this.baseForm, other.baseForm)
+			   || !Objects.equals(this.id, other.id)
+			   || !Objects.equals(this.defaultInflection, other.defaultInflection))
+				return false;
+			for(Map.Entry<String, Object> entry : this.features.entrySet()) {
+				Object otherValue = other.features.get(entry.getKey());
+				if(otherValue == null && !other.features.containsKey(entry.getKey()))
+					return false;
+				if(!sameValue(entry.getValue(), otherValue))
+					return false;
+			}
+			return true;
+		}
+	}
+}
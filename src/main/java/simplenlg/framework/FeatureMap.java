@@ -0,0 +1,507 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.framework;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import simplenlg.features.Feature;
+import simplenlg.features.InternalFeature;
+import simplenlg.features.LexicalFeature;
+
+/**
+ * The map which holds the features of an {@link NLGElement}. Most elements
+ * have only a handful of features, almost all of them named by the constants
+ * in {@link Feature}, {@link InternalFeature} and {@link LexicalFeature}, so a
+ * <code>HashMap</code> (with its table and an entry object per feature) uses
+ * far more memory than the features need.
+ * <p>
+ * Instead, each of those known feature names has a fixed slot number. The map
+ * records which slots are present in two bit masks, and holds their values in
+ * an array in slot order, which is only as long as the features set on the
+ * element; the position of a value in the array is the number of present
+ * slots before it. Any other feature name is held in an ordinary overflow
+ * map, which is only created when such a name is used.
+ * <p>
+ * The map behaves as any other <code>Map</code>: its views can be changed,
+ * and it allows <code>null</code> values. The known features are iterated in
+ * the alphabetical order of their names, followed by the other features.
+ * Like <code>HashMap</code>, the map is not synchronised.
+ */
+public final class FeatureMap extends AbstractMap<String, Object> {
+
+	/**
+	 * The most feature names which have a slot; any others go in the overflow
+	 * map.
+	 */
+	private static final int MAX_SLOTS = 128;
+
+	private static final Object[] EMPTY_VALUES = new Object[0];
+
+	/**
+	 * The known feature names, by slot.
+	 */
+	private static final String[] SLOT_NAMES;
+
+	/**
+	 * Open addressing hash table from the hash of a name to its slot, or -1.
+	 */
+	private static final int[] SLOT_TABLE;
+
+	static {
+		TreeSet<String> names = new TreeSet<String>();
+		for(Class<?> constants : new Class<?>[]{Feature.class, InternalFeature.class, LexicalFeature.class}) {
+			for(Field field : constants.getFields()) {
+				int modifiers = field.getModifiers();
+				if(field.getType() == String.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+					try {
+						names.add((String) field.get(null));
+					} catch(IllegalAccessException ex) {
+						// public fields can be read
+					}
+				}
+			}
+		}
+		List<String> slotNames = new ArrayList<String>(names);
+		if(slotNames.size() > MAX_SLOTS)
+			slotNames = slotNames.subList(0, MAX_SLOTS);
+		SLOT_NAMES = slotNames.toArray(new String[slotNames.size()]);
+
+		// at most a quarter full, so that probes are short
+		int tableSize = Integer.highestOneBit(SLOT_NAMES.length * 4 - 1) << 1;
+		SLOT_TABLE = new int[tableSize];
+		Arrays.fill(SLOT_TABLE, -1);
+		for(int slot = 0; slot < SLOT_NAMES.length; slot++) {
+			int i = spread(SLOT_NAMES[slot].hashCode()) & (tableSize - 1);
+			while(SLOT_TABLE[i] >= 0)
+				i = (i + 1) & (tableSize - 1);
+			SLOT_TABLE[i] = slot;
+		}
+	}
+
+	private long                present0; // slots 0-63
+	private long                present1; // slots 64-127
+	private Object[]            values = EMPTY_VALUES;
+	private Map<String, Object> overflow;
+
+	/**
+	 * Create an empty feature map.
+	 */
+	public FeatureMap() {
+		// no features
+	}
+
+	/**
+	 * Create a feature map holding the same features as another map.
+	 *
+	 * @param features -- the features to copy
+	 */
+	public FeatureMap(Map<String, ?> features) {
+		putAll(features);
+	}
+
+	/**
+	 * @return the slot of a feature name, or -1 if it has none
+	 */
+	private static int slotOf(Object name) {
+		if(!(name instanceof String))
+			return -1;
+		int mask = SLOT_TABLE.length - 1;
+		for(int i = spread(name.hashCode()) & mask; ; i = (i + 1) & mask) {
+			int slot = SLOT_TABLE[i];
+			if(slot < 0)
+				return -1;
+			String slotName = SLOT_NAMES[slot];
+			if(slotName == name || slotName.equals(name))
+				return slot;
+		}
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean isPresent(int slot) {
+		return slot < 64 ? (present0 & (1L << slot)) != 0 : (present1 & (1L << slot)) != 0;
+	}
+
+	/**
+	 * @return the position of a slot's value in the values array: the number
+	 * 		of present slots before it
+	 */
+	private int indexOf(int slot) {
+		if(slot < 64)
+			return Long.bitCount(present0 & ((1L << slot) - 1));
+		return Long.bitCount(present0) + Long.bitCount(present1 & ((1L << slot) - 1));
+	}
+
+	private int knownSize() {
+		return Long.bitCount(present0) + Long.bitCount(present1);
+	}
+
+	@Override
+	public Object get(Object key) {
+		int slot = slotOf(key);
+		if(slot >= 0)
+			return isPresent(slot) ? values[indexOf(slot)] : null;
+		return overflow == null ? null : overflow.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = slotOf(key);
+		if(slot >= 0)
+			return isPresent(slot);
+		return overflow != null && overflow.containsKey(key);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int slot = slotOf(key);
+		if(slot < 0) {
+			if(overflow == null)
+				overflow = new HashMap<String, Object>(4);
+			return overflow.put(key, value);
+		}
+
+		int index = indexOf(slot);
+		if(isPresent(slot)) {
+			Object old = values[index];
+			values[index] = value;
+			return old;
+		}
+
+		int size = knownSize();
+		if(size == values.length) {
+			Object[] grown = new Object[size < 2 ? 2 : size + (size >> 1)];
+			System.arraycopy(values, 0, grown, 0, index);
+			System.arraycopy(values, index, grown, index + 1, size - index);
+			values = grown;
+		} else {
+			System.arraycopy(values, index, values, index + 1, size - index);
+		}
+		values[index] = value;
+		if(slot < 64)
+			present0 |= 1L << slot;
+		else
+			present1 |= 1L << slot;
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ?> features) {
+		if(features instanceof FeatureMap && isEmpty()) {
+			FeatureMap other = (FeatureMap) features;
+			present0 = other.present0;
+			present1 = other.present1;
+			values = other.knownSize() == 0 ? EMPTY_VALUES : Arrays.copyOf(other.values, other.knownSize());
+			if(other.overflow != null && !other.overflow.isEmpty())
+				overflow = new HashMap<String, Object>(other.overflow);
+		} else {
+			super.putAll(features);
+		}
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int slot = slotOf(key);
+		if(slot < 0)
+			return overflow == null ? null : overflow.remove(key);
+		if(!isPresent(slot))
+			return null;
+
+		int index = indexOf(slot);
+		int size = knownSize();
+		Object old = values[index];
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		values[size - 1] = null;
+		if(slot < 64)
+			present0 &= ~(1L << slot);
+		else
+			present1 &= ~(1L << slot);
+		return old;
+	}
+
+	@Override
+	public int size() {
+		return knownSize() + (overflow == null ? 0 : overflow.size());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return present0 == 0 && present1 == 0 && (overflow == null || overflow.isEmpty());
+	}
+
+	@Override
+	public void clear() {
+		present0 = 0;
+		present1 = 0;
+		values = EMPTY_VALUES;
+		overflow = null;
+	}
+
+	/**
+	 * Reduce the memory used by this map to what its features need.
+	 */
+	public void trimToSize() {
+		int size = knownSize();
+		if(values.length > size)
+			values = size == 0 ? EMPTY_VALUES : Arrays.copyOf(values, size);
+		if(overflow != null) {
+			if(overflow.isEmpty()) {
+				overflow = null;
+			} else {
+				HashMap<String, Object> compacted = new HashMap<String, Object>((int) (overflow.size() / 0.75f) + 1);
+				compacted.putAll(overflow);
+				overflow = compacted;
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(o instanceof FeatureMap) {
+			FeatureMap other = (FeatureMap) o;
+			if(present0 != other.present0 || present1 != other.present1)
+				return false;
+			for(int i = knownSize() - 1; i >= 0; i--) {
+				if(values[i] == null ? other.values[i] != null : !values[i].equals(other.values[i]))
+					return false;
+			}
+			boolean empty = overflow == null || overflow.isEmpty();
+			boolean otherEmpty = other.overflow == null || other.overflow.isEmpty();
+			return empty ? otherEmpty : !otherEmpty && overflow.equals(other.overflow);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		// as AbstractMap, so equal maps of other kinds have the same hash
+		return super.hashCode();
+	}
+
+	/*
+	 * Access by position, which walks the values of a map without the entry
+	 * objects of entrySet(). Elements use it to copy and thaw trees.
+	 */
+
+	/**
+	 * @return the number of values held in slots, which are at positions 0
+	 * 		onwards; the other values are in {@link #overflowEntries()}
+	 */
+	int slotValueCount() {
+		return knownSize();
+	}
+
+	Object slotValueAt(int position) {
+		return values[position];
+	}
+
+	void setSlotValueAt(int position, Object value) {
+		values[position] = value;
+	}
+
+	/**
+	 * @return the slot of the feature whose value is at a position
+	 */
+	int slotAt(int position) {
+		long bits = present0;
+		int base = 0;
+		if(position >= Long.bitCount(present0)) {
+			position -= Long.bitCount(present0);
+			bits = present1;
+			base = 64;
+		}
+		for(; position > 0; position--)
+			bits &= bits - 1;
+		return base + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * @return the number of slots, which are numbered from 0
+	 */
+	static int slotCount() {
+		return SLOT_NAMES.length;
+	}
+
+	/**
+	 * @return the name of the feature held in a slot
+	 */
+	static String slotName(int slot) {
+		return SLOT_NAMES[slot];
+	}
+
+	/**
+	 * @return the position of the value of a feature if it is held in a slot,
+	 * 		or -1
+	 */
+	int positionOf(String name) {
+		int slot = slotOf(name);
+		return slot >= 0 && isPresent(slot) ? indexOf(slot) : -1;
+	}
+
+	/**
+	 * @return the entries which are not held in slots, which write through to
+	 * 		this map
+	 */
+	Set<Map.Entry<String, Object>> overflowEntries() {
+		if(overflow == null)
+			return Collections.emptySet();
+		return overflow.entrySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		// not kept, to save a field in every element
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return FeatureMap.this.size();
+			}
+
+			@Override
+			public void clear() {
+				FeatureMap.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Iterates over the present slots in slot order, then over the overflow
+	 * map.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		private int                                 nextSlot = nextPresentSlot(0);
+		private int                                 lastSlot = -1;
+		private Iterator<Map.Entry<String, Object>> overflowIterator;
+		private boolean                             lastFromOverflow;
+
+		private int nextPresentSlot(int from) {
+			if(from < 64) {
+				long bits = present0 & (-1L << from);
+				if(bits != 0)
+					return Long.numberOfTrailingZeros(bits);
+				from = 64;
+			}
+			if(from < 128) {
+				long bits = present1 & (-1L << from);
+				if(bits != 0)
+					return 64 + Long.numberOfTrailingZeros(bits);
+			}
+			return -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(nextSlot >= 0)
+				return true;
+			if(overflowIterator == null) {
+				if(overflow == null)
+					return false;
+				overflowIterator = overflow.entrySet().iterator();
+			}
+			return overflowIterator.hasNext();
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if(nextSlot >= 0) {
+				lastSlot = nextSlot;
+				lastFromOverflow = false;
+				nextSlot = nextPresentSlot(nextSlot + 1);
+				return new SlotEntry(SLOT_NAMES[lastSlot]);
+			}
+			if(!hasNext())
+				throw new NoSuchElementException();
+			lastSlot = -1;
+			lastFromOverflow = true;
+			return overflowIterator.next();
+		}
+
+		@Override
+		public void remove() {
+			if(lastFromOverflow) {
+				overflowIterator.remove();
+				lastFromOverflow = false;
+			} else if(lastSlot >= 0) {
+				FeatureMap.this.remove(SLOT_NAMES[lastSlot]);
+				lastSlot = -1;
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	/**
+	 * An entry for a known feature, which reads and writes through to the map.
+	 */
+	private class SlotEntry implements Map.Entry<String, Object> {
+
+		private final String name;
+
+		SlotEntry(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getKey() {
+			return name;
+		}
+
+		@Override
+		public Object getValue() {
+			return get(name);
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			return put(name, value);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+			Object value = getValue();
+			return name.equals(other.getKey()) && (value == null ? other.getValue() == null
+			                                                     : value.equals(other.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return name.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return name + "=" + getValue();
+		}
+	}
+}
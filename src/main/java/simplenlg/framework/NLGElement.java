@@ -21,6 +21,7 @@ package simplenlg.framework;
 import java.util.*;
 
 import simplenlg.features.Feature;
+import simplenlg.features.InternalFeature;
 import simplenlg.features.NumberAgreement;
 import simplenlg.features.Tense;
 
@@ -43,13 +44,15 @@ import simplenlg.features.Tense;
  *
  * <p>
  * The features are stored in a <code>Map</code> of <code>String</code> (the
- * feature name) and <code>Object</code> (the value of the feature).
+ * feature name) and <code>Object</code> (the value of the feature), which is a
+ * compact {@link FeatureMap} rather than a <code>HashMap</code>, as there are
+ * very many elements, each with only a few features.
  * </p>
  *
  * @author D. Westwater, University of Aberdeen.
  * @version 4.0
  */
-public abstract class NLGElement {
+public abstract class NLGElement implements Cloneable {
 
 	/**
 	 * The category of this element.
@@ -57,9 +60,10 @@ public abstract class NLGElement {
 	private ElementCategory category;
 
 	/**
-	 * The features of this element.
+	 * The features of this element. They are held in a {@link FeatureMap}
+	 * unless a subclass has put another kind of map here.
 	 */
-	protected HashMap<String, Object> features = new HashMap<String, Object>();
+	protected Map<String, Object> features = new FeatureMap();
 
 	/**
 	 * The parent of this element.
@@ -76,12 +80,21 @@ public abstract class NLGElement {
 	 */
 	private NLGFactory factory;
 
+	boolean frozen = false; // true if this element is read-only
+
+	boolean linked = false; // true if a frozen element's parent was the element above it
+
+	private ElementFingerprint fingerprint; // cached, or null if not known
+
+	private NLGElement fingerprintParent; // the element whose cached fingerprint includes this one's
+
 	/**
 	 * Sets the category of this element.
 	 *
 	 * @param newCategory the new <code>ElementCategory</code> for this element.
 	 */
 	public void setCategory(ElementCategory newCategory) {
+		checkMutable();
 		this.category = newCategory;
 	}
 
@@ -97,16 +110,20 @@ public abstract class NLGElement {
 	/**
 	 * Adds a feature to the feature map. If the feature already exists then it
 	 * is given the new value. If the value provided is <code>null</code> the
-	 * feature is removed from the map.
+	 * feature is removed from the map. <code>Boolean</code> values are stored
+	 * as <code>Boolean.TRUE</code> or <code>Boolean.FALSE</code>.
 	 *
 	 * @param featureName the name of the feature.
 	 * @param featureValue the new value of the feature or <code>null</code> if the
 	 * 		feature is to be removed.
 	 */
 	public void setFeature(String featureName, Object featureValue) {
+		checkMutable();
 		if(featureName != null) {
 			if(featureValue == null) {
 				this.features.remove(featureName);
+			} else if(featureValue instanceof Boolean) {
+				this.features.put(featureName, Boolean.valueOf((Boolean) featureValue));
 			} else {
 				this.features.put(featureName, featureValue);
 			}
@@ -114,38 +131,45 @@ public abstract class NLGElement {
 	}
 
 	/**
-	 * A convenience method for setting boolean features.
+	 * A convenience method for setting boolean features. The value is stored
+	 * as <code>Boolean.TRUE</code> or <code>Boolean.FALSE</code>, so nothing is
+	 * allocated.
 	 *
 	 * @param featureName the name of the feature.
 	 * @param featureValue the <code>boolean</code> value of the feature.
 	 */
 	public void setFeature(String featureName, boolean featureValue) {
+		checkMutable();
 		if(featureName != null) {
-			this.features.put(featureName, new Boolean(featureValue));
+			this.features.put(featureName, Boolean.valueOf(featureValue));
 		}
 	}
 
 	/**
-	 * A convenience method for setting integer features.
+	 * A convenience method for setting integer features. Small values are
+	 * stored as the cached <code>Integer</code>s, so nothing is allocated.
 	 *
 	 * @param featureName the name of the feature.
 	 * @param featureValue the <code>int</code> value of the feature.
 	 */
 	public void setFeature(String featureName, int featureValue) {
+		checkMutable();
 		if(featureName != null) {
-			this.features.put(featureName, new Integer(featureValue));
+			this.features.put(featureName, Integer.valueOf(featureValue));
 		}
 	}
 
 	/**
-	 * A convenience method for setting long integer features.
+	 * A convenience method for setting long integer features. Small values are
+	 * stored as the cached <code>Long</code>s, so nothing is allocated.
 	 *
 	 * @param featureName the name of the feature.
 	 * @param featureValue the <code>long</code> value of the feature.
 	 */
 	public void setFeature(String featureName, long featureValue) {
+		checkMutable();
 		if(featureName != null) {
-			this.features.put(featureName, new Long(featureValue));
+			this.features.put(featureName, Long.valueOf(featureValue));
 		}
 	}
 
@@ -156,8 +180,9 @@ public abstract class NLGElement {
 	 * @param featureValue the <code>float</code> value of the feature.
 	 */
 	public void setFeature(String featureName, float featureValue) {
+		checkMutable();
 		if(featureName != null) {
-			this.features.put(featureName, new Float(featureValue));
+			this.features.put(featureName, Float.valueOf(featureValue));
 		}
 	}
 
@@ -169,8 +194,9 @@ public abstract class NLGElement {
 	 * @param featureValue the <code>double</code> value of the feature.
 	 */
 	public void setFeature(String featureName, double featureValue) {
+		checkMutable();
 		if(featureName != null) {
-			this.features.put(featureName, new Double(featureValue));
+			this.features.put(featureName, Double.valueOf(featureValue));
 		}
 	}
 
@@ -320,10 +346,10 @@ public abstract class NLGElement {
 		if(value instanceof Integer) {
 			intValue = (Integer) value;
 		} else if(value instanceof Number) {
-			intValue = new Integer(((Number) value).intValue());
+			intValue = Integer.valueOf(((Number) value).intValue());
 		} else if(value instanceof String) {
 			try {
-				intValue = new Integer((String) value);
+				intValue = Integer.valueOf((String) value);
 			} catch(NumberFormatException exception) {
 				intValue = null;
 			}
@@ -347,10 +373,10 @@ public abstract class NLGElement {
 		if(value instanceof Long) {
 			longValue = (Long) value;
 		} else if(value instanceof Number) {
-			longValue = new Long(((Number) value).longValue());
+			longValue = Long.valueOf(((Number) value).longValue());
 		} else if(value instanceof String) {
 			try {
-				longValue = new Long((String) value);
+				longValue = Long.valueOf((String) value);
 			} catch(NumberFormatException exception) {
 				longValue = null;
 			}
@@ -374,10 +400,10 @@ public abstract class NLGElement {
 		if(value instanceof Float) {
 			floatValue = (Float) value;
 		} else if(value instanceof Number) {
-			floatValue = new Float(((Number) value).floatValue());
+			floatValue = Float.valueOf(((Number) value).floatValue());
 		} else if(value instanceof String) {
 			try {
-				floatValue = new Float((String) value);
+				floatValue = Float.valueOf((String) value);
 			} catch(NumberFormatException exception) {
 				floatValue = null;
 			}
@@ -401,10 +427,10 @@ public abstract class NLGElement {
 		if(value instanceof Double) {
 			doubleValue = (Double) value;
 		} else if(value instanceof Number) {
-			doubleValue = new Double(((Number) value).doubleValue());
+			doubleValue = Double.valueOf(((Number) value).doubleValue());
 		} else if(value instanceof String) {
 			try {
-				doubleValue = new Double((String) value);
+				doubleValue = Double.valueOf((String) value);
 			} catch(NumberFormatException exception) {
 				doubleValue = null;
 			}
@@ -432,6 +458,91 @@ public abstract class NLGElement {
 		return boolValue;
 	}
 
+	/**
+	 * Retrieves the value of the feature as a <code>boolean</code>, as
+	 * {@link #getFeatureAsBoolean(String)} but without a <code>Boolean</code>
+	 * to unwrap.
+	 *
+	 * @param featureName the name of the feature.
+	 * @return <code>true</code> if the feature is <code>Boolean.TRUE</code>,
+	 * 		<code>false</code> otherwise.
+	 */
+	public boolean getFeatureAsBooleanPrimitive(String featureName) {
+		return Boolean.TRUE.equals(getFeature(featureName));
+	}
+
+	/**
+	 * Retrieves the value of the feature as an <code>int</code>, as
+	 * {@link #getFeatureAsInteger(String)} but without allocating an
+	 * <code>Integer</code>.
+	 *
+	 * @param featureName the name of the feature.
+	 * @param defaultValue the value to return if the feature does not exist or
+	 * 		cannot be converted to an integer.
+	 * @return the <code>int</code> representation of the value.
+	 */
+	public int getFeatureAsIntPrimitive(String featureName, int defaultValue) {
+		Object value = getFeature(featureName);
+		if(value instanceof Number) {
+			return ((Number) value).intValue();
+		} else if(value instanceof String) {
+			try {
+				return Integer.parseInt((String) value);
+			} catch(NumberFormatException exception) {
+				return defaultValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Retrieves the value of the feature as a <code>long</code>, as
+	 * {@link #getFeatureAsLong(String)} but without allocating a
+	 * <code>Long</code>.
+	 *
+	 * @param featureName the name of the feature.
+	 * @param defaultValue the value to return if the feature does not exist or
+	 * 		cannot be converted to a long.
+	 * @return the <code>long</code> representation of the value.
+	 */
+	public long getFeatureAsLongPrimitive(String featureName, long defaultValue) {
+		Object value = getFeature(featureName);
+		if(value instanceof Number) {
+			return ((Number) value).longValue();
+		} else if(value instanceof String) {
+			try {
+				return Long.parseLong((String) value);
+			} catch(NumberFormatException exception) {
+				return defaultValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Retrieves the value of the feature as a <code>double</code>, as
+	 * {@link #getFeatureAsDouble(String)} but without allocating a
+	 * <code>Double</code>.
+	 *
+	 * @param featureName the name of the feature.
+	 * @param defaultValue the value to return if the feature does not exist or
+	 * 		cannot be converted to a double.
+	 * @return the <code>double</code> representation of the value.
+	 */
+	public double getFeatureAsDoublePrimitive(String featureName, double defaultValue) {
+		Object value = getFeature(featureName);
+		if(value instanceof Number) {
+			return ((Number) value).doubleValue();
+		} else if(value instanceof String) {
+			try {
+				return Double.parseDouble((String) value);
+			} catch(NumberFormatException exception) {
+				return defaultValue;
+			}
+		}
+		return defaultValue;
+	}
+
 	/**
 	 * Retrieves the value of the feature as a <code>NLGElement</code>. If the
 	 * value is a string then it is wrapped in a <code>StringElement</code>. If
@@ -454,12 +565,13 @@ public abstract class NLGElement {
 	}
 
 	/**
-	 * Retrieves the map containing all the features for this element.
+	 * Retrieves the map containing all the features for this element. The map
+	 * is unmodifiable if this element is frozen.
 	 *
 	 * @return a <code>Map</code> of <code>String</code>, <code>Object</code>.
 	 */
 	public Map<String, Object> getAllFeatures() {
-		return this.features;
+		return this.frozen ? Collections.unmodifiableMap(this.features) : this.features;
 	}
 
 	/**
@@ -479,6 +591,7 @@ public abstract class NLGElement {
 	 * @param featureName the name of the feature to be removed.
 	 */
 	public void removeFeature(String featureName) {
+		checkMutable();
 		this.features.remove(featureName);
 	}
 
@@ -486,6 +599,7 @@ public abstract class NLGElement {
 	 * Deletes all the features in the map.
 	 */
 	public void clearAllFeatures() {
+		checkMutable();
 		this.features.clear();
 	}
 
@@ -496,6 +610,7 @@ public abstract class NLGElement {
 	 * 		element.
 	 */
 	public void setParent(NLGElement newParent) {
+		checkMutable();
 		this.parent = newParent;
 	}
 
@@ -515,6 +630,7 @@ public abstract class NLGElement {
 	 * 		this element.
 	 */
 	public void setRealisation(String realised) {
+		checkMutable();
 		this.realisation = realised;
 	}
 
@@ -584,12 +700,13 @@ public abstract class NLGElement {
 
 	/**
 	 * Retrieves the set of features currently contained in the feature map.
+	 * The set is unmodifiable if this element is frozen.
 	 *
 	 * @return a <code>Set</code> of <code>String</code>s representing the
 	 * 		feature names. The set is unordered.
 	 */
 	public Set<String> getAllFeatureNames() {
-		return this.features.keySet();
+		return this.frozen ? Collections.unmodifiableSet(this.features.keySet()) : this.features.keySet();
 	}
 
 	public String printTree(String indent) {
@@ -723,7 +840,7 @@ public abstract class NLGElement {
 	 */
 	@Deprecated
 	public boolean isNegated() {
-		return getFeatureAsBoolean(Feature.NEGATED).booleanValue();
+		return getFeatureAsBooleanPrimitive(Feature.NEGATED);
 	}
 
 	/**
@@ -737,9 +854,336 @@ public abstract class NLGElement {
 	 * @param factory the NLG factory to set
 	 */
 	public void setFactory(NLGFactory factory) {
+		checkMutable();
 		this.factory = factory;
 	}
 
+	/**
+	 * Called before any change is made to this element.
+	 *
+	 * @throws UnsupportedOperationException if this element is frozen
+	 */
+	protected void checkMutable() {
+		if(this.frozen)
+			throw new UnsupportedOperationException(toString() + " is frozen and cannot be changed");
+		if(this.fingerprint != null)
+			forgetFingerprint();
+	}
+
+	/**********************************************************/
+	// read-only elements
+	/**********************************************************/
+
+	/**
+	 * @return <code>true</code> if this element is read-only, for example a
+	 * 		word from a frozen lexicon, or an element of a frozen phrase (see
+	 * 		{@link PhraseElement#freeze()})
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+	/**
+	 * Get a version of this element, and of the elements beneath it, which
+	 * can be changed. If neither this element nor any element beneath it is
+	 * frozen, that is this element. Otherwise it is a copy of this element
+	 * and of the elements beneath it, frozen or not, so this element is left
+	 * as it was; the copies have the same parents, within the copy, as the
+	 * elements had. Words which are only referred to as the base word of
+	 * another word are not copied.
+	 * <p>
+	 * This is how frozen elements are copied on write: the realiser, which
+	 * changes the elements it is given, uses the version returned by
+	 * {@link #thawSharingWords()}.
+	 *
+	 * @return this element or a copy of it
+	 */
+	public NLGElement thaw() {
+		if(this.frozen || containsFrozen(this, false))
+			return copyTree(this, THAW_ALL);
+		return this;
+	}
+
+	/**
+	 * Get a version of this element which can be changed, as
+	 * {@link #thaw()} does, except that the frozen words beneath it are
+	 * shared rather than copied, so they must be copied by whatever changes
+	 * them. The realiser uses this, as it changes few of the words it is
+	 * given, and copies those it changes.
+	 *
+	 * @return this element or a copy of it
+	 */
+	public NLGElement thawSharingWords() {
+		if(this.frozen || containsFrozen(this, true))
+			return copyTree(this, THAW_SHARING_WORDS);
+		return this;
+	}
+
+	/**
+	 * A helper method for the methods which add an element to another, and
+	 * change it.
+	 *
+	 * @param element the element to add, which may be <code>null</code>.
+	 * @return the element, or a copy of it which can be changed if it is
+	 * 		frozen.
+	 */
+	protected static NLGElement copyIfFrozen(NLGElement element) {
+		return element != null && element.frozen ? copyTree(element, COPY) : element;
+	}
+
+	/**
+	 * Copy this element and the elements beneath it, for example to reuse a
+	 * template without building it again through the {@link NLGFactory}. The
+	 * copy can be changed without changing this element: every element
+	 * beneath it is copied, and given the copy of its parent, and so are the
+	 * lists of elements, such as the complements and modifiers. Frozen
+	 * elements beneath a mutable one, such as the words of a frozen lexicon,
+	 * are shared, as they are copied when they are changed. If this element
+	 * is frozen, the copy is the same as {@link #thaw()}.
+	 * <p>
+	 * The copy has no parent, and the values of other features are shared.
+	 *
+	 * @return a copy of this element which is not frozen
+	 */
+	public NLGElement deepCopy() {
+		return copyTree(this, COPY);
+	}
+
+	/**
+	 * @return the features of this element as a {@link FeatureMap}, which
+	 * 		replaces any other kind of map that a subclass has put in
+	 * 		<code>features</code>
+	 */
+	FeatureMap featureMap() {
+		if(!(this.features instanceof FeatureMap))
+			this.features = new FeatureMap(this.features);
+		return (FeatureMap) this.features;
+	}
+
+	/** Copy the elements which are frozen, or mutable, as the top one is. */
+	private static final int COPY = 0;
+
+	/** Copy every element. */
+	private static final int THAW_ALL = 1;
+
+	/** Copy every element apart from frozen words. */
+	private static final int THAW_SHARING_WORDS = 2;
+
+	/**
+	 * @return a copy of an element, and of the elements beneath it chosen by
+	 * 		<code>mode</code>, one of {@link #COPY}, {@link #THAW_ALL} and
+	 * 		{@link #THAW_SHARING_WORDS}
+	 */
+	private static NLGElement copyTree(NLGElement element, int mode) {
+		NLGElement copy = element.shallowCopy();
+		FeatureMap features = copy.featureMap();
+		int baseWord = features.positionOf(InternalFeature.BASE_WORD);
+		for(int i = features.slotValueCount() - 1; i >= 0; i--) {
+			if(i != baseWord)
+				features.setSlotValueAt(i, copyValue(features.slotValueAt(i), element, copy, mode));
+		}
+		for(Map.Entry<String, Object> entry : features.overflowEntries())
+			entry.setValue(copyValue(entry.getValue(), element, copy, mode));
+		return copy;
+	}
+
+	private static Object copyValue(Object value, NLGElement original, NLGElement copy, int mode) {
+		if(value instanceof NLGElement)
+			return copyChild((NLGElement) value, original, copy, mode);
+		if(value instanceof List<?>) {
+			List<?> values = (List<?>) value;
+			List<Object> copies = new ArrayList<Object>(values.size());
+			for(int i = 0; i < values.size(); i++) {
+				Object item = values.get(i);
+				copies.add(item instanceof NLGElement ? copyChild((NLGElement) item, original, copy, mode) : item);
+			}
+			return copies;
+		}
+		return value;
+	}
+
+	private static NLGElement copyChild(NLGElement child, NLGElement original, NLGElement copy, int mode) {
+		if(mode == COPY ? child.frozen != original.frozen : mode == THAW_SHARING_WORDS && isFrozenWord(child))
+			return child;
+		NLGElement childCopy = copyTree(child, mode);
+		if(child.frozen ? child.linked : child.parent == original)
+			childCopy.parent = copy;
+		return childCopy;
+	}
+
+	private static boolean isFrozenWord(NLGElement element) {
+		return element.frozen && element instanceof WordElement;
+	}
+
+	/**
+	 * @return <code>true</code> if there is a frozen element beneath an
+	 * 		element, not counting base words, nor other words if
+	 * 		<code>sharingWords</code> is <code>true</code>
+	 */
+	private static boolean containsFrozen(NLGElement element, boolean sharingWords) {
+		FeatureMap features = element.featureMap();
+		int baseWord = features.positionOf(InternalFeature.BASE_WORD);
+		for(int i = features.slotValueCount() - 1; i >= 0; i--) {
+			if(i != baseWord && isOrContainsFrozen(features.slotValueAt(i), sharingWords))
+				return true;
+		}
+		for(Map.Entry<String, Object> entry : features.overflowEntries()) {
+			if(isOrContainsFrozen(entry.getValue(), sharingWords))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isOrContainsFrozen(Object value, boolean sharingWords) {
+		if(value instanceof NLGElement) {
+			NLGElement child = (NLGElement) value;
+			if(sharingWords && isFrozenWord(child))
+				return false;
+			return child.frozen || containsFrozen(child, sharingWords);
+		}
+		if(value instanceof List<?>) {
+			List<?> values = (List<?>) value;
+			for(int i = 0; i < values.size(); i++) {
+				if(isOrContainsFrozen(values.get(i), sharingWords))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return a copy of this element, which is not frozen and has no parent;
+	 * 		it has its own feature map, but shares the values of the
+	 * 		features
+	 */
+	NLGElement shallowCopy() {
+		NLGElement copy;
+		try {
+			copy = (NLGElement) super.clone();
+		} catch(CloneNotSupportedException ex) {
+			throw new AssertionError(ex);
+		}
+		copy.features = new FeatureMap(this.features);
+		copy.parent = null;
+		copy.frozen = false;
+		copy.linked = false;
+		copy.fingerprint = null;
+		copy.fingerprintParent = null;
+		return copy;
+	}
+
+	/**********************************************************/
+	// structural fingerprints
+	/**********************************************************/
+
+	/**
+	 * Get the fingerprint of the structure of this element and the elements
+	 * beneath it (see {@link ElementFingerprint}). Elements with the same
+	 * structure, for example copies, have the same fingerprint, whether or
+	 * not they are frozen, so trees can be compared by their fingerprints
+	 * rather than feature by feature.
+	 * <p>
+	 * The fingerprint is kept until this element, or one beneath it, is
+	 * changed, so is only worked out again for the elements which have
+	 * changed, and those above them. Changes made directly to the map of
+	 * {@link #getAllFeatures()} or to lists of elements held as features are
+	 * not noticed; the elements' methods should be used instead. An element
+	 * which is beneath two elements is only included in the kept fingerprint
+	 * of one of them.
+	 *
+	 * @return the fingerprint of this element
+	 */
+	public ElementFingerprint getFingerprint() {
+		ElementFingerprint cached = this.fingerprint;
+		if(cached != null)
+			return cached;
+
+		ElementFingerprint.Hasher hasher = new ElementFingerprint.Hasher();
+		hasher.add(getClass()).addValue(this.category).add(this.realisation);
+		if(this instanceof WordElement)
+			hasher.add(((WordElement) this).baseForm).add(((WordElement) this).id);
+
+		// the features are hashed one by one and summed, as their order does
+		// not matter
+		ElementFingerprint.Hasher featureHasher = new ElementFingerprint.Hasher();
+		FeatureMap features = featureMap();
+		long high = 0;
+		long low = 0;
+		boolean keep = true;
+		for(int i = features.slotValueCount() - 1; i >= 0; i--) {
+			Object value = features.slotValueAt(i);
+			featureHasher.reset().addSlotName(features.slotAt(i)).addValue(value).mix();
+			high += featureHasher.getHigh();
+			low += featureHasher.getLow();
+			keep &= canKeepFingerprintWith(value);
+		}
+		for(Map.Entry<String, Object> entry : features.overflowEntries()) {
+			featureHasher.reset().add(entry.getKey()).addValue(entry.getValue()).mix();
+			high += featureHasher.getHigh();
+			low += featureHasher.getLow();
+			keep &= canKeepFingerprintWith(entry.getValue());
+		}
+		ElementFingerprint result = hasher.add(features.size()).add(high).add(low).finish();
+
+		if(keep) {
+			// changes to the mutable elements beneath will now forget it
+			for(int i = features.slotValueCount() - 1; i >= 0; i--)
+				includeFingerprintOf(features.slotValueAt(i));
+			for(Map.Entry<String, Object> entry : features.overflowEntries())
+				includeFingerprintOf(entry.getValue());
+			this.fingerprint = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> if the fingerprint of a feature value will not
+	 * 		change unless this element is told of it: it is not an element, or
+	 * 		it is frozen, or its fingerprint is kept and is not included in
+	 * 		the kept fingerprint of another element
+	 */
+	private boolean canKeepFingerprintWith(Object value) {
+		if(value instanceof NLGElement) {
+			NLGElement child = (NLGElement) value;
+			return child.frozen || child.fingerprint != null && (child.fingerprintParent == null
+			                                                     || child.fingerprintParent == this
+			                                                     || child.fingerprintParent.fingerprint == null);
+		}
+		if(value instanceof List<?>) {
+			List<?> values = (List<?>) value;
+			for(int i = 0; i < values.size(); i++) {
+				if(!canKeepFingerprintWith(values.get(i)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private void includeFingerprintOf(Object value) {
+		if(value instanceof NLGElement) {
+			if(!((NLGElement) value).frozen)
+				((NLGElement) value).fingerprintParent = this;
+		} else if(value instanceof List<?>) {
+			List<?> values = (List<?>) value;
+			for(int i = 0; i < values.size(); i++)
+				includeFingerprintOf(values.get(i));
+		}
+	}
+
+	/**
+	 * forget the kept fingerprints of this element and of the elements whose
+	 * fingerprints include it
+	 */
+	private void forgetFingerprint() {
+		NLGElement element = this;
+		while(element != null && element.fingerprint != null) {
+			NLGElement next = element.fingerprintParent;
+			element.fingerprint = null;
+			element.fingerprintParent = null;
+			element = next;
+		}
+	}
+
 	/**
 	 * An NLG element is equal to some object if the object is an NLGElement,
 	 * they have the same category and the same features.
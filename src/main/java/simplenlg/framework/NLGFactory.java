@@ -229,10 +229,13 @@ public class NLGFactory {
 
 	/**
 	 * Creates a new element representing a word. If the word passed is already
-	 * an <code>NLGElement</code> then that is returned unchanged. If a
+	 * an <code>NLGElement</code> then that is returned unchanged, unless it is
+	 * a frozen <code>WordElement</code>, in which case a copy is returned. If a
 	 * <code>String</code> is passed as the word then the factory will look up
 	 * the <code>Lexicon</code> if one exists and use the details found to
-	 * create a new <code>WordElement</code>.
+	 * create a new <code>WordElement</code>. As phrases change the words
+	 * added to them, a word found in a frozen lexicon is copied: the lookup
+	 * copies no words and no lists, and this copies the one word chosen.
 	 *
 	 * @param word the base word for the new element. This can be a
 	 * 		<code>NLGElement</code>, which is returned unchanged, or a
@@ -244,7 +247,7 @@ public class NLGFactory {
 	public NLGElement createWord(Object word, LexicalCategory category) {
 		NLGElement wordElement = null;
 		if(word instanceof NLGElement) {
-			wordElement = (NLGElement) word;
+			wordElement = NLGElement.copyIfFrozen((NLGElement) word);
 
 		} else if(word instanceof String && this.lexicon != null) {
 			// AG: change: should create a WordElement, not an
@@ -255,7 +258,7 @@ public class NLGFactory {
 			// doLexiconLookUp(category, (String) word, wordElement);
 			// }
 			// wordElement = lexicon.getWord((String) word, category);
-			wordElement = lexicon.lookupWord((String) word, category);
+			wordElement = NLGElement.copyIfFrozen(lexicon.lookupWord((String) word, category));
 			if(PRONOUNS.contains(word)) {
 				setPronounFeatures(wordElement, (String) word);
 			}
@@ -264,6 +267,7 @@ public class NLGFactory {
 		return wordElement;
 	}
 
+
 	/**
 	 * Create an inflected word element. InflectedWordElement represents a word
 	 * that already specifies the morphological and other features that it
@@ -451,10 +455,11 @@ public class NLGFactory {
 	 * this method creates an NLGElement from an object If object is null,
 	 * return null If the object is already an NLGElement, it is returned
 	 * unchanged Exception: if it is an InflectedWordElement, return underlying
-	 * WordElement If it is a String which matches a lexicon entry or pronoun,
-	 * the relevant WordElement is returned If it is a different String, a
-	 * wordElement is created if the string is a single word Otherwise a
-	 * StringElement is returned Otherwise throw an exception
+	 * WordElement (frozen WordElements are copied) If it is a String which
+	 * matches a lexicon entry or pronoun, the relevant WordElement is returned
+	 * If it is a different String, a wordElement is created if the string is a
+	 * single word Otherwise a StringElement is returned Otherwise throw an
+	 * exception
 	 *
 	 * @param element - object to look up
 	 * @param category - default lexical category of object
@@ -466,7 +471,7 @@ public class NLGFactory {
 
 			// InflectedWordElement - return underlying word
 		else if(element instanceof InflectedWordElement)
-			return ((InflectedWordElement) element).getBaseWord();
+			return NLGElement.copyIfFrozen(((InflectedWordElement) element).getBaseWord());
 
 			// StringElement - look up in lexicon if it is a word
 			// otherwise return element
@@ -474,12 +479,12 @@ public class NLGFactory {
 			if(stringIsWord(((StringElement) element).getRealisation(), category))
 				return createWord(((StringElement) element).getRealisation(), category);
 			else
-				return (StringElement) element;
+				return NLGElement.copyIfFrozen((StringElement) element);
 		}
 
 		// other NLGElement - return element
 		else if(element instanceof NLGElement)
-			return (NLGElement) element;
+			return NLGElement.copyIfFrozen((NLGElement) element);
 
 			// String - look up in lexicon if a word, otherwise return StringElement
 		else if(element instanceof String) {
@@ -526,7 +531,7 @@ public class NLGFactory {
 	 */
 	public NPPhraseSpec createNounPhrase(Object noun) {
 		if(noun instanceof NPPhraseSpec)
-			return (NPPhraseSpec) noun;
+			return (NPPhraseSpec) NLGElement.copyIfFrozen((NPPhraseSpec) noun);
 		else
 			return createNounPhrase(null, noun);
 	}
@@ -540,7 +545,7 @@ public class NLGFactory {
 	 */
 	public NPPhraseSpec createNounPhrase(Object specifier, Object noun) {
 		if(noun instanceof NPPhraseSpec)
-			return (NPPhraseSpec) noun;
+			return (NPPhraseSpec) NLGElement.copyIfFrozen((NPPhraseSpec) noun);
 
 		NPPhraseSpec phraseElement = new NPPhraseSpec(this);
 		NLGElement nounElement = createNLGElement(noun, LexicalCategory.NOUN);
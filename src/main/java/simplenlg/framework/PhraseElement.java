@@ -196,6 +196,7 @@ public class PhraseElement extends NLGElement {
 	 * @param newComplement the new complement as an <code>NLGElement</code>.
 	 */
 	public void addComplement(NLGElement newComplement) {
+		newComplement = copyIfFrozen(newComplement);
 		List<NLGElement> complements = getFeatureAsElementList(InternalFeature.COMPLEMENTS);
 		if(complements == null) {
 			complements = new ArrayList<NLGElement>();
@@ -299,6 +300,7 @@ public class PhraseElement extends NLGElement {
 		if(postModifiers == null) {
 			postModifiers = new ArrayList<NLGElement>();
 		}
+		newPostModifier = copyIfFrozen(newPostModifier);
 		newPostModifier.setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.POST_MODIFIER);
 		postModifiers.add(newPostModifier);
 		setFeature(InternalFeature.POSTMODIFIERS, postModifiers);
@@ -544,4 +546,29 @@ public class PhraseElement extends NLGElement {
 			determinerElement.setParent(this);
 		}
 	}
+
+	/**
+	 * Get a frozen version of this phrase and of every element beneath it,
+	 * which can be shared, for example by all the documents built from a
+	 * template. Equal phrases are shared too: the phrase returned is the
+	 * canonical phrase equal to this one (see {@link ElementInterner}). Unless
+	 * this phrase is already frozen, it is a copy which is frozen, so this
+	 * phrase is left as it was and can still be changed.
+	 * <p>
+	 * Any attempt to change a frozen element throws an
+	 * <code>UnsupportedOperationException</code>; {@link #thaw()} gives a copy
+	 * which can be changed. Frozen phrases can still be realised, and added to
+	 * other phrases and documents, which take a copy when they change it.
+	 * <p>
+	 * Words which are only the base word of another word are not frozen, so
+	 * a frozen phrase is only safe to share between threads while they are
+	 * not changed. Words from a frozen lexicon, such as the default lexicon,
+	 * cannot be changed.
+	 *
+	 * @return the frozen phrase equal to this one
+	 */
+	public PhraseElement freeze() {
+		PhraseElement phrase = isFrozen() ? this : (PhraseElement) deepCopy();
+		return ElementInterner.getShared().intern(phrase);
+	}
 }
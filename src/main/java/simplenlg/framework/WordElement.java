@@ -47,18 +47,18 @@ public class WordElement extends NLGElement {
 	 * it is convenient to have the set of irregular inflected forms available
 	 * without necessitating a new call to the lexicon to get the forms.
 	 */
-	private class InflectionSet {
+	private static class InflectionSet {
 
 		// the infl type
 		@SuppressWarnings("unused")
 		Inflection infl;
 
-		// the forms, mapping values of LexicalFeature to actual word forms
+		// the forms, mapping values of LexicalFeature to actual word forms;
+		// null until a form is added, as most sets have no forms
 		Map<String, String> forms;
 
 		InflectionSet(Inflection infl) {
 			this.infl = infl;
-			this.forms = new HashMap<String, String>();
 		}
 
 		/*
@@ -69,6 +69,8 @@ public class WordElement extends NLGElement {
 		 * @param form
 		 */
 		void addForm(String feature, String form) {
+			if(this.forms == null)
+				this.forms = new HashMap<String, String>();
 			this.forms.put(feature, form);
 		}
 
@@ -76,7 +78,7 @@ public class WordElement extends NLGElement {
 		 * get an inflectional form
 		 */
 		String getForm(String feature) {
-			return this.forms.get(feature);
+			return this.forms == null ? null : this.forms.get(feature);
 		}
 	}
 
@@ -92,6 +94,8 @@ public class WordElement extends NLGElement {
 
 	Inflection defaultInfl; // the default inflectional variant
 
+	private boolean inflVarsShared = false; // true if inflVars is shared with a copy
+
 	// LexicalCategory category; // type of word
 
 	/**********************************************************/
@@ -137,7 +141,7 @@ public class WordElement extends NLGElement {
 		this.baseForm = baseForm;
 		setCategory(category);
 		this.id = id;
-		this.inflVars = new HashMap<Inflection, InflectionSet>();
+		this.inflVars = new EnumMap<Inflection, InflectionSet>(Inflection.class);
 	}
 
 	/**
@@ -150,9 +154,13 @@ public class WordElement extends NLGElement {
 		this.baseForm = currentWord.getBaseForm();
 		setCategory(currentWord.getCategory());
 		this.id = currentWord.getId();
-		this.inflVars = currentWord.getInflectionalVariants();
+		// inflectional variants are shared until either word changes them
+		this.inflVars = currentWord.inflVars;
+		this.inflVarsShared = true;
+		if(!currentWord.frozen)
+			currentWord.inflVarsShared = true;
 		this.defaultInfl = (Inflection) currentWord.getDefaultInflectionalVariant();
-		setFeatures(currentWord);
+		this.features.putAll(currentWord.features);
 	}
 
 	/**********************************************************/
@@ -177,6 +185,7 @@ public class WordElement extends NLGElement {
 	 * @param baseForm the baseForm to set
 	 */
 	public void setBaseForm(String baseForm) {
+		checkMutable();
 		this.baseForm = baseForm;
 	}
 
@@ -184,6 +193,7 @@ public class WordElement extends NLGElement {
 	 * @param id the id to set
 	 */
 	public void setId(String id) {
+		checkMutable();
 		this.id = id;
 	}
 
@@ -234,7 +244,7 @@ public class WordElement extends NLGElement {
 	 * @return the HashMap of inflectional variants
 	 */
 	public Map<Inflection, InflectionSet> getInflectionalVariants() {
-		return this.inflVars;
+		return this.frozen ? Collections.unmodifiableMap(this.inflVars) : this.inflVars;
 	}
 
 	/**
@@ -292,6 +302,8 @@ public class WordElement extends NLGElement {
 	 * @param form the actual inflected word form
 	 */
 	public void addInflectionalVariant(Inflection infl, String lexicalFeature, String form) {
+		checkMutable();
+		unshareInflectionalVariants();
 		if(this.inflVars.containsKey(infl)) {
 			this.inflVars.get(infl).addForm(lexicalFeature, form);
 		} else {
@@ -307,9 +319,29 @@ public class WordElement extends NLGElement {
 	 * @param infl the variant
 	 */
 	public void addInflectionalVariant(Inflection infl) {
+		checkMutable();
+		unshareInflectionalVariants();
 		this.inflVars.put(infl, new InflectionSet(infl));
 	}
 
+	/**
+	 * give this word its own copy of the inflectional variants, if they are
+	 * shared with a word it was copied from or to
+	 */
+	private void unshareInflectionalVariants() {
+		if(this.inflVarsShared) {
+			Map<Inflection, InflectionSet> copy = new EnumMap<Inflection, InflectionSet>(Inflection.class);
+			for(Map.Entry<Inflection, InflectionSet> entry : this.inflVars.entrySet()) {
+				InflectionSet set = new InflectionSet(entry.getKey());
+				if(entry.getValue().forms != null)
+					set.forms = new HashMap<String, String>(entry.getValue().forms);
+				copy.put(entry.getKey(), set);
+			}
+			this.inflVars = copy;
+			this.inflVarsShared = false;
+		}
+	}
+
 	/**
 	 * Check whether this word has a particular inflectional variant
 	 *
@@ -320,6 +352,37 @@ public class WordElement extends NLGElement {
 		return this.inflVars.containsKey(infl);
 	}
 
+	/**
+	 * Get the inflected forms which have been stored for an inflectional
+	 * variant of this word, via
+	 * {@link #addInflectionalVariant(Inflection, String, String)}.
+	 *
+	 * @param infl the variant
+	 * @return an unmodifiable map from inflectional features (eg
+	 * 		<code>LexicalFeature.PLURAL</code>) to word forms; empty if the
+	 * 		word does not have this variant or no forms have been stored
+	 */
+	public Map<String, String> getInflectionalVariantForms(Inflection infl) {
+		InflectionSet set = this.inflVars.get(infl);
+		if(set == null || set.forms == null) {
+			return Collections.emptyMap();
+		}
+		return Collections.unmodifiableMap(set.forms);
+	}
+
+	/**
+	 * Reduce the memory used by this word, by trimming its feature map to no
+	 * larger than its features need. Lexicons do this once a word has been
+	 * loaded, as most words have only a few features.
+	 *
+	 * @return this word
+	 */
+	public WordElement compact() {
+		checkMutable();
+		featureMap().trimToSize();
+		return this;
+	}
+
 	/**
 	 * Sets Features from another existing WordElement into this WordElement.
 	 *
@@ -333,6 +396,35 @@ public class WordElement extends NLGElement {
 		}
 	}
 
+	/**********************************************************/
+	// read-only words
+	/**********************************************************/
+
+	/**
+	 * Make this word read-only. Any later attempt to change it, including
+	 * setting its features or its parent, throws an
+	 * <code>UnsupportedOperationException</code>; use
+	 * {@link #WordElement(WordElement)} to get a copy which can be changed.
+	 * Frozen words can be shared safely, for example between all the users of
+	 * a lexicon.
+	 *
+	 * @return this word
+	 */
+	public WordElement freeze() {
+		this.frozen = true;
+		return this;
+	}
+
+	@Override
+	NLGElement shallowCopy() {
+		WordElement copy = (WordElement) super.shallowCopy();
+		// inflectional variants are shared until either word changes them
+		copy.inflVarsShared = true;
+		if(!this.frozen)
+			this.inflVarsShared = true;
+		return copy;
+	}
+
 	/**********************************************************/
 	// other methods
 
@@ -0,0 +1,401 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import simplenlg.features.Inflection;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.NLGElement;
+import simplenlg.framework.WordElement;
+
+/**
+ * This class gets words from a precompiled binary lexicon file, which is
+ * created from an XML lexicon or from the NIH Specialist Lexicon by
+ * {@link BinaryLexiconWriter}. The file is memory-mapped rather than parsed,
+ * so opening a lexicon is very quick, and lookups read the base form, variant
+ * and ID indices directly from the mapped file. The words returned are the
+ * same as those returned by the {@link XMLLexicon} or {@link NIHDBLexicon}
+ * the file was created from, and no database is needed to read it.
+ * <p>
+ * File layout (all numbers are big-endian ints unless stated otherwise):
+ * <UL>
+ * <LI>header: magic number, version, word count, the offsets of the word
+ * table, base form index, variant index, ID index and string section, and
+ * flags (version 2 onwards)
+ * <LI>word records: base form, category, ID and default inflection (as
+ * strings), then the features (name, type byte, value) and inflectional
+ * variants (inflection and the forms stored for it). List values are stored
+ * as a short count followed by string references or word numbers
+ * <LI>word table: offset of each word record, indexed by word number
+ * <LI>indices: open-addressing hash tables of (key hash, key, postings
+ * offset) slots, followed by the postings lists (count, then word numbers)
+ * <LI>strings: each string is stored once, as its UTF-8 length and bytes;
+ * strings are referred to by their offset in this section
+ * </UL>
+ */
+public class BinaryLexicon extends Lexicon {
+
+	// format constants, shared with BinaryLexiconWriter
+	static final int MAGIC       = 0x534E4C58; // "SNLX"
+	static final int VERSION     = 2;
+	static final int HEADER_SIZE = 36; // bytes (32 in version 1)
+	static final int SLOT_SIZE   = 12; // bytes per index slot
+	static final int NULL_REF    = -1; // reference to a null string
+
+	// feature value types
+	static final byte TYPE_STRING     = 0;
+	static final byte TYPE_BOOLEAN    = 1;
+	static final byte TYPE_INFLECTION = 2;
+	static final byte TYPE_STRING_LIST = 3;
+	static final byte TYPE_WORD_LIST   = 4;
+
+	// header flags
+	static final int FLAG_CASE_INSENSITIVE_VARIANTS = 1; // variant keys are lower case
+
+	// the mapped lexicon file
+	private ByteBuffer buffer;
+	private int        wordCount;
+	private int        wordTableOffset;
+	private int        baseIndexOffset;
+	private int        variantIndexOffset;
+	private int        idIndexOffset;
+	private int        stringsOffset;
+	private int        flags;
+
+	/**********************************************************************/
+	// constructors
+	/**********************************************************************/
+
+	/**
+	 * Load a binary lexicon from a named file.
+	 *
+	 * @param filename -- The String file path to the binary lexicon file.
+	 * @throws IOException if the file cannot be read, or is not a binary
+	 *                     lexicon
+	 */
+	public BinaryLexicon(String filename) throws IOException {
+		this(new File(filename));
+	}
+
+	/**
+	 * Load a binary lexicon from a File.
+	 *
+	 * @param file -- The {@link File} object to the binary lexicon file.
+	 * @throws IOException if the file cannot be read, or is not a binary
+	 *                     lexicon
+	 */
+	public BinaryLexicon(File file) throws IOException {
+		super();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			// mapping stays valid after the channel is closed
+			setBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Load a binary lexicon from a buffer which contains a binary lexicon
+	 * image, for example one which has been read from a classpath resource.
+	 *
+	 * @param buffer -- The {@link ByteBuffer} containing the lexicon.
+	 * @throws IOException if the buffer does not contain a binary lexicon
+	 */
+	public BinaryLexicon(ByteBuffer buffer) throws IOException {
+		super();
+		setBuffer(buffer.duplicate());
+	}
+
+	/**
+	 * read the header of the lexicon image
+	 */
+	private void setBuffer(ByteBuffer buffer) throws IOException {
+		if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a binary lexicon");
+		int version = buffer.getInt(4);
+		if(version != 1 && version != VERSION)
+			throw new IOException("Unsupported binary lexicon version " + version);
+
+		this.buffer = buffer;
+		this.wordCount = buffer.getInt(8);
+		this.wordTableOffset = buffer.getInt(12);
+		this.baseIndexOffset = buffer.getInt(16);
+		this.variantIndexOffset = buffer.getInt(20);
+		this.idIndexOffset = buffer.getInt(24);
+		this.stringsOffset = buffer.getInt(28);
+		this.flags = version == 1 ? 0 : buffer.getInt(32);
+	}
+
+	/**
+	 * @return the number of words in this lexicon
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+
+	/**
+	 * Variants are looked up regardless of case in lexicons created from the
+	 * NIH Specialist Lexicon, as they are by {@link NIHDBLexicon}.
+	 *
+	 * @return <code>true</code> if variants are looked up regardless of case
+	 */
+	public boolean isCaseInsensitiveVariants() {
+		return (flags & FLAG_CASE_INSENSITIVE_VARIANTS) != 0;
+	}
+
+	/******************************************************************************************/
+	// main methods to get data from lexicon
+	/******************************************************************************************/
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWords(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+		return getWordsFromIndex(baseForm, category, baseIndexOffset);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsByID(java.lang.String)
+	 */
+	@Override
+	public List<WordElement> getWordsByID(String id) {
+		return getWordsFromIndex(id, LexicalCategory.ANY, idIndexOffset);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsFromVariant(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+		if(variant != null && isCaseInsensitiveVariants())
+			variant = variant.toLowerCase();
+		return getWordsFromIndex(variant, category, variantIndexOffset);
+	}
+
+	/**
+	 * get matching words from an index
+	 */
+	private List<WordElement> getWordsFromIndex(String key, LexicalCategory category, int indexOffset) {
+		List<WordElement> result = new ArrayList<WordElement>();
+		int postings = findPostings(key, indexOffset);
+		if(postings < 0)
+			return result;
+
+		int count = buffer.getInt(postings);
+		for(int i = 0; i < count; i++) {
+			int wordOffset = getWordOffset(buffer.getInt(postings + 4 + 4 * i));
+			if(category == LexicalCategory.ANY || readCategory(wordOffset) == category)
+				result.add(readWord(wordOffset));
+		}
+		return result;
+	}
+
+	/**
+	 * get the offset of a word record from the word table
+	 */
+	private int getWordOffset(int wordNumber) {
+		return buffer.getInt(wordTableOffset + 4 * wordNumber);
+	}
+
+	/**
+	 * find the postings list for a key in an index
+	 *
+	 * @return offset of the postings list, or -1 if the key is not in the
+	 * 		index
+	 */
+	private int findPostings(String key, int indexOffset) {
+		if(key == null)
+			return -1;
+
+		int slotCount = buffer.getInt(indexOffset);
+		int hash = key.hashCode();
+		int slot = firstSlot(hash, slotCount);
+		while(true) {
+			int slotOffset = indexOffset + 4 + slot * SLOT_SIZE;
+			int keyRef = buffer.getInt(slotOffset + 4);
+			if(keyRef == NULL_REF)
+				return -1;
+			if(buffer.getInt(slotOffset) == hash && key.equals(readString(keyRef)))
+				return buffer.getInt(slotOffset + 8);
+			slot = (slot + 1) & (slotCount - 1);
+		}
+	}
+
+	/**
+	 * read the category of the word record at the given offset
+	 */
+	private LexicalCategory readCategory(int wordOffset) {
+		String category = readString(buffer.getInt(wordOffset + 4));
+		return category == null ? LexicalCategory.ANY : LexicalCategory.valueOf(category);
+	}
+
+	/**
+	 * create a WordElement from the word record at the given offset
+	 */
+	private WordElement readWord(int wordOffset) {
+		int position = wordOffset;
+		String base = readString(buffer.getInt(position));
+		LexicalCategory category = readCategory(wordOffset);
+		String id = readString(buffer.getInt(position + 8));
+		String defaultInfl = readString(buffer.getInt(position + 12));
+		position += 16;
+
+		WordElement word = new WordElement(base, category, id);
+		// set the default before adding variants, so that no inflected forms
+		// are copied into the features; the features are set below as stored
+		if(defaultInfl != null)
+			word.setDefaultInflectionalVariant(Inflection.valueOf(defaultInfl));
+
+		int featureCount = buffer.getShort(position);
+		int featuresPosition = position + 2;
+		position = skipFeatures(featuresPosition, featureCount);
+
+		int inflCount = buffer.getShort(position);
+		position += 2;
+		for(int i = 0; i < inflCount; i++) {
+			Inflection infl = Inflection.valueOf(readString(buffer.getInt(position)));
+			int formCount = buffer.getShort(position + 4);
+			position += 6;
+			word.addInflectionalVariant(infl);
+			for(int j = 0; j < formCount; j++) {
+				word.addInflectionalVariant(infl,
+				                            readString(buffer.getInt(position)),
+				                            readString(buffer.getInt(position + 4)));
+				position += 8;
+			}
+		}
+
+		word.clearAllFeatures();
+		position = featuresPosition;
+		for(int i = 0; i < featureCount; i++) {
+			String feature = readString(buffer.getInt(position));
+			byte type = buffer.get(position + 4);
+			position += 5;
+			switch(type){
+			case TYPE_STRING:
+				word.setFeature(feature, readString(buffer.getInt(position)));
+				position += 4;
+				break;
+			case TYPE_BOOLEAN:
+				word.setFeature(feature, buffer.get(position) != 0);
+				position += 1;
+				break;
+			case TYPE_INFLECTION:
+				word.setFeature(feature, Inflection.valueOf(readString(buffer.getInt(position))));
+				position += 4;
+				break;
+			case TYPE_STRING_LIST:
+				int stringCount = buffer.getShort(position);
+				List<String> strings = new ArrayList<String>(stringCount);
+				for(int j = 0; j < stringCount; j++)
+					strings.add(readString(buffer.getInt(position + 2 + 4 * j)));
+				word.setFeature(feature, strings);
+				position += 2 + 4 * stringCount;
+				break;
+			case TYPE_WORD_LIST:
+				int elementCount = buffer.getShort(position);
+				List<NLGElement> elements = new ArrayList<NLGElement>(elementCount);
+				for(int j = 0; j < elementCount; j++)
+					elements.add(readWord(getWordOffset(buffer.getInt(position + 2 + 4 * j))));
+				word.setFeature(feature, elements);
+				position += 2 + 4 * elementCount;
+				break;
+			default:
+				throw new IllegalStateException("Corrupt binary lexicon: feature type " + type);
+			}
+		}
+
+		return word;
+	}
+
+	/**
+	 * skip over the feature records of a word
+	 *
+	 * @return offset of the first byte after the features
+	 */
+	private int skipFeatures(int position, int featureCount) {
+		for(int i = 0; i < featureCount; i++) {
+			byte type = buffer.get(position + 4);
+			position += 5;
+			if(type == TYPE_BOOLEAN)
+				position += 1;
+			else if(type == TYPE_STRING_LIST || type == TYPE_WORD_LIST)
+				position += 2 + 4 * buffer.getShort(position);
+			else
+				position += 4;
+		}
+		return position;
+	}
+
+	/**
+	 * read a string from the string section
+	 */
+	private String readString(int ref) {
+		if(ref == NULL_REF)
+			return null;
+
+		int offset = stringsOffset + ref;
+		int length = buffer.getInt(offset);
+		byte[] bytes = new byte[length];
+		for(int i = 0; i < length; i++)
+			bytes[i] = buffer.get(offset + 4 + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**********************************************************************/
+	// index layout, shared with BinaryLexiconWriter
+	/**********************************************************************/
+
+	/**
+	 * number of slots to use in an index with the given number of keys; this
+	 * is a power of two, and at most half full
+	 */
+	static int slotCountFor(int keyCount) {
+		int slotCount = 2;
+		while(slotCount < 2 * keyCount)
+			slotCount <<= 1;
+		return slotCount;
+	}
+
+	/**
+	 * first slot to probe for a key with the given hash
+	 */
+	static int firstSlot(int hash, int slotCount) {
+		return (hash ^ (hash >>> 16)) & (slotCount - 1);
+	}
+}
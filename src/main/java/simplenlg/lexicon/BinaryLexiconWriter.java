@@ -0,0 +1,433 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.*;
+
+import simplenlg.features.Inflection;
+import simplenlg.framework.ElementCategory;
+import simplenlg.framework.WordElement;
+
+/**
+ * This class writes lexicon files in the binary format read by
+ * {@link BinaryLexicon}. Words are added to the writer by indexing them under
+ * their base forms, variants and IDs; the order in which a word is added under
+ * a key is the order in which it will be returned from a lookup on that key.
+ * <p>
+ * The easiest way to create a binary lexicon is from an {@link XMLLexicon}:
+ * <code>BinaryLexiconWriter.write(new XMLLexicon("my-lexicon.xml"), new File("my-lexicon.bin"))</code>
+ * <br>
+ * or from an {@link NIHDBLexicon}, which writes every word in the NIH
+ * Specialist Lexicon (see <code>NIHLexiconBinaryDumpUtil</code>).
+ * <p>
+ * Word features may be strings, booleans, inflections, lists of strings or
+ * lists of words. Words in lists are written to the file even if they are not
+ * indexed.
+ */
+public class BinaryLexiconWriter {
+
+	// words, in the order in which they were first indexed
+	private List<WordElement>                 words       = new ArrayList<WordElement>();
+	private Map<WordElement, Integer>         wordNumbers = new IdentityHashMap<WordElement, Integer>();
+	// indices, map from key to word numbers
+	private Map<String, List<Integer>>        indexByBase    = new LinkedHashMap<String, List<Integer>>();
+	private Map<String, List<Integer>>        indexByVariant = new LinkedHashMap<String, List<Integer>>();
+	private Map<String, List<Integer>>        indexByID      = new LinkedHashMap<String, List<Integer>>();
+	// string section, and the offset of each string in it
+	private ByteArrayOutputStream             stringBytes   = new ByteArrayOutputStream();
+	private Map<String, Integer>              stringOffsets = new HashMap<String, Integer>();
+	// if true, variant keys are lower case and are looked up regardless of case
+	private boolean                           caseInsensitiveVariants = false;
+
+	/**********************************************************************/
+	// routines to add words
+	/**********************************************************************/
+
+	/**
+	 * Index a word under a base form.
+	 *
+	 * @param base -- base form of the word
+	 * @param word -- the {@link WordElement}
+	 */
+	public void indexBase(String base, WordElement word) {
+		addToIndex(indexByBase, base, word);
+	}
+
+	/**
+	 * Index a word under an inflected form or spelling variant.
+	 *
+	 * @param variant -- the variant
+	 * @param word -- the {@link WordElement}
+	 */
+	public void indexVariant(String variant, WordElement word) {
+		addToIndex(indexByVariant, variant, word);
+	}
+
+	/**
+	 * Index a word under a lexicon ID.
+	 *
+	 * @param id -- the ID
+	 * @param word -- the {@link WordElement}
+	 */
+	public void indexID(String id, WordElement word) {
+		addToIndex(indexByID, id, word);
+	}
+
+	/**
+	 * @return the number of distinct words which have been indexed
+	 */
+	public int getWordCount() {
+		return words.size();
+	}
+
+	/**
+	 * @return <code>true</code> if variants are looked up regardless of case
+	 */
+	public boolean isCaseInsensitiveVariants() {
+		return caseInsensitiveVariants;
+	}
+
+	/**
+	 * Set whether variants are looked up regardless of case. If they are, the
+	 * lexicon converts variants to lower case before looking them up, so
+	 * words must be indexed under lower case variants.
+	 *
+	 * @param caseInsensitiveVariants -- <code>true</code> if variants are looked
+	 *                                up regardless of case
+	 */
+	public void setCaseInsensitiveVariants(boolean caseInsensitiveVariants) {
+		this.caseInsensitiveVariants = caseInsensitiveVariants;
+	}
+
+	/**
+	 * add a word to an index, giving it a number if it hasn't been seen before
+	 */
+	private void addToIndex(Map<String, List<Integer>> index, String key, WordElement word) {
+		if(key == null || word == null)
+			return;
+
+		int number = getWordNumber(word);
+		List<Integer> postings = index.get(key);
+		if(postings == null) {
+			postings = new ArrayList<Integer>();
+			index.put(key, postings);
+		}
+		postings.add(number);
+	}
+
+	/**
+	 * get the number of a word, giving it a number if it hasn't been seen
+	 * before
+	 */
+	private int getWordNumber(WordElement word) {
+		Integer number = wordNumbers.get(word);
+		if(number == null) {
+			number = words.size();
+			words.add(word);
+			wordNumbers.put(word, number);
+		}
+		return number;
+	}
+
+	/**********************************************************************/
+	// routines to write the lexicon
+	/**********************************************************************/
+
+	/**
+	 * Write a binary version of an XML lexicon to a file.
+	 *
+	 * @param lexicon -- the {@link XMLLexicon} to write
+	 * @param file -- the output {@link File}
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(XMLLexicon lexicon, File file) throws IOException {
+		BinaryLexiconWriter writer = new BinaryLexiconWriter();
+		lexicon.writeIndexes(writer);
+		writer.write(file);
+	}
+
+	/**
+	 * Write a binary version of the whole of an NIH lexicon to a file. Every
+	 * base form, variant and ID in the DB is looked up, so this may take some
+	 * time.
+	 *
+	 * @param lexicon -- the {@link NIHDBLexicon} to write
+	 * @param file -- the output {@link File}
+	 * @throws IOException if the DB cannot be read, or the file cannot be
+	 *                     written
+	 */
+	public static void write(NIHDBLexicon lexicon, File file) throws IOException {
+		BinaryLexiconWriter writer = new BinaryLexiconWriter();
+		try {
+			lexicon.writeIndexes(writer);
+		} catch(SQLException ex) {
+			throw new IOException("Cannot read lexical DB", ex);
+		}
+		writer.write(file);
+	}
+
+	/**
+	 * Write a binary version of part of an NIH lexicon to a file: the words
+	 * with the given base forms, indexed under their base forms, variants and
+	 * IDs as by {@link #write(NIHDBLexicon, File)}.
+	 *
+	 * @param lexicon -- the {@link NIHDBLexicon} to write
+	 * @param baseForms -- the base forms of the words to write
+	 * @param file -- the output {@link File}
+	 * @throws IOException if the DB cannot be read, or the file cannot be
+	 *                     written
+	 */
+	public static void write(NIHDBLexicon lexicon, Collection<String> baseForms, File file) throws IOException {
+		BinaryLexiconWriter writer = new BinaryLexiconWriter();
+		try {
+			lexicon.writeIndexes(writer, baseForms);
+		} catch(SQLException ex) {
+			throw new IOException("Cannot read lexical DB", ex);
+		}
+		writer.write(file);
+	}
+
+	/**
+	 * Write the indexed words to a file.
+	 *
+	 * @param file -- the output {@link File}
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(File file) throws IOException {
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			write(os);
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Write the indexed words to an output stream.
+	 *
+	 * @param os -- the {@link OutputStream}
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(OutputStream os) throws IOException {
+		stringBytes.reset();
+		stringOffsets.clear();
+
+		// number the words in word lists, which may not be indexed
+		for(int i = 0; i < words.size(); i++) {
+			for(String feature : words.get(i).getAllFeatureNames()) {
+				Object value = words.get(i).getFeature(feature);
+				if(value instanceof List) {
+					for(Object element : (List<?>) value) {
+						if(element instanceof WordElement)
+							getWordNumber((WordElement) element);
+					}
+				}
+			}
+		}
+
+		// body contains word records, word table and indices. Offsets within
+		// the body are relative to the end of the header
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bodyBytes);
+
+		int[] wordOffsets = new int[words.size()];
+		for(int i = 0; i < words.size(); i++) {
+			wordOffsets[i] = BinaryLexicon.HEADER_SIZE + body.size();
+			writeWord(body, words.get(i));
+		}
+
+		int wordTableOffset = BinaryLexicon.HEADER_SIZE + body.size();
+		for(int offset : wordOffsets)
+			body.writeInt(offset);
+
+		int baseIndexOffset = writeIndex(body, indexByBase);
+		int variantIndexOffset = writeIndex(body, indexByVariant);
+		int idIndexOffset = writeIndex(body, indexByID);
+		body.flush();
+
+		DataOutputStream out = new DataOutputStream(os);
+		out.writeInt(BinaryLexicon.MAGIC);
+		out.writeInt(BinaryLexicon.VERSION);
+		out.writeInt(words.size());
+		out.writeInt(wordTableOffset);
+		out.writeInt(baseIndexOffset);
+		out.writeInt(variantIndexOffset);
+		out.writeInt(idIndexOffset);
+		out.writeInt(BinaryLexicon.HEADER_SIZE + body.size());
+		out.writeInt(caseInsensitiveVariants ? BinaryLexicon.FLAG_CASE_INSENSITIVE_VARIANTS : 0);
+		bodyBytes.writeTo(out);
+		stringBytes.writeTo(out);
+		out.flush();
+	}
+
+	/**
+	 * write a single word record
+	 */
+	private void writeWord(DataOutputStream out, WordElement word) throws IOException {
+		ElementCategory category = word.getCategory();
+		Object defaultInfl = word.getDefaultInflectionalVariant();
+
+		out.writeInt(stringRef(word.getBaseForm()));
+		out.writeInt(stringRef(category == null ? null : category.toString()));
+		out.writeInt(stringRef(word.getId()));
+		out.writeInt(stringRef(defaultInfl == null ? null : ((Inflection) defaultInfl).name()));
+
+		// features, in name order so the output is reproducible
+		SortedSet<String> featureNames = new TreeSet<String>(word.getAllFeatureNames());
+		out.writeShort(featureNames.size());
+		for(String feature : featureNames) {
+			out.writeInt(stringRef(feature));
+			writeValue(out, word, feature, word.getFeature(feature));
+		}
+
+		// inflectional variants, and their forms
+		Set<Inflection> inflections = word.getInflectionalVariants().keySet();
+		out.writeShort(inflections.size());
+		for(Inflection infl : inflections) {
+			Map<String, String> forms = word.getInflectionalVariantForms(infl);
+			out.writeInt(stringRef(infl.name()));
+			out.writeShort(forms.size());
+			for(Map.Entry<String, String> form : forms.entrySet()) {
+				out.writeInt(stringRef(form.getKey()));
+				out.writeInt(stringRef(form.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * write a feature value, preceded by its type
+	 */
+	private void writeValue(DataOutputStream out, WordElement word, String feature, Object value)
+			throws IOException {
+		if(value instanceof String) {
+			out.writeByte(BinaryLexicon.TYPE_STRING);
+			out.writeInt(stringRef((String) value));
+		} else if(value instanceof Boolean) {
+			out.writeByte(BinaryLexicon.TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if(value instanceof Inflection) {
+			out.writeByte(BinaryLexicon.TYPE_INFLECTION);
+			out.writeInt(stringRef(((Inflection) value).name()));
+		} else if(isListOf(value, String.class)) {
+			List<?> strings = (List<?>) value;
+			out.writeByte(BinaryLexicon.TYPE_STRING_LIST);
+			out.writeShort(strings.size());
+			for(Object string : strings)
+				out.writeInt(stringRef((String) string));
+		} else if(isListOf(value, WordElement.class)) {
+			List<?> elements = (List<?>) value;
+			out.writeByte(BinaryLexicon.TYPE_WORD_LIST);
+			out.writeShort(elements.size());
+			for(Object element : elements)
+				out.writeInt(wordNumbers.get(element));
+		} else {
+			throw new IllegalArgumentException(
+					"Cannot write feature " + feature + " of " + word + ": unsupported value " + value);
+		}
+	}
+
+	/**
+	 * @return true if the value is a list (of at most Short.MAX_VALUE
+	 * 		elements) whose elements are all of the given class; empty lists
+	 * 		are lists of strings
+	 */
+	private static boolean isListOf(Object value, Class<?> elementClass) {
+		if(!(value instanceof List) || ((List<?>) value).size() > Short.MAX_VALUE)
+			return false;
+		List<?> list = (List<?>) value;
+		if(list.isEmpty())
+			return elementClass == String.class;
+		for(Object element : list) {
+			if(!elementClass.isInstance(element))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * write an index as an open-addressing hash table, followed by the
+	 * postings lists of its keys
+	 *
+	 * @return offset of the index
+	 */
+	private int writeIndex(DataOutputStream out, Map<String, List<Integer>> index) throws IOException {
+		int slotCount = BinaryLexicon.slotCountFor(index.size());
+		int[] slotHashes = new int[slotCount];
+		String[] slotKeys = new String[slotCount];
+
+		for(String key : index.keySet()) {
+			int hash = key.hashCode();
+			int slot = BinaryLexicon.firstSlot(hash, slotCount);
+			while(slotKeys[slot] != null)
+				slot = (slot + 1) & (slotCount - 1);
+			slotHashes[slot] = hash;
+			slotKeys[slot] = key;
+		}
+
+		int indexOffset = BinaryLexicon.HEADER_SIZE + out.size();
+		int postingsOffset = indexOffset + 4 + slotCount * BinaryLexicon.SLOT_SIZE;
+
+		out.writeInt(slotCount);
+		for(int slot = 0; slot < slotCount; slot++) {
+			if(slotKeys[slot] == null) {
+				out.writeInt(0);
+				out.writeInt(BinaryLexicon.NULL_REF);
+				out.writeInt(0);
+			} else {
+				out.writeInt(slotHashes[slot]);
+				out.writeInt(stringRef(slotKeys[slot]));
+				out.writeInt(postingsOffset);
+				postingsOffset += 4 + 4 * index.get(slotKeys[slot]).size();
+			}
+		}
+
+		for(int slot = 0; slot < slotCount; slot++) {
+			if(slotKeys[slot] != null) {
+				List<Integer> postings = index.get(slotKeys[slot]);
+				out.writeInt(postings.size());
+				for(int number : postings)
+					out.writeInt(number);
+			}
+		}
+		return indexOffset;
+	}
+
+	/**
+	 * get the offset of a string in the string section, adding it if necessary
+	 */
+	private int stringRef(String string) throws IOException {
+		if(string == null)
+			return BinaryLexicon.NULL_REF;
+
+		Integer offset = stringOffsets.get(string);
+		if(offset == null) {
+			offset = stringBytes.size();
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			DataOutputStream out = new DataOutputStream(stringBytes);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			out.flush();
+			stringOffsets.put(string, offset);
+		}
+		return offset;
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import simplenlg.framework.WordElement;
+
+/**
+ * The index from lexicon ID to word of an {@link XMLLexicon}. IDs of the
+ * shape used by the NIH Specialist Lexicon, an upper case letter followed by
+ * seven digits (such as "E0063257"), are stored as <code>int</code> keys in
+ * an open-addressing hash table, so they need no map entry or key hashing;
+ * other IDs are stored in an ordinary map.
+ * <p>
+ * Lookups do not lock, and can run while words are added. A word is stored
+ * in its slot before the slot's key, so a lookup which finds the key also
+ * finds the word; the table is replaced, rather than changed, when it grows.
+ * Adding words is synchronized.
+ */
+final class IDIndex {
+
+	private static final int ID_DIGITS = 7;
+	private static final int ID_RANGE  = 10000000; // numbers with ID_DIGITS digits
+	private static final int EMPTY     = 0; // key of an empty slot; keys are stored plus one
+
+	/*
+	 * a table of int keys and the words stored under them
+	 */
+	private static final class Table {
+
+		final AtomicIntegerArray                keys;
+		final AtomicReferenceArray<WordElement> words;
+		final int                               mask;
+
+		Table(int capacity) {
+			keys = new AtomicIntegerArray(capacity);
+			words = new AtomicReferenceArray<WordElement>(capacity);
+			mask = capacity - 1;
+		}
+
+		/**
+		 * @return the slot which holds the key, or the empty slot where it
+		 * 		would be added
+		 */
+		int find(int key) {
+			int slot = mix(key) & mask;
+			while(true) {
+				int slotKey = keys.get(slot);
+				if(slotKey == key || slotKey == EMPTY)
+					return slot;
+				slot = (slot + 1) & mask;
+			}
+		}
+	}
+
+	private volatile Table   table     = new Table(16);
+	private volatile int     tableSize = 0; // keys in the table
+	private volatile boolean frozen    = false;
+
+	// IDs which are not of the NIH shape
+	private final ConcurrentHashMap<String, WordElement> otherIDs = new ConcurrentHashMap<String, WordElement>();
+
+	/**
+	 * Get the word with an ID.
+	 *
+	 * @param id -- the ID
+	 * @return the word, or <code>null</code> if there is no word with this ID
+	 */
+	WordElement get(String id) {
+		int key = encode(id);
+		if(key == EMPTY)
+			return id == null ? null : otherIDs.get(id);
+
+		Table current = table;
+		int slot = current.find(key);
+		// another key may have been added to an empty slot since
+		return current.keys.get(slot) == key ? current.words.get(slot) : null;
+	}
+
+	/**
+	 * @return true if there is a word with this ID
+	 */
+	boolean containsKey(String id) {
+		return get(id) != null;
+	}
+
+	/**
+	 * Add a word to the index, replacing any word with the same ID.
+	 *
+	 * @param id -- the ID
+	 * @param word -- the word
+	 * @return the word which was replaced, or <code>null</code> if there was
+	 * 		none
+	 * @throws UnsupportedOperationException if the index is frozen
+	 */
+	synchronized WordElement put(String id, WordElement word) {
+		if(frozen)
+			throw new UnsupportedOperationException("Cannot add words to a frozen index");
+
+		int key = encode(id);
+		if(key == EMPTY)
+			return otherIDs.put(id, word);
+
+		if((tableSize + 1) * 2 > table.keys.length())
+			table = resize(table);
+
+		Table current = table;
+		int slot = current.find(key);
+		WordElement replaced = current.words.getAndSet(slot, word);
+		if(current.keys.get(slot) == EMPTY) {
+			// publishes the word
+			current.keys.set(slot, key);
+			tableSize++;
+		}
+		return replaced;
+	}
+
+	/**
+	 * copy a table into one of twice the size
+	 */
+	private static Table resize(Table old) {
+		Table resized = new Table(old.keys.length() * 2);
+		for(int i = 0; i < old.keys.length(); i++) {
+			int key = old.keys.get(i);
+			if(key != EMPTY) {
+				int slot = resized.find(key);
+				resized.words.set(slot, old.words.get(i));
+				resized.keys.set(slot, key);
+			}
+		}
+		return resized;
+	}
+
+	/**
+	 * @return the number of IDs in the index
+	 */
+	int size() {
+		return tableSize + otherIDs.size();
+	}
+
+	/**
+	 * Make the index read-only.
+	 */
+	synchronized void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * @return a read-only copy of the index as a map from ID to word
+	 */
+	Map<String, WordElement> asMap() {
+		Map<String, WordElement> map = new HashMap<String, WordElement>(otherIDs);
+		Table current = table;
+		for(int i = 0; i < current.keys.length(); i++) {
+			int key = current.keys.get(i);
+			if(key != EMPTY)
+				map.put(decode(key), current.words.get(i));
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * get the key of an ID with an upper case letter and seven digits
+	 *
+	 * @return the key, or EMPTY if the ID does not have this shape
+	 */
+	static int encode(String id) {
+		if(id == null || id.length() != ID_DIGITS + 1)
+			return EMPTY;
+
+		char letter = id.charAt(0);
+		if(letter < 'A' || letter > 'Z')
+			return EMPTY;
+
+		int number = 0;
+		for(int i = 1; i <= ID_DIGITS; i++) {
+			char digit = id.charAt(i);
+			if(digit < '0' || digit > '9')
+				return EMPTY;
+			number = number * 10 + (digit - '0');
+		}
+		return (letter - 'A') * ID_RANGE + number + 1;
+	}
+
+	/**
+	 * get the ID of a key
+	 */
+	static String decode(int key) {
+		int value = key - 1;
+		StringBuilder id = new StringBuilder(ID_DIGITS + 1);
+		id.append((char) ('A' + value / ID_RANGE));
+		String number = Integer.toString(value % ID_RANGE);
+		for(int i = number.length(); i < ID_DIGITS; i++)
+			id.append('0');
+		return id.append(number).toString();
+	}
+
+	/**
+	 * spread the bits of a key, as consecutive IDs are common
+	 */
+	private static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
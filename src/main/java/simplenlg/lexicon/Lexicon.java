@@ -18,7 +18,14 @@
  */
 package simplenlg.lexicon;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.WordElement;
@@ -77,19 +84,49 @@ import simplenlg.framework.WordElement;
 
 public abstract class Lexicon {
 
+	// filter of the forms in the lexicon, null if filtering is off
+	private volatile LexiconFilter filter = null;
+
+	// measurements of lookups, null if metrics are off
+	private volatile LexiconMetrics metrics = null;
+
 	/****************************************************************************/
 	// constructors and related
 	/****************************************************************************/
 
 	/**
-	 * returns the default built-in lexicon
+	 * returns the default built-in lexicon. This is loaded the first time it
+	 * is requested, and the same frozen (read-only) instance is then returned
+	 * to every caller, so it can be shared by any number of
+	 * <code>NLGFactory</code> and <code>Realiser</code> objects, across
+	 * threads. Use <code>createDefaultLexicon</code> to get a private copy
+	 * which can be modified.
 	 *
 	 * @return default lexicon
 	 */
 	public static Lexicon getDefaultLexicon() {
+		return DefaultLexiconHolder.LEXICON;
+	}
+
+	/**
+	 * returns a new, mutable copy of the default built-in lexicon, which is
+	 * not shared with any other caller
+	 *
+	 * @return new default lexicon
+	 */
+	public static XMLLexicon createDefaultLexicon() {
 		return new XMLLexicon();
 	}
 
+	/**
+	 * holder for the shared default lexicon; the JVM loads this class, and so
+	 * the lexicon, the first time <code>getDefaultLexicon</code> is called
+	 */
+	private static class DefaultLexiconHolder {
+
+		private static final XMLLexicon LEXICON = createDefaultLexicon().freeze();
+	}
+
 	/**
 	 * create a default WordElement. May be overridden by specific types of
 	 * lexicon
@@ -116,6 +153,131 @@ public abstract class Lexicon {
 		// baseForm
 	}
 
+	/***************************************************************************/
+	// filtering of forms which are not in the lexicon
+	// resolveWord and resolveWords skip straight to creating a new word for
+	// forms which the filter rejects
+	/***************************************************************************/
+
+	/**
+	 * Build a filter of all the forms in this lexicon (base forms, variants
+	 * and IDs), which lets <code>resolveWord</code> and
+	 * <code>resolveWords</code> create words for most unknown forms without
+	 * trying each type of lookup. This should be called once the lexicon has
+	 * been loaded, and replaces any existing filter. It is most useful for
+	 * lexicons with slow lookups, such as {@link NIHDBLexicon}; the indices of
+	 * an {@link XMLLexicon} already reject unknown forms quickly.
+	 *
+	 * @param falsePositiveProbability -- the desired probability that an
+	 *                                 unknown form is not rejected, and so is
+	 *                                 looked up
+	 * @throws UnsupportedOperationException if this lexicon cannot list its
+	 *                                       forms
+	 */
+	public void enableFilter(double falsePositiveProbability) {
+		Collection<String> forms = getFilterForms();
+		if(forms == null)
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot list its forms");
+
+		LexiconFilter newFilter = new LexiconFilter(forms.size(), falsePositiveProbability);
+		for(String form : forms)
+			newFilter.put(form);
+		filter = newFilter;
+	}
+
+	/**
+	 * Stop filtering forms, so that every form is looked up.
+	 */
+	public void disableFilter() {
+		filter = null;
+	}
+
+	/**
+	 * Get the filter of the forms in this lexicon, for example to check its
+	 * false positive rate.
+	 *
+	 * @return the filter, or <code>null</code> if filtering is off
+	 */
+	public LexiconFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * get all the forms which can be looked up in this lexicon, to build a
+	 * filter. Lexicons which can list their forms should override this
+	 *
+	 * @return the base forms, variants and IDs in the lexicon, or
+	 * 		<code>null</code> if they cannot be listed
+	 */
+	protected Collection<String> getFilterForms() {
+		return null;
+	}
+
+	/**
+	 * check a form against the filter, if there is one
+	 *
+	 * @param form - form to be looked up
+	 * @return <code>true</code> if the form is definitely not in the lexicon;
+	 * 		<code>null</code> is looked up as it is without a filter
+	 */
+	protected boolean isDefiniteMiss(String form) {
+		LexiconFilter filter = this.filter;
+		return filter != null && form != null && !filter.mightContain(form);
+	}
+
+	/**
+	 * record that a form which was not rejected by the filter was not found
+	 */
+	protected void recordFilterFalsePositive() {
+		LexiconFilter filter = this.filter;
+		if(filter != null)
+			filter.recordFalsePositive();
+	}
+
+	/***************************************************************************/
+	// metrics of word lookups
+	// resolveWord and resolveWords record how often each stage of lookup is
+	// tried and succeeds, and how long it takes
+	/***************************************************************************/
+
+	/**
+	 * Start recording metrics of the lookups in this lexicon, reporting the
+	 * default number of forms which are most often not found. This replaces
+	 * any existing metrics.
+	 */
+	public void enableMetrics() {
+		enableMetrics(LexiconMetrics.DEFAULT_TOP_MISSED_FORMS);
+	}
+
+	/**
+	 * Start recording metrics of the lookups in this lexicon. This replaces
+	 * any existing metrics. While metrics are off, lookups only check that
+	 * they are off.
+	 *
+	 * @param topMissedForms -- the number of forms which are most often not
+	 *                       found to report
+	 */
+	public void enableMetrics(int topMissedForms) {
+		metrics = new LexiconMetrics(getClass().getSimpleName(), topMissedForms);
+	}
+
+	/**
+	 * Stop recording metrics of lookups.
+	 */
+	public void disableMetrics() {
+		metrics = null;
+	}
+
+	/**
+	 * Get the metrics of the lookups in this lexicon, for example to export
+	 * them to a monitoring system.
+	 *
+	 * @return the metrics, or <code>null</code> if metrics are off
+	 */
+	public LexiconMetrics getMetrics() {
+		return metrics;
+	}
+
 	/***************************************************************************/
 	// default methods for looking up words
 	// These try the following (in this order)
@@ -134,14 +296,7 @@ public abstract class Lexicon {
 	 * @return the {@link WordElement} created.
 	 */
 	public WordElement lookupWord(String baseForm, LexicalCategory category) {
-		if(hasWord(baseForm, category))
-			return getWord(baseForm, category);
-		else if(hasWordFromVariant(baseForm, category))
-			return getWordFromVariant(baseForm, category);
-		else if(hasWordByID(baseForm))
-			return getWordByID(baseForm);
-		else
-			return createWord(baseForm, category);
+		return resolveWord(baseForm, category).getWord();
 	}
 
 	/**
@@ -155,6 +310,341 @@ public abstract class Lexicon {
 		return lookupWord(baseForm, LexicalCategory.ANY);
 	}
 
+	/**
+	 * General word resolution method, tries base form, variant, ID (in this
+	 * order), and creates a new word if it can't find an existing word. This
+	 * gives the same word as <code>lookupWord</code>, but also says how the
+	 * word was found, and probes the lexicon at most once for each type of
+	 * lookup.
+	 *
+	 * @param baseForm -- The {@link String} base form word.
+	 * @param category -- The {@link LexicalCategory} lexical category for this base form.
+	 * @return the {@link ResolvedWord}, which is never <code>null</code>.
+	 */
+	public ResolvedWord resolveWord(String baseForm, LexicalCategory category) {
+		LexiconMetrics metrics = this.metrics;
+		if(metrics != null)
+			return resolveWord(baseForm, category, metrics);
+
+		ResolvedWord resolved = null;
+		if(!isDefiniteMiss(baseForm)) {
+			resolved = resolveByBase(baseForm, category);
+			if(resolved == null)
+				resolved = resolveByVariant(baseForm, category);
+			if(resolved == null)
+				resolved = resolveByID(baseForm);
+			if(resolved == null)
+				recordFilterFalsePositive();
+		}
+		if(resolved == null)
+			resolved = new ResolvedWord(createWord(baseForm, category), ResolvedWord.Resolution.CREATED);
+		return resolved;
+	}
+
+	/**
+	 * the same as <code>resolveWord</code>, but records each stage in the
+	 * metrics
+	 */
+	private ResolvedWord resolveWord(String baseForm, LexicalCategory category, LexiconMetrics metrics) {
+		long start = System.nanoTime();
+		long time = start;
+		ResolvedWord resolved = null;
+		if(isDefiniteMiss(baseForm)) {
+			metrics.recordFilterRejection();
+		} else {
+			resolved = resolveByBase(baseForm, category);
+			time = metrics.recordStage(ResolvedWord.Resolution.BASE, time, resolved != null);
+			if(resolved == null) {
+				resolved = resolveByVariant(baseForm, category);
+				time = metrics.recordStage(ResolvedWord.Resolution.VARIANT, time, resolved != null);
+			}
+			if(resolved == null) {
+				resolved = resolveByID(baseForm);
+				time = metrics.recordStage(ResolvedWord.Resolution.ID, time, resolved != null);
+			}
+			if(resolved == null)
+				recordFilterFalsePositive();
+		}
+		if(resolved == null) {
+			resolved = new ResolvedWord(createWord(baseForm, category), ResolvedWord.Resolution.CREATED);
+			metrics.recordStage(ResolvedWord.Resolution.CREATED, time, true);
+			metrics.recordMissedForm(baseForm);
+		}
+		metrics.recordLookup(start);
+		return resolved;
+	}
+
+	/**
+	 * General word resolution method, tries base form, variant, ID (in this
+	 * order), and creates a new word if it can't find an existing word.
+	 *
+	 * @param baseForm -- The {@link String} base form word.
+	 * @return the {@link ResolvedWord}, which is never <code>null</code>.
+	 */
+	public ResolvedWord resolveWord(String baseForm) {
+		return resolveWord(baseForm, LexicalCategory.ANY);
+	}
+
+	/**
+	 * first stage of <code>resolveWord</code>: resolve a word by base form and
+	 * category. May be overridden for efficiency
+	 *
+	 * @param baseForm - base form of word
+	 * @param category - syntactic category of word (ANY for unknown)
+	 * @return the resolved word, or <code>null</code> if there is no word with
+	 * 		this base form
+	 */
+	protected ResolvedWord resolveByBase(String baseForm, LexicalCategory category) {
+		return resolveFromWords(getWords(baseForm, category), baseForm, ResolvedWord.Resolution.BASE);
+	}
+
+	/**
+	 * second stage of <code>resolveWord</code>: resolve a word by variant and
+	 * category. May be overridden for efficiency
+	 *
+	 * @param variant - base form, inflected form, or spelling variant of word
+	 * @param category - syntactic category of word (ANY for unknown)
+	 * @return the resolved word, or <code>null</code> if there is no word with
+	 * 		this variant
+	 */
+	protected ResolvedWord resolveByVariant(String variant, LexicalCategory category) {
+		return resolveFromWords(getWordsFromVariant(variant, category), variant, ResolvedWord.Resolution.VARIANT);
+	}
+
+	/**
+	 * third stage of <code>resolveWord</code>: resolve a word by ID. May be
+	 * overridden for efficiency
+	 *
+	 * @param id - internal lexicon ID for a word
+	 * @return the resolved word, or <code>null</code> if there is no word with
+	 * 		this ID
+	 */
+	protected ResolvedWord resolveByID(String id) {
+		List<WordElement> wordElements = getWordsByID(id);
+		if(wordElements == null || wordElements.isEmpty())
+			return null;
+		return new ResolvedWord(wordElements.get(0), ResolvedWord.Resolution.ID);
+	}
+
+	/**
+	 * resolve a word from the words found by one type of lookup, choosing a
+	 * word in the same way as <code>selectMatchingWord</code>
+	 *
+	 * @param wordElements - list of WordElements retrieved from lexicon
+	 * @param form - the form which was looked up
+	 * @param resolution - the type of lookup
+	 * @return the resolved word, or <code>null</code> if the list is empty
+	 */
+	protected ResolvedWord resolveFromWords(List<WordElement> wordElements,
+	                                        String form,
+	                                        ResolvedWord.Resolution resolution) {
+		if(wordElements == null || wordElements.isEmpty())
+			return null;
+
+		WordElement word = selectMatchingWord(wordElements, form);
+		for(WordElement wordElement : wordElements) {
+			if(wordElement == word)
+				return new ResolvedWord(word, resolution);
+		}
+		// selectMatchingWord created a new word
+		return new ResolvedWord(word, ResolvedWord.Resolution.CREATED);
+	}
+
+	/**
+	 * resolve a word from all the words indexed under a form, of any
+	 * category, choosing a word in the same way as
+	 * <code>selectMatchingWord</code>. Only the chosen word is copied, and
+	 * frozen words are not copied
+	 *
+	 * @param indexed - words indexed under the form
+	 * @param form - the form which was looked up
+	 * @param category - syntactic category of word (ANY for unknown)
+	 * @param resolution - the type of lookup
+	 * @return the resolved word, or <code>null</code> if no word has the
+	 * 		category
+	 */
+	ResolvedWord resolveFromIndexedWords(List<WordElement> indexed,
+	                                     String form,
+	                                     LexicalCategory category,
+	                                     ResolvedWord.Resolution resolution) {
+		// prefer a word whose base form exactly matches the form, otherwise
+		// use the first word of the right category
+		WordElement first = null;
+		for(WordElement word : indexed) {
+			if(category == LexicalCategory.ANY || word.getCategory() == category) {
+				if(word.getBaseForm().equals(form))
+					return new ResolvedWord(word.isFrozen() ? word : new WordElement(word), resolution);
+				if(first == null)
+					first = word;
+			}
+		}
+
+		if(first == null) {
+			return null;
+		} else if(first.getBaseForm().equalsIgnoreCase(form)) {
+			return new ResolvedWord(createWord(form, LexicalCategory.ANY), ResolvedWord.Resolution.CREATED);
+		}
+		return new ResolvedWord(first.isFrozen() ? first : new WordElement(first), resolution);
+	}
+
+	/***************************************************************************/
+	// batch lookup methods
+	// These resolve many words in one call, in the same way as resolveWord.
+	// Each stage is given all the words which earlier stages did not find,
+	// so lexicons can override the stages to look up the words together
+	/***************************************************************************/
+
+	/**
+	 * Batch word lookup method, which gives the same words as calling
+	 * <code>lookupWord</code> for each key, but lets the lexicon look them up
+	 * together. This is useful for fetching all of the words of a document
+	 * before it is realised.
+	 *
+	 * @param keys -- the base forms and categories of the words; duplicates
+	 *             are looked up once
+	 * @return map from each key to its {@link WordElement}, in the order of
+	 * 		the keys
+	 */
+	public Map<WordKey, WordElement> lookupWords(Collection<WordKey> keys) {
+		Map<WordKey, WordElement> words = new LinkedHashMap<WordKey, WordElement>();
+		for(Map.Entry<WordKey, ResolvedWord> entry : resolveWords(keys).entrySet())
+			words.put(entry.getKey(), entry.getValue().getWord());
+		return words;
+	}
+
+	/**
+	 * Batch word resolution method, which gives the same results as calling
+	 * <code>resolveWord</code> for each key. All the words are tried by base
+	 * form, then those not found are tried by variant, then by ID, and new
+	 * words are created for the rest. Words rejected by the lexicon's filter
+	 * are not looked up.
+	 *
+	 * @param keys -- the base forms and categories of the words; duplicates
+	 *             are resolved once
+	 * @return map from each key to its {@link ResolvedWord}, in the order of
+	 * 		the keys
+	 */
+	public Map<WordKey, ResolvedWord> resolveWords(Collection<WordKey> keys) {
+		LexiconMetrics metrics = this.metrics;
+		long start = metrics == null ? 0 : System.nanoTime();
+		long time = start;
+
+		Set<WordKey> distinctKeys = new LinkedHashSet<WordKey>(keys);
+		Map<WordKey, ResolvedWord> resolved = new HashMap<WordKey, ResolvedWord>();
+
+		List<WordKey> pending = new ArrayList<WordKey>(distinctKeys.size());
+		for(WordKey key : distinctKeys) {
+			if(!isDefiniteMiss(key.getBaseForm()))
+				pending.add(key);
+			else if(metrics != null)
+				metrics.recordFilterRejection();
+		}
+		if(!pending.isEmpty()) {
+			resolveByBase(pending, resolved);
+			if(metrics != null)
+				time = metrics.recordStage(ResolvedWord.Resolution.BASE, time, pending.size(), resolved.size());
+		}
+		pending = getUnresolved(pending, resolved);
+		if(!pending.isEmpty()) {
+			int found = resolved.size();
+			resolveByVariant(pending, resolved);
+			if(metrics != null)
+				time = metrics.recordStage(ResolvedWord.Resolution.VARIANT,
+				                           time,
+				                           pending.size(),
+				                           resolved.size() - found);
+		}
+		pending = getUnresolved(pending, resolved);
+		if(!pending.isEmpty()) {
+			int found = resolved.size();
+			resolveByID(pending, resolved);
+			if(metrics != null)
+				time = metrics.recordStage(ResolvedWord.Resolution.ID, time, pending.size(), resolved.size() - found);
+		}
+		pending = getUnresolved(pending, resolved);
+		for(int i = 0; i < pending.size(); i++)
+			recordFilterFalsePositive();
+
+		Map<WordKey, ResolvedWord> result = new LinkedHashMap<WordKey, ResolvedWord>();
+		int created = 0;
+		for(WordKey key : distinctKeys) {
+			ResolvedWord resolvedWord = resolved.get(key);
+			if(resolvedWord == null) {
+				resolvedWord = new ResolvedWord(createWord(key.getBaseForm(), key.getCategory()),
+				                                ResolvedWord.Resolution.CREATED);
+				created++;
+				if(metrics != null)
+					metrics.recordMissedForm(key.getBaseForm());
+			}
+			result.put(key, resolvedWord);
+		}
+		if(metrics != null) {
+			metrics.recordStage(ResolvedWord.Resolution.CREATED, time, created, created);
+			metrics.recordLookups(start, distinctKeys.size());
+		}
+		return result;
+	}
+
+	/**
+	 * first stage of <code>resolveWords</code>: resolve words by base form
+	 * and category, adding those found to the map. May be overridden for
+	 * efficiency
+	 *
+	 * @param keys - the words to resolve
+	 * @param resolved - map to which resolved words are added
+	 */
+	protected void resolveByBase(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		for(WordKey key : keys) {
+			ResolvedWord resolvedWord = resolveByBase(key.getBaseForm(), key.getCategory());
+			if(resolvedWord != null)
+				resolved.put(key, resolvedWord);
+		}
+	}
+
+	/**
+	 * second stage of <code>resolveWords</code>: resolve words by variant and
+	 * category, adding those found to the map. May be overridden for
+	 * efficiency
+	 *
+	 * @param keys - the words to resolve
+	 * @param resolved - map to which resolved words are added
+	 */
+	protected void resolveByVariant(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		for(WordKey key : keys) {
+			ResolvedWord resolvedWord = resolveByVariant(key.getBaseForm(), key.getCategory());
+			if(resolvedWord != null)
+				resolved.put(key, resolvedWord);
+		}
+	}
+
+	/**
+	 * third stage of <code>resolveWords</code>: resolve words by ID (the
+	 * base form of the key), adding those found to the map. May be overridden
+	 * for efficiency
+	 *
+	 * @param keys - the words to resolve
+	 * @param resolved - map to which resolved words are added
+	 */
+	protected void resolveByID(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		for(WordKey key : keys) {
+			ResolvedWord resolvedWord = resolveByID(key.getBaseForm());
+			if(resolvedWord != null)
+				resolved.put(key, resolvedWord);
+		}
+	}
+
+	/**
+	 * @return the keys which have not been resolved, in the same order
+	 */
+	static List<WordKey> getUnresolved(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		List<WordKey> unresolved = new ArrayList<WordKey>();
+		for(WordKey key : keys) {
+			if(!resolved.containsKey(key))
+				unresolved.add(key);
+		}
+		return unresolved;
+	}
+
 	/****************************************************************************/
 	// get words by baseform and category
 	// fundamental version is getWords(String baseForm, Category category),
@@ -204,7 +694,7 @@ public abstract class Lexicon {
 	 * @param baseForm - base form of word, eg "be" or "dog" (not "is" or "dogs")
 	 * @return single WordElement (from list)
 	 */
-	private WordElement selectMatchingWord(List<WordElement> wordElements, String baseForm) {
+	protected WordElement selectMatchingWord(List<WordElement> wordElements, String baseForm) {
 		// EHUD REITER  - this method added because some DBs are case-insensitive,
 		// so a query on "man" returns both "man" and "MAN".  In such cases, the
 		// exact match (eg, "man") should be returned
@@ -0,0 +1,223 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A size-bounded cache for lexicon lookups, which can be used safely by
+ * several threads. Reads do not lock, and additions only exclude
+ * {@link #clear()}, so that the size is always the number of entries. When
+ * the cache is full, entries are evicted in the order in which they were
+ * added, except that an entry which has been read since it was added (or
+ * since it was last considered for eviction) is given a second chance and
+ * moved to the back of the queue.
+ * <p>
+ * A lexicon can cache misses as well as hits by caching an empty result.
+ * The cache counts hits, misses and evictions, which can be used to tune its
+ * size.
+ *
+ * @param <K> the type of the lookup keys
+ * @param <V> the type of the cached results
+ */
+public class LexiconCache<K, V> {
+
+	/*
+	 * a cached result, and whether it has been read recently
+	 */
+	private static class Entry<V> {
+
+		final V value;
+		volatile boolean referenced = false;
+
+		Entry(V value) {
+			this.value = value;
+		}
+	}
+
+	private final int                            maximumSize;
+	private final ConcurrentHashMap<K, Entry<V>> entries;
+	private final ConcurrentLinkedQueue<K>       queue; // keys in eviction order
+	private final AtomicInteger                  size      = new AtomicInteger();
+	private final LongAdder                      hits      = new LongAdder();
+	private final LongAdder                      misses    = new LongAdder();
+	private final LongAdder                      evictions = new LongAdder();
+	// held for reading to add and evict entries, and for writing to clear
+	private final ReadWriteLock                  lock      = new ReentrantReadWriteLock();
+
+	/**
+	 * Create a cache.
+	 *
+	 * @param maximumSize -- the maximum number of entries in the cache
+	 * @throws IllegalArgumentException if the size is not positive
+	 */
+	public LexiconCache(int maximumSize) {
+		if(maximumSize <= 0)
+			throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+		this.maximumSize = maximumSize;
+		this.entries = new ConcurrentHashMap<K, Entry<V>>(Math.min(maximumSize, 1 << 16) * 4 / 3 + 1);
+		this.queue = new ConcurrentLinkedQueue<K>();
+	}
+
+	/**
+	 * Get a cached result.
+	 *
+	 * @param key -- the lookup key
+	 * @return the cached result, or <code>null</code> if it is not in the
+	 * 		cache
+	 */
+	public V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if(entry == null) {
+			misses.increment();
+			return null;
+		}
+
+		// only write the flag if it changes, so that threads reading the
+		// same popular entries don't contend for it
+		if(!entry.referenced)
+			entry.referenced = true;
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * Add a result to the cache, evicting other entries if the cache is full.
+	 * If the key is already in the cache, the cached result is kept.
+	 *
+	 * @param key -- the lookup key
+	 * @param value -- the result
+	 * @return the result which is in the cache for this key
+	 */
+	public V put(K key, V value) {
+		Entry<V> entry = new Entry<V>(value);
+		lock.readLock().lock();
+		try {
+			Entry<V> existing = entries.putIfAbsent(key, entry);
+			if(existing != null)
+				return existing.value;
+
+			queue.add(key);
+			if(size.incrementAndGet() > maximumSize)
+				evict();
+			return value;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * evict entries until the cache is no longer over its maximum size; the
+	 * read lock must be held
+	 */
+	private void evict() {
+		while(size.get() > maximumSize) {
+			K key = queue.poll();
+			if(key == null)
+				return;
+
+			// each entry's key is queued once, and is only taken off the queue
+			// here, so the entry is still in the cache
+			Entry<V> entry = entries.get(key);
+			if(entry.referenced) {
+				// second chance
+				entry.referenced = false;
+				queue.add(key);
+			} else if(entries.remove(key, entry)) {
+				size.decrementAndGet();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries from the cache. The statistics are not reset.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			entries.clear();
+			queue.clear();
+			size.set(0);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of entries in the cache
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * @return the maximum number of entries in the cache
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * @return the number of lookups which found a cached result
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups which did not find a cached result
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the proportion of lookups which found a cached result, or 0 if
+	 * 		there have been no lookups
+	 */
+	public double getHitRate() {
+		long hitCount = getHitCount();
+		long lookups = hitCount + getMissCount();
+		return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * @return the number of entries which have been evicted to make room for
+	 * 		new entries
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LexiconCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]",
+		                     size(),
+		                     maximumSize,
+		                     getHitCount(),
+		                     getMissCount(),
+		                     getEvictionCount());
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Bloom filter over the forms which a lexicon can look up (base forms,
+ * variants and IDs), which lets the lexicon recognise most forms that it does
+ * not contain without looking them up. If <code>mightContain</code> returns
+ * <code>false</code> the form is definitely not in the lexicon; if it returns
+ * <code>true</code> the form is probably in the lexicon, but may be a false
+ * positive. Forms are compared ignoring case, so a filter can be used by
+ * lexicons whose lookups are case-insensitive.
+ * <p>
+ * The filter can be used safely by several threads, and forms can be added
+ * while it is in use. It counts the forms it rejects, and lexicons report the
+ * forms which it let through but which were not found, so the observed false
+ * positive rate can be compared with the expected rate.
+ */
+public class LexiconFilter {
+
+	private final AtomicLongArray bits;
+	private final long            bitCount;
+	private final int             hashCount;
+	private final LongAdder       insertions     = new LongAdder();
+	private final LongAdder       queries        = new LongAdder();
+	private final LongAdder       rejections     = new LongAdder();
+	private final LongAdder       falsePositives = new LongAdder();
+
+	/**
+	 * Create an empty filter, sized for a number of forms and a false
+	 * positive probability.
+	 *
+	 * @param expectedForms -- the number of forms which will be added
+	 * @param falsePositiveProbability -- the desired probability that a form
+	 *                                 which has not been added is not rejected
+	 * @throws IllegalArgumentException if the probability is not between 0 and
+	 *                                  1
+	 */
+	public LexiconFilter(int expectedForms, double falsePositiveProbability) {
+		if(!(falsePositiveProbability > 0.0 && falsePositiveProbability < 1.0))
+			throw new IllegalArgumentException("False positive probability must be between 0 and 1: "
+			                                   + falsePositiveProbability);
+		int forms = Math.max(expectedForms, 1);
+		double ln2 = Math.log(2);
+		long optimalBits = (long) Math.ceil(-forms * Math.log(falsePositiveProbability) / (ln2 * ln2));
+		// round up to a whole number of longs
+		int words = (int) Math.min((Math.max(optimalBits, 64) + 63) / 64, Integer.MAX_VALUE / 2);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = (long) words * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / forms * ln2));
+	}
+
+	/**
+	 * Add a form to the filter.
+	 *
+	 * @param form -- the form
+	 */
+	public void put(String form) {
+		long hash = hash(form);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for(int i = 1; i <= hashCount; i++) {
+			long bit = bitIndex(hash1, hash2, i);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long value = bits.get(word);
+			while((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask))
+				value = bits.get(word);
+		}
+		insertions.increment();
+	}
+
+	/**
+	 * Check whether a form might have been added to the filter.
+	 *
+	 * @param form -- the form
+	 * @return <code>false</code> if the form has definitely not been added,
+	 * 		<code>true</code> if it probably has
+	 */
+	public boolean mightContain(String form) {
+		queries.increment();
+		long hash = hash(form);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for(int i = 1; i <= hashCount; i++) {
+			long bit = bitIndex(hash1, hash2, i);
+			if((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				rejections.increment();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Record that a form which was not rejected by the filter was not found
+	 * in the lexicon.
+	 */
+	public void recordFalsePositive() {
+		falsePositives.increment();
+	}
+
+	/**
+	 * the i'th bit of a form, from two hashes of the form
+	 */
+	private long bitIndex(int hash1, int hash2, int i) {
+		int combined = hash1 + i * hash2;
+		if(combined < 0)
+			combined = ~combined;
+		return combined % bitCount;
+	}
+
+	/**
+	 * a 64-bit hash of a form, ignoring case
+	 */
+	private static long hash(String form) {
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < form.length(); i++) {
+			hash ^= Character.toLowerCase(form.charAt(i));
+			hash *= 0x100000001b3L;
+		}
+		// mix the bits, so that both halves of the hash are well distributed
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * @return the number of forms which have been added
+	 */
+	public long getFormCount() {
+		return insertions.sum();
+	}
+
+	/**
+	 * @return the number of bits in the filter
+	 */
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	/**
+	 * @return the number of bits set for each form
+	 */
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/**
+	 * @return the number of forms which have been checked
+	 */
+	public long getQueryCount() {
+		return queries.sum();
+	}
+
+	/**
+	 * @return the number of forms which were rejected, as definitely not in
+	 * 		the lexicon
+	 */
+	public long getRejectionCount() {
+		return rejections.sum();
+	}
+
+	/**
+	 * @return the number of forms which were not rejected, but were not found
+	 * 		in the lexicon
+	 */
+	public long getFalsePositiveCount() {
+		return falsePositives.sum();
+	}
+
+	/**
+	 * @return the proportion of the forms not in the lexicon which were not
+	 * 		rejected, or 0 if no such forms have been checked
+	 */
+	public double getFalsePositiveRate() {
+		long falsePositiveCount = getFalsePositiveCount();
+		long misses = falsePositiveCount + getRejectionCount();
+		return misses == 0 ? 0.0 : (double) falsePositiveCount / misses;
+	}
+
+	/**
+	 * @return the probability of a false positive, given the number of forms
+	 * 		which have been added
+	 */
+	public double getExpectedFalsePositiveRate() {
+		return Math.pow(1.0 - Math.exp(-hashCount * (double) getFormCount() / bitCount), hashCount);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LexiconFilter[forms=%d, bits=%d, hashes=%d, queries=%d, rejections=%d, falsePositives=%d]",
+		                     getFormCount(),
+		                     bitCount,
+		                     hashCount,
+		                     getQueryCount(),
+		                     getRejectionCount(),
+		                     getFalsePositiveCount());
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current lexicon of a service, so that the lexicon can be replaced
+ * while other threads are using it. A thread which needs the lexicon for a
+ * piece of work (such as realising a document) acquires a {@link Snapshot}
+ * of it, and releases the snapshot when the work is done:
+ * <pre>
+ * LexiconHolder.Snapshot snapshot = holder.acquire();
+ * try {
+ *     Realiser realiser = new Realiser(snapshot.getLexicon());
+ *     ...
+ * } finally {
+ *     snapshot.release();
+ * }
+ * </pre>
+ * A new lexicon is built by the caller, on its own thread, and then swapped
+ * in with <code>set</code>. Work which starts after the swap uses the new
+ * lexicon; work which is in progress finishes with the old one, which is
+ * closed once its last snapshot has been released. Neither acquiring nor
+ * swapping locks.
+ */
+public class LexiconHolder {
+
+	/**
+	 * A lexicon which is in use by a thread. The lexicon is not closed until
+	 * every snapshot of it has been released.
+	 */
+	public static class Snapshot {
+
+		private final Lexicon       lexicon;
+		private final AtomicInteger users   = new AtomicInteger();
+		private final AtomicBoolean closed  = new AtomicBoolean();
+		private volatile boolean    retired = false; // replaced in the holder
+
+		Snapshot(Lexicon lexicon) {
+			this.lexicon = lexicon;
+		}
+
+		/**
+		 * @return the lexicon, which stays open until this snapshot is
+		 * 		released
+		 */
+		public Lexicon getLexicon() {
+			return lexicon;
+		}
+
+		/**
+		 * Release this snapshot. If the lexicon has been replaced, and this
+		 * was its last snapshot, the lexicon is closed. A snapshot must be
+		 * released exactly once.
+		 */
+		public void release() {
+			if(users.decrementAndGet() == 0 && retired)
+				closeIfUnused();
+		}
+
+		/**
+		 * mark the lexicon as replaced, closing it if it is not in use
+		 */
+		void retire() {
+			retired = true;
+			if(users.get() == 0)
+				closeIfUnused();
+		}
+
+		/**
+		 * close the lexicon once, when it is retired and has no users
+		 */
+		private void closeIfUnused() {
+			if(users.get() == 0 && closed.compareAndSet(false, true))
+				lexicon.close();
+		}
+	}
+
+	private final AtomicReference<Snapshot> current = new AtomicReference<Snapshot>();
+
+	/**
+	 * Create a holder with no lexicon.
+	 */
+	public LexiconHolder() {
+		// set a lexicon before acquiring it
+	}
+
+	/**
+	 * Create a holder of a lexicon.
+	 *
+	 * @param lexicon -- the initial lexicon
+	 */
+	public LexiconHolder(Lexicon lexicon) {
+		set(lexicon);
+	}
+
+	/**
+	 * Acquire a snapshot of the current lexicon, which stays open until the
+	 * snapshot is released, even if the lexicon is replaced.
+	 *
+	 * @return the snapshot, or <code>null</code> if there is no lexicon
+	 */
+	public Snapshot acquire() {
+		while(true) {
+			Snapshot snapshot = current.get();
+			if(snapshot == null)
+				return null;
+
+			snapshot.users.incrementAndGet();
+			if(!snapshot.retired)
+				return snapshot;
+
+			// replaced while acquiring it, so try the new lexicon
+			snapshot.release();
+		}
+	}
+
+	/**
+	 * Get the current lexicon without acquiring it. The lexicon may be
+	 * closed at any time if it is replaced, so this should only be used when
+	 * the lexicon is not replaced, or does not need closing.
+	 *
+	 * @return the current lexicon, or <code>null</code> if there is none
+	 */
+	public Lexicon get() {
+		Snapshot snapshot = current.get();
+		return snapshot == null ? null : snapshot.getLexicon();
+	}
+
+	/**
+	 * Replace the current lexicon. The old lexicon is closed once all of its
+	 * snapshots have been released. Setting the lexicon which is already
+	 * held does nothing.
+	 *
+	 * @param lexicon -- the new lexicon, which should be fully loaded, or
+	 *                <code>null</code> to remove the lexicon
+	 * @return the lexicon which was replaced, or <code>null</code> if there
+	 * 		was none
+	 */
+	public Lexicon set(Lexicon lexicon) {
+		Snapshot snapshot = lexicon == null ? null : new Snapshot(lexicon);
+		while(true) {
+			Snapshot old = current.get();
+			if(old != null && old.getLexicon() == lexicon)
+				return lexicon;
+			if(current.compareAndSet(old, snapshot)) {
+				if(old == null)
+					return null;
+				old.retire();
+				return old.getLexicon();
+			}
+		}
+	}
+
+	/**
+	 * Set the lexicon if there is none.
+	 *
+	 * @param lexicon -- the lexicon
+	 * @return true if the lexicon was set
+	 */
+	public boolean setIfEmpty(Lexicon lexicon) {
+		return current.compareAndSet(null, new Snapshot(lexicon));
+	}
+
+	/**
+	 * Remove the lexicon, closing it once all of its snapshots have been
+	 * released.
+	 */
+	public void close() {
+		set(null);
+	}
+}
@@ -0,0 +1,442 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measurements of the word lookups of a lexicon, which are recorded once
+ * metrics have been enabled with {@link Lexicon#enableMetrics()}. For each
+ * stage of <code>lookupWord</code> and <code>resolveWord</code> (base form,
+ * variant, ID, and creating a new word) the metrics count how often the stage
+ * was tried and how often it found the word, and record how long it took in a
+ * histogram. The time taken by whole lookups, the number of forms rejected by
+ * the lexicon's filter, and the forms which were most often not found are also
+ * recorded.
+ * <p>
+ * Batch lookups (<code>resolveWords</code>) are counted per word; the time
+ * taken by a stage of a batch is divided evenly between its words.
+ * <p>
+ * Metrics can be recorded and read by several threads at once.
+ */
+public class LexiconMetrics {
+
+	/**
+	 * The default number of missed forms which are reported.
+	 */
+	public static final int DEFAULT_TOP_MISSED_FORMS = 20;
+
+	/**
+	 * A histogram of latencies in nanoseconds. Bucket 0 counts latencies of
+	 * 0 ns, and bucket <i>i</i> counts latencies from 2<sup><i>i</i>-1</sup>
+	 * up to (but not including) 2<sup><i>i</i></sup> ns.
+	 */
+	public static class LatencyHistogram {
+
+		private static final int BUCKETS = 64;
+
+		private final AtomicLongArray buckets    = new AtomicLongArray(BUCKETS);
+		private final LongAdder       count      = new LongAdder();
+		private final LongAdder       totalNanos = new LongAdder();
+
+		/**
+		 * record a number of samples with the same latency
+		 */
+		void record(long nanos, long samples) {
+			nanos = Math.max(nanos, 0);
+			buckets.addAndGet(getBucket(nanos), samples);
+			count.add(samples);
+			totalNanos.add(nanos * samples);
+		}
+
+		/**
+		 * @return the bucket which counts a latency
+		 */
+		static int getBucket(long nanos) {
+			return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+		}
+
+		/**
+		 * @param bucket -- the bucket number
+		 * @return the highest latency counted by the bucket, in nanoseconds
+		 */
+		public static long getBucketUpperBound(int bucket) {
+			return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+		}
+
+		/**
+		 * @return the number of samples in each bucket
+		 */
+		public long[] getBucketCounts() {
+			long[] counts = new long[BUCKETS];
+			for(int i = 0; i < BUCKETS; i++)
+				counts[i] = buckets.get(i);
+			return counts;
+		}
+
+		/**
+		 * @return the number of samples
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * @return the total of the latencies, in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		/**
+		 * @return the mean latency in nanoseconds, or 0 if there are no
+		 * 		samples
+		 */
+		public double getMeanNanos() {
+			long samples = getCount();
+			return samples == 0 ? 0.0 : (double) getTotalNanos() / samples;
+		}
+
+		/**
+		 * Get an estimate of a percentile of the latencies, which is the upper
+		 * bound of the bucket holding the percentile.
+		 *
+		 * @param percentile -- the percentile, from 0 to 100
+		 * @return the latency in nanoseconds, or 0 if there are no samples
+		 */
+		public long getPercentileNanos(double percentile) {
+			long[] counts = getBucketCounts();
+			long samples = 0;
+			for(long bucketCount : counts)
+				samples += bucketCount;
+			if(samples == 0)
+				return 0;
+
+			long rank = (long) Math.ceil(samples * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+			long seen = 0;
+			for(int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if(seen >= Math.max(rank, 1))
+					return getBucketUpperBound(i);
+			}
+			return getBucketUpperBound(BUCKETS - 1);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.0f ns, p50=%d ns, p99=%d ns",
+			                     getCount(),
+			                     getMeanNanos(),
+			                     getPercentileNanos(50),
+			                     getPercentileNanos(99));
+		}
+	}
+
+	/**
+	 * The measurements of one stage of word lookup.
+	 */
+	public static class StageMetrics {
+
+		private final LongAdder        probes  = new LongAdder();
+		private final LongAdder        hits    = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		/**
+		 * @return the number of words looked up in this stage
+		 */
+		public long getProbeCount() {
+			return probes.sum();
+		}
+
+		/**
+		 * @return the number of words found by this stage
+		 */
+		public long getHitCount() {
+			return hits.sum();
+		}
+
+		/**
+		 * @return the number of words not found by this stage
+		 */
+		public long getMissCount() {
+			return getProbeCount() - getHitCount();
+		}
+
+		/**
+		 * @return the latencies of this stage
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("probes=%d, hits=%d, %s", getProbeCount(), getHitCount(), latency);
+		}
+	}
+
+	private final String                                      lexiconName;
+	private final EnumMap<ResolvedWord.Resolution, StageMetrics> stages;
+	private final LatencyHistogram                            lookups          = new LatencyHistogram();
+	private final LongAdder                                   filterRejections = new LongAdder();
+
+	// the forms most often not found, counted with a variant of the
+	// Space-Saving algorithm. A form which is already in the table is counted
+	// without locking. When the table has grown to twice its capacity, one
+	// thread evicts the least frequent forms, and forms which are added later
+	// start from the highest count evicted, which they may have had
+	private final int                                  topMissedForms;
+	private final int                                  missedFormCapacity;
+	private final ConcurrentHashMap<String, LongAdder> missedForms;
+	private final ReentrantLock                        evictionLock = new ReentrantLock();
+	private volatile long                              evictedCount = 0;
+
+	/**
+	 * Create metrics for a lexicon.
+	 *
+	 * @param lexiconName -- the name of the lexicon, such as the name of its
+	 *                    class
+	 * @param topMissedForms -- the number of missed forms to report
+	 * @throws IllegalArgumentException if the number of forms is negative
+	 */
+	public LexiconMetrics(String lexiconName, int topMissedForms) {
+		if(topMissedForms < 0)
+			throw new IllegalArgumentException("Number of missed forms must not be negative: " + topMissedForms);
+		this.lexiconName = lexiconName;
+		this.topMissedForms = topMissedForms;
+		// track more forms than are reported, to make the top ones accurate
+		this.missedFormCapacity = topMissedForms * 8;
+		this.missedForms = new ConcurrentHashMap<String, LongAdder>(missedFormCapacity * 2);
+		this.stages = new EnumMap<ResolvedWord.Resolution, StageMetrics>(ResolvedWord.Resolution.class);
+		for(ResolvedWord.Resolution stage : ResolvedWord.Resolution.values())
+			stages.put(stage, new StageMetrics());
+	}
+
+	/**********************************************************************/
+	// recording
+	/**********************************************************************/
+
+	/**
+	 * Record that a stage tried to find a word.
+	 *
+	 * @param stage -- the stage (CREATED for creating a new word)
+	 * @param startNanos -- the value of <code>System.nanoTime()</code> when
+	 *                   the stage started
+	 * @param hit -- <code>true</code> if the stage found the word
+	 * @return the value of <code>System.nanoTime()</code> when the stage was
+	 * 		recorded, which can be used as the start of the next stage
+	 */
+	public long recordStage(ResolvedWord.Resolution stage, long startNanos, boolean hit) {
+		long now = System.nanoTime();
+		StageMetrics metrics = stages.get(stage);
+		metrics.probes.increment();
+		if(hit)
+			metrics.hits.increment();
+		metrics.latency.record(now - startNanos, 1);
+		return now;
+	}
+
+	/**
+	 * Record that a stage of a batch lookup tried to find several words.
+	 *
+	 * @param stage -- the stage (CREATED for creating new words)
+	 * @param startNanos -- the value of <code>System.nanoTime()</code> when
+	 *                   the stage started
+	 * @param probes -- the number of words the stage tried to find
+	 * @param hits -- the number of words the stage found
+	 * @return the value of <code>System.nanoTime()</code> when the stage was
+	 * 		recorded
+	 */
+	public long recordStage(ResolvedWord.Resolution stage, long startNanos, int probes, int hits) {
+		long now = System.nanoTime();
+		if(probes > 0) {
+			StageMetrics metrics = stages.get(stage);
+			metrics.probes.add(probes);
+			metrics.hits.add(hits);
+			metrics.latency.record((now - startNanos) / probes, probes);
+		}
+		return now;
+	}
+
+	/**
+	 * Record a whole word lookup.
+	 *
+	 * @param startNanos -- the value of <code>System.nanoTime()</code> when
+	 *                   the lookup started
+	 */
+	public void recordLookup(long startNanos) {
+		lookups.record(System.nanoTime() - startNanos, 1);
+	}
+
+	/**
+	 * Record a batch of word lookups.
+	 *
+	 * @param startNanos -- the value of <code>System.nanoTime()</code> when
+	 *                   the batch started
+	 * @param words -- the number of words in the batch
+	 */
+	public void recordLookups(long startNanos, int words) {
+		if(words > 0)
+			lookups.record((System.nanoTime() - startNanos) / words, words);
+	}
+
+	/**
+	 * Record that the lexicon's filter rejected a form without looking it up.
+	 */
+	public void recordFilterRejection() {
+		filterRejections.increment();
+	}
+
+	/**
+	 * Record that a form was not found in the lexicon, so a new word was
+	 * created for it.
+	 *
+	 * @param form -- the form
+	 */
+	public void recordMissedForm(String form) {
+		if(topMissedForms == 0 || form == null)
+			return;
+
+		LongAdder count = missedForms.get(form);
+		if(count == null) {
+			LongAdder added = new LongAdder();
+			added.add(evictedCount);
+			count = missedForms.putIfAbsent(form, added);
+			if(count == null) {
+				count = added;
+				if(missedForms.size() >= missedFormCapacity * 2)
+					evictLeastMissedForms();
+			}
+		}
+		count.increment();
+	}
+
+	/**
+	 * evict the least frequent forms until the table is back to its capacity.
+	 * This sorts the table, but only once for every
+	 * <code>missedFormCapacity</code> new forms. Threads which find another
+	 * thread evicting carry on without waiting
+	 */
+	private void evictLeastMissedForms() {
+		if(!evictionLock.tryLock())
+			return;
+		try {
+			List<Map.Entry<String, Long>> entries = getMissedFormCounts();
+			long evicted = evictedCount;
+			for(int i = entries.size() - 1; i >= missedFormCapacity; i--) {
+				Map.Entry<String, Long> entry = entries.get(i);
+				missedForms.remove(entry.getKey());
+				evicted = Math.max(evicted, entry.getValue());
+			}
+			evictedCount = evicted;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the counts of the missed forms in the table, most often missed
+	 * 		first
+	 */
+	private List<Map.Entry<String, Long>> getMissedFormCounts() {
+		List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(missedForms.size());
+		for(Map.Entry<String, LongAdder> entry : missedForms.entrySet())
+			entries.add(new AbstractMap.SimpleImmutableEntry<String, Long>(entry.getKey(), entry.getValue().sum()));
+		Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+
+			@Override
+			public int compare(Map.Entry<String, Long> first, Map.Entry<String, Long> second) {
+				return second.getValue().compareTo(first.getValue());
+			}
+		});
+		return entries;
+	}
+
+	/**********************************************************************/
+	// reading
+	/**********************************************************************/
+
+	/**
+	 * @return the name of the lexicon
+	 */
+	public String getLexiconName() {
+		return lexiconName;
+	}
+
+	/**
+	 * @param stage -- the stage (CREATED for creating new words)
+	 * @return the measurements of the stage
+	 */
+	public StageMetrics getStage(ResolvedWord.Resolution stage) {
+		return stages.get(stage);
+	}
+
+	/**
+	 * @return the latencies of whole word lookups
+	 */
+	public LatencyHistogram getLookupLatency() {
+		return lookups;
+	}
+
+	/**
+	 * @return the number of words looked up
+	 */
+	public long getLookupCount() {
+		return lookups.getCount();
+	}
+
+	/**
+	 * @return the number of forms rejected by the lexicon's filter
+	 */
+	public long getFilterRejectionCount() {
+		return filterRejections.sum();
+	}
+
+	/**
+	 * Get the forms which were most often not found in the lexicon. The counts
+	 * are exact for forms which are missed often; they may be overestimated
+	 * for rare forms, once many different forms have been missed.
+	 *
+	 * @return map from form to the number of times it was missed, most often
+	 * 		missed first
+	 */
+	public Map<String, Long> getTopMissedForms() {
+		List<Map.Entry<String, Long>> entries = getMissedFormCounts();
+		Map<String, Long> top = new LinkedHashMap<String, Long>();
+		for(Map.Entry<String, Long> entry : entries.subList(0, Math.min(topMissedForms, entries.size())))
+			top.put(entry.getKey(), entry.getValue());
+		return top;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder description = new StringBuilder();
+		description.append(String.format("LexiconMetrics[%s: lookups %s, filter rejections=%d",
+		                                 lexiconName,
+		                                 lookups,
+		                                 getFilterRejectionCount()));
+		for(Map.Entry<ResolvedWord.Resolution, StageMetrics> stage : stages.entrySet())
+			description.append(String.format("; %s %s", stage.getKey(), stage.getValue()));
+		return description.append(']').toString();
+	}
+}
@@ -19,7 +19,13 @@
 package simplenlg.lexicon;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.WordElement;
@@ -41,6 +47,45 @@ public class MultipleLexicon extends Lexicon {
 	/* list of lexicons, in order in which they are searched */
 	private List<Lexicon> lexiconList = null;
 
+	/* merged index of the lexicons, null if not compiled */
+	private volatile CompiledIndex compiledIndex = null;
+
+	/**
+	 * The merged index of a compiled MultipleLexicon. For each key, it holds
+	 * the words indexed under the key in each lexicon which has the key, in
+	 * the order in which the lexicons are searched, so that a lookup needs a
+	 * single probe.
+	 */
+	private static class CompiledIndex {
+
+		final Map<String, List<List<WordElement>>> indexByBase    = new HashMap<String, List<List<WordElement>>>();
+		final Map<String, List<List<WordElement>>> indexByVariant = new HashMap<String, List<List<WordElement>>>();
+		final Map<String, List<List<WordElement>>> indexByID      = new HashMap<String, List<List<WordElement>>>();
+
+		/**
+		 * add the words indexed under each key of a lexicon's index
+		 */
+		void merge(Map<String, List<List<WordElement>>> merged, Map<String, List<WordElement>> index) {
+			for(Map.Entry<String, List<WordElement>> entry : index.entrySet())
+				add(merged, entry.getKey(), entry.getValue());
+		}
+
+		/**
+		 * add the words indexed under a key in the next lexicon; most keys are
+		 * in only one lexicon, so the first list is stored as a singleton
+		 */
+		void add(Map<String, List<List<WordElement>>> merged, String key, List<WordElement> words) {
+			List<List<WordElement>> lists = merged.get(key);
+			if(lists == null) {
+				merged.put(key, Collections.singletonList(words));
+			} else {
+				if(lists.size() == 1)
+					merged.put(key, lists = new ArrayList<List<WordElement>>(lists));
+				lists.add(words);
+			}
+		}
+	}
+
 	/**********************************************************************/
 	// constructors
 	/**********************************************************************/
@@ -75,6 +120,9 @@ public class MultipleLexicon extends Lexicon {
 	 * @param lex -- Add the initial {@link Lexicon}.
 	 */
 	public void addInitialLexicon(Lexicon lex) {
+		// the merged index and filter do not include the new lexicon
+		compiledIndex = null;
+		disableFilter();
 		lexiconList.add(0, lex);
 	}
 
@@ -84,6 +132,9 @@ public class MultipleLexicon extends Lexicon {
 	 * @param lex -- Adds the final {@link Lexicon}.
 	 */
 	public void addFinalLexicon(Lexicon lex) {
+		// the merged index and filter do not include the new lexicon
+		compiledIndex = null;
+		disableFilter();
 		lexiconList.add(0, lex);
 	}
 
@@ -101,9 +152,46 @@ public class MultipleLexicon extends Lexicon {
 		this.alwaysSearchAll = alwaysSearchAll;
 	}
 
+	/**
+	 * Merge the indices of the lexicons into a single index, so that each
+	 * lookup needs one probe however many lexicons there are. Lookups give
+	 * the same words as before. The merged index is discarded when a lexicon
+	 * is added; it is not updated if the lexicons themselves change, so
+	 * compile again after changing them.
+	 *
+	 * @throws UnsupportedOperationException if any of the lexicons is not an
+	 *                                       {@link XMLLexicon}
+	 */
+	public void compile() {
+		CompiledIndex index = new CompiledIndex();
+		for(Lexicon lex : lexiconList) {
+			if(!(lex instanceof XMLLexicon))
+				throw new UnsupportedOperationException("Cannot compile a "
+				                                        + lex.getClass().getSimpleName()
+				                                        + " into a MultipleLexicon");
+			XMLLexicon xmlLexicon = (XMLLexicon) lex;
+			index.merge(index.indexByBase, xmlLexicon.getIndexByBase());
+			index.merge(index.indexByVariant, xmlLexicon.getIndexByVariant());
+			for(Map.Entry<String, WordElement> entry : xmlLexicon.getIndexByID().entrySet())
+				index.add(index.indexByID, entry.getKey(), Collections.singletonList(entry.getValue()));
+		}
+		compiledIndex = index;
+	}
+
+	/**
+	 * @return <code>true</code> if the lexicon has been compiled, and no
+	 * 		lexicons have been added since
+	 */
+	public boolean isCompiled() {
+		return compiledIndex != null;
+	}
+
 	/**********************************************************************/
 	// main methods
-
+	// resolveWord searches all the lexicons for a word with a matching base,
+	// then all the lexicons for a matching variant, then for a matching ID,
+	// in the same way as lookupWord. resolveWords does the same for a batch
+	// of words, passing each lexicon all the words still to be found
 	/**********************************************************************/
 
 	/* (non-Javadoc)
@@ -111,6 +199,10 @@ public class MultipleLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+		CompiledIndex index = compiledIndex;
+		if(index != null)
+			return getWordsFromIndex(index.indexByBase.get(baseForm), category);
+
 		List<WordElement> result = new ArrayList<WordElement>();
 		for(Lexicon lex : lexiconList) {
 			List<WordElement> lexResult = lex.getWords(baseForm, category);
@@ -128,6 +220,10 @@ public class MultipleLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWordsByID(String id) {
+		CompiledIndex index = compiledIndex;
+		if(index != null)
+			return getWordsFromIndex(index.indexByID.get(id), LexicalCategory.ANY);
+
 		List<WordElement> result = new ArrayList<WordElement>();
 		for(Lexicon lex : lexiconList) {
 			List<WordElement> lexResult = lex.getWordsByID(id);
@@ -145,6 +241,10 @@ public class MultipleLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+		CompiledIndex index = compiledIndex;
+		if(index != null)
+			return getWordsFromIndex(index.indexByVariant.get(variant), category);
+
 		List<WordElement> result = new ArrayList<WordElement>();
 		for(Lexicon lex : lexiconList) {
 			List<WordElement> lexResult = lex.getWordsFromVariant(variant, category);
@@ -157,11 +257,238 @@ public class MultipleLexicon extends Lexicon {
 		return result;
 	}
 
+	/**
+	 * get matching words from the lists of words indexed under a key in the
+	 * merged index, in the same way as searching the lexicons
+	 */
+	private List<WordElement> getWordsFromIndex(List<List<WordElement>> lists, LexicalCategory category) {
+		List<WordElement> result = new ArrayList<WordElement>();
+		if(lists == null)
+			return result;
+
+		for(List<WordElement> words : lists) {
+			for(WordElement word : words) {
+				if(category == LexicalCategory.ANY || word.getCategory() == category)
+					result.add(word.isFrozen() ? word : new WordElement(word));
+			}
+			if(!result.isEmpty() && !alwaysSearchAll)
+				return result;
+		}
+		return result;
+	}
+
+	/**
+	 * resolve a word from the lists of words indexed under a key in the merged
+	 * index, in the same way as searching the lexicons
+	 */
+	private ResolvedWord resolveFromIndex(List<List<WordElement>> lists,
+	                                      String indexKey,
+	                                      LexicalCategory category,
+	                                      ResolvedWord.Resolution resolution) {
+		if(lists == null)
+			return null;
+
+		for(List<WordElement> words : lists) {
+			ResolvedWord resolved = resolveFromIndexedWords(words, indexKey, category, resolution);
+			if(resolved != null)
+				return resolved;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.lang.String, simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByBase(String baseForm, LexicalCategory category) {
+		if(alwaysSearchAll)
+			return super.resolveByBase(baseForm, category);
+		CompiledIndex index = compiledIndex;
+		if(index != null)
+			return resolveFromIndex(index.indexByBase.get(baseForm), baseForm, category, ResolvedWord.Resolution.BASE);
+
+		for(Lexicon lex : lexiconList) {
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			ResolvedWord resolved = lex.resolveByBase(baseForm, category);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.BASE, start, resolved != null);
+			if(resolved != null)
+				return resolved;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.lang.String, simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByVariant(String variant, LexicalCategory category) {
+		if(alwaysSearchAll)
+			return super.resolveByVariant(variant, category);
+		CompiledIndex index = compiledIndex;
+		if(index != null)
+			return resolveFromIndex(index.indexByVariant.get(variant),
+			                        variant,
+			                        category,
+			                        ResolvedWord.Resolution.VARIANT);
+
+		for(Lexicon lex : lexiconList) {
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			ResolvedWord resolved = lex.resolveByVariant(variant, category);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.VARIANT, start, resolved != null);
+			if(resolved != null)
+				return resolved;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.lang.String)
+	 */
+	@Override
+	protected ResolvedWord resolveByID(String id) {
+		if(alwaysSearchAll || compiledIndex != null)
+			return super.resolveByID(id);
+
+		for(Lexicon lex : lexiconList) {
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			ResolvedWord resolved = lex.resolveByID(id);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.ID, start, resolved != null);
+			if(resolved != null)
+				return resolved;
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.util.List, java.util.Map)
+	 */
+	@Override
+	protected void resolveByBase(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		if(alwaysSearchAll || compiledIndex != null) {
+			super.resolveByBase(keys, resolved);
+			return;
+		}
+		// each lexicon is given the words which the lexicons before it did not find
+		List<WordKey> pending = keys;
+		for(Lexicon lex : lexiconList) {
+			if(pending.isEmpty())
+				return;
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			int found = resolved.size();
+			lex.resolveByBase(pending, resolved);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.BASE, start, pending.size(), resolved.size() - found);
+			pending = getUnresolved(pending, resolved);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.util.List, java.util.Map)
+	 */
+	@Override
+	protected void resolveByVariant(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		if(alwaysSearchAll || compiledIndex != null) {
+			super.resolveByVariant(keys, resolved);
+			return;
+		}
+		List<WordKey> pending = keys;
+		for(Lexicon lex : lexiconList) {
+			if(pending.isEmpty())
+				return;
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			int found = resolved.size();
+			lex.resolveByVariant(pending, resolved);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.VARIANT, start, pending.size(), resolved.size() - found);
+			pending = getUnresolved(pending, resolved);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.util.List, java.util.Map)
+	 */
+	@Override
+	protected void resolveByID(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		if(alwaysSearchAll || compiledIndex != null) {
+			super.resolveByID(keys, resolved);
+			return;
+		}
+		List<WordKey> pending = keys;
+		for(Lexicon lex : lexiconList) {
+			if(pending.isEmpty())
+				return;
+			LexiconMetrics lexMetrics = lex.getMetrics();
+			long start = lexMetrics == null ? 0 : System.nanoTime();
+			int found = resolved.size();
+			lex.resolveByID(pending, resolved);
+			if(lexMetrics != null)
+				lexMetrics.recordStage(ResolvedWord.Resolution.ID, start, pending.size(), resolved.size() - found);
+			pending = getUnresolved(pending, resolved);
+		}
+	}
+
+	/**********************************************************************/
+	// metrics
+	// the lexicons record the stages which they are asked to resolve, so
+	// their metrics show which of them find the words; lookups in the merged
+	// index of a compiled lexicon are only recorded in its own metrics
+	/**********************************************************************/
+
+	/**
+	 * Start recording metrics of the lookups in this lexicon, and in each of
+	 * the lexicons it contains. This replaces any existing metrics. Lexicons
+	 * which are added later do not record metrics unless they are enabled
+	 * for them.
+	 *
+	 * @param topMissedForms -- the number of forms which are most often not
+	 *                       found to report
+	 */
+	@Override
+	public void enableMetrics(int topMissedForms) {
+		super.enableMetrics(topMissedForms);
+		for(Lexicon lex : lexiconList)
+			lex.enableMetrics(topMissedForms);
+	}
+
+	/**
+	 * Stop recording metrics of lookups in this lexicon, and in each of the
+	 * lexicons it contains.
+	 */
+	@Override
+	public void disableMetrics() {
+		super.disableMetrics();
+		for(Lexicon lex : lexiconList)
+			lex.disableMetrics();
+	}
+
 	/**********************************************************************/
 	// other methods
 
 	/**********************************************************************/
 
+	/* (non-Javadoc)
+	 * @see simplenlg.lexicon.Lexicon#getFilterForms()
+	 */
+	@Override
+	protected Collection<String> getFilterForms() {
+		Set<String> forms = new HashSet<String>();
+		for(Lexicon lex : lexiconList) {
+			Collection<String> lexForms = lex.getFilterForms();
+			if(lexForms == null)
+				return null;
+			forms.addAll(lexForms);
+		}
+		return forms;
+	}
+
 	/* (non-Javadoc)
 	 * @see simplenlg.lexicon.Lexicon#close()
 	 */
@@ -20,10 +20,24 @@ package simplenlg.lexicon;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import gov.nih.nlm.nls.lexAccess.Api.LexAccessApi;
 import gov.nih.nlm.nls.lexAccess.Api.LexAccessApiResult;
@@ -36,6 +50,10 @@ import simplenlg.framework.WordElement;
 
 /**
  * This class gets Words from the NIH Specialist Lexicon
+ * <p>
+ * Lookups can be made from several threads at once. Each lookup uses one of a
+ * pool of read-only DB connections, which is set by the <code>poolSize</code>
+ * constructor parameter (1 by default).
  *
  * @author ereiter
  */
@@ -49,14 +67,26 @@ public class NIHDBLexicon extends Lexicon {
 	private static String DB_DEFAULT_PASSWORD = ""; // DB password
 	private static String DB_HSQL_EXTENSION   = ".data"; // filename extension for
 	// HSQL DB
+	private static int    DEFAULT_CACHE_SIZE  = 10000; // max cached DB queries
+
+	// types of DB query, used in cache keys
+	private static final char BASE_QUERY = 'B'; // look up base form
+	private static final char TERM_QUERY = 'T'; // look up variant or ID
 
 	// class variables
-	private Connection   conn  = null; // DB connection
-	private LexAccessApi lexdb = null; // Lexicon access object
+	// Lexicon access objects, each with its own DB connection. A lookup
+	// borrows one from the pool, so lookups can run in parallel
+	private List<LexAccessApi>          lexdbs    = new ArrayList<LexAccessApi>();
+	private BlockingQueue<LexAccessApi> lexdbPool = null; // lexdbs not in use
+	private Map<LexAccessApi, Connection> connections = new IdentityHashMap<LexAccessApi, Connection>();
 
 	// if false, don't keep standard inflections in the Word object
 	private boolean keepStandardInflections = false;
 
+	// cache of DB query results, null if caching is off
+	private volatile LexiconCache<String, List<WordElement>> cache = new LexiconCache<String, List<WordElement>>(
+			DEFAULT_CACHE_SIZE);
+
 	/****************************************************************************/
 	// constructors
 	/****************************************************************************/
@@ -68,23 +98,25 @@ public class NIHDBLexicon extends Lexicon {
 	 * @param filename of HSQL DB
 	 */
 	public NIHDBLexicon(String filename) {
+		this(filename, 1);
+	}
+
+	/**
+	 * set up lexicon using file which contains downloaded lexAccess HSQL DB and
+	 * default passwords, with a pool of read-only connections so that several
+	 * threads can look up words at the same time
+	 *
+	 * @param filename of HSQL DB
+	 * @param poolSize number of DB connections
+	 */
+	public NIHDBLexicon(String filename, int poolSize) {
 		super();
 		// get rid of .data at end of filename if necessary
 		String dbfilename = filename;
 		if(dbfilename.endsWith(DB_HSQL_EXTENSION))
 			dbfilename = dbfilename.substring(0, dbfilename.length() - DB_HSQL_EXTENSION.length());
 
-		// try to open DB and set up lexicon
-		try {
-			Class.forName(DB_HSQL_DRIVER);
-			conn = DriverManager.getConnection(DB_HQSL_JDBC + dbfilename, DB_DEFAULT_USERNAME, DB_DEFAULT_PASSWORD);
-			// now set up lexical access object
-			lexdb = new LexAccessApi(conn);
-
-		} catch(Exception ex) {
-			System.out.println("Cannot open lexical db: " + ex.toString());
-			// probably should thrown an exception
-		}
+		openPool(DB_HSQL_DRIVER, DB_HQSL_JDBC + dbfilename, DB_DEFAULT_USERNAME, DB_DEFAULT_PASSWORD, poolSize);
 	}
 
 	/**
@@ -97,15 +129,46 @@ public class NIHDBLexicon extends Lexicon {
 	 * @param password -- The {@link String} password.
 	 */
 	public NIHDBLexicon(String driver, String url, String username, String password) {
+		this(driver, url, username, password, 1);
+	}
 
+	/**
+	 * Set up lexicon using general DB parameters, with a pool of read-only
+	 * connections so that several threads can look up words at the same
+	 * time; DB must be NIH specialist lexicon from lexAccess.
+	 *
+	 * @param driver -- The {@link String} driver name.
+	 * @param url -- The {@link String} URL path.
+	 * @param username -- The {@link String} username.
+	 * @param password -- The {@link String} password.
+	 * @param poolSize -- The number of DB connections.
+	 */
+	public NIHDBLexicon(String driver, String url, String username, String password, int poolSize) {
 		super();
+		openPool(driver, url, username, password, poolSize);
+	}
+
+	/**
+	 * open the DB connections, and set up a lexical access object for each
+	 */
+	private void openPool(String driver, String url, String username, String password, int poolSize) {
+		if(poolSize < 1)
+			throw new IllegalArgumentException("Pool size must be at least 1: " + poolSize);
+		lexdbPool = new ArrayBlockingQueue<LexAccessApi>(poolSize);
 
 		// try to open DB and set up lexicon
 		try {
 			Class.forName(driver);
-			conn = DriverManager.getConnection(url, username, password);
-			// now set up lexical access object
-			lexdb = new LexAccessApi(conn);
+			for(int i = 0; i < poolSize; i++) {
+				Connection conn = DriverManager.getConnection(url, username, password);
+				// lexicon is only read, which lets the DB avoid locking
+				conn.setReadOnly(true);
+				// now set up lexical access object
+				LexAccessApi lexdb = new LexAccessApi(conn);
+				connections.put(lexdb, conn);
+				lexdbs.add(lexdb);
+				lexdbPool.add(lexdb);
+			}
 		} catch(Exception ex) {
 			System.out.println("Cannot open lexical db: " + ex.toString());
 			// probably should thrown an exception
@@ -132,6 +195,57 @@ public class NIHDBLexicon extends Lexicon {
 	 */
 	public void setKeepStandardInflections(boolean keepStandardInflections) {
 		this.keepStandardInflections = keepStandardInflections;
+		// cached words may have the wrong inflections
+		clearCache();
+	}
+
+	/**
+	 * Get the maximum number of DB query results which are cached. Results
+	 * are cached whether or not the query finds any words, so repeated
+	 * lookups of unknown words are also fast. Cached results are read without
+	 * locking the lexicon.
+	 *
+	 * @return maximum size of the cache, 0 if caching is off
+	 */
+	public int getCacheSize() {
+		LexiconCache<String, List<WordElement>> cache = this.cache;
+		return cache == null ? 0 : cache.getMaximumSize();
+	}
+
+	/**
+	 * Set the maximum number of DB query results which are cached. This
+	 * replaces the cache, so any cached results and statistics are lost.
+	 *
+	 * @param cacheSize - maximum size of the cache, 0 to turn caching off
+	 */
+	public void setCacheSize(int cacheSize) {
+		this.cache = cacheSize > 0 ? new LexiconCache<String, List<WordElement>>(cacheSize) : null;
+	}
+
+	/**
+	 * Get the cache of DB query results, for example to check its hit and
+	 * eviction counts.
+	 *
+	 * @return the cache, or <code>null</code> if caching is off
+	 */
+	public LexiconCache<String, List<WordElement>> getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * @return the number of DB connections which lookups can use in parallel
+	 */
+	public int getPoolSize() {
+		return lexdbs.size();
+	}
+
+	/**
+	 * remove all cached DB query results
+	 */
+	public void clearCache() {
+		LexiconCache<String, List<WordElement>> cache = this.cache;
+		if(cache != null)
+			cache.clear();
 	}
 
 	/****************************************************************************/
@@ -146,32 +260,229 @@ public class NIHDBLexicon extends Lexicon {
 	 * simplenlg.features.LexicalCategory)
 	 */
 	@Override
-	public synchronized List<WordElement> getWords(String baseForm, LexicalCategory category) {
+	public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+		return copyWords(category, lookup(BASE_QUERY, baseForm, null));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsByID(java.lang.String)
+	 */
+	@Override
+	public List<WordElement> getWordsByID(String id) {
+		return copyWords(LexicalCategory.ANY, lookup(TERM_QUERY, id, null));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsFromVariant(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+		return copyWords(category, lookup(TERM_QUERY, variant, null));
+	}
+
+	/**
+	 * get the words (of any category) found by a DB query, from the cache if
+	 * possible. Words in the cache are frozen
+	 *
+	 * @param query - BASE_QUERY or TERM_QUERY
+	 * @param form - the form to look up
+	 * @param lexdb - lexical access object to use, or null to borrow one from
+	 * 		the pool
+	 * @return list of words, or null if there is a DB error
+	 */
+	private List<WordElement> lookup(char query, String form, LexAccessApi lexdb) {
+		LexiconCache<String, List<WordElement>> cache = this.cache;
+		String key = form == null ? null : query + form;
+		if(cache != null && key != null) {
+			List<WordElement> cached = cache.get(key);
+			if(cached != null)
+				return cached;
+		}
+
 		// get words from DB
+		List<WordElement> wordElements;
+		LexAccessApi borrowed = null;
 		try {
+			LexAccessApi api = lexdb;
+			if(api == null)
+				api = borrowed = borrowLexdb();
+			LexAccessApiResult lexResult = query == BASE_QUERY ? api.GetLexRecordsByBase(form, LexAccessApi.B_EXACT)
+			                                                   : api.GetLexRecords(form);
+			wordElements = getWordsFromLexResult(LexicalCategory.ANY, lexResult, api);
+		} catch(SQLException ex) {
+			System.out.println("Lexical DB error: " + ex.toString());
+			// probably should thrown an exception
+			return null;
+		} finally {
+			releaseLexdb(borrowed);
+		}
+
+		if(cache != null && key != null) {
+			for(WordElement wordElement : wordElements)
+				wordElement.freeze();
+			wordElements = cache.put(key, Collections.unmodifiableList(wordElements));
+		}
+		return wordElements;
+	}
+
+	/**
+	 * borrow a lexical access object from the pool, waiting until one is free
+	 *
+	 * @return the lexical access object
+	 * @throws SQLException if the DB could not be opened, or the thread is
+	 *                      interrupted while waiting
+	 */
+	private LexAccessApi borrowLexdb() throws SQLException {
+		if(lexdbs.isEmpty())
+			throw new SQLException("Lexical DB is not open");
+		try {
+			return lexdbPool.take();
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for lexical DB", ex);
+		}
+	}
+
+	/**
+	 * return a borrowed lexical access object to the pool
+	 */
+	private void releaseLexdb(LexAccessApi lexdb) {
+		if(lexdb != null)
+			lexdbPool.add(lexdb);
+	}
+
+	/**
+	 * return the words of the desired category, copying any (cached) frozen
+	 * words so that callers can change them
+	 *
+	 * @param category - desired category (eg, NOUN) (this filters list)
+	 * @param wordElements - words found by a DB query, or null
+	 * @return list of WordElement, or null if wordElements is null
+	 */
+	private List<WordElement> copyWords(LexicalCategory category, List<WordElement> wordElements) {
+		if(wordElements == null)
+			return null;
+
+		List<WordElement> result = new ArrayList<WordElement>();
+		for(WordElement wordElement : wordElements) {
+			if(category == LexicalCategory.ANY || category == wordElement.getCategory())
+				result.add(wordElement.isFrozen() ? new WordElement(wordElement) : wordElement);
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveWord(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public ResolvedWord resolveWord(String baseForm, LexicalCategory category) {
+		// if query results are cached, resolve words from them
+		if(cache != null)
+			return super.resolveWord(baseForm, category);
+
+		// variants and IDs are looked up with the same query, so at most two
+		// queries are needed
+		LexiconMetrics metrics = getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+		long time = start;
+		if(isDefiniteMiss(baseForm)) {
+			if(metrics != null)
+				metrics.recordFilterRejection();
+			return createResolvedWord(baseForm, category, metrics, start, time);
+		}
+		LexAccessApi lexdb = null;
+		try {
+			lexdb = borrowLexdb();
+
+			// 1) word with matching base
 			LexAccessApiResult lexResult = lexdb.GetLexRecordsByBase(baseForm, LexAccessApi.B_EXACT);
-			return getWordsFromLexResult(category, lexResult);
+			ResolvedWord resolved = resolveFromLexResult(baseForm,
+			                                             category,
+			                                             lexResult,
+			                                             ResolvedWord.Resolution.BASE,
+			                                             lexdb);
+			if(metrics != null)
+				time = metrics.recordStage(ResolvedWord.Resolution.BASE, time, resolved != null);
+
+			if(resolved == null) {
+				// 2) word with matching variant
+				lexResult = lexdb.GetLexRecords(baseForm);
+				resolved = resolveFromLexResult(baseForm, category, lexResult, ResolvedWord.Resolution.VARIANT, lexdb);
+				if(metrics != null)
+					time = metrics.recordStage(ResolvedWord.Resolution.VARIANT, time, resolved != null);
+
+				// 3) word with matching ID
+				if(resolved == null) {
+					resolved = resolveByID(lexResult, lexdb);
+					if(metrics != null)
+						time = metrics.recordStage(ResolvedWord.Resolution.ID, time, resolved != null);
+				}
+			}
+
+			if(resolved != null) {
+				if(metrics != null)
+					metrics.recordLookup(start);
+				return resolved;
+			}
+			recordFilterFalsePositive();
 		} catch(SQLException ex) {
 			System.out.println("Lexical DB error: " + ex.toString());
 			// probably should thrown an exception
+		} finally {
+			releaseLexdb(lexdb);
 		}
-		return null;
+
+		// 4) create a new word
+		return createResolvedWord(baseForm, category, metrics, start, time);
+	}
+
+	/**
+	 * the last stage of <code>resolveWord</code>: create a new word, and
+	 * record it in the metrics if there are any
+	 */
+	private ResolvedWord createResolvedWord(String baseForm,
+	                                        LexicalCategory category,
+	                                        LexiconMetrics metrics,
+	                                        long start,
+	                                        long time) {
+		ResolvedWord created = new ResolvedWord(createWord(baseForm, category), ResolvedWord.Resolution.CREATED);
+		if(metrics != null) {
+			metrics.recordStage(ResolvedWord.Resolution.CREATED, time, true);
+			metrics.recordMissedForm(baseForm);
+			metrics.recordLookup(start);
+		}
+		return created;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 *
-	 * @see simplenlg.lexicon.Lexicon#getWordsByID(java.lang.String)
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
 	 */
 	@Override
-	public synchronized List<WordElement> getWordsByID(String id) {
-		// get words from DB
+	protected ResolvedWord resolveByBase(String baseForm, LexicalCategory category) {
+		if(cache != null)
+			return super.resolveByBase(baseForm, category);
+
+		LexAccessApi lexdb = null;
 		try {
-			LexAccessApiResult lexResult = lexdb.GetLexRecords(id);
-			return getWordsFromLexResult(LexicalCategory.ANY, lexResult);
+			lexdb = borrowLexdb();
+			LexAccessApiResult lexResult = lexdb.GetLexRecordsByBase(baseForm, LexAccessApi.B_EXACT);
+			return resolveFromLexResult(baseForm, category, lexResult, ResolvedWord.Resolution.BASE, lexdb);
 		} catch(SQLException ex) {
 			System.out.println("Lexical DB error: " + ex.toString());
 			// probably should thrown an exception
+		} finally {
+			releaseLexdb(lexdb);
 		}
 		return null;
 	}
@@ -179,22 +490,350 @@ public class NIHDBLexicon extends Lexicon {
 	/*
 	 * (non-Javadoc)
 	 *
-	 * @see simplenlg.lexicon.Lexicon#getWordsFromVariant(java.lang.String,
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.lang.String,
 	 * simplenlg.features.LexicalCategory)
 	 */
 	@Override
-	public synchronized List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
-		// get words from DB
+	protected ResolvedWord resolveByVariant(String variant, LexicalCategory category) {
+		if(cache != null)
+			return super.resolveByVariant(variant, category);
+
+		LexAccessApi lexdb = null;
 		try {
+			lexdb = borrowLexdb();
 			LexAccessApiResult lexResult = lexdb.GetLexRecords(variant);
-			return getWordsFromLexResult(category, lexResult);
+			return resolveFromLexResult(variant, category, lexResult, ResolvedWord.Resolution.VARIANT, lexdb);
 		} catch(SQLException ex) {
 			System.out.println("Lexical DB error: " + ex.toString());
 			// probably should thrown an exception
+		} finally {
+			releaseLexdb(lexdb);
 		}
 		return null;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.lang.String)
+	 */
+	@Override
+	protected ResolvedWord resolveByID(String id) {
+		if(cache != null)
+			return super.resolveByID(id);
+
+		LexAccessApi lexdb = null;
+		try {
+			lexdb = borrowLexdb();
+			return resolveByID(lexdb.GetLexRecords(id), lexdb);
+		} catch(SQLException ex) {
+			System.out.println("Lexical DB error: " + ex.toString());
+			// probably should thrown an exception
+		} finally {
+			releaseLexdb(lexdb);
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.util.List,
+	 * java.util.Map)
+	 */
+	@Override
+	protected void resolveByBase(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		resolveWords(BASE_QUERY, keys, resolved, ResolvedWord.Resolution.BASE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.util.List,
+	 * java.util.Map)
+	 */
+	@Override
+	protected void resolveByVariant(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		resolveWords(TERM_QUERY, keys, resolved, ResolvedWord.Resolution.VARIANT);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.util.List,
+	 * java.util.Map)
+	 */
+	@Override
+	protected void resolveByID(List<WordKey> keys, Map<WordKey, ResolvedWord> resolved) {
+		resolveWords(TERM_QUERY, keys, resolved, ResolvedWord.Resolution.ID);
+	}
+
+	/**
+	 * one stage of <code>resolveWords</code>. All the words are looked up
+	 * with a single DB connection, and each distinct form is queried once
+	 * however many categories it is wanted in (or not at all, if the query
+	 * result is cached)
+	 *
+	 * @param query - BASE_QUERY or TERM_QUERY
+	 * @param keys - the words to resolve
+	 * @param resolved - map to which resolved words are added
+	 * @param resolution - the type of lookup
+	 */
+	private void resolveWords(char query,
+	                          List<WordKey> keys,
+	                          Map<WordKey, ResolvedWord> resolved,
+	                          ResolvedWord.Resolution resolution) {
+		Map<String, List<WordKey>> keysByForm = new LinkedHashMap<String, List<WordKey>>();
+		for(WordKey key : keys) {
+			List<WordKey> formKeys = keysByForm.get(key.getBaseForm());
+			if(formKeys == null) {
+				formKeys = new ArrayList<WordKey>();
+				keysByForm.put(key.getBaseForm(), formKeys);
+			}
+			formKeys.add(key);
+		}
+
+		LexiconCache<String, List<WordElement>> cache = this.cache;
+		LexAccessApi lexdb = null;
+		try {
+			lexdb = borrowLexdb();
+			for(Map.Entry<String, List<WordKey>> entry : keysByForm.entrySet()) {
+				String form = entry.getKey();
+				List<WordElement> wordElements = null;
+				LexAccessApiResult lexResult = null;
+				if(cache != null)
+					wordElements = lookup(query, form, lexdb);
+				else if(query == BASE_QUERY)
+					lexResult = lexdb.GetLexRecordsByBase(form, LexAccessApi.B_EXACT);
+				else
+					lexResult = lexdb.GetLexRecords(form);
+
+				for(WordKey key : entry.getValue()) {
+					ResolvedWord resolvedWord;
+					if(resolution == ResolvedWord.Resolution.ID)
+						resolvedWord = cache != null ? resolveByID(copyWords(LexicalCategory.ANY, wordElements))
+						                             : resolveByID(lexResult, lexdb);
+					else if(cache != null)
+						resolvedWord = resolveFromWords(copyWords(key.getCategory(), wordElements), form, resolution);
+					else
+						resolvedWord = resolveFromLexResult(form, key.getCategory(), lexResult, resolution, lexdb);
+
+					if(resolvedWord != null)
+						resolved.put(key, resolvedWord);
+				}
+			}
+		} catch(SQLException ex) {
+			System.out.println("Lexical DB error: " + ex.toString());
+			// probably should thrown an exception
+		} finally {
+			releaseLexdb(lexdb);
+		}
+	}
+
+	/**
+	 * resolve a word by ID from the words found by a DB query
+	 *
+	 * @return the first word, or null if there are none
+	 */
+	private ResolvedWord resolveByID(List<WordElement> wordElements) {
+		if(wordElements == null || wordElements.isEmpty())
+			return null;
+		return new ResolvedWord(wordElements.get(0), ResolvedWord.Resolution.ID);
+	}
+
+	/**
+	 * resolve a word by ID from a LexAccessApiResult
+	 *
+	 * @return the word made from the first record, or null if there are none
+	 */
+	private ResolvedWord resolveByID(LexAccessApiResult lexResult, LexAccessApi lexdb) {
+		List<LexRecord> records = lexResult.GetJavaObjs();
+		if(records.isEmpty())
+			return null;
+		return new ResolvedWord(makeWord(records.get(0), lexdb), ResolvedWord.Resolution.ID);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getFilterForms()
+	 */
+	@Override
+	protected Collection<String> getFilterForms() {
+		// the filter ignores case, so lower-case variants match any variant
+		Set<String> forms = new HashSet<String>();
+		LexAccessApi lexdb = null;
+		try {
+			lexdb = borrowLexdb();
+			Connection conn = connections.get(lexdb);
+			forms.addAll(selectStrings(conn, "SELECT DISTINCT BASE FROM LEX_RECORD"));
+			forms.addAll(selectStrings(conn, "SELECT DISTINCT INFLVARLC FROM INFL_VARS"));
+			forms.addAll(selectStrings(conn, "SELECT DISTINCT EUI FROM LEX_RECORD"));
+		} catch(SQLException ex) {
+			System.out.println("Lexical DB error: " + ex.toString());
+			// without all the forms, a filter would reject words in the DB
+			return null;
+		} finally {
+			releaseLexdb(lexdb);
+		}
+		return forms;
+	}
+
+	/**
+	 * add every word in the DB to a binary lexicon writer, indexed so that
+	 * the binary lexicon gives the same words as this lexicon. Each word is
+	 * indexed under its base form, every form in the DB's table of
+	 * inflectional and spelling variants (in lower case, as variant lookups
+	 * in the DB are case-insensitive), and its ID
+	 *
+	 * @param writer - the writer
+	 * @throws SQLException if the DB cannot be read
+	 */
+	void writeIndexes(BinaryLexiconWriter writer) throws SQLException {
+		writeIndexes(writer, null);
+	}
+
+	/**
+	 * add the words with the given base forms to a binary lexicon writer,
+	 * indexed in the same way as by <code>writeIndexes(writer)</code>, so that
+	 * the binary lexicon gives the same words as this lexicon for these base
+	 * forms, the variants of their words and their IDs
+	 *
+	 * @param writer - the writer
+	 * @param baseForms - the base forms, or <code>null</code> for every word
+	 * @throws SQLException if the DB cannot be read
+	 */
+	void writeIndexes(BinaryLexiconWriter writer, Collection<String> baseForms) throws SQLException {
+		// words are made afresh by every query, so keep one of each
+		Map<String, WordElement> wordsByID = new HashMap<String, WordElement>();
+
+		LexAccessApi lexdb = null;
+		try {
+			lexdb = borrowLexdb();
+			Connection conn = connections.get(lexdb);
+
+			List<String> bases = baseForms == null ? selectStrings(conn,
+			                                                       "SELECT DISTINCT BASE FROM LEX_RECORD ORDER BY BASE")
+			                                       : new ArrayList<String>(new TreeSet<String>(baseForms));
+			for(String base : bases) {
+				LexAccessApiResult lexResult = lexdb.GetLexRecordsByBase(base, LexAccessApi.B_EXACT);
+				for(WordElement word : getWordsFromLexResult(LexicalCategory.ANY, lexResult, lexdb))
+					writer.indexBase(base, getIndexedWord(word, wordsByID));
+			}
+
+			// the variants and IDs of the words with these base forms
+			List<String> variants;
+			List<String> ids;
+			if(baseForms == null) {
+				variants = selectStrings(conn, "SELECT DISTINCT INFLVARLC FROM INFL_VARS ORDER BY INFLVARLC");
+				ids = selectStrings(conn, "SELECT DISTINCT EUI FROM LEX_RECORD ORDER BY EUI");
+			} else {
+				ids = new ArrayList<String>(new TreeSet<String>(wordsByID.keySet()));
+				Set<String> wordVariants = new TreeSet<String>();
+				for(String id : ids)
+					wordVariants.addAll(selectStrings(conn, "SELECT DISTINCT INFLVARLC FROM INFL_VARS WHERE EUI = ?", id));
+				variants = new ArrayList<String>(wordVariants);
+			}
+
+			writer.setCaseInsensitiveVariants(true);
+			for(String variant : variants) {
+				LexAccessApiResult lexResult = lexdb.GetLexRecords(variant);
+				for(WordElement word : getWordsFromLexResult(LexicalCategory.ANY, lexResult, lexdb))
+					writer.indexVariant(variant, getIndexedWord(word, wordsByID));
+			}
+
+			// IDs are also variants, as the DB looks up both in the same way
+			for(String id : ids) {
+				LexAccessApiResult lexResult = lexdb.GetLexRecords(id);
+				for(WordElement word : getWordsFromLexResult(LexicalCategory.ANY, lexResult, lexdb)) {
+					WordElement indexedWord = getIndexedWord(word, wordsByID);
+					writer.indexID(id, indexedWord);
+					writer.indexVariant(id.toLowerCase(), indexedWord);
+				}
+			}
+		} finally {
+			releaseLexdb(lexdb);
+		}
+	}
+
+	/**
+	 * get the word with the same ID which has already been indexed, if there
+	 * is one
+	 */
+	private WordElement getIndexedWord(WordElement word, Map<String, WordElement> wordsByID) {
+		if(word.getId() == null)
+			return word;
+		WordElement indexedWord = wordsByID.get(word.getId());
+		if(indexedWord == null) {
+			wordsByID.put(word.getId(), word);
+			indexedWord = word;
+		}
+		return indexedWord;
+	}
+
+	/**
+	 * run a query which returns a single column of strings, with a string
+	 * parameter
+	 */
+	private List<String> selectStrings(Connection conn, String sql, String parameter) throws SQLException {
+		List<String> strings = new ArrayList<String>();
+		PreparedStatement statement = conn.prepareStatement(sql);
+		try {
+			statement.setString(1, parameter);
+			ResultSet resultSet = statement.executeQuery();
+			while(resultSet.next())
+				strings.add(resultSet.getString(1));
+		} finally {
+			statement.close();
+		}
+		return strings;
+	}
+
+	/**
+	 * run a query which returns a single column of strings
+	 */
+	private List<String> selectStrings(Connection conn, String sql) throws SQLException {
+		List<String> strings = new ArrayList<String>();
+		Statement statement = conn.createStatement();
+		try {
+			ResultSet resultSet = statement.executeQuery(sql);
+			while(resultSet.next())
+				strings.add(resultSet.getString(1));
+		} finally {
+			statement.close();
+		}
+		return strings;
+	}
+
+	/**
+	 * resolve a word from a LexAccessApiResult, choosing a record in the same
+	 * way as <code>selectMatchingWord</code> chooses a word
+	 *
+	 * @return the resolved word, or null if no record has the desired category
+	 */
+	private ResolvedWord resolveFromLexResult(String form,
+	                                          LexicalCategory category,
+	                                          LexAccessApiResult lexResult,
+	                                          ResolvedWord.Resolution resolution,
+	                                          LexAccessApi lexdb) {
+		LexRecord first = null;
+		for(LexRecord record : lexResult.GetJavaObjs()) {
+			if(category == LexicalCategory.ANY || category == getSimplenlgCategory(record)) {
+				if(record.GetBase().equals(form))
+					return new ResolvedWord(makeWord(record, lexdb), resolution);
+				if(first == null)
+					first = record;
+			}
+		}
+
+		if(first == null)
+			return null;
+		else if(first.GetBase().equalsIgnoreCase(form))
+			return new ResolvedWord(createWord(form, LexicalCategory.ANY), ResolvedWord.Resolution.CREATED);
+		else
+			return new ResolvedWord(makeWord(first, lexdb), resolution);
+	}
+
 	/****************************************************************************/
 	// other methods
 
@@ -207,16 +846,18 @@ public class NIHDBLexicon extends Lexicon {
 	 */
 	@Override
 	public void close() {
-		if(lexdb != null)
+		clearCache();
+		for(LexAccessApi lexdb : lexdbs)
 			lexdb.CleanUp();
 	}
 
 	/**
 	 * make a WordElement from a lexical record. Currently just specifies basic
-	 * params and inflections Should do more in the future!
+	 * params and inflections Should do more in the future! Any further DB
+	 * lookups use the lexical access object which found the record
 	 */
 	@SuppressWarnings("incomplete-switch")
-	private WordElement makeWord(LexRecord record) {
+	private WordElement makeWord(LexRecord record, LexAccessApi lexdb) {
 		// get basic data
 		String baseForm = record.GetBase();
 		LexicalCategory category = getSimplenlgCategory(record);
@@ -274,7 +915,7 @@ public class NIHDBLexicon extends Lexicon {
 		// }
 
 		// add acronym info
-		addAcronymInfo(wordElement, record);
+		addAcronymInfo(wordElement, record, lexdb);
 
 		// now add spelling variants
 		addSpellingVariants(wordElement, record);
@@ -287,9 +928,12 @@ public class NIHDBLexicon extends Lexicon {
 	 *
 	 * @param category - desired category (eg, NOUN) (this filters list)
 	 * @param lexResult - the LexAccessApiResult
+	 * @param lexdb - the lexical access object which produced the result
 	 * @return list of WordElement
 	 */
-	private List<WordElement> getWordsFromLexResult(LexicalCategory category, LexAccessApiResult lexResult) {
+	private List<WordElement> getWordsFromLexResult(LexicalCategory category,
+	                                                LexAccessApiResult lexResult,
+	                                                LexAccessApi lexdb) {
 		List<LexRecord> records = lexResult.GetJavaObjs();
 
 		// set up array of words to return
@@ -299,7 +943,7 @@ public class NIHDBLexicon extends Lexicon {
 		for(LexRecord record : records) {
 
 			if(category == LexicalCategory.ANY || category == getSimplenlgCategory(record))
-				wordElements.add(makeWord(record));
+				wordElements.add(makeWord(record, lexdb));
 		}
 		return wordElements;
 	}
@@ -608,7 +1252,7 @@ public class NIHDBLexicon extends Lexicon {
 	 * a list of full form word elements, retrievable via
 	 * {@link LexicalFeature#ACRONYM_OF}
 	 */
-	private void addAcronymInfo(WordElement wordElement, LexRecord record) {
+	private void addAcronymInfo(WordElement wordElement, LexRecord record, LexAccessApi lexdb) {
 		// NB: the acronyms are actually the full forms of which the word is an
 		// acronym
 		List<String> acronyms = record.GetAcronyms();
@@ -622,8 +1266,12 @@ public class NIHDBLexicon extends Lexicon {
 				if(fullForm.contains("|")) {
 					// get the acronym id
 					String acronymID = fullForm.substring(fullForm.indexOf("|") + 1, fullForm.length());
-					// create the full form element
-					WordElement fullFormWE = this.getWordByID(acronymID);
+					// create the full form element, using the same lexical
+					// access object, as all the others may be in use
+					List<WordElement> fullForms = copyWords(LexicalCategory.ANY,
+					                                        lookup(TERM_QUERY, acronymID, lexdb));
+					WordElement fullFormWE = fullForms == null || fullForms.isEmpty() ? createWord(acronymID)
+					                                                                  : fullForms.get(0);
 
 					if(fullForm != null) {
 						// add as full form of this acronym
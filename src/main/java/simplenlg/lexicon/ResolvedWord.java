@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import simplenlg.framework.WordElement;
+
+/**
+ * The result of resolving a word in a {@link Lexicon} with
+ * <code>resolveWord</code>: the {@link WordElement}, and how it was found.
+ */
+public class ResolvedWord {
+
+	/**
+	 * The ways in which a word can be resolved, in the order in which they are
+	 * tried.
+	 */
+	public enum Resolution {
+
+		/**
+		 * The word was found by its base form.
+		 */
+		BASE,
+		/**
+		 * The word was found by an inflected form or spelling variant.
+		 */
+		VARIANT,
+		/**
+		 * The word was found by its lexicon ID.
+		 */
+		ID,
+		/**
+		 * The word is not in the lexicon, so a new word was created.
+		 */
+		CREATED
+	}
+
+	private final WordElement word;
+	private final Resolution  resolution;
+
+	/**
+	 * Create a resolved word.
+	 *
+	 * @param word -- the {@link WordElement}
+	 * @param resolution -- how the word was found
+	 */
+	public ResolvedWord(WordElement word, Resolution resolution) {
+		this.word = word;
+		this.resolution = resolution;
+	}
+
+	/**
+	 * @return the word
+	 */
+	public WordElement getWord() {
+		return word;
+	}
+
+	/**
+	 * @return how the word was found
+	 */
+	public Resolution getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * @return <code>true</code> if the word is not in the lexicon, and was
+	 * 		created
+	 */
+	public boolean isCreated() {
+		return resolution == Resolution.CREATED;
+	}
+
+	@Override
+	public String toString() {
+		return resolution + ":" + word;
+	}
+}
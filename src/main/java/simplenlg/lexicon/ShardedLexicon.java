@@ -0,0 +1,353 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+
+/**
+ * This class gets words from a lexicon which has been split into shards by
+ * {@link ShardedLexiconWriter}. No words are loaded when the lexicon is
+ * opened; the shard holding a form is loaded, as a frozen
+ * {@link XMLLexicon}, the first time the form is looked up. Startup time and
+ * memory use therefore depend on the vocabulary which is actually used,
+ * rather than on the size of the lexicon, which makes this suitable for very
+ * large lexicons such as XML dumps of the NIH Specialist Lexicon.
+ * <p>
+ * Lookups give the same words as an {@link XMLLexicon} of the whole source
+ * file, and the words are frozen (see {@link WordElement#freeze()}). A word
+ * which is indexed in several shards is loaded once for each of them, so the
+ * same word may be returned as different (but equal) objects.
+ * <p>
+ * The lexicon can be used by several threads at once. Each shard is loaded
+ * once: a thread which looks up a form in a shard which another thread is
+ * loading waits for it to be loaded. Shards which are expected to be used can
+ * be loaded in the background with <code>prefetch</code>.
+ */
+public class ShardedLexicon extends Lexicon {
+
+	private final File        directory;
+	private final int         prefixLength;
+	private final int         wordCount;
+	private final Set<String> shardNames;
+
+	// shards which have been loaded, or are being loaded, by shard name
+	private final ConcurrentHashMap<String, FutureTask<XMLLexicon>> shards =
+			new ConcurrentHashMap<String, FutureTask<XMLLexicon>>();
+
+	// loads shards in the background; created by the first prefetch
+	private ExecutorService prefetcher = null;
+
+	/**********************************************************************/
+	// constructors
+	/**********************************************************************/
+
+	/**
+	 * Open a sharded lexicon from a named directory.
+	 *
+	 * @param directoryName -- The String path to the directory of shards.
+	 * @throws IOException if the directory does not contain a sharded lexicon
+	 */
+	public ShardedLexicon(String directoryName) throws IOException {
+		this(new File(directoryName));
+	}
+
+	/**
+	 * Open a sharded lexicon from a directory. Only the manifest is read;
+	 * shards are loaded when they are used.
+	 *
+	 * @param directory -- The {@link File} object to the directory of shards.
+	 * @throws IOException if the directory does not contain a sharded lexicon
+	 */
+	public ShardedLexicon(File directory) throws IOException {
+		super();
+		this.directory = directory;
+
+		Properties manifest = new Properties();
+		InputStream input = new FileInputStream(new File(directory, ShardedLexiconWriter.MANIFEST_FILENAME));
+		try {
+			manifest.load(input);
+		} finally {
+			input.close();
+		}
+
+		try {
+			prefixLength = Integer.parseInt(manifest.getProperty(ShardedLexiconWriter.PREFIX_LENGTH_PROPERTY));
+			wordCount = Integer.parseInt(manifest.getProperty(ShardedLexiconWriter.WORD_COUNT_PROPERTY, "0"));
+		} catch(NumberFormatException ex) {
+			throw new IOException("Not a sharded lexicon: " + directory, ex);
+		}
+
+		Set<String> names = new HashSet<String>();
+		String shardList = manifest.getProperty(ShardedLexiconWriter.SHARDS_PROPERTY, "");
+		for(String name : shardList.split(",")) {
+			if(!name.isEmpty())
+				names.add(name);
+		}
+		shardNames = Collections.unmodifiableSet(names);
+	}
+
+	/**********************************************************************/
+	// shard loading
+	/**********************************************************************/
+
+	/**
+	 * get the shard which holds the words indexed under a form, loading it if
+	 * necessary
+	 *
+	 * @return the shard, or <code>null</code> if there are no words under
+	 * 		forms with this prefix
+	 */
+	private XMLLexicon getShard(String form) {
+		if(form == null)
+			return null;
+
+		String name = ShardedLexiconWriter.getShardName(form, prefixLength);
+		return shardNames.contains(name) ? loadShard(name) : null;
+	}
+
+	/**
+	 * load a shard, or wait for the thread which is loading it
+	 */
+	private XMLLexicon loadShard(final String name) {
+		FutureTask<XMLLexicon> shard = shards.get(name);
+		if(shard == null) {
+			FutureTask<XMLLexicon> task = new FutureTask<XMLLexicon>(new Callable<XMLLexicon>() {
+
+				@Override
+				public XMLLexicon call() throws IOException {
+					return XMLLexicon.load(new File(directory, name + ShardedLexiconWriter.SHARD_SUFFIX)).freeze();
+				}
+			});
+			shard = shards.putIfAbsent(name, task);
+			if(shard == null) {
+				shard = task;
+				task.run();
+			}
+		}
+
+		boolean interrupted = false;
+		try {
+			while(true) {
+				try {
+					return shard.get();
+				} catch(InterruptedException ex) {
+					// the shard is still needed, so keep waiting
+					interrupted = true;
+				}
+			}
+		} catch(ExecutionException ex) {
+			// let the next lookup try again
+			shards.remove(name, shard);
+			throw new IllegalStateException("Cannot load lexicon shard " + name, ex.getCause());
+		} finally {
+			if(interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Load the shards which hold the given forms in the background, so that
+	 * they are ready when the forms are looked up. Shards which are already
+	 * loaded are not loaded again.
+	 *
+	 * @param forms -- base forms, variants or IDs which are expected to be
+	 *              looked up
+	 * @return a {@link Future} which completes when the shards are loaded
+	 */
+	public Future<?> prefetch(Collection<String> forms) {
+		final Set<String> names = new TreeSet<String>();
+		for(String form : forms) {
+			if(form != null)
+				names.add(ShardedLexiconWriter.getShardName(form, prefixLength));
+		}
+		names.retainAll(shardNames);
+
+		return getPrefetcher().submit(new Runnable() {
+
+			@Override
+			public void run() {
+				for(String name : names) {
+					if(Thread.currentThread().isInterrupted())
+						return;
+					loadShard(name);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Load every shard in the background. This gives the same lookup times as
+	 * an {@link XMLLexicon}, without delaying startup.
+	 *
+	 * @return a {@link Future} which completes when the shards are loaded
+	 */
+	public Future<?> prefetchAll() {
+		List<String> prefixes = new ArrayList<String>(shardNames);
+		return prefetch(prefixes);
+	}
+
+	/**
+	 * get the background loader, creating it if necessary. Its thread is a
+	 * daemon, so does not stop the JVM from exiting
+	 */
+	private synchronized ExecutorService getPrefetcher() {
+		if(prefetcher == null) {
+			prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "ShardedLexicon-prefetch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return prefetcher;
+	}
+
+	/**
+	 * @return the number of shards in this lexicon
+	 */
+	public int getShardCount() {
+		return shardNames.size();
+	}
+
+	/**
+	 * @return the number of shards which have been loaded
+	 */
+	public int getLoadedShardCount() {
+		int loaded = 0;
+		for(FutureTask<XMLLexicon> shard : shards.values()) {
+			if(shard.isDone())
+				loaded++;
+		}
+		return loaded;
+	}
+
+	/**
+	 * @return the number of words in the lexicon the shards were written from
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+
+	/**
+	 * @return the number of characters of a form which select its shard
+	 */
+	public int getPrefixLength() {
+		return prefixLength;
+	}
+
+	/******************************************************************************************/
+	// main methods to get data from lexicon
+	/******************************************************************************************/
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWords(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+		XMLLexicon shard = getShard(baseForm);
+		return shard == null ? Collections.<WordElement>emptyList() : shard.getWords(baseForm, category);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsByID(java.lang.String)
+	 */
+	@Override
+	public List<WordElement> getWordsByID(String id) {
+		XMLLexicon shard = getShard(id);
+		return shard == null ? Collections.<WordElement>emptyList() : shard.getWordsByID(id);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getWordsFromVariant(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+		XMLLexicon shard = getShard(variant);
+		return shard == null ? Collections.<WordElement>emptyList() : shard.getWordsFromVariant(variant, category);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByBase(String baseForm, LexicalCategory category) {
+		XMLLexicon shard = getShard(baseForm);
+		return shard == null ? null : shard.resolveByBase(baseForm, category);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByVariant(String variant, LexicalCategory category) {
+		XMLLexicon shard = getShard(variant);
+		return shard == null ? null : shard.resolveByVariant(variant, category);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.lang.String)
+	 */
+	@Override
+	protected ResolvedWord resolveByID(String id) {
+		XMLLexicon shard = getShard(id);
+		return shard == null ? null : shard.resolveByID(id);
+	}
+
+	/**
+	 * Stop any background loading, and release the loaded shards. The
+	 * lexicon can still be used, but shards will be loaded again.
+	 */
+	@Override
+	public void close() {
+		synchronized(this) {
+			if(prefetcher != null) {
+				prefetcher.shutdownNow();
+				prefetcher = null;
+			}
+		}
+		shards.clear();
+	}
+}
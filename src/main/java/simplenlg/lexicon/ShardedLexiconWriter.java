@@ -0,0 +1,306 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import simplenlg.framework.WordElement;
+
+/**
+ * This class splits an XML lexicon into the shards read by
+ * {@link ShardedLexicon}. Each shard is a small XML lexicon holding the words
+ * indexed under keys (base forms, variants and IDs) which start with the same
+ * prefix, so a lookup only needs the shard of the form being looked up. A
+ * word whose keys have different prefixes (such as "be", which is indexed
+ * under "is" and "was") is written to each of their shards.
+ * <p>
+ * The shards are written to a directory as <code>&lt;prefix&gt;.xml</code>,
+ * with a manifest (<code>shards.properties</code>) giving the prefix length
+ * and the names of the shards. The source lexicon is read with a StAX reader,
+ * so it is never held in memory, and words are written to their shards in the
+ * order in which they appear in the source, so lookups give the same words in
+ * the same order as an {@link XMLLexicon} of the whole file.
+ */
+public class ShardedLexiconWriter {
+
+	/**
+	 * The default number of characters of a key which select its shard.
+	 */
+	public static final int DEFAULT_PREFIX_LENGTH = 2;
+
+	// manifest file and properties, shared with ShardedLexicon
+	static final String MANIFEST_FILENAME      = "shards.properties";
+	static final String PREFIX_LENGTH_PROPERTY = "prefixLength";
+	static final String SHARDS_PROPERTY        = "shards";
+	static final String WORD_COUNT_PROPERTY    = "wordCount";
+	static final String SHARD_SUFFIX           = ".xml";
+
+	// the most shard files which are kept open while writing
+	private static final int MAX_OPEN_SHARDS = 64;
+
+	private final File directory;
+	private final int  prefixLength;
+
+	// shards which have been started, in name order
+	private SortedSet<String>   shardNames = new TreeSet<String>();
+	// open shard files, least recently written first
+	private Map<String, Writer> openShards = new LinkedHashMap<String, Writer>(16, 0.75f, true);
+	private int                 wordCount  = 0;
+
+	/**
+	 * create a writer of shards with the given prefix length
+	 */
+	private ShardedLexiconWriter(File directory, int prefixLength) {
+		this.directory = directory;
+		this.prefixLength = prefixLength;
+	}
+
+	/**********************************************************************/
+	// routines to write the shards
+	/**********************************************************************/
+
+	/**
+	 * Split an XML lexicon file into shards, using the default prefix length.
+	 *
+	 * @param lexiconURI -- the {@link URI} of the XML lexicon file
+	 * @param directory -- the directory the shards are written to, which is
+	 *                  created if necessary
+	 * @throws IOException if the lexicon cannot be read, or the shards cannot
+	 *                     be written
+	 */
+	public static void write(URI lexiconURI, File directory) throws IOException {
+		write(lexiconURI, directory, DEFAULT_PREFIX_LENGTH);
+	}
+
+	/**
+	 * Split an XML lexicon file into shards. Longer prefixes give more,
+	 * smaller, shards.
+	 *
+	 * @param lexiconURI -- the {@link URI} of the XML lexicon file
+	 * @param directory -- the directory the shards are written to, which is
+	 *                  created if necessary
+	 * @param prefixLength -- the number of characters of a key which select
+	 *                     its shard
+	 * @throws IOException if the lexicon cannot be read, or the shards cannot
+	 *                     be written
+	 * @throws IllegalArgumentException if the prefix length is not positive
+	 */
+	public static void write(URI lexiconURI, File directory, int prefixLength) throws IOException {
+		if(prefixLength <= 0)
+			throw new IllegalArgumentException("Prefix length must be positive: " + prefixLength);
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create directory " + directory);
+
+		ShardedLexiconWriter writer = new ShardedLexiconWriter(directory, prefixLength);
+		try {
+			writer.writeShards(lexiconURI);
+		} catch(XMLStreamException ex) {
+			throw new IOException("Cannot read XML lexicon " + lexiconURI, ex);
+		} finally {
+			writer.closeShards();
+		}
+		writer.finishShards();
+		writer.writeManifest();
+	}
+
+	/**
+	 * Get the name of the shard which holds the words indexed under a key:
+	 * the first characters of the key, in lower case, with characters other
+	 * than letters and digits replaced by underscores.
+	 *
+	 * @param key -- a base form, variant or ID
+	 * @param prefixLength -- the number of characters which select the shard
+	 * @return the name of the shard
+	 */
+	static String getShardName(String key, int prefixLength) {
+		int length = Math.min(key.length(), prefixLength);
+		StringBuilder name = new StringBuilder(length);
+		for(int i = 0; i < length; i++) {
+			char c = Character.toLowerCase(key.charAt(i));
+			name.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : '_');
+		}
+		return name.toString();
+	}
+
+	/**
+	 * read the words of the source lexicon, and write each of them to the
+	 * shards of its keys
+	 */
+	private void writeShards(URI lexiconURI) throws IOException, XMLStreamException {
+		InputStream input = lexiconURI.toURL().openStream();
+		XMLStreamReader reader = null;
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			reader = factory.createXMLStreamReader(lexiconURI.toString(), input);
+
+			// depth 1 is the lexicon root, its child elements are words
+			List<String[]> features = new ArrayList<String[]>();
+			int depth = 0;
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if(depth == 2) {
+						features.clear();
+						WordElement word = XMLLexicon.readWord(reader, null, features);
+						if(word != null)
+							writeWord(word, features);
+						depth--;
+					}
+				} else if(event == XMLStreamConstants.END_ELEMENT) {
+					depth--;
+				}
+			}
+		} finally {
+			if(reader != null)
+				reader.close();
+			input.close();
+		}
+	}
+
+	/**
+	 * write a word, as it appeared in the source lexicon, to the shards of
+	 * its keys
+	 */
+	private void writeWord(WordElement word, List<String[]> features) throws IOException {
+		Set<String> shards = new TreeSet<String>();
+		for(String key : XMLLexicon.getIndexKeys(word))
+			shards.add(getShardName(key, prefixLength));
+		if(shards.isEmpty())
+			return;
+
+		StringBuilder xml = new StringBuilder(String.format("<word>%n"));
+		for(String[] feature : features) {
+			if(feature[1] == null || feature[1].trim().isEmpty())
+				xml.append(String.format("  <%s/>%n", feature[0]));
+			else
+				xml.append(String.format("  <%s>%s</%s>%n", feature[0], escape(feature[1].trim()), feature[0]));
+		}
+		xml.append(String.format("</word>%n"));
+
+		for(String shard : shards)
+			getShardWriter(shard).write(xml.toString());
+		wordCount++;
+	}
+
+	/**
+	 * get the open file of a shard, starting the shard if this is its first
+	 * word. If too many shards are open, the least recently written one is
+	 * closed, and is appended to when it is next written
+	 */
+	private Writer getShardWriter(String shard) throws IOException {
+		Writer writer = openShards.get(shard);
+		if(writer != null)
+			return writer;
+
+		if(openShards.size() >= MAX_OPEN_SHARDS) {
+			Iterator<Writer> eldest = openShards.values().iterator();
+			Writer closing = eldest.next();
+			eldest.remove();
+			closing.close();
+		}
+
+		boolean started = shardNames.contains(shard);
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getShardFile(shard), started),
+		                                                   StandardCharsets.UTF_8));
+		if(!started) {
+			writer.write(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n<lexicon>%n"));
+			shardNames.add(shard);
+		}
+		openShards.put(shard, writer);
+		return writer;
+	}
+
+	/**
+	 * close the open shard files
+	 */
+	private void closeShards() throws IOException {
+		IOException failure = null;
+		for(Writer writer : openShards.values()) {
+			try {
+				writer.close();
+			} catch(IOException ex) {
+				failure = ex;
+			}
+		}
+		openShards.clear();
+		if(failure != null)
+			throw failure;
+	}
+
+	/**
+	 * end the lexicon element of each shard, once all the words are written
+	 */
+	private void finishShards() throws IOException {
+		for(String shard : shardNames) {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(getShardFile(shard), true),
+			                                       StandardCharsets.UTF_8);
+			try {
+				writer.write(String.format("</lexicon>%n"));
+			} finally {
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * write the manifest, which lists the shards
+	 */
+	private void writeManifest() throws IOException {
+		StringBuilder shards = new StringBuilder();
+		for(String shard : shardNames) {
+			if(shards.length() > 0)
+				shards.append(',');
+			shards.append(shard);
+		}
+
+		Properties manifest = new Properties();
+		manifest.setProperty(PREFIX_LENGTH_PROPERTY, Integer.toString(prefixLength));
+		manifest.setProperty(WORD_COUNT_PROPERTY, Integer.toString(wordCount));
+		manifest.setProperty(SHARDS_PROPERTY, shards.toString());
+		OutputStream os = new FileOutputStream(new File(directory, MANIFEST_FILENAME));
+		try {
+			manifest.store(os, "SimpleNLG sharded lexicon");
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * @return the file of a shard
+	 */
+	private File getShardFile(String shard) {
+		return new File(directory, shard + SHARD_SUFFIX);
+	}
+
+	/**
+	 * escape the characters of a feature value which are special in XML
+	 */
+	private static String escape(String value) {
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of the strings and feature values read by a lexicon, so that all of
+ * its words share a single instance of each distinct base form, ID, feature
+ * name and feature value. This is like <code>String.intern</code>, but the
+ * pool belongs to the lexicon and can be discarded once the lexicon has been
+ * loaded. It can be used by several threads at once.
+ */
+public class StringPool {
+
+	private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Get the pooled instance of a string, adding it to the pool if
+	 * necessary.
+	 *
+	 * @param string -- the string
+	 * @return a string equal to the given string, or <code>null</code> if it
+	 * 		is <code>null</code>
+	 */
+	public String intern(String string) {
+		if(string == null)
+			return null;
+
+		String pooled = strings.putIfAbsent(string, string);
+		return pooled == null ? string : pooled;
+	}
+
+	/**
+	 * @return the number of distinct strings in the pool
+	 */
+	public int size() {
+		return strings.size();
+	}
+
+	/**
+	 * Remove all the strings from the pool.
+	 */
+	public void clear() {
+		strings.clear();
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import simplenlg.framework.LexicalCategory;
+
+/**
+ * A base form and {@link LexicalCategory}, which identify a word to be looked
+ * up in a {@link Lexicon} with <code>lookupWords</code> or
+ * <code>resolveWords</code>. Keys with the same base form and category are
+ * equal, so they can be used as map keys.
+ */
+public class WordKey {
+
+	private final String          baseForm;
+	private final LexicalCategory category;
+
+	/**
+	 * Create a key for a word of any category.
+	 *
+	 * @param baseForm -- the base form of the word
+	 */
+	public WordKey(String baseForm) {
+		this(baseForm, LexicalCategory.ANY);
+	}
+
+	/**
+	 * Create a key for a word.
+	 *
+	 * @param baseForm -- the base form of the word
+	 * @param category -- the category of the word (ANY for unknown)
+	 * @throws IllegalArgumentException if the base form is <code>null</code>
+	 */
+	public WordKey(String baseForm, LexicalCategory category) {
+		if(baseForm == null)
+			throw new IllegalArgumentException("Base form must not be null");
+		this.baseForm = baseForm;
+		this.category = category == null ? LexicalCategory.ANY : category;
+	}
+
+	/**
+	 * @return the base form of the word
+	 */
+	public String getBaseForm() {
+		return baseForm;
+	}
+
+	/**
+	 * @return the category of the word, ANY if it is unknown
+	 */
+	public LexicalCategory getCategory() {
+		return category;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o)
+			return true;
+		if(!(o instanceof WordKey))
+			return false;
+		WordKey other = (WordKey) o;
+		return baseForm.equals(other.baseForm) && category == other.category;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * baseForm.hashCode() + category.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return baseForm + ":" + category;
+	}
+}
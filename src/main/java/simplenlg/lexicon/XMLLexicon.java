@@ -19,13 +19,24 @@
 package simplenlg.lexicon;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -40,6 +51,13 @@ import simplenlg.framework.WordElement;
 /**
  * This class loads words from an XML lexicon. All features specified in the
  * lexicon are loaded
+ * <p>
+ * Words can be added to the lexicon after it has been loaded, with
+ * <code>addWord</code> and <code>addWords</code>, while other threads are
+ * looking up words. Lookups do not lock: the indices are concurrent maps, and
+ * the list of words under a key is replaced, rather than changed, when a word
+ * is added to it, so a lookup sees the words under a key either before or
+ * after the new word was indexed.
  *
  * @author ereiter
  */
@@ -51,9 +69,39 @@ public class XMLLexicon extends Lexicon {
 	private static final String XML_ID       = "id"; // base form of Word
 	private static final String XML_WORD     = "word"; // node defining a word
 
+	// special case variants of the verb "be"
+	private static final String[] BE_VARIANTS = {"is", "am", "are", "was", "were"};
+
+	/**
+	 * The ways in which a lexicon file can be read.
+	 */
+	public enum Loader {
+
+		/**
+		 * Parse the whole file into a W3C DOM, then convert the word nodes.
+		 */
+		DOM,
+		/**
+		 * Read the file with a StAX reader, converting each word as it is
+		 * read, so the document is never held in memory. This is the default.
+		 */
+		STREAMING,
+		/**
+		 * Split the file into slices of word elements, and read the slices
+		 * with StAX readers on the common {@link ForkJoinPool}, each building
+		 * a partial index which is then merged into the lexicon. The lexicon
+		 * is the same as with the other loaders, and duplicate IDs are
+		 * reported in the same order; only the load time differs, which
+		 * falls with the number of cores for large lexicons. Small files, and
+		 * files which cannot be split or read in slices, are read as for
+		 * STREAMING.
+		 */
+		PARALLEL
+	}
+
 	// lexicon
 	private Set<WordElement>               words; // set of words
-	private Map<String, WordElement>       indexByID; // map from ID to word
+	private IDIndex                        indexByID; // map from ID to word
 	private Map<String, List<WordElement>> indexByBase; // map from base to set
 	// of words with this
 	// baseform
@@ -62,6 +110,22 @@ public class XMLLexicon extends Lexicon {
 	// to set of words
 	// with this variant
 
+	// the keys of the indices above which index words of more than one
+	// category, with their words partitioned by category. Lookups of a
+	// category use these, or check the category shared by all the words
+	// under a key, so need no filtering
+	private Map<String, Map<LexicalCategory, List<WordElement>>> categoriesByBase;
+	private Map<String, Map<LexicalCategory, List<WordElement>>> categoriesByVariant;
+
+	private volatile boolean frozen = false; // true if lexicon is read-only
+
+	// held while words are added, so only one thread changes the indices
+	private final Object addLock = new Object();
+
+	// strings read from the lexicon file, shared by all words; only used while
+	// the lexicon is loaded
+	private StringPool stringPool;
+
 	/**********************************************************************/
 	// constructors
 	/**********************************************************************/
@@ -113,41 +177,409 @@ public class XMLLexicon extends Lexicon {
 		}
 	}
 
+	/**
+	 * Load an XML Lexicon from a URI, using the specified loader.
+	 *
+	 * @param lexiconURI -- The lexicon {@link URI} to the {@link XMLLexicon} file.
+	 * @param loader -- The {@link Loader} used to read the file.
+	 */
+	public XMLLexicon(URI lexiconURI, Loader loader) {
+		super();
+		createLexicon(lexiconURI, loader);
+	}
+
+	/**
+	 * load an XML Lexicon from a File, throwing the exception if it cannot be
+	 * read
+	 */
+	private XMLLexicon(File file, Loader loader) throws Exception {
+		super();
+		loadLexicon(file.toURI(), loader);
+	}
+
+	/**
+	 * Load an XML Lexicon from a File with the streaming loader. Unlike the
+	 * constructors, which report an error and keep the words read before it,
+	 * this throws an exception if the file cannot be read, for lexicons which
+	 * are loaded as parts of another.
+	 *
+	 * @param file -- The {@link File} object to the {@link XMLLexicon} file.
+	 * @return the lexicon
+	 * @throws IOException if the file cannot be read or is not a valid lexicon
+	 */
+	static XMLLexicon load(File file) throws IOException {
+		try {
+			return new XMLLexicon(file, Loader.STREAMING);
+		} catch(IOException ex) {
+			throw ex;
+		} catch(Exception ex) {
+			throw new IOException("Cannot read lexicon " + file, ex);
+		}
+	}
+
 	/**
 	 * method to actually load and index the lexicon from a URI
 	 */
 	private void createLexicon(URI lexiconURI) {
+		createLexicon(lexiconURI, Loader.STREAMING);
+	}
+
+	/**
+	 * method to actually load and index the lexicon from a URI, using the
+	 * specified loader
+	 */
+	private void createLexicon(URI lexiconURI, Loader loader) {
+		try {
+			loadLexicon(lexiconURI, loader);
+		} catch(Exception ex) {
+			System.out.println(ex.toString());
+		}
+	}
+
+	/**
+	 * load and index the lexicon from a URI, using the specified loader. The
+	 * special cases are added even if the file cannot be read
+	 */
+	private void loadLexicon(URI lexiconURI, Loader loader) throws Exception {
 		// initialise objects
-		words = new HashSet<WordElement>();
-		indexByID = new HashMap<String, WordElement>();
-		indexByBase = new HashMap<String, List<WordElement>>();
-		indexByVariant = new HashMap<String, List<WordElement>>();
+		words = Collections.newSetFromMap(new ConcurrentHashMap<WordElement, Boolean>());
+		indexByID = new IDIndex();
+		indexByBase = new ConcurrentHashMap<String, List<WordElement>>();
+		indexByVariant = new ConcurrentHashMap<String, List<WordElement>>();
+		categoriesByBase = new ConcurrentHashMap<String, Map<LexicalCategory, List<WordElement>>>();
+		categoriesByVariant = new ConcurrentHashMap<String, Map<LexicalCategory, List<WordElement>>>();
+		stringPool = new StringPool();
 
 		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document doc = builder.parse(lexiconURI.toString());
-
-			if(doc != null) {
-				Element lexRoot = doc.getDocumentElement();
-				NodeList wordNodes = lexRoot.getChildNodes();
-				for(int i = 0; i < wordNodes.getLength(); i++) {
-					Node wordNode = wordNodes.item(i);
-					// ignore things that aren't elements
-					if(wordNode.getNodeType() == Node.ELEMENT_NODE) {
-						WordElement word = convertNodeToWord(wordNode);
-						if(word != null) {
-							words.add(word);
-							IndexWord(word);
-						}
+			if(loader == Loader.DOM)
+				loadDocument(lexiconURI);
+			else if(loader == Loader.PARALLEL)
+				loadParallel(lexiconURI, ForkJoinPool.commonPool());
+			else
+				loadStream(lexiconURI);
+		} finally {
+			addSpecialCases();
+			stringPool = null;
+		}
+	}
+
+	/**
+	 * load the lexicon by parsing the whole file into a DOM, and then
+	 * converting the word nodes
+	 */
+	private void loadDocument(URI lexiconURI) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		DocumentBuilder builder = factory.newDocumentBuilder();
+		Document doc = builder.parse(lexiconURI.toString());
+
+		if(doc != null) {
+			Element lexRoot = doc.getDocumentElement();
+			NodeList wordNodes = lexRoot.getChildNodes();
+			for(int i = 0; i < wordNodes.getLength(); i++) {
+				Node wordNode = wordNodes.item(i);
+				// ignore things that aren't elements
+				if(wordNode.getNodeType() == Node.ELEMENT_NODE) {
+					WordElement word = convertNodeToWord(wordNode);
+					addLoadedWord(word);
+				}
+			}
+		}
+	}
+
+	/**
+	 * load the lexicon with a StAX reader, converting each word element as it
+	 * is read. Only the current word is held in memory
+	 */
+	private void loadStream(URI lexiconURI) throws Exception {
+		InputStream input = lexiconURI.toURL().openStream();
+		XMLStreamReader reader = null;
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			reader = factory.createXMLStreamReader(lexiconURI.toString(), input);
+
+			// depth 1 is the lexicon root, its child elements are words
+			int depth = 0;
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if(depth == 2) {
+						addLoadedWord(readWord(reader, stringPool));
+						depth--;
 					}
+				} else if(event == XMLStreamConstants.END_ELEMENT) {
+					depth--;
 				}
 			}
+		} finally {
+			if(reader != null)
+				reader.close();
+			input.close();
+		}
+	}
+
+	/**
+	 * load the lexicon by reading slices of the file on a fork-join pool.
+	 * Each slice gives a partial index of its words, and the partial indices
+	 * are merged in file order, so the indices are the same as if the words
+	 * had been read one by one. Nothing is added to the lexicon until every
+	 * slice has been read, so if the file cannot be split or read in slices,
+	 * for whatever reason, it is read with the streaming loader instead
+	 */
+	private void loadParallel(URI lexiconURI, ForkJoinPool pool) throws Exception {
+		List<PartialIndex> partialIndices;
+		try {
+			partialIndices = readSlices(lexiconURI, pool);
+		} catch(InterruptedException ex) {
+			// read the file on this thread, and leave the interrupt to the caller
+			Thread.currentThread().interrupt();
+			partialIndices = null;
 		} catch(Exception ex) {
-			System.out.println(ex.toString());
+			// such as a slice cut inside a comment or CDATA section; the
+			// streaming loader reports any error in the file itself
+			partialIndices = null;
 		}
 
-		addSpecialCases();
+		if(partialIndices == null) {
+			loadStream(lexiconURI);
+			return;
+		}
+		for(PartialIndex partialIndex : partialIndices)
+			mergePartialIndex(partialIndex);
+	}
+
+	/**
+	 * read slices of the lexicon file on a fork-join pool
+	 *
+	 * @return the partial indices of the slices, in file order, or
+	 * 		<code>null</code> if the file should not be split
+	 */
+	private List<PartialIndex> readSlices(URI lexiconURI, ForkJoinPool pool) throws Exception {
+		List<String> slices = XMLLexiconSlicer.split(XMLLexiconSlicer.read(lexiconURI), pool.getParallelism() * 4);
+		if(slices == null || slices.size() < 2)
+			return null;
+
+		List<Callable<PartialIndex>> tasks = new ArrayList<Callable<PartialIndex>>(slices.size());
+		for(final String slice : slices) {
+			tasks.add(new Callable<PartialIndex>() {
+
+				@Override
+				public PartialIndex call() throws XMLStreamException {
+					return readSlice(slice, stringPool);
+				}
+			});
+		}
+
+		List<PartialIndex> partialIndices = new ArrayList<PartialIndex>(tasks.size());
+		for(Future<PartialIndex> result : pool.invokeAll(tasks))
+			partialIndices.add(result.get());
+		return partialIndices;
+	}
+
+	/**
+	 * the words read from a slice of the lexicon file, indexed by base form
+	 * and variant, with the lists of words under each key in file order
+	 */
+	private static final class PartialIndex {
+
+		final List<WordElement>               words     = new ArrayList<WordElement>();
+		final Map<String, List<WordElement>> byBase    = new HashMap<String, List<WordElement>>();
+		final Map<String, List<WordElement>> byVariant = new HashMap<String, List<WordElement>>();
+
+		void add(WordElement word) {
+			words.add(word);
+			if(word.getBaseForm() != null)
+				addToIndex(word, word.getBaseForm(), byBase);
+			for(String variant : getVariants(word)) {
+				if(variant != null)
+					addToIndex(word, variant, byVariant);
+			}
+		}
+
+		private static void addToIndex(WordElement word, String key, Map<String, List<WordElement>> index) {
+			List<WordElement> indexed = index.get(key);
+			if(indexed == null) {
+				indexed = new ArrayList<WordElement>(1);
+				index.put(key, indexed);
+			}
+			indexed.add(word);
+		}
+	}
+
+	/**
+	 * read the words of a slice of the lexicon file into a partial index. This
+	 * runs on a pool thread, so only touches the (concurrent) string pool
+	 */
+	private static PartialIndex readSlice(String slice, StringPool pool) throws XMLStreamException {
+		PartialIndex partialIndex = new PartialIndex();
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(slice));
+		try {
+			// depth 1 is the lexicon root, its child elements are words
+			int depth = 0;
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if(depth == 2) {
+						WordElement word = readWord(reader, pool);
+						if(word != null)
+							partialIndex.add(word.compact());
+						depth--;
+					}
+				} else if(event == XMLStreamConstants.END_ELEMENT) {
+					depth--;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return partialIndex;
+	}
+
+	/**
+	 * add the words of a partial index to the lexicon. IDs are indexed word by
+	 * word, so duplicates are reported in file order
+	 */
+	private void mergePartialIndex(PartialIndex partialIndex) {
+		words.addAll(partialIndex.words);
+		for(WordElement word : partialIndex.words)
+			indexID(word);
+		for(Map.Entry<String, List<WordElement>> entry : partialIndex.byBase.entrySet())
+			updateIndex(entry.getValue(), entry.getKey(), indexByBase, categoriesByBase);
+		for(Map.Entry<String, List<WordElement>> entry : partialIndex.byVariant.entrySet())
+			updateIndex(entry.getValue(), entry.getKey(), indexByVariant, categoriesByVariant);
+	}
+
+	/**
+	 * add a word read from the lexicon file to the lexicon
+	 */
+	private void addLoadedWord(WordElement word) {
+		if(word != null) {
+			word.compact();
+			words.add(word);
+			IndexWord(word);
+		}
+	}
+
+	/**
+	 * Add a word to the lexicon, indexing it under its base form, variants
+	 * and ID. The lexicon stores a copy of the word, so later changes to the
+	 * word do not affect the lexicon. This can be called while other threads
+	 * are looking up words.
+	 *
+	 * @param word -- the {@link WordElement} to add, which should have a base
+	 *             form and category
+	 * @throws UnsupportedOperationException if the lexicon is frozen
+	 */
+	public void addWord(WordElement word) {
+		addWords(Collections.singletonList(word));
+	}
+
+	/**
+	 * Add several words to the lexicon, as for <code>addWord</code>. Each
+	 * word can be looked up as soon as it is indexed, before the rest are
+	 * added.
+	 *
+	 * @param newWords -- the {@link WordElement}s to add
+	 * @throws UnsupportedOperationException if the lexicon is frozen
+	 */
+	public void addWords(Collection<WordElement> newWords) {
+		synchronized(addLock) {
+			if(frozen)
+				throw new UnsupportedOperationException("Cannot add words to a frozen lexicon");
+
+			for(WordElement newWord : newWords) {
+				if(newWord == null)
+					continue;
+
+				WordElement word = new WordElement(newWord);
+				word.compact();
+				// the filter must not reject the word once it can be found
+				LexiconFilter filter = getFilter();
+				if(filter != null) {
+					for(String key : getIndexKeys(word))
+						filter.put(key);
+				}
+				words.add(word);
+				IndexWord(word);
+			}
+		}
+	}
+
+	/**
+	 * Make this lexicon read-only. Its indices can no longer be changed, so
+	 * it can be shared safely between threads. The words in a frozen lexicon
+	 * are also frozen (see {@link WordElement#freeze()}), and lookups return
+	 * them directly rather than returning copies; the lists returned by
+	 * lookups are unmodifiable. {@link simplenlg.framework.NLGFactory} still
+	 * copies the word it chooses before adding it to a phrase, which changes
+	 * it, so building a phrase makes one copy of each word rather than a list
+	 * and a copy of each matching word.
+	 *
+	 * @return this lexicon
+	 */
+	public XMLLexicon freeze() {
+		synchronized(addLock) {
+			freezeIndices();
+		}
+		return this;
+	}
+
+	/**
+	 * make the indices and words read-only, if they are not already
+	 */
+	private void freezeIndices() {
+		if(!frozen) {
+			for(WordElement word : words)
+				word.freeze();
+			words = Collections.unmodifiableSet(words);
+			indexByID.freeze();
+			indexByBase = freezeIndex(indexByBase);
+			indexByVariant = freezeIndex(indexByVariant);
+			categoriesByBase = freezeCategoryIndex(categoriesByBase);
+			categoriesByVariant = freezeCategoryIndex(categoriesByVariant);
+			frozen = true;
+		}
+	}
+
+	/**
+	 * @return the number of words in this lexicon
+	 */
+	public int getWordCount() {
+		return words.size();
+	}
+
+	/**
+	 * @return true if this lexicon is read-only
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * make an index, and the lists of words in it, unmodifiable. The words
+	 * are frozen too, as special cases may index words which are not in the
+	 * set of words
+	 */
+	private Map<String, List<WordElement>> freezeIndex(Map<String, List<WordElement>> index) {
+		for(Map.Entry<String, List<WordElement>> entry : index.entrySet()) {
+			for(WordElement word : entry.getValue())
+				word.freeze();
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * make an index of words partitioned by category unmodifiable
+	 */
+	private Map<String, Map<LexicalCategory, List<WordElement>>> freezeCategoryIndex(Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex) {
+		for(Map.Entry<String, Map<LexicalCategory, List<WordElement>>> entry : categoryIndex.entrySet()) {
+			for(Map.Entry<LexicalCategory, List<WordElement>> partition : entry.getValue().entrySet())
+				partition.setValue(Collections.unmodifiableList(partition.getValue()));
+			entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(categoryIndex);
 	}
 
 	/**
@@ -157,11 +589,8 @@ public class XMLLexicon extends Lexicon {
 		// add variants of "be"
 		WordElement be = getWord("be", LexicalCategory.VERB);
 		if(be != null) {
-			updateIndex(be, "is", indexByVariant);
-			updateIndex(be, "am", indexByVariant);
-			updateIndex(be, "are", indexByVariant);
-			updateIndex(be, "was", indexByVariant);
-			updateIndex(be, "were", indexByVariant);
+			for(String variant : BE_VARIANTS)
+				updateIndex(be, variant, indexByVariant, categoriesByVariant);
 		}
 	}
 
@@ -193,37 +622,122 @@ public class XMLLexicon extends Lexicon {
 				String feature = featureNode.getNodeName().trim();
 				String value = featureNode.getTextContent();
 
-				if(value != null)
-					value = value.trim();
+				addFeature(word, inflections, feature, value, stringPool);
+			}
 
-				if(feature == null) {
-					System.err.println("Error in XML lexicon node for " + word.toString());
-					break;
-				}
+		}
 
-				if(feature.equalsIgnoreCase(XML_BASE)) {
-					word.setBaseForm(value);
-				} else if(feature.equalsIgnoreCase(XML_CATEGORY))
-					word.setCategory(LexicalCategory.valueOf(value.toUpperCase()));
-				else if(feature.equalsIgnoreCase(XML_ID))
-					word.setId(value);
-
-				else if(value == null || value.equals("")) {
-					// if this is an infl code, add it to inflections
-					Inflection infl = Inflection.getInflCode(feature);
-
-					if(infl != null) {
-						inflections.add(infl);
-					} else {
-						// otherwise assume it's a boolean feature
-						word.setFeature(feature, true);
-					}
-				} else
-					word.setFeature(feature, value);
-			}
+		setInflections(word, inflections);
+
+		// done, return word
+		return word;
+	}
+
+	/**
+	 * create a simplenlg WordElement from the element at the current position
+	 * of a StAX reader. The reader is left at the end of the element. Strings
+	 * are interned in the pool, if there is one
+	 */
+	private static WordElement readWord(XMLStreamReader reader, StringPool pool) throws XMLStreamException {
+		return readWord(reader, pool, null);
+	}
+
+	/**
+	 * create a simplenlg WordElement from the element at the current position
+	 * of a StAX reader, as above. If features is not null, the name and value
+	 * of each feature element are also added to it as they are read, so that
+	 * the element can be written out again
+	 */
+	static WordElement readWord(XMLStreamReader reader, StringPool pool, List<String[]> features)
+			throws XMLStreamException {
+		// if this isn't a Word element, skip it
+		if(!reader.getLocalName().equalsIgnoreCase(XML_WORD)) {
+			skipElement(reader);
+			return null;
+		}
+
+		// create word
+		WordElement word = new WordElement();
+		List<Inflection> inflections = new ArrayList<Inflection>();
 
+		// now copy features
+		while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String feature = reader.getLocalName().trim();
+			String value = reader.getElementText();
+
+			if(features != null)
+				features.add(new String[]{feature, value});
+			addFeature(word, inflections, feature, value, pool);
 		}
 
+		setInflections(word, inflections);
+
+		// done, return word
+		return word;
+	}
+
+	/**
+	 * skip over the element at the current position of a StAX reader,
+	 * including its content
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while(depth > 0) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if(event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	/**
+	 * add a feature read from the lexicon file to a word. Inflection codes are
+	 * added to the inflections list rather than the word
+	 */
+	private static void addFeature(WordElement word,
+	                               List<Inflection> inflections,
+	                               String feature,
+	                               String value,
+	                               StringPool pool) {
+		if(value != null)
+			value = value.trim();
+		if(pool != null) {
+			value = pool.intern(value);
+			feature = pool.intern(feature);
+		}
+
+		if(feature == null) {
+			System.err.println("Error in XML lexicon node for " + word.toString());
+			return;
+		}
+
+		if(feature.equalsIgnoreCase(XML_BASE)) {
+			word.setBaseForm(value);
+		} else if(feature.equalsIgnoreCase(XML_CATEGORY))
+			word.setCategory(LexicalCategory.valueOf(value.toUpperCase()));
+		else if(feature.equalsIgnoreCase(XML_ID))
+			word.setId(value);
+
+		else if(value == null || value.equals("")) {
+			// if this is an infl code, add it to inflections
+			Inflection infl = Inflection.getInflCode(feature);
+
+			if(infl != null) {
+				inflections.add(infl);
+			} else {
+				// otherwise assume it's a boolean feature
+				word.setFeature(feature, Boolean.TRUE);
+			}
+		} else
+			word.setFeature(feature, value);
+	}
+
+	/**
+	 * set the inflectional variants of a word, once all its features have
+	 * been read
+	 */
+	private static void setInflections(WordElement word, List<Inflection> inflections) {
 		// if no infl specified, assume regular
 		if(inflections.isEmpty()) {
 			inflections.add(Inflection.REGULAR);
@@ -239,9 +753,6 @@ public class XMLLexicon extends Lexicon {
 		for(Inflection infl : inflections) {
 			word.addInflectionalVariant(infl);
 		}
-
-		// done, return word
-		return word;
 	}
 
 	/**
@@ -252,32 +763,167 @@ public class XMLLexicon extends Lexicon {
 		String base = word.getBaseForm();
 		// shouldn't really need is, as all words have base forms
 		if(base != null) {
-			updateIndex(word, base, indexByBase);
+			updateIndex(word, base, indexByBase, categoriesByBase);
 		}
 
 		// now index by ID, which should be unique (if present)
+		indexID(word);
+
+		// now index by variant
+		for(String variant : getVariants(word)) {
+			if(variant != null)
+				updateIndex(word, variant, indexByVariant, categoriesByVariant);
+		}
+
+		// done
+	}
+
+	/**
+	 * index a word by its ID, if it has one, reporting duplicate IDs
+	 */
+	private void indexID(WordElement word) {
 		String id = word.getId();
 		if(id != null) {
 			if(indexByID.containsKey(id))
 				System.out.println("Lexicon error: ID " + id + " occurs more than once");
 			indexByID.put(id, word);
 		}
+	}
 
-		// now index by variant
-		for(String variant : getVariants(word)) {
-			updateIndex(word, variant, indexByVariant);
+	/**
+	 * get all the forms under which a word is indexed when it is added to a
+	 * lexicon: its base form, variants and ID, and the special case variants
+	 * of "be"
+	 */
+	static Set<String> getIndexKeys(WordElement word) {
+		Set<String> keys = new HashSet<String>();
+		if(word.getBaseForm() != null) {
+			keys.add(word.getBaseForm());
+			keys.addAll(getVariants(word));
+			if(word.getBaseForm().equals("be") && word.getCategory() == LexicalCategory.VERB)
+				keys.addAll(Arrays.asList(BE_VARIANTS));
+		}
+		if(word.getId() != null)
+			keys.add(word.getId());
+		return keys;
+	}
+
+	/**
+	 * pass the contents of the lexicon indices to a BinaryLexiconWriter. Index
+	 * entries are passed in the order in which they are returned by the
+	 * lookup methods, so the binary lexicon gives the same results as this one
+	 */
+	void writeIndexes(BinaryLexiconWriter writer) {
+		for(Map.Entry<String, List<WordElement>> entry : indexByBase.entrySet()) {
+			for(WordElement word : entry.getValue())
+				writer.indexBase(entry.getKey(), word);
+		}
+		for(Map.Entry<String, List<WordElement>> entry : indexByVariant.entrySet()) {
+			for(WordElement word : entry.getValue())
+				writer.indexVariant(entry.getKey(), word);
 		}
+		for(Map.Entry<String, WordElement> entry : indexByID.asMap().entrySet()) {
+			writer.indexID(entry.getKey(), entry.getValue());
+		}
+	}
 
-		// done
+	/**
+	 * @return the index from base form to words, for merging into the index
+	 * 		of a MultipleLexicon
+	 */
+	Map<String, List<WordElement>> getIndexByBase() {
+		return indexByBase;
+	}
+
+	/**
+	 * @return the index from variant to words, for merging into the index of
+	 * 		a MultipleLexicon
+	 */
+	Map<String, List<WordElement>> getIndexByVariant() {
+		return indexByVariant;
+	}
+
+	/**
+	 * @return the index from ID to word, for merging into the index of a
+	 * 		MultipleLexicon
+	 */
+	Map<String, WordElement> getIndexByID() {
+		return indexByID.asMap();
+	}
+
+	/**
+	 * convenience method to update an index. Once a key indexes words of more
+	 * than one category, its words are also partitioned by category.
+	 * <p>
+	 * The lists and partitions of a key are copied and replaced rather than
+	 * changed, so lookups never see them part way through a change. The
+	 * partitions are replaced first, so that a lookup which sees the new
+	 * list of a key of several categories also sees its new partitions
+	 */
+	private void updateIndex(WordElement word,
+	                         String base,
+	                         Map<String, List<WordElement>> index,
+	                         Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex) {
+		updateIndex(Collections.singletonList(word), base, index, categoryIndex);
+	}
+
+	/**
+	 * convenience method to add several words to an index under the same key,
+	 * as above
+	 */
+	private void updateIndex(List<WordElement> newWords,
+	                         String base,
+	                         Map<String, List<WordElement>> index,
+	                         Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex) {
+		// most keys index a single word
+		List<WordElement> indexed = index.get(base);
+		List<WordElement> words = new ArrayList<WordElement>((indexed == null ? 0 : indexed.size()) + newWords.size());
+		if(indexed != null)
+			words.addAll(indexed);
+		words.addAll(newWords);
+
+		Map<LexicalCategory, List<WordElement>> partitions = categoryIndex.get(base);
+		if(partitions == null && hasSeveralCategories(words)) {
+			partitions = new EnumMap<LexicalCategory, List<WordElement>>(LexicalCategory.class);
+			for(WordElement word : words)
+				addToPartition(word, partitions);
+			categoryIndex.put(base, partitions);
+		} else if(partitions != null) {
+			partitions = new EnumMap<LexicalCategory, List<WordElement>>(partitions);
+			for(WordElement word : newWords)
+				addToPartition(word, partitions);
+			categoryIndex.put(base, partitions);
+		}
+
+		index.put(base, words);
+	}
+
+	/**
+	 * @return true if the words are not all of the same category
+	 */
+	private static boolean hasSeveralCategories(List<WordElement> words) {
+		for(int i = 1; i < words.size(); i++) {
+			if(words.get(i).getCategory() != words.get(0).getCategory())
+				return true;
+		}
+		return false;
 	}
 
 	/**
-	 * convenience method to update an index
+	 * add a word to the partition of its category, replacing the partition
+	 * with a copy. Words which only match lookups for any category are not
+	 * partitioned
 	 */
-	private void updateIndex(WordElement word, String base, Map<String, List<WordElement>> index) {
-		if(!index.containsKey(base))
-			index.put(base, new ArrayList<WordElement>());
-		index.get(base).add(word);
+	private static void addToPartition(WordElement word, Map<LexicalCategory, List<WordElement>> partitions) {
+		ElementCategory category = word.getCategory();
+		if(category instanceof LexicalCategory && category != LexicalCategory.ANY) {
+			List<WordElement> partition = partitions.get(category);
+			List<WordElement> copy = new ArrayList<WordElement>(partition == null ? 1 : partition.size() + 1);
+			if(partition != null)
+				copy.addAll(partition);
+			copy.add(word);
+			partitions.put((LexicalCategory) category, copy);
+		}
 	}
 
 	/******************************************************************************************/
@@ -293,7 +939,7 @@ public class XMLLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWords(String baseForm, LexicalCategory category) {
-		return getWordsFromIndex(baseForm, category, indexByBase);
+		return getWordsFromIndex(baseForm, category, indexByBase, categoriesByBase);
 	}
 
 	/**
@@ -301,31 +947,50 @@ public class XMLLexicon extends Lexicon {
 	 */
 	private List<WordElement> getWordsFromIndex(String indexKey,
 	                                            LexicalCategory category,
-	                                            Map<String, List<WordElement>> indexMap) {
-		List<WordElement> result = new ArrayList<WordElement>();
+	                                            Map<String, List<WordElement>> indexMap,
+	                                            Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex) {
+		List<WordElement> indexed = getIndexedWords(indexKey, category, indexMap, categoryIndex);
 
-		// case 1: unknown, return empty list
-		if(!indexMap.containsKey(indexKey)) {
-			return result;
+		// frozen lexicon: return the indexed words themselves
+		if(frozen) {
+			return indexed == null ? Collections.<WordElement>emptyList() : indexed;
 		}
 
-		// case 2: category is ANY, return everything
-		if(category == LexicalCategory.ANY) {
-			for(WordElement word : indexMap.get(indexKey)) {
+		List<WordElement> result = new ArrayList<WordElement>();
+		if(indexed != null) {
+			for(WordElement word : indexed) {
 				result.add(new WordElement(word));
 			}
-			return result;
-		} else {
-			// case 3: other category, search for match
-			for(WordElement word : indexMap.get(indexKey)) {
-				if(word.getCategory() == category) {
-					result.add(new WordElement(word));
-				}
-			}
 		}
 		return result;
 	}
 
+	/**
+	 * get the indexed words with a key and category. All the words under the
+	 * key are returned if the category is ANY, or if they all have the
+	 * category; otherwise the words are taken from the partition of the key
+	 * for the category
+	 *
+	 * @return the indexed words, or null if there are none
+	 */
+	private List<WordElement> getIndexedWords(String indexKey,
+	                                          LexicalCategory category,
+	                                          Map<String, List<WordElement>> indexMap,
+	                                          Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex) {
+		List<WordElement> indexed = indexKey == null ? null : indexMap.get(indexKey);
+		if(indexed == null || category == LexicalCategory.ANY) {
+			return indexed;
+		}
+
+		// only keys of several words may have several categories
+		if(indexed.size() > 1) {
+			Map<LexicalCategory, List<WordElement>> partitions = categoryIndex.get(indexKey);
+			if(partitions != null)
+				return partitions.get(category);
+		}
+		return indexed.get(0).getCategory() == category ? indexed : null;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -333,9 +998,14 @@ public class XMLLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWordsByID(String id) {
+		WordElement word = indexByID.get(id);
+		if(frozen) {
+			return word == null ? Collections.<WordElement>emptyList() : Collections.singletonList(word);
+		}
+
 		List<WordElement> result = new ArrayList<WordElement>();
-		if(indexByID.containsKey(id)) {
-			result.add(new WordElement(indexByID.get(id)));
+		if(word != null) {
+			result.add(new WordElement(word));
 		}
 		return result;
 	}
@@ -348,14 +1018,85 @@ public class XMLLexicon extends Lexicon {
 	 */
 	@Override
 	public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
-		return getWordsFromIndex(variant, category, indexByVariant);
+		return getWordsFromIndex(variant, category, indexByVariant, categoriesByVariant);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByBase(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByBase(String baseForm, LexicalCategory category) {
+		return resolveFromIndex(baseForm,
+		                        category,
+		                        indexByBase,
+		                        categoriesByBase,
+		                        ResolvedWord.Resolution.BASE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByVariant(java.lang.String,
+	 * simplenlg.features.LexicalCategory)
+	 */
+	@Override
+	protected ResolvedWord resolveByVariant(String variant, LexicalCategory category) {
+		return resolveFromIndex(variant,
+		                        category,
+		                        indexByVariant,
+		                        categoriesByVariant,
+		                        ResolvedWord.Resolution.VARIANT);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#resolveByID(java.lang.String)
+	 */
+	@Override
+	protected ResolvedWord resolveByID(String id) {
+		WordElement word = indexByID.get(id);
+		return word == null ? null : new ResolvedWord(frozen ? word : new WordElement(word),
+		                                              ResolvedWord.Resolution.ID);
+	}
+
+	/**
+	 * resolve a word from an index map with a single probe
+	 */
+	private ResolvedWord resolveFromIndex(String indexKey,
+	                                      LexicalCategory category,
+	                                      Map<String, List<WordElement>> indexMap,
+	                                      Map<String, Map<LexicalCategory, List<WordElement>>> categoryIndex,
+	                                      ResolvedWord.Resolution resolution) {
+		// the indexed words all have the category, so need no filtering
+		List<WordElement> indexed = getIndexedWords(indexKey, category, indexMap, categoryIndex);
+		return indexed == null ? null : resolveFromIndexedWords(indexed,
+		                                                        indexKey,
+		                                                        LexicalCategory.ANY,
+		                                                        resolution);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see simplenlg.lexicon.Lexicon#getFilterForms()
+	 */
+	@Override
+	protected Collection<String> getFilterForms() {
+		Set<String> forms = new HashSet<String>(indexByVariant.keySet());
+		forms.addAll(indexByBase.keySet());
+		forms.addAll(indexByID.asMap().keySet());
+		return forms;
 	}
 
 	/**
 	 * quick-and-dirty routine for getting morph variants should be replaced by
 	 * something better!
 	 */
-	private Set<String> getVariants(WordElement word) {
+	private static Set<String> getVariants(WordElement word) {
 		Set<String> variants = new HashSet<String>();
 		variants.add(word.getBaseForm());
 		ElementCategory category = word.getCategory();
@@ -389,7 +1130,7 @@ public class XMLLexicon extends Lexicon {
 	 * quick-and-dirty routine for computing morph forms Should be replaced by
 	 * something better!
 	 */
-	private String getVariant(WordElement word, String feature, String suffix) {
+	private static String getVariant(WordElement word, String feature, String suffix) {
 		if(word.hasFeature(feature))
 			return word.getFeatureAsString(feature);
 		else
@@ -400,7 +1141,7 @@ public class XMLLexicon extends Lexicon {
 	 * quick-and-dirty routine for standard orthographic changes Should be
 	 * replaced by something better!
 	 */
-	private String getForm(String base, String suffix) {
+	private static String getForm(String base, String suffix) {
 		// add a suffix to a base form, with orthographic changes
 
 		// rule 1 - convert final "y" to "ie" if suffix does not start with "i"
@@ -0,0 +1,178 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the text of an XML lexicon into slices which can be parsed by
+ * separate threads, for the parallel loader of {@link XMLLexicon}. Each slice
+ * holds consecutive word elements, wrapped in a copy of the root element's
+ * start and end tags, so it is a lexicon document in its own right.
+ * <p>
+ * Slices are cut just before a <code>&lt;word</code> start tag, by looking at
+ * the text rather than parsing it. Documents which this could get wrong, such
+ * as those with a DOCTYPE (which may declare entities), are not split; a cut
+ * inside a comment or CDATA section makes a slice malformed, which the loader
+ * detects when it parses the slice.
+ */
+final class XMLLexiconSlicer {
+
+	/**
+	 * The fewest characters in a slice, so that small lexicons are not split
+	 * into slices which take longer to hand out than to parse.
+	 */
+	static final int MIN_SLICE_LENGTH = 64 * 1024;
+
+	private static final Pattern ENCODING = Pattern.compile("^<\\?xml[^>]*encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
+	private XMLLexiconSlicer() {
+		// static methods only
+	}
+
+	/**
+	 * Read the whole of an XML document as text, in the encoding given by its
+	 * byte order mark or XML declaration (UTF-8 if there is neither).
+	 *
+	 * @param lexiconURI -- the {@link URI} of the document
+	 * @return the text of the document
+	 * @throws IOException if the document cannot be read
+	 */
+	static String read(URI lexiconURI) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		InputStream input = lexiconURI.toURL().openStream();
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			for(int read = input.read(buffer); read >= 0; read = input.read(buffer))
+				bytes.write(buffer, 0, read);
+		} finally {
+			input.close();
+		}
+
+		byte[] data = bytes.toByteArray();
+		if(data.length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF)
+			return new String(data, 3, data.length - 3, StandardCharsets.UTF_8);
+		if(data.length >= 2 && (((data[0] & 0xFF) == 0xFE && (data[1] & 0xFF) == 0xFF) || ((data[0] & 0xFF) == 0xFF
+				&& (data[1] & 0xFF) == 0xFE)))
+			return new String(data, StandardCharsets.UTF_16);
+
+		// the declaration is ASCII in any encoding without a byte order mark
+		String declaration = new String(data, 0, Math.min(data.length, 200), StandardCharsets.ISO_8859_1);
+		Matcher matcher = ENCODING.matcher(declaration);
+		Charset charset = matcher.find() ? Charset.forName(matcher.group(1)) : StandardCharsets.UTF_8;
+		return new String(data, charset);
+	}
+
+	/**
+	 * Split the text of a lexicon into slices of whole word elements.
+	 *
+	 * @param document -- the text of the lexicon
+	 * @param maxSlices -- the most slices to make
+	 * @return the slices, in document order; an empty list if the lexicon
+	 * 		has no words; or <code>null</code> if the document should not be
+	 * 		split
+	 */
+	static List<String> split(String document, int maxSlices) {
+		// skip the prolog: XML declaration, processing instructions and
+		// comments
+		int start = 0;
+		while(true) {
+			while(start < document.length() && Character.isWhitespace(document.charAt(start)))
+				start++;
+			if(document.startsWith("<?", start))
+				start = skipPast(document, start, "?>");
+			else if(document.startsWith("<!--", start))
+				start = skipPast(document, start, "-->");
+			else
+				break;
+			if(start < 0)
+				return null;
+		}
+		// a DOCTYPE may declare entities which the slices would not have
+		if(!document.startsWith("<", start) || document.startsWith("<!", start))
+			return null;
+
+		// the root element
+		int rootTagEnd = document.indexOf('>', start);
+		if(rootTagEnd < 0)
+			return null;
+		if(document.charAt(rootTagEnd - 1) == '/')
+			return Collections.emptyList();
+		int nameEnd = start + 1;
+		while(nameEnd < rootTagEnd && !Character.isWhitespace(document.charAt(nameEnd)))
+			nameEnd++;
+		String rootStartTag = document.substring(start, rootTagEnd + 1);
+		String rootEndTag = "</" + document.substring(start + 1, nameEnd) + ">";
+
+		int bodyStart = rootTagEnd + 1;
+		int bodyEnd = document.lastIndexOf("</", document.length());
+		if(bodyEnd < bodyStart)
+			return null;
+
+		int slices = (int) Math.min(maxSlices, (long) (bodyEnd - bodyStart) / MIN_SLICE_LENGTH);
+		List<String> result = new ArrayList<String>(Math.max(slices, 1));
+		int sliceStart = bodyStart;
+		for(int i = 1; i < slices; i++) {
+			int target = bodyStart + (int) ((long) (bodyEnd - bodyStart) * i / slices);
+			int cut = findWordStart(document, Math.max(target, sliceStart + 1), bodyEnd);
+			if(cut < 0)
+				break;
+			result.add(rootStartTag + document.substring(sliceStart, cut) + rootEndTag);
+			sliceStart = cut;
+		}
+		result.add(rootStartTag + document.substring(sliceStart, bodyEnd) + rootEndTag);
+		return result;
+	}
+
+	/**
+	 * @return the position after the next occurrence of a string, or -1 if
+	 * 		it does not occur
+	 */
+	private static int skipPast(String document, int from, String end) {
+		int position = document.indexOf(end, from);
+		return position < 0 ? -1 : position + end.length();
+	}
+
+	/**
+	 * @return the position of the next word start tag, or -1 if there is none
+	 * 		before the limit
+	 */
+	private static int findWordStart(String document, int from, int limit) {
+		for(int position = document.indexOf('<', from);
+		    position >= 0 && position + 5 < limit;
+		    position = document.indexOf('<', position + 1)) {
+			if(document.regionMatches(true, position + 1, "word", 0, 4)) {
+				char next = document.charAt(position + 5);
+				if(next == '>' || next == '/' || Character.isWhitespace(next))
+					return position;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.util;
+
+import java.io.File;
+
+import simplenlg.lexicon.BinaryLexiconWriter;
+import simplenlg.lexicon.NIHDBLexicon;
+
+/**
+ * <p>This class reads every word in the NIH lexicon and writes it out in the binary format read by
+ * {@link simplenlg.lexicon.BinaryLexicon}. The binary lexicon gives the same words as the {@link NIHDBLexicon}
+ * from <code>getWords</code>, <code>getWordsFromVariant</code> and <code>getWordsByID</code>, but needs neither
+ * HSQLDB nor lexAccess at runtime.</p>
+ */
+public class NIHLexiconBinaryDumpUtil {
+
+	/**
+	 * This main method reads the whole NIHDB Lexicon and writes it out as a binary lexicon.
+	 *
+	 * @param args : List of Arguments that this command line application must be provided with in order:
+	 * 		<ol>
+	 * 				<li>The full path to the NIHDB Lexicon database file e.g. C:\\NIHDB\\lexAccess2013.data</li>
+	 * 				<li>The full path to the binary lexicon file that will be written out e.g. C:\\NIHDB\\nih-lexicon.bin</li>
+	 * 				<li>Optionally, <code>true</code> to keep standard (regular) inflections in the words, as
+	 * 				<code>NIHDBLexicon.setKeepStandardInflections</code> does. The default is <code>false</code>.</li>
+	 * 		</ol>
+	 *
+	 * 		<p>Example usage:
+	 * 		  java -Xmx4g simplenlg.lexicon.util.NIHLexiconBinaryDumpUtil C:\\NIHDB\\lexAccess2013.data C:\\NIHDB\\nih-lexicon.bin
+	 * 		<p>
+	 * 		  You will need to have the HSQLDB driver (org.hsqldb.jdbc.JDBCDriver) and lexAccess on your Java classpath
+	 * 		  before running this application. All the words are held in memory while the file is written, so a large
+	 * 		  heap is needed for the full lexicon.
+	 * 		</p>
+	 */
+	public static void main(String[] args) {
+		if(args.length < 2 || args.length > 3 || args[0].isEmpty() || args[1].isEmpty()) {
+			System.err.println("Insuffient number of arguments supplied. Please supply the following Arguments: \n");
+			printArgumentsMessage();
+			return;
+		}
+
+		// Check to see if the HSQLDB driver is available on the classpath:
+		try {
+			Class.forName("org.hsqldb.jdbc.JDBCDriver", false, NIHLexiconBinaryDumpUtil.class.getClassLoader());
+		} catch(ClassNotFoundException cnfe) {
+			System.err.println("*** Please add the HSQLDB JDBCDriver to your Java classpath and try again.");
+			return;
+		}
+
+		NIHDBLexicon lexicon = null;
+		try {
+			long startTime = System.currentTimeMillis();
+			lexicon = new NIHDBLexicon(args[0]);
+			if(args.length > 2)
+				lexicon.setKeepStandardInflections(Boolean.parseBoolean(args[2]));
+			BinaryLexiconWriter.write(lexicon, new File(args[1]));
+			long stopTime = System.currentTimeMillis();
+			System.out.format("*** Binary Lexicon Export Completed in %d ms.%n", stopTime - startTime);
+
+		} catch(Exception e) {
+			System.err.println("*** An Error occured during the export. The Exception message is below: ");
+			System.err.println(e.getMessage());
+			System.err.println("************************");
+			System.err.println("Please make sure you have the correct application arguments: ");
+			printArgumentsMessage();
+		} finally {
+			if(lexicon != null)
+				lexicon.close();
+		}
+	}
+
+	/**
+	 * Prints this utility applications arguments requirements.
+	 */
+	private static void printArgumentsMessage() {
+		System.err.println("\t\t 1. The full path to the NIHDB Lexicon database file e.g. C:\\NIHDB\\lexAccess2013.data");
+		System.err.println("\t\t 2. The full path to the binary lexicon file that will be written out.");
+		System.err.println("\t\t 3. Optionally, true to keep standard inflections (default false).");
+	}
+
+}
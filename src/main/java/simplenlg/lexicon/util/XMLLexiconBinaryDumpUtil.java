@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.util;
+
+import java.io.File;
+
+import simplenlg.lexicon.BinaryLexiconWriter;
+import simplenlg.lexicon.XMLLexicon;
+
+/**
+ * <p>This class reads in an XML lexicon and writes it out in the binary format read by
+ * {@link simplenlg.lexicon.BinaryLexicon}, which can be opened much more quickly than the XML file.</p>
+ */
+public class XMLLexiconBinaryDumpUtil {
+
+	/**
+	 * This main method loads an XML lexicon and writes it out as a binary lexicon.
+	 *
+	 * @param args : List of Arguments that this command line application must be provided with in order:
+	 * 		<ol>
+	 * 				<li>The full path to the XML lexicon file e.g. C:\\lexicons\\default-lexicon.xml</li>
+	 * 				<li>The full path to the binary lexicon file that will be written out e.g. C:\\lexicons\\default-lexicon.bin</li>
+	 * 		</ol>
+	 *
+	 * 		<p>Example usage:
+	 * 		  java simplenlg.lexicon.util.XMLLexiconBinaryDumpUtil C:\\lexicons\\default-lexicon.xml C:\\lexicons\\default-lexicon.bin
+	 */
+	public static void main(String[] args) {
+		if(args.length != 2 || args[0].isEmpty() || args[1].isEmpty()) {
+			System.err.println("Insuffient number of arguments supplied. Please supply the following Arguments: \n");
+			printArgumentsMessage();
+			return;
+		}
+
+		try {
+			long startTime = System.currentTimeMillis();
+			XMLLexicon lexicon = new XMLLexicon(args[0]);
+			BinaryLexiconWriter.write(lexicon, new File(args[1]));
+			long stopTime = System.currentTimeMillis();
+			System.out.format("*** Binary Lexicon Export Completed in %d ms.%n", stopTime - startTime);
+
+		} catch(Exception e) {
+			System.err.println("*** An Error occured during the export. The Exception message is below: ");
+			System.err.println(e.getMessage());
+			System.err.println("************************");
+			System.err.println("Please make sure you have the correct application arguments: ");
+			printArgumentsMessage();
+		}
+	}
+
+	/**
+	 * Prints this utility applications arguments requirements.
+	 */
+	private static void printArgumentsMessage() {
+		System.err.println("\t\t 1. The full path to the XML lexicon file e.g. C:\\lexicons\\default-lexicon.xml");
+		System.err.println("\t\t 2. The full path to the binary lexicon file that will be written out.");
+	}
+
+}
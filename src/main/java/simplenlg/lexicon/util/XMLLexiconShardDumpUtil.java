@@ -0,0 +1,76 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.util;
+
+import java.io.File;
+
+import simplenlg.lexicon.ShardedLexiconWriter;
+
+/**
+ * <p>This class splits an XML lexicon into the shards read by
+ * {@link simplenlg.lexicon.ShardedLexicon}, which loads only the shards of the words that are looked up.</p>
+ */
+public class XMLLexiconShardDumpUtil {
+
+	/**
+	 * This main method splits an XML lexicon into a directory of shards.
+	 *
+	 * @param args : List of Arguments that this command line application must be provided with in order:
+	 * 		<ol>
+	 * 				<li>The full path to the XML lexicon file e.g. C:\\lexicons\\nih-lexicon.xml</li>
+	 * 				<li>The full path to the directory that the shards will be written to e.g. C:\\lexicons\\nih-lexicon</li>
+	 * 				<li>Optionally, the number of characters of a word which select its shard (default 2)</li>
+	 * 		</ol>
+	 *
+	 * 		<p>Example usage:
+	 * 		  java simplenlg.lexicon.util.XMLLexiconShardDumpUtil C:\\lexicons\\nih-lexicon.xml C:\\lexicons\\nih-lexicon 2
+	 */
+	public static void main(String[] args) {
+		if(args.length < 2 || args.length > 3 || args[0].isEmpty() || args[1].isEmpty()) {
+			System.err.println("Insuffient number of arguments supplied. Please supply the following Arguments: \n");
+			printArgumentsMessage();
+			return;
+		}
+
+		try {
+			int prefixLength = args.length == 3 ? Integer.parseInt(args[2]) : ShardedLexiconWriter.DEFAULT_PREFIX_LENGTH;
+			long startTime = System.currentTimeMillis();
+			ShardedLexiconWriter.write(new File(args[0]).toURI(), new File(args[1]), prefixLength);
+			long stopTime = System.currentTimeMillis();
+			System.out.format("*** Sharded Lexicon Export Completed in %d ms.%n", stopTime - startTime);
+
+		} catch(Exception e) {
+			System.err.println("*** An Error occured during the export. The Exception message is below: ");
+			System.err.println(e.getMessage());
+			System.err.println("************************");
+			System.err.println("Please make sure you have the correct application arguments: ");
+			printArgumentsMessage();
+		}
+	}
+
+	/**
+	 * Prints this utility applications arguments requirements.
+	 */
+	private static void printArgumentsMessage() {
+		System.err.println("\t\t 1. The full path to the XML lexicon file e.g. C:\\lexicons\\nih-lexicon.xml");
+		System.err.println("\t\t 2. The full path to the directory that the shards will be written to.");
+		System.err.println("\t\t 3. Optionally, the number of characters of a word which select its shard (default 2).");
+	}
+
+}
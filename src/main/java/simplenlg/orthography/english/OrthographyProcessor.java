@@ -273,8 +273,8 @@ public class OrthographyProcessor extends NLGModule {
 			stripLeadingCommas(realisation);
 			capitaliseFirstLetter(realisation);
 			terminateSentence(realisation,
-			                  element.getFeatureAsBoolean(InternalFeature.INTERROGATIVE).booleanValue(),
-			                  element.getFeatureAsBoolean(Feature.EXCLAMATORY).booleanValue());
+			                  element.getFeatureAsBooleanPrimitive(InternalFeature.INTERROGATIVE),
+			                  element.getFeatureAsBooleanPrimitive(Feature.EXCLAMATORY));
 
 			((DocumentElement) element).clearComponents();
 			// realisation.append(' ');
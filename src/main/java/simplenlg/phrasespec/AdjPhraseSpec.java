@@ -81,4 +81,8 @@ public class AdjPhraseSpec extends PhraseElement {
 
 	// inherit usual modifier routines
 
+	@Override
+	public AdjPhraseSpec freeze() {
+		return (AdjPhraseSpec) super.freeze();
+	}
 }
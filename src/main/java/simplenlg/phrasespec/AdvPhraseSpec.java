@@ -81,4 +81,8 @@ public class AdvPhraseSpec extends PhraseElement {
 
 	// inherit usual modifier routines
 
+	@Override
+	public AdvPhraseSpec freeze() {
+		return (AdvPhraseSpec) super.freeze();
+	}
 }
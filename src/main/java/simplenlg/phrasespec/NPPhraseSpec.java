@@ -167,8 +167,9 @@ public class NPPhraseSpec extends PhraseElement {
 	 */
 	public void setSpecifier(Object specifier) {
 		if(specifier instanceof NLGElement) {
-			setFeature(InternalFeature.SPECIFIER, specifier);
-			((NLGElement) specifier).setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.SPECIFIER);
+			NLGElement specifierElement = copyIfFrozen((NLGElement) specifier);
+			setFeature(InternalFeature.SPECIFIER, specifierElement);
+			specifierElement.setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.SPECIFIER);
 		} else {
 			// create specifier as word (assume determiner)
 			NLGElement specifierElement = getFactory().createWord(specifier, LexicalCategory.DETERMINER);
@@ -237,4 +238,9 @@ public class NPPhraseSpec extends PhraseElement {
 		// default case
 		addPostModifier(modifierElement);
 	}
+
+	@Override
+	public NPPhraseSpec freeze() {
+		return (NPPhraseSpec) super.freeze();
+	}
 }
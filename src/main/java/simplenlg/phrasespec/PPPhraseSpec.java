@@ -105,4 +105,8 @@ public class PPPhraseSpec extends PhraseElement {
 		return null;
 	}
 
+	@Override
+	public PPPhraseSpec freeze() {
+		return (PPPhraseSpec) super.freeze();
+	}
 }
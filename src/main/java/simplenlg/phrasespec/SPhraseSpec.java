@@ -233,6 +233,7 @@ public class SPhraseSpec extends PhraseElement {
 	}
 
 	public void setVerbPhrase(NLGElement vp) {
+		vp = copyIfFrozen(vp);
 		setFeature(InternalFeature.VERB_PHRASE, vp);
 		vp.setParent(this); // needed for syntactic processing
 	}
@@ -432,4 +433,8 @@ public class SPhraseSpec extends PhraseElement {
 		addPostModifier(modifierElement);
 	}
 
+	@Override
+	public SPhraseSpec freeze() {
+		return (SPhraseSpec) super.freeze();
+	}
 }
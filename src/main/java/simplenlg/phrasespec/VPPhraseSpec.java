@@ -138,7 +138,7 @@ public class VPPhraseSpec extends PhraseElement {
 	public void setObject(Object object) {
 		NLGElement objectPhrase;
 		if(object instanceof PhraseElement || object instanceof CoordinatedPhraseElement)
-			objectPhrase = (NLGElement) object;
+			objectPhrase = copyIfFrozen((NLGElement) object);
 		else
 			objectPhrase = getFactory().createNounPhrase(object);
 
@@ -167,7 +167,7 @@ public class VPPhraseSpec extends PhraseElement {
 	public void setIndirectObject(Object indirectObject) {
 		NLGElement indirectObjectPhrase;
 		if(indirectObject instanceof PhraseElement || indirectObject instanceof CoordinatedPhraseElement)
-			indirectObjectPhrase = (NLGElement) indirectObject;
+			indirectObjectPhrase = copyIfFrozen((NLGElement) indirectObject);
 		else
 			indirectObjectPhrase = getFactory().createNounPhrase(indirectObject);
 
@@ -237,4 +237,8 @@ public class VPPhraseSpec extends PhraseElement {
 		addPostModifier(modifierElement);
 	}
 
+	@Override
+	public VPPhraseSpec freeze() {
+		return (VPPhraseSpec) super.freeze();
+	}
 }
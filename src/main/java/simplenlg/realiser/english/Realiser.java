@@ -138,6 +138,12 @@ public class Realiser extends NLGModule {
 	@Override
 	public NLGElement realise(NLGElement element) {
 
+		// realisation changes the elements it is given, so a tree which holds
+		// frozen elements is replaced by a copy, which shares the frozen words
+		// that realisation copies before it changes them
+		if(element != null)
+			element = element.thawSharingWords();
+
 		StringBuilder debug = new StringBuilder();
 
 		if(this.debug) {
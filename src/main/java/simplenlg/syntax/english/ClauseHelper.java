@@ -162,7 +162,7 @@ abstract class ClauseHelper {
 	                                       NLGFactory phraseFactory) {
 		NLGElement currentElement = null;
 
-		if(phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue()) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE)) {
 			List<NLGElement> allSubjects = phrase.getFeatureAsElementList(InternalFeature.SUBJECTS);
 
 			if(allSubjects.size() > 0 || phrase.hasFeature(Feature.INTERROGATIVE_TYPE)) {
@@ -302,7 +302,7 @@ abstract class ClauseHelper {
 		int numComps = 0;
 		boolean coordSubj = false;
 
-		if(phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue() && verbPhrase != null
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE) && verbPhrase != null
 		   && !InterrogativeType.WHAT_OBJECT.equals(phrase.getFeature(Feature.INTERROGATIVE_TYPE))) {
 
 			// complements of a clause are stored in the VPPhraseSpec
@@ -347,7 +347,7 @@ abstract class ClauseHelper {
 					}
 
 					if(Form.GERUND.equals(phrase.getFeature(Feature.FORM))
-					   && !phrase.getFeatureAsBoolean(Feature.SUPPRESS_GENITIVE_IN_GERUND).booleanValue()) {
+					   && !phrase.getFeatureAsBooleanPrimitive(Feature.SUPPRESS_GENITIVE_IN_GERUND)) {
 						subject.setFeature(Feature.POSSESSIVE, true);
 					}
 				}
@@ -390,7 +390,7 @@ abstract class ClauseHelper {
 	                                       NLGElement splitVerb) {
 		if(!Form.INFINITIVE.equals(phrase.getFeature(Feature.FORM))
 		   && !Form.IMPERATIVE.equals(phrase.getFeature(Feature.FORM))
-		   && !phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue() && splitVerb == null) {
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE) && splitVerb == null) {
 			realisedElement.addComponents(realiseSubjects(phrase, parent).getChildren());
 		}
 	}
@@ -411,7 +411,7 @@ abstract class ClauseHelper {
 
 			subject.setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.SUBJECT);
 			if(Form.GERUND.equals(phrase.getFeature(Feature.FORM))
-			   && !phrase.getFeatureAsBoolean(Feature.SUPPRESS_GENITIVE_IN_GERUND).booleanValue()) {
+			   && !phrase.getFeatureAsBooleanPrimitive(Feature.SUPPRESS_GENITIVE_IN_GERUND)) {
 				subject.setFeature(Feature.POSSESSIVE, true);
 			}
 			currentElement = parent.realise(subject);
@@ -510,8 +510,8 @@ abstract class ClauseHelper {
 	 * correctly)
 	 */
 	private static boolean hasAuxiliary(PhraseElement phrase) {
-		return phrase.hasFeature(Feature.MODAL) || phrase.getFeatureAsBoolean(Feature.PERFECT).booleanValue()
-		       || phrase.getFeatureAsBoolean(Feature.PROGRESSIVE).booleanValue()
+		return phrase.hasFeature(Feature.MODAL) || phrase.getFeatureAsBooleanPrimitive(Feature.PERFECT)
+		       || phrase.getFeatureAsBooleanPrimitive(Feature.PROGRESSIVE)
 		       || Tense.FUTURE.equals(phrase.getFeature(Feature.TENSE));
 	}
 
@@ -541,7 +541,7 @@ abstract class ClauseHelper {
 		if(!hasAuxiliary(phrase) && !VerbPhraseHelper.isCopular(phrase)) {
 			addDoAuxiliary(phrase, parent, phraseFactory, realisedElement);
 
-		} else if(!phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue()) {
+		} else if(!phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE)) {
 			splitVerb = realiseSubjects(phrase, parent);
 		}
 
@@ -627,10 +627,10 @@ abstract class ClauseHelper {
 		NLGElement splitVerb = null;
 
 		if(!(verbElement instanceof VPPhraseSpec && VerbPhraseHelper.isCopular(((VPPhraseSpec) verbElement).getVerb()))
-		   && !phrase.getFeatureAsBoolean(Feature.PROGRESSIVE).booleanValue() && !phrase.hasFeature(Feature.MODAL)
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.PROGRESSIVE) && !phrase.hasFeature(Feature.MODAL)
 		   && !Tense.FUTURE.equals(phrase.getFeature(Feature.TENSE))
-		   && !phrase.getFeatureAsBoolean(Feature.NEGATED).booleanValue()
-		   && !phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue()) {
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.NEGATED)
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE)) {
 			addDoAuxiliary(phrase, parent, phraseFactory, realisedElement);
 		} else {
 			splitVerb = realiseSubjects(phrase, parent);
@@ -671,7 +671,7 @@ abstract class ClauseHelper {
 		NLGElement currentElement;
 
 		if(ClauseStatus.SUBORDINATE.equals(phrase.getFeature(InternalFeature.CLAUSE_STATUS))
-		   && !phrase.getFeatureAsBoolean(Feature.SUPRESSED_COMPLEMENTISER).booleanValue()) {
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.SUPRESSED_COMPLEMENTISER)) {
 
 			currentElement = parent.realise(phrase.getFeatureAsElement(Feature.COMPLEMENTISER));
 
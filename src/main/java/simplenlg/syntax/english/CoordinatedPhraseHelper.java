@@ -18,6 +18,7 @@
  */
 package simplenlg.syntax.english;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import simplenlg.features.DiscourseFunction;
@@ -53,7 +54,7 @@ abstract class CoordinatedPhraseHelper {
 
 			CoordinatedPhraseElement coordinated = new CoordinatedPhraseElement();
 
-			List<NLGElement> children = phrase.getChildren();
+			List<NLGElement> children = thawCoordinates(phrase.getChildren());
 			String conjunction = phrase.getFeatureAsString(Feature.CONJUNCTION);
 			coordinated.setFeature(Feature.CONJUNCTION, conjunction);
 			coordinated.setFeature(Feature.CONJUNCTION_TYPE, phrase.getFeature(Feature.CONJUNCTION_TYPE));
@@ -62,11 +63,11 @@ abstract class CoordinatedPhraseHelper {
 
 			if(children != null && children.size() > 0) {
 
-				if(phrase.getFeatureAsBoolean(Feature.RAISE_SPECIFIER).booleanValue()) {
+				if(phrase.getFeatureAsBooleanPrimitive(Feature.RAISE_SPECIFIER)) {
 					raiseSpecifier(children);
 				}
 
-				NLGElement child = phrase.getLastCoordinate();
+				NLGElement child = children.get(children.size() - 1);
 				child.setFeature(Feature.POSSESSIVE, phrase.getFeature(Feature.POSSESSIVE));
 
 				child = children.get(0);
@@ -77,7 +78,7 @@ abstract class CoordinatedPhraseHelper {
 				for(int index = 1; index < children.size(); index++) {
 					child = children.get(index);
 					setChildFeatures(phrase, child);
-					if(phrase.getFeatureAsBoolean(Feature.AGGREGATE_AUXILIARY).booleanValue()) {
+					if(phrase.getFeatureAsBooleanPrimitive(Feature.AGGREGATE_AUXILIARY)) {
 						child.setFeature(InternalFeature.REALISE_AUXILIARY, false);
 					}
 
@@ -158,6 +159,33 @@ abstract class CoordinatedPhraseHelper {
 		}
 	}
 
+	/**
+	 * Replaces the frozen coordinates, such as the words of a frozen phrase
+	 * which the realiser shares, with copies, as they are changed before they
+	 * are realised.
+	 *
+	 * @param children the <code>List</code> of coordinates in the
+	 * 		<code>CoordinatedPhraseElement</code>
+	 * @return the same <code>List</code> if none are frozen, or a new one.
+	 */
+	private static List<NLGElement> thawCoordinates(List<NLGElement> children) {
+		List<NLGElement> thawed = children;
+
+		if(children != null) {
+			for(int index = 0; index < children.size(); index++) {
+				NLGElement child = children.get(index);
+
+				if(child != null && child.isFrozen()) {
+					if(thawed == children) {
+						thawed = new ArrayList<NLGElement>(children);
+					}
+					thawed.set(index, child.thaw());
+				}
+			}
+		}
+		return thawed;
+	}
+
 	/**
 	 * Checks to see if the specifier can be raised and then raises it. In order
 	 * to be raised the specifier must be the same on all coordinates. For
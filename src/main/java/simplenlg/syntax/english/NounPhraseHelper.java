@@ -65,10 +65,10 @@ abstract class NounPhraseHelper {
 	static NLGElement realise(SyntaxProcessor parent, PhraseElement phrase) {
 		ListElement realisedElement = null;
 
-		if(phrase != null && !phrase.getFeatureAsBoolean(Feature.ELIDED).booleanValue()) {
+		if(phrase != null && !phrase.getFeatureAsBooleanPrimitive(Feature.ELIDED)) {
 			realisedElement = new ListElement();
 
-			if(phrase.getFeatureAsBoolean(Feature.PRONOMINAL).booleanValue()) {
+			if(phrase.getFeatureAsBooleanPrimitive(Feature.PRONOMINAL)) {
 				realisedElement.addComponent(createPronoun(parent, phrase));
 
 			} else {
@@ -102,6 +102,9 @@ abstract class NounPhraseHelper {
 		NLGElement headElement = phrase.getHead();
 
 		if(headElement != null) {
+			// a frozen head is shared by the realiser, so change a copy
+			if(headElement.isFrozen())
+				headElement = headElement.thaw();
 			headElement.setFeature(Feature.ELIDED, phrase.getFeature(Feature.ELIDED));
 			headElement.setFeature(LexicalFeature.GENDER, phrase.getFeature(LexicalFeature.GENDER));
 			headElement.setFeature(InternalFeature.ACRONYM, phrase.getFeature(InternalFeature.ACRONYM));
@@ -127,7 +130,7 @@ abstract class NounPhraseHelper {
 	private static void realisePreModifiers(PhraseElement phrase, SyntaxProcessor parent, ListElement realisedElement) {
 
 		List<NLGElement> preModifiers = phrase.getPreModifiers();
-		if(phrase.getFeatureAsBoolean(Feature.ADJECTIVE_ORDERING).booleanValue()) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.ADJECTIVE_ORDERING)) {
 			preModifiers = sortNPPreModifiers(preModifiers);
 		}
 		PhraseHelper.realiseList(parent, realisedElement, preModifiers, DiscourseFunction.PRE_MODIFIER);
@@ -144,10 +147,12 @@ abstract class NounPhraseHelper {
 	private static void realiseSpecifier(PhraseElement phrase, SyntaxProcessor parent, ListElement realisedElement) {
 		NLGElement specifierElement = phrase.getFeatureAsElement(InternalFeature.SPECIFIER);
 
-		if(specifierElement != null && !phrase.getFeatureAsBoolean(InternalFeature.RAISED).booleanValue()
-		   && !phrase.getFeatureAsBoolean(Feature.ELIDED).booleanValue()) {
+		if(specifierElement != null && !phrase.getFeatureAsBooleanPrimitive(InternalFeature.RAISED)
+		   && !phrase.getFeatureAsBooleanPrimitive(Feature.ELIDED)) {
 			if(!specifierElement.isA(LexicalCategory.PRONOUN)
 			   && specifierElement.getCategory() != PhraseCategory.NOUN_PHRASE) {
+				if(specifierElement.isFrozen())
+					specifierElement = specifierElement.thaw();
 				specifierElement.setFeature(Feature.NUMBER, phrase.getFeature(Feature.NUMBER));
 			}
 
@@ -206,11 +211,11 @@ abstract class NounPhraseHelper {
 		} else if(modifier.isA(LexicalCategory.ADJECTIVE) || modifier.isA(PhraseCategory.ADJECTIVE_PHRASE)) {
 			WordElement adjective = getHeadWordElement(modifier);
 
-			if(adjective.getFeatureAsBoolean(LexicalFeature.QUALITATIVE).booleanValue()) {
+			if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.QUALITATIVE)) {
 				position = QUALITATIVE_POSITION;
-			} else if(adjective.getFeatureAsBoolean(LexicalFeature.COLOUR).booleanValue()) {
+			} else if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.COLOUR)) {
 				position = COLOUR_POSITION;
-			} else if(adjective.getFeatureAsBoolean(LexicalFeature.CLASSIFYING).booleanValue()) {
+			} else if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.CLASSIFYING)) {
 				position = CLASSIFYING_POSITION;
 			}
 		}
@@ -229,11 +234,11 @@ abstract class NounPhraseHelper {
 		if(modifier.isA(LexicalCategory.ADJECTIVE) || modifier.isA(PhraseCategory.ADJECTIVE_PHRASE)) {
 			WordElement adjective = getHeadWordElement(modifier);
 
-			if(adjective.getFeatureAsBoolean(LexicalFeature.CLASSIFYING).booleanValue()) {
+			if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.CLASSIFYING)) {
 				position = CLASSIFYING_POSITION;
-			} else if(adjective.getFeatureAsBoolean(LexicalFeature.COLOUR).booleanValue()) {
+			} else if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.COLOUR)) {
 				position = COLOUR_POSITION;
-			} else if(adjective.getFeatureAsBoolean(LexicalFeature.QUALITATIVE).booleanValue()) {
+			} else if(adjective.getFeatureAsBooleanPrimitive(LexicalFeature.QUALITATIVE)) {
 				position = QUALITATIVE_POSITION;
 			} else {
 				position = CLASSIFYING_POSITION;
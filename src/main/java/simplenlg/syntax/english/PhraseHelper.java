@@ -105,6 +105,9 @@ abstract class PhraseHelper {
 
 		NLGElement head = phrase.getHead();
 		if(head != null) {
+			// a frozen head is shared by the realiser, so change a copy
+			if(head.isFrozen())
+				head = head.thaw();
 			if(phrase.hasFeature(Feature.IS_COMPARATIVE)) {
 				head.setFeature(Feature.IS_COMPARATIVE, phrase.getFeature(Feature.IS_COMPARATIVE));
 			} else if(phrase.hasFeature(Feature.IS_SUPERLATIVE)) {
@@ -149,7 +152,7 @@ abstract class PhraseHelper {
 			if(currentElement != null) {
 				currentElement.setFeature(InternalFeature.DISCOURSE_FUNCTION, function);
 
-				if(eachElement.getFeatureAsBoolean(Feature.APPOSITIVE).booleanValue()) {
+				if(eachElement.getFeatureAsBooleanPrimitive(Feature.APPOSITIVE)) {
 					currentElement.setFeature(Feature.APPOSITIVE, true);
 				}
 
@@ -177,7 +180,7 @@ abstract class PhraseHelper {
 			NLGElement subjectNP = subjects.get(0);
 
 			if(subjectNP.isA(PhraseCategory.NOUN_PHRASE)) {
-				expletive = subjectNP.getFeatureAsBoolean(LexicalFeature.EXPLETIVE_SUBJECT).booleanValue();
+				expletive = subjectNP.getFeatureAsBooleanPrimitive(LexicalFeature.EXPLETIVE_SUBJECT);
 			} else if(subjectNP.isA(PhraseCategory.CANNED_TEXT)) {
 				expletive = "there".equalsIgnoreCase(subjectNP.getRealisation()); //$NON-NLS-1$
 			}
@@ -58,7 +58,7 @@ public class SyntaxProcessor extends NLGModule {
 	public NLGElement realise(NLGElement element) {
 		NLGElement realisedElement = null;
 
-		if(element != null && !element.getFeatureAsBoolean(Feature.ELIDED).booleanValue()) {
+		if(element != null && !element.getFeatureAsBooleanPrimitive(Feature.ELIDED)) {
 
 			if(element instanceof DocumentElement) {
 				List<NLGElement> children = element.getChildren();
@@ -57,7 +57,7 @@ abstract class VerbPhraseHelper {
 			realisedElement = new ListElement();
 
 			if(!phrase.hasFeature(InternalFeature.REALISE_AUXILIARY)
-			   || phrase.getFeatureAsBoolean(InternalFeature.REALISE_AUXILIARY).booleanValue()) {
+			   || phrase.getFeatureAsBooleanPrimitive(InternalFeature.REALISE_AUXILIARY)) {
 
 				realiseAuxiliaries(parent, realisedElement, auxiliaryRealisation);
 
@@ -179,7 +179,7 @@ abstract class VerbPhraseHelper {
 		if(!InterrogativeType.isIndirectObject(phrase.getFeature(Feature.INTERROGATIVE_TYPE))) {
 			realisedElement.addComponents(indirects.getChildren());
 		}
-		if(!phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue()) {
+		if(!phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE)) {
 			if(!InterrogativeType.isObject(phrase.getFeature(Feature.INTERROGATIVE_TYPE))) {
 				realisedElement.addComponents(directs.getChildren());
 			}
@@ -262,15 +262,15 @@ abstract class VerbPhraseHelper {
 		NLGElement frontVG = grabHeadVerb(phrase, tenseValue, modal != null);
 		checkImperativeInfinitive(formValue, frontVG);
 
-		if(phrase.getFeatureAsBoolean(Feature.PASSIVE).booleanValue()) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.PASSIVE)) {
 			frontVG = addBe(frontVG, vgComponents, Form.PAST_PARTICIPLE);
 		}
 
-		if(phrase.getFeatureAsBoolean(Feature.PROGRESSIVE).booleanValue()) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.PROGRESSIVE)) {
 			frontVG = addBe(frontVG, vgComponents, Form.PRESENT_PARTICIPLE);
 		}
 
-		if(phrase.getFeatureAsBoolean(Feature.PERFECT).booleanValue() || modalPast) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.PERFECT) || modalPast) {
 			frontVG = addHave(frontVG, vgComponents, modal, tenseValue);
 		}
 
@@ -293,7 +293,7 @@ abstract class VerbPhraseHelper {
 	 * @param vgComponents the stack of verb components in the verb group.
 	 */
 	private static void pushModal(String actualModal, PhraseElement phrase, Stack<NLGElement> vgComponents) {
-		if(actualModal != null && !phrase.getFeatureAsBoolean(InternalFeature.IGNORE_MODAL).booleanValue()) {
+		if(actualModal != null && !phrase.getFeatureAsBooleanPrimitive(InternalFeature.IGNORE_MODAL)) {
 			vgComponents.push(new InflectedWordElement(actualModal, LexicalCategory.MODAL));
 		}
 	}
@@ -345,7 +345,7 @@ abstract class VerbPhraseHelper {
 			frontVG.setFeature(Feature.NUMBER, numToUse);
 
 			//don't push the front VG if it's a negated interrogative WH object question
-			if(!(phrase.getFeatureAsBoolean(Feature.NEGATED).booleanValue() && (
+			if(!(phrase.getFeatureAsBooleanPrimitive(Feature.NEGATED) && (
 					InterrogativeType.WHO_OBJECT.equals(interrogType) || InterrogativeType.WHAT_OBJECT.equals(
 							interrogType)))) {
 				vgComponents.push(frontVG);
@@ -368,7 +368,7 @@ abstract class VerbPhraseHelper {
 	                                    boolean hasModal) {
 		NLGElement newFront = frontVG;
 
-		if(phrase.getFeatureAsBoolean(Feature.NEGATED).booleanValue()) {
+		if(phrase.getFeatureAsBooleanPrimitive(Feature.NEGATED)) {
 			NLGFactory factory = phrase.getFactory();
 
 			// before adding "do", check if this is an object WH
@@ -418,7 +418,7 @@ abstract class VerbPhraseHelper {
 	                                      Stack<NLGElement> vgComponents) {
 
 		NLGElement newFront = frontVG;
-		if(hasModal && !phrase.getFeatureAsBoolean(InternalFeature.IGNORE_MODAL).booleanValue()) {
+		if(hasModal && !phrase.getFeatureAsBooleanPrimitive(InternalFeature.IGNORE_MODAL)) {
 			if(frontVG != null) {
 				frontVG.setFeature(InternalFeature.NON_MORPH, true);
 				vgComponents.push(frontVG);
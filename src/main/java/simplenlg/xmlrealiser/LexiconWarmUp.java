@@ -0,0 +1,385 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.xmlrealiser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+import simplenlg.framework.*;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.ResolvedWord;
+import simplenlg.lexicon.WordKey;
+import simplenlg.realiser.english.Realiser;
+import simplenlg.xmlrealiser.wrapper.DocumentRealisation;
+import simplenlg.xmlrealiser.wrapper.RecordSet;
+
+/**
+ * Warms up a lexicon and the realiser before a service takes traffic. The
+ * words to warm up are taken from a recording (see {@link Recording}) of the
+ * documents the service has realised, or from a vocabulary list. The words
+ * are first collected without looking any of them up, and then resolved in
+ * the lexicon in one batch, which fills the cache of lexicons that have one,
+ * such as {@link simplenlg.lexicon.NIHDBLexicon}. The documents (or words)
+ * are then realised several times, so that the JIT has compiled the
+ * realiser's hot paths.
+ * <p>
+ * The {@link Report} says how long each part took, and how many of the words
+ * were found in the lexicon.
+ */
+public class LexiconWarmUp {
+
+	/**
+	 * The default number of times the documents are realised.
+	 */
+	public static final int DEFAULT_ROUNDS = 3;
+
+	/**
+	 * The results of a warm-up.
+	 */
+	public static class Report {
+
+		private int          documentCount            = 0;
+		private int          failedDocumentCount      = 0;
+		private int          matchingRealisationCount = 0;
+		private int          lemmaCount               = 0;
+		private int          foundLemmaCount          = 0;
+		private List<String> missingLemmas            = new ArrayList<String>();
+		private long         lexiconNanos             = 0;
+		private long         realiserNanos            = 0;
+
+		/**
+		 * @return the number of documents in the recording, or words in the
+		 * 		vocabulary list
+		 */
+		public int getDocumentCount() {
+			return documentCount;
+		}
+
+		/**
+		 * @return the number of documents (or words) which could not be
+		 * 		realised
+		 */
+		public int getFailedDocumentCount() {
+			return failedDocumentCount;
+		}
+
+		/**
+		 * @return the number of documents whose realisation is the same as the
+		 * 		recorded realisation, ignoring differences in white space
+		 */
+		public int getMatchingRealisationCount() {
+			return matchingRealisationCount;
+		}
+
+		/**
+		 * @return the number of distinct words (base form and category) which
+		 * 		were resolved
+		 */
+		public int getLemmaCount() {
+			return lemmaCount;
+		}
+
+		/**
+		 * @return the number of words which were found in the lexicon, rather
+		 * 		than created
+		 */
+		public int getFoundLemmaCount() {
+			return foundLemmaCount;
+		}
+
+		/**
+		 * @return the fraction of the words which were found in the lexicon,
+		 * 		or 1 if there were no words
+		 */
+		public double getCoverage() {
+			return lemmaCount == 0 ? 1.0 : (double) foundLemmaCount / lemmaCount;
+		}
+
+		/**
+		 * @return the base forms of the words which were not found in the
+		 * 		lexicon, in order
+		 */
+		public List<String> getMissingLemmas() {
+			return Collections.unmodifiableList(missingLemmas);
+		}
+
+		/**
+		 * @return the time taken to resolve the words, in milliseconds
+		 */
+		public long getLexiconTimeMillis() {
+			return lexiconNanos / 1000000;
+		}
+
+		/**
+		 * @return the time taken to realise the documents, in milliseconds
+		 */
+		public long getRealiserTimeMillis() {
+			return realiserNanos / 1000000;
+		}
+
+		/**
+		 * @return the time taken by the whole warm-up, in milliseconds
+		 */
+		public long getTotalTimeMillis() {
+			return (lexiconNanos + realiserNanos) / 1000000;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Warm-up took %d ms (lexicon %d ms, realiser %d ms): %d documents (%d failed, %d matching the "
+					+ "recording), %d of %d lemmas found (%.1f%%)",
+					getTotalTimeMillis(),
+					getLexiconTimeMillis(),
+					getRealiserTimeMillis(),
+					documentCount,
+					failedDocumentCount,
+					matchingRealisationCount,
+					foundLemmaCount,
+					lemmaCount,
+					getCoverage() * 100);
+		}
+	}
+
+	private final Lexicon lexicon;
+	private       int     rounds = DEFAULT_ROUNDS;
+
+	/**
+	 * Create a warm-up of a lexicon.
+	 *
+	 * @param lexicon -- the lexicon to warm up, which should be the one the
+	 *                service will use
+	 */
+	public LexiconWarmUp(Lexicon lexicon) {
+		this.lexicon = lexicon;
+	}
+
+	/**
+	 * @return the number of times the documents are realised
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Set the number of times the documents are realised. More rounds give
+	 * the JIT more chance to compile the realiser, but take longer.
+	 *
+	 * @param rounds -- the number of rounds, which may be 0 to only resolve
+	 *               the words
+	 * @throws IllegalArgumentException if the number of rounds is negative
+	 */
+	public void setRounds(int rounds) {
+		if(rounds < 0)
+			throw new IllegalArgumentException("Number of rounds must not be negative: " + rounds);
+		this.rounds = rounds;
+	}
+
+	/**********************************************************************/
+	// warm-up from a recording
+	/**********************************************************************/
+
+	/**
+	 * Warm up from a recording file, as written by {@link Recording}.
+	 *
+	 * @param input -- the recording
+	 * @return the report of the warm-up
+	 * @throws XMLRealiserException if the recording cannot be read
+	 */
+	public Report warmUp(Reader input) throws XMLRealiserException {
+		return warmUp(XMLRealiser.getRecording(input));
+	}
+
+	/**
+	 * Warm up from the documents in a recording. The documents are unwrapped
+	 * with a lexicon which only records the words they ask for; these are
+	 * resolved in one batch, and then each document is realised once per
+	 * round. The first round's realisations are compared with those in the
+	 * recording.
+	 *
+	 * @param recording -- the recording
+	 * @return the report of the warm-up
+	 */
+	public Report warmUp(RecordSet recording) {
+		Report report = new Report();
+		List<DocumentRealisation> records = recording.getRecord();
+		report.documentCount = records.size();
+
+		long start = System.nanoTime();
+		WordCollector collector = new WordCollector();
+		UnWrapper collectingUnwrapper = new UnWrapper(collector);
+		for(DocumentRealisation record : records) {
+			try {
+				collectingUnwrapper.UnwrapDocumentElement(record.getDocument());
+			} catch(RuntimeException ex) {
+				// counted as a failure when it is realised
+			}
+		}
+		resolve(collector.keys, report);
+		long resolved = System.nanoTime();
+		report.lexiconNanos = resolved - start;
+
+		// the documents are unwrapped again for each round, as realising a
+		// document may change it
+		UnWrapper unwrapper = new UnWrapper(lexicon);
+		Realiser realiser = new Realiser(lexicon);
+		for(int round = 0; round < rounds; round++) {
+			for(DocumentRealisation record : records) {
+				String realisation;
+				try {
+					DocumentElement document = unwrapper.UnwrapDocumentElement(record.getDocument());
+					realisation = realiser.realise(document).getRealisation();
+				} catch(RuntimeException ex) {
+					if(round == 0)
+						report.failedDocumentCount++;
+					continue;
+				}
+				if(round == 0 && normalise(realisation).equals(normalise(record.getRealisation())))
+					report.matchingRealisationCount++;
+			}
+		}
+		report.realiserNanos = System.nanoTime() - resolved;
+		return report;
+	}
+
+	/**
+	 * A lexicon which looks nothing up. It records the words which are asked
+	 * for while a document is unwrapped, so that they can be resolved in the
+	 * lexicon being warmed up in one batch, and creates a new word for each.
+	 * As it holds no words, strings which the factory only treats as words
+	 * because they are in a lexicon, such as multi-word entries, are not
+	 * recorded; they are looked up when the documents are realised.
+	 */
+	private static class WordCollector extends Lexicon {
+
+		final Set<WordKey> keys = new LinkedHashSet<WordKey>();
+
+		@Override
+		public ResolvedWord resolveWord(String baseForm, LexicalCategory category) {
+			if(baseForm != null)
+				keys.add(new WordKey(baseForm, category));
+			return new ResolvedWord(createWord(baseForm, category), ResolvedWord.Resolution.CREATED);
+		}
+
+		@Override
+		public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+			return new ArrayList<WordElement>();
+		}
+
+		@Override
+		public List<WordElement> getWordsByID(String id) {
+			return new ArrayList<WordElement>();
+		}
+
+		@Override
+		public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+			return new ArrayList<WordElement>();
+		}
+	}
+
+	/**
+	 * compare realisations ignoring white space, which the recording may have
+	 * reformatted
+	 */
+	private static String normalise(String realisation) {
+		return realisation == null ? "" : realisation.replaceAll("\\s+", " ").trim();
+	}
+
+	/**********************************************************************/
+	// warm-up from a vocabulary list
+	/**********************************************************************/
+
+	/**
+	 * Read a vocabulary list, which has one base form per line, optionally
+	 * followed by a tab and a lexical category (such as "noun"). Blank lines,
+	 * and lines starting with "#", are ignored.
+	 *
+	 * @param input -- the vocabulary list
+	 * @return the words in the list
+	 * @throws IOException if the list cannot be read
+	 * @throws IllegalArgumentException if a category is not a lexical
+	 *                                  category
+	 */
+	public static List<WordKey> readVocabulary(Reader input) throws IOException {
+		List<WordKey> vocabulary = new ArrayList<WordKey>();
+		BufferedReader reader = new BufferedReader(input);
+		for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+			if(line.trim().isEmpty() || line.trim().startsWith("#"))
+				continue;
+
+			int tab = line.indexOf('\t');
+			if(tab < 0) {
+				vocabulary.add(new WordKey(line.trim()));
+			} else {
+				String category = line.substring(tab + 1).trim().toUpperCase();
+				vocabulary.add(new WordKey(line.substring(0, tab).trim(), LexicalCategory.valueOf(category)));
+			}
+		}
+		return vocabulary;
+	}
+
+	/**
+	 * Warm up from a list of words. The words are resolved in one batch, and
+	 * then each word is realised (by morphology and orthography) once per
+	 * round.
+	 *
+	 * @param vocabulary -- the words
+	 * @return the report of the warm-up
+	 */
+	public Report warmUp(Collection<WordKey> vocabulary) {
+		Report report = new Report();
+		report.documentCount = vocabulary.size();
+
+		long start = System.nanoTime();
+		Map<WordKey, ResolvedWord> resolved = resolve(new LinkedHashSet<WordKey>(vocabulary), report);
+		long resolvedTime = System.nanoTime();
+		report.lexiconNanos = resolvedTime - start;
+
+		Realiser realiser = new Realiser(lexicon);
+		for(int round = 0; round < rounds; round++) {
+			for(ResolvedWord word : resolved.values()) {
+				try {
+					realiser.realise(new InflectedWordElement(word.getWord()));
+				} catch(RuntimeException ex) {
+					if(round == 0)
+						report.failedDocumentCount++;
+				}
+			}
+		}
+		report.realiserNanos = System.nanoTime() - resolvedTime;
+		return report;
+	}
+
+	/**
+	 * resolve words in one batch, counting those found in the lexicon
+	 */
+	private Map<WordKey, ResolvedWord> resolve(Set<WordKey> keys, Report report) {
+		Map<WordKey, ResolvedWord> resolved = lexicon.resolveWords(keys);
+		report.lemmaCount = resolved.size();
+		for(Map.Entry<WordKey, ResolvedWord> entry : resolved.entrySet()) {
+			if(entry.getValue().getResolution() == ResolvedWord.Resolution.CREATED)
+				report.missingLemmas.add(entry.getKey().getBaseForm());
+			else
+				report.foundLemmaCount++;
+		}
+		return resolved;
+	}
+}
@@ -18,13 +18,16 @@
  */
 package simplenlg.xmlrealiser;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 
 import simplenlg.framework.DocumentElement;
 import simplenlg.framework.NLGElement;
 import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.LexiconHolder;
 import simplenlg.lexicon.NIHDBLexicon;
 import simplenlg.lexicon.XMLLexicon;
 import simplenlg.realiser.english.Realiser;
@@ -38,14 +41,15 @@ import simplenlg.realiser.english.Realiser;
 public class XMLRealiser {
 
 	/**
-	 * The lex db.
+	 * The lex db, or file the lexicon was loaded from.
 	 */
 	static String lexDB = null;
 
 	/**
-	 * The lexicon.
+	 * The lexicon. Realisations use a snapshot of it, so it can be replaced
+	 * while documents are being realised.
 	 */
-	static Lexicon lexicon = null;
+	static final LexiconHolder lexicon = new LexiconHolder();
 
 	/**
 	 * The lexicon type.
@@ -62,10 +66,14 @@ public class XMLRealiser {
 	 */
 	/*
 	 * The arg[0] is the op code. op codes are "realise", "setLexicon",
-	 * "startRecording", "stopRecording" Usage is: realize <xml string> returns
-	 * realised string. setLexicon (XML | NIHDB) <path to lexicon> returns "OK"
-	 * or not. startRecording <path to recording directory> returns "OK" or not.
+	 * "reloadLexicon", "startRecording", "stopRecording" Usage is: realize <xml
+	 * string> returns realised string. setLexicon (XML | NIHDB) <path to lexicon> returns "OK"
+	 * or not. reloadLexicon (XML | NIHDB) <path to lexicon> reloads the lexicon
+	 * even if it is already set, and returns "OK" or not. startRecording <path
+	 * to recording directory> returns "OK" or not.
 	 * stopRecording returns name of file which contains recording.
+	 * warmUp <path to recording or vocabulary list> warms up the lexicon and
+	 * realiser, and returns a report of the warm-up.
 	 * Recordings can be used as regression tests. See simplenlg/test/xmlrealiser/Tester.java
 	 */
 	public enum OpCode {
@@ -82,6 +90,10 @@ public class XMLRealiser {
 		 * The set lexicon.
 		 */
 		setLexicon,
+		/**
+		 * The reload lexicon.
+		 */
+		reloadLexicon,
 		/**
 		 * The start recording.
 		 */
@@ -89,7 +101,11 @@ public class XMLRealiser {
 		/**
 		 * The stop recording.
 		 */
-		stopRecording
+		stopRecording,
+		/**
+		 * The warm up.
+		 */
+		warmUp
 	}
 
 	/**
@@ -144,9 +160,10 @@ public class XMLRealiser {
 			output = realise(request.getDocument());
 
 			break;
-		case setLexicon:{
+		case setLexicon:
+		case reloadLexicon:{
 			if(args.length <= argx + 1) {
-				throw new XMLRealiserException("invalid setLexicon args");
+				throw new XMLRealiserException("invalid " + opCode + " args");
 			}
 			String lexTypeStr = (String) args[argx++];
 			String lexFile = (String) args[argx++];
@@ -158,7 +175,10 @@ public class XMLRealiser {
 				throw new XMLRealiserException("invalid args");
 			}
 
-			setLexicon(lexType, lexFile);
+			if(opCode == OpCode.reloadLexicon)
+				reloadLexicon(lexType, lexFile);
+			else
+				setLexicon(lexType, lexFile);
 			break;
 		}
 		case startRecording:{
@@ -179,6 +199,14 @@ public class XMLRealiser {
 				}
 			}
 			break;
+		case warmUp:{
+			if(args.length <= argx) {
+				throw new XMLRealiserException("invalid args");
+			}
+			String path = (String) args[argx++];
+			output = warmUp(path).toString();
+			break;
+		}
 		case noop:
 			break;
 		default:
@@ -192,31 +220,43 @@ public class XMLRealiser {
 	}
 
 	/**
-	 * Sets the lexicon.
+	 * Sets the lexicon. Nothing is done if the lexicon is already of this
+	 * type and loaded from this file.
 	 *
 	 * @param lexType the lex type
 	 * @param lexFile the lex file
 	 */
-	public static void setLexicon(LexiconType lexType, String lexFile) {
-		if(lexiconType != null && lexicon != null && lexType == lexiconType) {
+	public static synchronized void setLexicon(LexiconType lexType, String lexFile) {
+		boolean sameFile = lexType == LexiconType.DEFAULT || (lexFile != null && lexFile.equals(lexDB));
+		if(lexiconType != null && lexicon.get() != null && lexType == lexiconType && sameFile) {
 			return; // done already
 		}
 
-		if(lexicon != null) {
-			lexicon.close();
-			lexicon = null;
-			lexiconType = null;
-		}
+		reloadLexicon(lexType, lexFile);
+	}
 
+	/**
+	 * Reloads the lexicon, for example after the lexicon file has been
+	 * updated. The new lexicon is loaded on the calling thread, and then
+	 * replaces the old one; realisations in progress finish with the old
+	 * lexicon, which is closed once they are done.
+	 *
+	 * @param lexType the lex type
+	 * @param lexFile the lex file
+	 */
+	public static synchronized void reloadLexicon(LexiconType lexType, String lexFile) {
+		Lexicon newLexicon = null;
 		if(lexType == LexiconType.XML) {
-			lexicon = new XMLLexicon(lexFile);
+			newLexicon = new XMLLexicon(lexFile);
 		} else if(lexType == LexiconType.NIHDB) {
-			lexicon = new NIHDBLexicon(lexFile);
+			newLexicon = new NIHDBLexicon(lexFile);
 		} else if(lexType == LexiconType.DEFAULT) {
-			lexicon = Lexicon.getDefaultLexicon();
+			newLexicon = Lexicon.getDefaultLexicon();
 		}
 
-		lexiconType = lexType;
+		lexicon.set(newLexicon);
+		lexiconType = newLexicon == null ? null : lexType;
+		lexDB = newLexicon == null ? null : lexFile;
 	}
 
 	/**
@@ -264,14 +304,12 @@ public class XMLRealiser {
 	public static String realise(simplenlg.xmlrealiser.wrapper.XmlDocumentElement wt) throws XMLRealiserException {
 		String output = "";
 		if(wt != null) {
+			LexiconHolder.Snapshot snapshot = acquireLexicon();
 			try {
-				if(lexicon == null) {
-					lexicon = Lexicon.getDefaultLexicon();
-				}
-				UnWrapper w = new UnWrapper(lexicon);
+				UnWrapper w = new UnWrapper(snapshot.getLexicon());
 				DocumentElement t = w.UnwrapDocumentElement(wt);
 				if(t != null) {
-					Realiser r = new Realiser(lexicon);
+					Realiser r = new Realiser(snapshot.getLexicon());
 					//r.initialise();
 
 					NLGElement tr = r.realise(t);
@@ -281,12 +319,59 @@ public class XMLRealiser {
 
 			} catch(Exception e) {
 				throw new XMLRealiserException("NLG XMLRealiser Error", e);
+			} finally {
+				snapshot.release();
 			}
 		}
 
 		return output;
 	}
 
+	/**
+	 * Acquires a snapshot of the lexicon, setting the default lexicon if none
+	 * has been set.
+	 *
+	 * @return the snapshot, which must be released
+	 */
+	private static LexiconHolder.Snapshot acquireLexicon() {
+		LexiconHolder.Snapshot snapshot;
+		while((snapshot = lexicon.acquire()) == null) {
+			lexicon.setIfEmpty(Lexicon.getDefaultLexicon());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Warms up the lexicon and the realiser before realising documents, from
+	 * a recording (a file ending in ".xml") or a vocabulary list. See
+	 * {@link LexiconWarmUp}.
+	 *
+	 * @param path the path of the recording or vocabulary list
+	 * @return the report of the warm-up
+	 * @throws XMLRealiserException the XML realiser exception
+	 */
+	public static LexiconWarmUp.Report warmUp(String path) throws XMLRealiserException {
+		LexiconHolder.Snapshot snapshot = acquireLexicon();
+		try {
+			LexiconWarmUp warmUp = new LexiconWarmUp(snapshot.getLexicon());
+			Reader reader = new InputStreamReader(new FileInputStream(path), "UTF-8");
+			try {
+				if(path.toLowerCase().endsWith(".xml"))
+					return warmUp.warmUp(reader);
+				else
+					return warmUp.warmUp(LexiconWarmUp.readVocabulary(reader));
+			} finally {
+				reader.close();
+			}
+		} catch(IOException e) {
+			throw new XMLRealiserException("NLG XMLRealiser Error", e);
+		} catch(IllegalArgumentException e) {
+			throw new XMLRealiserException("NLG XMLRealiser Error", e);
+		} finally {
+			snapshot.release();
+		}
+	}
+
 	/**
 	 * Start recording.
 	 *
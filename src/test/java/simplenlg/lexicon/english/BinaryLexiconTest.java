@@ -0,0 +1,185 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.features.Inflection;
+import simplenlg.features.LexicalFeature;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.NLGElement;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.BinaryLexicon;
+import simplenlg.lexicon.BinaryLexiconWriter;
+import simplenlg.lexicon.XMLLexicon;
+
+/**
+ * Tests that a {@link BinaryLexicon} created from the default XML lexicon
+ * behaves in the same way as the XML lexicon.
+ */
+public class BinaryLexiconTest {
+
+	static String XML_FILENAME = "src/main/resources/default-lexicon.xml";
+
+	XMLLexicon    xmlLexicon    = null;
+	BinaryLexicon binaryLexicon = null;
+	File          binaryFile    = null;
+
+	@Before
+	public void setUp() throws Exception {
+		this.xmlLexicon = new XMLLexicon();
+		this.binaryFile = File.createTempFile("default-lexicon", ".bin");
+		BinaryLexiconWriter.write(this.xmlLexicon, this.binaryFile);
+		this.binaryLexicon = new BinaryLexicon(this.binaryFile);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if(binaryLexicon != null)
+			binaryLexicon.close();
+		if(binaryFile != null)
+			binaryFile.delete();
+	}
+
+	/**
+	 * Runs basic Lexicon tests.
+	 */
+	@Test
+	public void basicLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBasicTests(binaryLexicon);
+	}
+
+	/**
+	 * Runs batch lookup Lexicon Tests.
+	 */
+	@Test
+	public void batchLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBatchTests(binaryLexicon);
+	}
+
+	/**
+	 * Checks every base form and ID in the XML lexicon file gives the same
+	 * words from both lexicons.
+	 */
+	@Test
+	public void sameWordsAsXMLLexiconTest() throws Exception {
+		Set<String> bases = new LinkedHashSet<String>();
+		Set<String> ids = new LinkedHashSet<String>();
+		Pattern base = Pattern.compile("<base>(.*)</base>");
+		Pattern id = Pattern.compile("<id>(.*)</id>");
+
+		BufferedReader reader = new BufferedReader(new FileReader(XML_FILENAME));
+		String line = reader.readLine();
+		while(line != null) {
+			Matcher matcher = base.matcher(line);
+			if(matcher.find())
+				bases.add(matcher.group(1).trim());
+			matcher = id.matcher(line);
+			if(matcher.find())
+				ids.add(matcher.group(1).trim());
+			line = reader.readLine();
+		}
+		reader.close();
+
+		for(String form : bases) {
+			assertSameWords(xmlLexicon.getWords(form), binaryLexicon.getWords(form));
+			assertSameWords(xmlLexicon.getWordsFromVariant(form), binaryLexicon.getWordsFromVariant(form));
+			assertSameWords(xmlLexicon.getWords(form, LexicalCategory.VERB),
+			                binaryLexicon.getWords(form, LexicalCategory.VERB));
+		}
+		for(String form : ids) {
+			assertSameWords(xmlLexicon.getWordsByID(form), binaryLexicon.getWordsByID(form));
+		}
+		for(String form : new String[]{"is", "was", "eating", "women", "said", "better", "akjmchsgk"}) {
+			assertSameWords(xmlLexicon.getWordsFromVariant(form), binaryLexicon.getWordsFromVariant(form));
+		}
+	}
+
+	/**
+	 * Checks that list features, such as the spelling variants and acronym
+	 * full forms of words from the NIH lexicon, are written and read, and
+	 * that variants can be looked up regardless of case.
+	 */
+	@Test
+	public void listFeaturesTest() throws Exception {
+		WordElement fullForm = new WordElement("acquired immunodeficiency syndrome", LexicalCategory.NOUN, "E0006474");
+		WordElement aids = new WordElement("AIDS", LexicalCategory.NOUN, "E0006452");
+		aids.setFeature(LexicalFeature.SPELL_VARS, Arrays.asList("AIDS", "A.I.D.S."));
+		aids.setFeature(LexicalFeature.ACRONYM_OF, Arrays.<NLGElement>asList(fullForm));
+
+		BinaryLexiconWriter writer = new BinaryLexiconWriter();
+		writer.setCaseInsensitiveVariants(true);
+		writer.indexBase("AIDS", aids);
+		writer.indexVariant("aids", aids);
+		writer.indexID("E0006452", aids);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.write(bytes);
+		// the full form is written, though it is not indexed
+		Assert.assertEquals(2, writer.getWordCount());
+
+		BinaryLexicon lexicon = new BinaryLexicon(ByteBuffer.wrap(bytes.toByteArray()));
+		Assert.assertTrue(lexicon.isCaseInsensitiveVariants());
+		Assert.assertFalse(binaryLexicon.isCaseInsensitiveVariants());
+		Assert.assertEquals(1, lexicon.getWordsFromVariant("AIDS").size());
+		Assert.assertEquals(1, lexicon.getWordsFromVariant("Aids").size());
+		Assert.assertTrue(lexicon.getWords("aids").isEmpty());
+
+		WordElement word = lexicon.getWordByID("E0006452");
+		Assert.assertEquals(Arrays.asList("AIDS", "A.I.D.S."), word.getFeature(LexicalFeature.SPELL_VARS));
+		List<NLGElement> fullForms = word.getFeatureAsElementList(LexicalFeature.ACRONYM_OF);
+		Assert.assertEquals(1, fullForms.size());
+		Assert.assertEquals(fullForm.toXML(), ((WordElement) fullForms.get(0)).toXML());
+		Assert.assertEquals("E0006474", ((WordElement) fullForms.get(0)).getId());
+	}
+
+	private void assertSameWords(List<WordElement> expected, List<WordElement> actual) {
+		Assert.assertEquals(describe(expected), describe(actual));
+	}
+
+	private List<String> describe(List<WordElement> words) {
+		List<String> descriptions = new ArrayList<String>();
+		for(WordElement word : words) {
+			StringBuilder description = new StringBuilder(word.toXML());
+			description.append(word.getDefaultInflectionalVariant());
+			for(Inflection infl : Inflection.values()) {
+				if(word.hasInflectionalVariant(infl))
+					description.append(' ').append(infl).append(word.getInflectionalVariantForms(infl));
+			}
+			descriptions.add(description.toString());
+		}
+		return descriptions;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.lexicon.LexiconCache;
+
+/**
+ * Tests for {@link LexiconCache}.
+ */
+public class LexiconCacheTest {
+
+	/**
+	 * Tests hit and miss counting.
+	 */
+	@Test
+	public void hitMissTest() {
+		LexiconCache<String, String> cache = new LexiconCache<String, String>(10);
+		Assert.assertNull(cache.get("dog"));
+		Assert.assertEquals("noun", cache.put("dog", "noun"));
+		Assert.assertEquals("noun", cache.get("dog"));
+		Assert.assertEquals("noun", cache.get("dog"));
+
+		// existing entries are kept
+		Assert.assertEquals("noun", cache.put("dog", "verb"));
+
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-9);
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertNull(cache.get("dog"));
+	}
+
+	/**
+	 * Tests that the cache does not grow beyond its maximum size, and that
+	 * entries which have been read are evicted after ones which have not.
+	 */
+	@Test
+	public void evictionTest() {
+		LexiconCache<Integer, Integer> cache = new LexiconCache<Integer, Integer>(4);
+		for(int i = 0; i < 4; i++)
+			cache.put(i, i);
+		cache.get(0);
+
+		cache.put(4, 4);
+		Assert.assertEquals(4, cache.size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertEquals(Integer.valueOf(0), cache.get(0));
+		Assert.assertNull(cache.get(1));
+
+		for(int i = 5; i < 100; i++)
+			cache.put(i, i);
+		Assert.assertEquals(4, cache.size());
+		Assert.assertEquals(96, cache.getEvictionCount());
+	}
+
+	/**
+	 * Tests that the cache stays within its size when used by several
+	 * threads.
+	 */
+	@Test
+	public void concurrencyTest() throws Exception {
+		final LexiconCache<Integer, Integer> cache = new LexiconCache<Integer, Integer>(100);
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; t++) {
+			final int offset = t * 1000;
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					for(int i = 0; i < 10000; i++) {
+						Integer key = offset + i % 500;
+						if(cache.get(key) == null)
+							cache.put(key, key);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		Assert.assertTrue(cache.size() <= 100);
+		Assert.assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+	}
+
+	/**
+	 * Tests that the size is the number of entries in the cache when it is
+	 * cleared while other threads add entries.
+	 */
+	@Test
+	public void concurrentClearTest() throws Exception {
+		final LexiconCache<Integer, Integer> cache = new LexiconCache<Integer, Integer>(100);
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; t++) {
+			final int offset = t * 1000;
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					for(int i = 0; i < 100000; i++) {
+						cache.put(offset + i % 500, i);
+						if(i % 50 == 0)
+							cache.clear();
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		int entryCount = 0;
+		for(int t = 0; t < 4; t++) {
+			for(int i = 0; i < 500; i++) {
+				if(cache.get(t * 1000 + i) != null)
+					entryCount++;
+			}
+		}
+		Assert.assertEquals(entryCount, cache.size());
+		Assert.assertTrue(cache.size() <= 100);
+
+		// and the cache still fills up, and evicts, as it should
+		for(int i = 0; i < 200; i++)
+			cache.put(10000 + i, i);
+		Assert.assertEquals(100, cache.size());
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.lexicon.LexiconFilter;
+
+/**
+ * Tests for {@link LexiconFilter}.
+ */
+public class LexiconFilterTest {
+
+	/**
+	 * Tests that forms which have been added are never rejected, ignoring
+	 * case, and that the false positive rate is close to the expected rate.
+	 */
+	@Test
+	public void falsePositiveTest() {
+		LexiconFilter filter = new LexiconFilter(10000, 0.01);
+		for(int i = 0; i < 10000; i++)
+			filter.put("form" + i);
+		Assert.assertEquals(10000, filter.getFormCount());
+		Assert.assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.002);
+
+		for(int i = 0; i < 10000; i++) {
+			Assert.assertTrue(filter.mightContain("form" + i));
+			Assert.assertTrue(filter.mightContain("FORM" + i));
+		}
+		Assert.assertEquals(0, filter.getRejectionCount());
+
+		int passed = 0;
+		for(int i = 0; i < 100000; i++) {
+			if(filter.mightContain("other" + i)) {
+				filter.recordFalsePositive();
+				passed++;
+			}
+		}
+		Assert.assertEquals(120000, filter.getQueryCount());
+		Assert.assertEquals(passed, filter.getFalsePositiveCount());
+		Assert.assertEquals(100000 - passed, filter.getRejectionCount());
+		Assert.assertEquals(passed / 100000.0, filter.getFalsePositiveRate(), 1e-9);
+		Assert.assertTrue("false positive rate " + filter.getFalsePositiveRate(), filter.getFalsePositiveRate() < 0.02);
+	}
+
+	/**
+	 * Tests an empty filter, and invalid probabilities.
+	 */
+	@Test
+	public void emptyFilterTest() {
+		LexiconFilter filter = new LexiconFilter(0, 0.05);
+		Assert.assertFalse(filter.mightContain("dog"));
+		Assert.assertEquals(0.0, filter.getExpectedFalsePositiveRate(), 1e-9);
+		filter.put("dog");
+		Assert.assertTrue(filter.mightContain("Dog"));
+
+		for(double probability : new double[]{0.0, 1.0, -0.5, Double.NaN}) {
+			try {
+				new LexiconFilter(100, probability);
+				Assert.fail("accepted probability " + probability);
+			} catch(IllegalArgumentException expected) {
+				// expected
+			}
+		}
+	}
+}
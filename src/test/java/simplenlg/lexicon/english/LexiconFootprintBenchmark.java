@@ -0,0 +1,83 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import org.junit.Ignore;
+import simplenlg.lexicon.XMLLexicon;
+
+/**
+ * Reports the heap retained by loaded {@link XMLLexicon}s: the total, and the
+ * bytes per word. The retained size is the heap in use (after garbage
+ * collection) while the lexicon is loaded, less the heap in use beforehand.
+ * <p>
+ * Usage: <code>java simplenlg.lexicon.english.LexiconFootprintBenchmark [lexicon.xml...]</code>
+ * <br>
+ * The default lexicon is used if no file is given. A lexicon dumped from the
+ * NIH DB by <code>NIHLexiconXMLDumpUtil</code> can be given to check a larger
+ * lexicon. Run with a fixed heap (for example <code>-Xms1g -Xmx1g</code>)
+ * for steadier figures.
+ */
+@Ignore
+public class LexiconFootprintBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String[] filenames = args.length > 0 ? args : new String[]{"src/main/resources/default-lexicon.xml"};
+
+		// load once first, so that the loader's classes are not measured
+		new XMLLexicon(new File(filenames[0]));
+
+		for(String filename : filenames) {
+			long before = settledHeap();
+			XMLLexicon lexicon = new XMLLexicon(new File(filename));
+			long retained = settledHeap() - before;
+
+			int wordCount = lexicon.getWordCount();
+			System.out.format("%s: %d words, retained %.2f MB, %.0f bytes/word%n",
+			                  filename,
+			                  wordCount,
+			                  retained / (1024.0 * 1024.0),
+			                  (double) retained / wordCount);
+			// keep the lexicon reachable until the heap has been measured
+			if(lexicon.getWords("be").isEmpty())
+				System.out.println("Lexicon did not load");
+		}
+	}
+
+	/**
+	 * @return heap in use after garbage collection
+	 */
+	private static long settledHeap() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		// collect until the heap stops shrinking
+		for(int i = 0; i < 10; i++) {
+			System.gc();
+			Thread.sleep(50);
+			long nowUsed = memory.getHeapMemoryUsage().getUsed();
+			if(nowUsed >= used)
+				break;
+			used = nowUsed;
+		}
+		return used;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.LexiconHolder;
+
+/**
+ * Tests that a {@link LexiconHolder} closes a replaced lexicon only once it is
+ * no longer in use.
+ */
+public class LexiconHolderTest {
+
+	/**
+	 * An empty lexicon which records whether it has been closed.
+	 */
+	static class ClosableLexicon extends Lexicon {
+
+		volatile boolean closed = false;
+
+		@Override
+		public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<WordElement> getWordsByID(String id) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void close() {
+			if(closed)
+				throw new IllegalStateException("closed twice");
+			closed = true;
+		}
+	}
+
+	/**
+	 * Checks that a lexicon which is in use is closed when its last snapshot
+	 * is released, and that new snapshots get the new lexicon.
+	 */
+	@Test
+	public void swapTest() {
+		ClosableLexicon oldLexicon = new ClosableLexicon();
+		ClosableLexicon newLexicon = new ClosableLexicon();
+		LexiconHolder holder = new LexiconHolder(oldLexicon);
+
+		LexiconHolder.Snapshot first = holder.acquire();
+		LexiconHolder.Snapshot second = holder.acquire();
+		Assert.assertSame(oldLexicon, first.getLexicon());
+
+		Assert.assertSame(oldLexicon, holder.set(newLexicon));
+		Assert.assertSame(newLexicon, holder.get());
+		Assert.assertFalse(oldLexicon.closed);
+
+		LexiconHolder.Snapshot third = holder.acquire();
+		Assert.assertSame(newLexicon, third.getLexicon());
+
+		first.release();
+		Assert.assertFalse(oldLexicon.closed);
+		second.release();
+		Assert.assertTrue(oldLexicon.closed);
+
+		third.release();
+		Assert.assertFalse(newLexicon.closed);
+		holder.close();
+		Assert.assertTrue(newLexicon.closed);
+		Assert.assertNull(holder.acquire());
+	}
+
+	/**
+	 * Checks that a lexicon which is not in use is closed when it is
+	 * replaced, and that setting the same lexicon again does not close it.
+	 */
+	@Test
+	public void unusedLexiconTest() {
+		ClosableLexicon oldLexicon = new ClosableLexicon();
+		LexiconHolder holder = new LexiconHolder();
+		Assert.assertNull(holder.get());
+		Assert.assertTrue(holder.setIfEmpty(oldLexicon));
+		Assert.assertFalse(holder.setIfEmpty(new ClosableLexicon()));
+
+		holder.set(oldLexicon);
+		Assert.assertFalse(oldLexicon.closed);
+		holder.set(new ClosableLexicon());
+		Assert.assertTrue(oldLexicon.closed);
+	}
+
+	/**
+	 * Checks that threads never get a closed lexicon while the lexicon is
+	 * being replaced, and that every replaced lexicon is closed.
+	 */
+	@Test
+	public void concurrentSwapTest() throws Exception {
+		final LexiconHolder holder = new LexiconHolder(new ClosableLexicon());
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < 4; i++) {
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					while(running.get()) {
+						LexiconHolder.Snapshot snapshot = holder.acquire();
+						try {
+							if(((ClosableLexicon) snapshot.getLexicon()).closed)
+								failures.incrementAndGet();
+							Thread.yield();
+							if(((ClosableLexicon) snapshot.getLexicon()).closed)
+								failures.incrementAndGet();
+						} finally {
+							snapshot.release();
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+
+		List<ClosableLexicon> replaced = new ArrayList<ClosableLexicon>();
+		for(int i = 0; i < 1000; i++) {
+			replaced.add((ClosableLexicon) holder.set(new ClosableLexicon()));
+			Thread.yield();
+		}
+		running.set(false);
+		for(Thread thread : threads)
+			thread.join();
+
+		Assert.assertEquals(0, failures.get());
+		for(ClosableLexicon lexicon : replaced)
+			Assert.assertTrue(lexicon.closed);
+		Assert.assertFalse(((ClosableLexicon) holder.get()).closed);
+	}
+}
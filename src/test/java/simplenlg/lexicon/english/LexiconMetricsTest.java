@@ -0,0 +1,234 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.util.*;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.lexicon.*;
+
+/**
+ * Tests for {@link LexiconMetrics}.
+ */
+public class LexiconMetricsTest {
+
+	/**
+	 * Tests that each stage of <code>resolveWord</code> is counted, and that
+	 * metrics are only recorded while enabled.
+	 */
+	@Test
+	public void resolveWordTest() {
+		XMLLexicon lexicon = new XMLLexicon();
+		Assert.assertNull(lexicon.getMetrics());
+		lexicon.lookupWord("dog");
+
+		lexicon.enableMetrics();
+		LexiconMetrics metrics = lexicon.getMetrics();
+		Assert.assertEquals("XMLLexicon", metrics.getLexiconName());
+		Assert.assertEquals(0, metrics.getLookupCount());
+
+		lexicon.lookupWord("dog", LexicalCategory.NOUN); // base form
+		lexicon.lookupWord("is"); // variant
+		lexicon.lookupWord("E0006419"); // ID
+		lexicon.lookupWord("blorp"); // created
+		lexicon.lookupWord("blorp");
+
+		Assert.assertEquals(5, metrics.getLookupCount());
+		LexiconMetrics.StageMetrics base = metrics.getStage(ResolvedWord.Resolution.BASE);
+		Assert.assertEquals(5, base.getProbeCount());
+		Assert.assertEquals(1, base.getHitCount());
+		Assert.assertEquals(4, base.getMissCount());
+		Assert.assertEquals(5, base.getLatency().getCount());
+
+		LexiconMetrics.StageMetrics variant = metrics.getStage(ResolvedWord.Resolution.VARIANT);
+		Assert.assertEquals(4, variant.getProbeCount());
+		Assert.assertEquals(1, variant.getHitCount());
+
+		LexiconMetrics.StageMetrics id = metrics.getStage(ResolvedWord.Resolution.ID);
+		Assert.assertEquals(3, id.getProbeCount());
+		Assert.assertEquals(1, id.getHitCount());
+
+		LexiconMetrics.StageMetrics created = metrics.getStage(ResolvedWord.Resolution.CREATED);
+		Assert.assertEquals(2, created.getProbeCount());
+		Assert.assertEquals(2, created.getHitCount());
+		Assert.assertEquals(Collections.singletonMap("blorp", 2L), metrics.getTopMissedForms());
+
+		lexicon.disableMetrics();
+		Assert.assertNull(lexicon.getMetrics());
+		lexicon.lookupWord("dog");
+		Assert.assertEquals(5, metrics.getLookupCount());
+	}
+
+	/**
+	 * Tests that batch lookups are counted per word, and that forms rejected
+	 * by the filter are counted without being looked up.
+	 */
+	@Test
+	public void resolveWordsTest() {
+		XMLLexicon lexicon = new XMLLexicon();
+		lexicon.enableFilter(0.0001);
+		lexicon.enableMetrics(1);
+
+		List<WordKey> keys = new ArrayList<WordKey>();
+		keys.add(new WordKey("dog", LexicalCategory.NOUN));
+		keys.add(new WordKey("is", LexicalCategory.ANY));
+		keys.add(new WordKey("blorp", LexicalCategory.ANY));
+		keys.add(new WordKey("blorp", LexicalCategory.ANY));
+		keys.add(new WordKey("zzyzx", LexicalCategory.ANY));
+		lexicon.resolveWords(keys);
+		lexicon.lookupWord("zzyzx");
+
+		LexiconMetrics metrics = lexicon.getMetrics();
+		Assert.assertEquals(5, metrics.getLookupCount());
+		Assert.assertEquals(3, metrics.getFilterRejectionCount());
+		Assert.assertEquals(2, metrics.getStage(ResolvedWord.Resolution.BASE).getProbeCount());
+		Assert.assertEquals(1, metrics.getStage(ResolvedWord.Resolution.BASE).getHitCount());
+		Assert.assertEquals(1, metrics.getStage(ResolvedWord.Resolution.VARIANT).getHitCount());
+		Assert.assertEquals(0, metrics.getStage(ResolvedWord.Resolution.ID).getProbeCount());
+		Assert.assertEquals(3, metrics.getStage(ResolvedWord.Resolution.CREATED).getHitCount());
+		Assert.assertEquals(Collections.singletonMap("zzyzx", 2L), metrics.getTopMissedForms());
+		Assert.assertTrue(metrics.toString().contains("filter rejections=3"));
+	}
+
+	/**
+	 * Tests that the lexicons in a {@link MultipleLexicon} record the stages
+	 * which they are asked to resolve.
+	 */
+	@Test
+	public void multipleLexiconTest() {
+		XMLLexicon first = new XMLLexicon();
+		XMLLexicon second = new XMLLexicon();
+		MultipleLexicon lexicon = new MultipleLexicon(first, second);
+		lexicon.enableMetrics();
+		Assert.assertNotNull(first.getMetrics());
+		Assert.assertNotNull(second.getMetrics());
+
+		lexicon.lookupWord("dog", LexicalCategory.NOUN);
+		lexicon.lookupWord("blorp");
+		List<WordKey> keys = new ArrayList<WordKey>();
+		keys.add(new WordKey("cat", LexicalCategory.NOUN));
+		keys.add(new WordKey("zzyzx", LexicalCategory.ANY));
+		lexicon.resolveWords(keys);
+
+		Assert.assertEquals(4, lexicon.getMetrics().getLookupCount());
+		Assert.assertEquals(2, (long) lexicon.getMetrics().getTopMissedForms().size());
+		LexiconMetrics.StageMetrics firstBase = first.getMetrics().getStage(ResolvedWord.Resolution.BASE);
+		Assert.assertEquals(4, firstBase.getProbeCount());
+		Assert.assertEquals(2, firstBase.getHitCount());
+		LexiconMetrics.StageMetrics secondBase = second.getMetrics().getStage(ResolvedWord.Resolution.BASE);
+		Assert.assertEquals(2, secondBase.getProbeCount());
+		Assert.assertEquals(0, secondBase.getHitCount());
+		Assert.assertEquals(2, second.getMetrics().getStage(ResolvedWord.Resolution.ID).getProbeCount());
+
+		lexicon.disableMetrics();
+		Assert.assertNull(first.getMetrics());
+		Assert.assertNull(second.getMetrics());
+	}
+
+	/**
+	 * Tests that the most often missed forms are reported in order, even when
+	 * many rare forms are missed.
+	 */
+	@Test
+	public void topMissedFormsTest() {
+		LexiconMetrics metrics = new LexiconMetrics("test", 3);
+		for(int i = 0; i < 1000; i++) {
+			metrics.recordMissedForm("rare" + i);
+			if(i % 2 == 0)
+				metrics.recordMissedForm("common");
+			if(i % 4 == 0)
+				metrics.recordMissedForm("frequent");
+			if(i % 8 == 0)
+				metrics.recordMissedForm("occasional");
+		}
+
+		List<String> top = new ArrayList<String>(metrics.getTopMissedForms().keySet());
+		Assert.assertEquals(Arrays.asList("common", "frequent", "occasional"), top);
+		Assert.assertEquals(500L, (long) metrics.getTopMissedForms().get("common"));
+
+		try {
+			new LexiconMetrics("test", -1);
+			Assert.fail("accepted a negative number of forms");
+		} catch(IllegalArgumentException expected) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that the missed forms stay within bounds, and that common forms
+	 * are counted exactly, when several threads record them.
+	 */
+	@Test
+	public void concurrentMissedFormsTest() throws Exception {
+		final LexiconMetrics metrics = new LexiconMetrics("test", 2);
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; t++) {
+			final int offset = t * 100000;
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					for(int i = 0; i < 10000; i++) {
+						metrics.recordMissedForm("rare" + (offset + i));
+						metrics.recordMissedForm("common");
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		Map<String, Long> top = metrics.getTopMissedForms();
+		Assert.assertEquals(2, top.size());
+		Assert.assertEquals("common", top.keySet().iterator().next());
+		Assert.assertEquals(40000L, (long) top.get("common"));
+	}
+
+	/**
+	 * Tests the buckets and percentiles of a latency histogram.
+	 */
+	@Test
+	public void latencyHistogramTest() {
+		LexiconMetrics metrics = new LexiconMetrics("test", 0);
+		Assert.assertEquals(0, metrics.getLookupLatency().getPercentileNanos(50));
+		Assert.assertEquals(0.0, metrics.getLookupLatency().getMeanNanos(), 1e-9);
+
+		// 99 fast batch lookups and one slow one
+		long now = System.nanoTime();
+		metrics.recordLookups(now, 99);
+		metrics.recordLookups(now - 1000000000L, 1);
+
+		LexiconMetrics.LatencyHistogram latency = metrics.getLookupLatency();
+		Assert.assertEquals(100, latency.getCount());
+		Assert.assertTrue(latency.getPercentileNanos(50) < 1000000000L);
+		Assert.assertTrue(latency.getPercentileNanos(100) >= 1000000000L);
+		Assert.assertTrue(latency.getMeanNanos() >= 10000000.0);
+
+		long total = 0;
+		for(long count : latency.getBucketCounts())
+			total += count;
+		Assert.assertEquals(100, total);
+		Assert.assertEquals(0, LexiconMetrics.LatencyHistogram.getBucketUpperBound(0));
+		Assert.assertEquals(1023, LexiconMetrics.LatencyHistogram.getBucketUpperBound(10));
+	}
+}
@@ -20,6 +20,7 @@ package simplenlg.lexicon.english;
 
 import java.io.File;
 import java.io.FileReader;
+import java.util.List;
 import java.util.Properties;
 
 import junit.framework.Assert;
@@ -27,7 +28,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import simplenlg.features.LexicalFeature;
+import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
 import simplenlg.lexicon.MultipleLexicon;
 import simplenlg.lexicon.NIHDBLexicon;
 import simplenlg.lexicon.XMLLexicon;
@@ -72,6 +75,14 @@ public class MultipleLexiconTest {
 		tests.doBasicTests(lexicon);
 	}
 
+	@Test
+	public void batchLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBatchTests(lexicon);
+		lexicon.setAlwaysSearchAll(true);
+		tests.doBatchTests(lexicon);
+	}
+
 	@Test
 	public void multipleSpecificsTests() {
 		// try to get word which is only in NIH lexicon
@@ -93,4 +104,70 @@ public class MultipleLexiconTest {
 		lexicon.setAlwaysSearchAll(alwaysSearchAll);
 	}
 
+	/**
+	 * Tests that a compiled lexicon gives the same words as the lexicons it
+	 * contains, and is no longer compiled once a lexicon is added.
+	 */
+	@Test
+	public void compileTest() {
+		// only XML lexicons can be compiled
+		try {
+			lexicon.compile();
+			Assert.fail("compiled an NIH lexicon");
+		} catch(UnsupportedOperationException expected) {
+			Assert.assertFalse(lexicon.isCompiled());
+		}
+
+		MultipleLexicon uncompiled = new MultipleLexicon(new XMLLexicon(XML_FILENAME), Lexicon.getDefaultLexicon());
+		MultipleLexicon compiled = new MultipleLexicon(new XMLLexicon(XML_FILENAME), Lexicon.getDefaultLexicon());
+		compiled.compile();
+		Assert.assertTrue(compiled.isCompiled());
+
+		for(boolean alwaysSearchAll : new boolean[]{false, true}) {
+			uncompiled.setAlwaysSearchAll(alwaysSearchAll);
+			compiled.setAlwaysSearchAll(alwaysSearchAll);
+			for(String form : new String[]{"can", "tree", "is", "said", "E0054448", "akjmchsgk"}) {
+				Assert.assertEquals(describe(uncompiled.getWords(form)), describe(compiled.getWords(form)));
+				Assert.assertEquals(describe(uncompiled.getWords(form, LexicalCategory.NOUN)),
+				                    describe(compiled.getWords(form, LexicalCategory.NOUN)));
+				Assert.assertEquals(describe(uncompiled.getWordsFromVariant(form)),
+				                    describe(compiled.getWordsFromVariant(form)));
+				Assert.assertEquals(describe(uncompiled.getWordsByID(form)), describe(compiled.getWordsByID(form)));
+				Assert.assertEquals(uncompiled.lookupWord(form).toXML(), compiled.lookupWord(form).toXML());
+			}
+		}
+
+		compiled.setAlwaysSearchAll(false);
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBasicTests(compiled);
+		tests.doBatchTests(compiled);
+
+		compiled.addInitialLexicon(new XMLLexicon(XML_FILENAME));
+		Assert.assertFalse(compiled.isCompiled());
+	}
+
+	/**
+	 * Tests a filter of the forms in all the lexicons, which is dropped when a
+	 * lexicon is added.
+	 */
+	@Test
+	public void filterTest() {
+		MultipleLexicon xmlLexicons = new MultipleLexicon(new XMLLexicon(XML_FILENAME), Lexicon.getDefaultLexicon());
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doFilterTests(xmlLexicons);
+		xmlLexicons.compile();
+		tests.doFilterTests(xmlLexicons);
+
+		xmlLexicons.enableFilter(0.01);
+		xmlLexicons.addFinalLexicon(new XMLLexicon(XML_FILENAME));
+		Assert.assertNull(xmlLexicons.getFilter());
+	}
+
+	private String describe(List<WordElement> words) {
+		StringBuilder description = new StringBuilder();
+		for(WordElement word : words)
+			description.append(word.toXML());
+		return description.toString();
+	}
+
 }
@@ -0,0 +1,136 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Ignore;
+import simplenlg.lexicon.NIHDBLexicon;
+
+/**
+ * Measures the throughput of {@link NIHDBLexicon} lookups made by several
+ * threads at once, for different connection pool sizes. The query cache is
+ * turned off, so that every lookup uses the DB. The words looked up are the
+ * base forms in the default lexicon.
+ * <p>
+ * Usage: <code>java simplenlg.lexicon.english.NIHDBLexiconBenchmark [lexAccess.data [threads [poolSize...]]]</code>
+ * <br>
+ * By default the lexAccess 2013 DB in the test resources is used, with as many
+ * threads as processors, and pool sizes of 1, 2, 4 and the number of threads.
+ */
+@Ignore
+public class NIHDBLexiconBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String dbFilename = args.length > 0 ? args[0] : "src/test/resources/NIHLexicon/lexAccess2013.data";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		List<Integer> poolSizes = new ArrayList<Integer>();
+		for(int i = 2; i < args.length; i++)
+			poolSizes.add(Integer.parseInt(args[i]));
+		if(poolSizes.isEmpty()) {
+			for(int poolSize = 1; poolSize < threads; poolSize *= 2)
+				poolSizes.add(poolSize);
+			poolSizes.add(threads);
+		}
+
+		final List<String> bases = readBaseForms("src/main/resources/default-lexicon.xml");
+		System.out.println("Lexicon: " + dbFilename + ", " + bases.size() + " words, " + threads + " threads");
+
+		for(int poolSize : poolSizes) {
+			final NIHDBLexicon lexicon = new NIHDBLexicon(dbFilename, poolSize);
+			try {
+				lexicon.setCacheSize(0);
+				// warm up, so that JIT and the DB's own caches are not measured
+				lookup(lexicon, bases, threads, threads);
+
+				long startTime = System.nanoTime();
+				long lookups = lookup(lexicon, bases, threads, 1);
+				long stopTime = System.nanoTime();
+				System.out.format("pool size %3d: %10.0f lookups/s%n", poolSize, lookups / ((stopTime - startTime) / 1e9));
+			} finally {
+				lexicon.close();
+			}
+		}
+	}
+
+	/**
+	 * read the base forms of the words in an XML lexicon
+	 */
+	private static List<String> readBaseForms(String filename) throws Exception {
+		List<String> bases = new ArrayList<String>();
+		InputStream in = new FileInputStream(filename);
+		try {
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+			while(reader.hasNext()) {
+				if(reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("base"))
+					bases.add(reader.getElementText());
+			}
+			reader.close();
+		} finally {
+			in.close();
+		}
+		return bases;
+	}
+
+	/**
+	 * look up the words from several threads, each taking every n-th word
+	 *
+	 * @param stride - 1 if every thread looks up every word, or the number of
+	 *               threads to share the words between them
+	 * @return number of lookups made
+	 */
+	private static long lookup(final NIHDBLexicon lexicon, final List<String> bases, int threads, final int stride)
+			throws Exception {
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for(int t = 0; t < threads; t++) {
+			final int start = stride == 1 ? 0 : t;
+			tasks.add(new Callable<Long>() {
+
+				public Long call() {
+					long count = 0;
+					for(int i = start; i < bases.size(); i += stride) {
+						lexicon.getWords(bases.get(i));
+						count++;
+					}
+					return count;
+				}
+			});
+		}
+
+		ExecutorService service = Executors.newFixedThreadPool(threads);
+		try {
+			long lookups = 0;
+			for(Future<Long> result : service.invokeAll(tasks))
+				lookups += result.get();
+			return lookups;
+		} finally {
+			service.shutdown();
+		}
+	}
+}
@@ -18,9 +18,15 @@
  */
 package simplenlg.lexicon.english;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -33,6 +39,9 @@ import simplenlg.framework.InflectedWordElement;
 import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.NLGElement;
 import simplenlg.framework.WordElement;
+import simplenlg.lexicon.BinaryLexicon;
+import simplenlg.lexicon.BinaryLexiconWriter;
+import simplenlg.lexicon.LexiconCache;
 import simplenlg.lexicon.NIHDBLexicon;
 import simplenlg.realiser.english.Realiser;
 
@@ -49,6 +58,9 @@ public class NIHDBLexiconTest {
 	// DB location -- change this to point to the lex access data dir
 	static String DB_FILENAME = "src/test/resources/NIHLexicon/lexAccess2013.data";
 
+	// DB location actually used
+	String dbFilename = DB_FILENAME;
+
 	@Before
 	/*
 	 * * Sets up the accessor and runs it -- takes ca. 26 sec
@@ -61,8 +73,10 @@ public class NIHDBLexiconTest {
 
 			String lexiconPath = prop.getProperty("DB_FILENAME");
 
-			if(null != lexiconPath)
+			if(null != lexiconPath) {
+				this.dbFilename = lexiconPath;
 				this.lexicon = new NIHDBLexicon(lexiconPath);
+			}
 		} catch(Exception e) {
 			this.lexicon = new NIHDBLexicon(DB_FILENAME);
 		}
@@ -86,6 +100,29 @@ public class NIHDBLexiconTest {
 		tests.doBasicTests(lexicon);
 	}
 
+	/**
+	 * Runs batch lookup Lexicon Tests.
+	 */
+	@Test
+	public void batchLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBatchTests(lexicon);
+		// without the cache, words are resolved from the DB query results
+		lexicon.setCacheSize(0);
+		tests.doBatchTests(lexicon);
+	}
+
+	/**
+	 * Runs Lexicon tests with a filter of the forms in the DB.
+	 */
+	@Test
+	public void filterLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doFilterTests(lexicon);
+		lexicon.setCacheSize(0);
+		tests.doFilterTests(lexicon);
+	}
+
 	/**
 	 * Verb 'be' conjugation tests.
 	 */
@@ -220,6 +257,117 @@ public class NIHDBLexiconTest {
 		Assert.assertEquals("bark", runner2.word.getBaseForm());
 	}
 
+	/**
+	 * Tests that repeated lookups are served from the cache, that cached
+	 * misses are remembered, and that callers get words they can change.
+	 */
+	@Test
+	public void cacheTest() {
+		LexiconCache<String, List<WordElement>> cache = lexicon.getCache();
+		Assert.assertNotNull(cache);
+
+		WordElement dog = lexicon.getWord("dog", LexicalCategory.NOUN);
+		long hits = cache.getHitCount();
+		WordElement dog2 = lexicon.getWord("dog", LexicalCategory.NOUN);
+		Assert.assertTrue(cache.getHitCount() > hits);
+		Assert.assertEquals(dog.toXML(), dog2.toXML());
+		Assert.assertNotSame(dog, dog2);
+		Assert.assertFalse(dog2.isFrozen());
+		dog2.setFeature(LexicalFeature.PLURAL, "doggies");
+		Assert.assertEquals("dogs", lexicon.getWord("dog", LexicalCategory.NOUN).getFeatureAsString(LexicalFeature.PLURAL));
+
+		// misses are cached too
+		Assert.assertTrue(lexicon.getWords("akjmchsgk").isEmpty());
+		hits = cache.getHitCount();
+		Assert.assertTrue(lexicon.getWords("akjmchsgk").isEmpty());
+		Assert.assertEquals(hits + 1, cache.getHitCount());
+
+		// turning the cache off gives the same words
+		lexicon.setCacheSize(0);
+		Assert.assertNull(lexicon.getCache());
+		Assert.assertEquals(dog.toXML(), lexicon.getWord("dog", LexicalCategory.NOUN).toXML());
+	}
+
+	/**
+	 * Tests that a lexicon with a pool of connections gives the same words
+	 * when several threads look them up at once.
+	 */
+	@Test
+	public void connectionPoolTest() throws Exception {
+		final String[] bases = {"lie", "bark", "dog", "be", "woman", "happy", "quickly", "AIDS", "akjmchsgk"};
+		final NIHDBLexicon pooled = new NIHDBLexicon(dbFilename, 4);
+		try {
+			Assert.assertEquals(4, pooled.getPoolSize());
+			// don't cache, so that every lookup uses the DB
+			pooled.setCacheSize(0);
+
+			List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+			for(int i = 0; i < 16; i++) {
+				tasks.add(new Callable<Boolean>() {
+
+					public Boolean call() {
+						for(String base : bases) {
+							if(!lexicon.getWord(base).toXML().equals(pooled.getWord(base).toXML()))
+								return false;
+						}
+						return true;
+					}
+				});
+			}
+
+			ExecutorService service = Executors.newFixedThreadPool(8);
+			try {
+				for(Future<Boolean> result : service.invokeAll(tasks))
+					Assert.assertTrue(result.get());
+			} finally {
+				service.shutdown();
+			}
+		} finally {
+			pooled.close();
+		}
+	}
+
+	/**
+	 * Tests that a binary lexicon written from some of the words in the DB
+	 * gives the same words as the DB for their base forms, variants and IDs.
+	 */
+	@Test
+	public void binaryDumpTest() throws Exception {
+		List<String> bases = Arrays.asList("dog", "be", "woman", "good", "lie", "AIDS");
+		File binaryFile = File.createTempFile("nih-lexicon", ".bin");
+		BinaryLexicon binaryLexicon = null;
+		try {
+			BinaryLexiconWriter.write(lexicon, bases, binaryFile);
+			binaryLexicon = new BinaryLexicon(binaryFile);
+
+			for(String base : bases) {
+				Assert.assertFalse(lexicon.getWords(base).isEmpty());
+				assertSameWords(lexicon.getWords(base), binaryLexicon.getWords(base));
+				for(WordElement word : lexicon.getWords(base))
+					assertSameWords(lexicon.getWordsByID(word.getId()), binaryLexicon.getWordsByID(word.getId()));
+			}
+			for(String variant : new String[]{"dogs", "was", "been", "women", "better", "lay", "aids", "Aids"})
+				assertSameWords(lexicon.getWordsFromVariant(variant), binaryLexicon.getWordsFromVariant(variant));
+
+			// words with other base forms are not written
+			Assert.assertTrue(binaryLexicon.getWords("cat").isEmpty());
+		} finally {
+			if(binaryLexicon != null)
+				binaryLexicon.close();
+			binaryFile.delete();
+		}
+	}
+
+	private void assertSameWords(List<WordElement> expected, List<WordElement> actual) {
+		List<String> expectedXML = new ArrayList<String>();
+		for(WordElement word : expected)
+			expectedXML.add(word.toXML());
+		List<String> actualXML = new ArrayList<String>();
+		for(WordElement word : actual)
+			actualXML.add(word.toXML());
+		Assert.assertEquals(expectedXML, actualXML);
+	}
+
 	/*
 	 * Class that implements a thread from which a lexical item can be retrieved
 	 */
@@ -0,0 +1,249 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.ShardedLexicon;
+import simplenlg.lexicon.ShardedLexiconWriter;
+import simplenlg.lexicon.XMLLexicon;
+
+/**
+ * Tests that a {@link ShardedLexicon} written from the default XML lexicon
+ * behaves in the same way as the XML lexicon, and loads its shards only when
+ * they are used.
+ */
+public class ShardedLexiconTest {
+
+	static String XML_FILENAME = "src/main/resources/default-lexicon.xml";
+
+	XMLLexicon     xmlLexicon     = null;
+	ShardedLexicon shardedLexicon = null;
+	File           shardDirectory = null;
+
+	@Before
+	public void setUp() throws Exception {
+		this.xmlLexicon = new XMLLexicon(XML_FILENAME);
+		this.shardDirectory = Files.createTempDirectory("default-lexicon").toFile();
+		ShardedLexiconWriter.write(new File(XML_FILENAME).toURI(), this.shardDirectory);
+		this.shardedLexicon = new ShardedLexicon(this.shardDirectory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if(shardedLexicon != null)
+			shardedLexicon.close();
+		if(shardDirectory != null) {
+			for(File file : shardDirectory.listFiles())
+				file.delete();
+			shardDirectory.delete();
+		}
+	}
+
+	/**
+	 * Runs basic Lexicon tests.
+	 */
+	@Test
+	public void basicLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBasicTests(shardedLexicon);
+	}
+
+	/**
+	 * Runs batch lookup Lexicon Tests.
+	 */
+	@Test
+	public void batchLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBatchTests(shardedLexicon);
+	}
+
+	/**
+	 * Checks that no shards are loaded until a lookup needs one, and that a
+	 * lookup loads only its own shard.
+	 */
+	@Test
+	public void lazyLoadingTest() {
+		Assert.assertTrue(shardedLexicon.getShardCount() > 1);
+		Assert.assertEquals(xmlLexicon.getWordCount(), shardedLexicon.getWordCount());
+		Assert.assertEquals(0, shardedLexicon.getLoadedShardCount());
+
+		Assert.assertNotNull(shardedLexicon.getWord("house", LexicalCategory.NOUN));
+		Assert.assertEquals(1, shardedLexicon.getLoadedShardCount());
+		Assert.assertNotNull(shardedLexicon.getWord("horse", LexicalCategory.NOUN));
+		Assert.assertEquals(1, shardedLexicon.getLoadedShardCount());
+
+		// unknown prefixes need no shard
+		Assert.assertTrue(shardedLexicon.getWords("qqzz").isEmpty());
+		Assert.assertEquals(1, shardedLexicon.getLoadedShardCount());
+	}
+
+	/**
+	 * Checks that variants of "be" are found, though they are in different
+	 * shards from "be".
+	 */
+	@Test
+	public void specialCaseTest() {
+		for(String variant : new String[]{"is", "am", "are", "was", "were"}) {
+			WordElement be = shardedLexicon.getWordFromVariant(variant, LexicalCategory.VERB);
+			Assert.assertNotNull(be);
+			Assert.assertEquals("be", be.getBaseForm());
+		}
+	}
+
+	/**
+	 * Checks that threads looking up words in the same shard share one load
+	 * of it.
+	 */
+	@Test
+	public void concurrentLoadingTest() throws Exception {
+		final List<WordElement> found = new ArrayList<WordElement>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < 8; i++) {
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					WordElement word = shardedLexicon.getWord("house", LexicalCategory.NOUN);
+					synchronized(found) {
+						found.add(word);
+					}
+				}
+			};
+			threads.add(thread);
+		}
+		for(Thread thread : threads)
+			thread.start();
+		for(Thread thread : threads)
+			thread.join();
+
+		Assert.assertEquals(8, found.size());
+		for(WordElement word : found)
+			Assert.assertSame(found.get(0), word);
+		Assert.assertEquals(1, shardedLexicon.getLoadedShardCount());
+	}
+
+	/**
+	 * Checks that prefetching loads shards in the background.
+	 */
+	@Test
+	public void prefetchTest() throws Exception {
+		shardedLexicon.prefetch(Arrays.asList("house", "dog", "qqzz")).get(1, TimeUnit.MINUTES);
+		Assert.assertEquals(2, shardedLexicon.getLoadedShardCount());
+
+		shardedLexicon.prefetchAll().get(1, TimeUnit.MINUTES);
+		Assert.assertEquals(shardedLexicon.getShardCount(), shardedLexicon.getLoadedShardCount());
+	}
+
+	/**
+	 * Checks that a shard which cannot be read fails the lookups which need
+	 * it, rather than giving no words, and is read again by the next lookup.
+	 */
+	@Test
+	public void truncatedShardTest() throws Exception {
+		for(File file : shardDirectory.listFiles()) {
+			if(file.getName().endsWith(".xml")) {
+				RandomAccessFile shard = new RandomAccessFile(file, "rw");
+				try {
+					shard.setLength(shard.length() / 2);
+				} finally {
+					shard.close();
+				}
+			}
+		}
+
+		for(int i = 0; i < 2; i++) {
+			try {
+				shardedLexicon.getWord("house", LexicalCategory.NOUN);
+				Assert.fail("Expected IllegalStateException");
+			} catch(IllegalStateException expected) {
+				Assert.assertTrue(expected.getCause() instanceof IOException);
+			}
+			Assert.assertEquals(0, shardedLexicon.getLoadedShardCount());
+		}
+	}
+
+	/**
+	 * Checks every base form and ID in the XML lexicon file gives the same
+	 * words from both lexicons.
+	 */
+	@Test
+	public void sameWordsAsXMLLexiconTest() throws Exception {
+		Set<String> bases = new LinkedHashSet<String>();
+		Set<String> ids = new LinkedHashSet<String>();
+		Pattern base = Pattern.compile("<base>(.*)</base>");
+		Pattern id = Pattern.compile("<id>(.*)</id>");
+
+		BufferedReader reader = new BufferedReader(new FileReader(XML_FILENAME));
+		String line = reader.readLine();
+		while(line != null) {
+			Matcher matcher = base.matcher(line);
+			if(matcher.find())
+				bases.add(matcher.group(1).trim());
+			matcher = id.matcher(line);
+			if(matcher.find())
+				ids.add(matcher.group(1).trim());
+			line = reader.readLine();
+		}
+		reader.close();
+
+		for(String form : bases) {
+			assertSameWords(xmlLexicon.getWords(form), shardedLexicon.getWords(form));
+			assertSameWords(xmlLexicon.getWordsFromVariant(form), shardedLexicon.getWordsFromVariant(form));
+			assertSameWords(xmlLexicon.getWords(form, LexicalCategory.VERB),
+			                shardedLexicon.getWords(form, LexicalCategory.VERB));
+		}
+		for(String form : ids) {
+			assertSameWords(xmlLexicon.getWordsByID(form), shardedLexicon.getWordsByID(form));
+		}
+		for(String form : new String[]{"is", "was", "eating", "women", "said", "better", "akjmchsgk"}) {
+			assertSameWords(xmlLexicon.getWordsFromVariant(form), shardedLexicon.getWordsFromVariant(form));
+		}
+	}
+
+	private void assertSameWords(List<WordElement> expected, List<WordElement> actual) {
+		Assert.assertEquals(describe(expected), describe(actual));
+	}
+
+	private List<String> describe(List<WordElement> words) {
+		List<String> descriptions = new ArrayList<String>();
+		for(WordElement word : words)
+			descriptions.add(word.toXML() + word.getDefaultInflectionalVariant());
+		return descriptions;
+	}
+}
@@ -18,12 +18,21 @@
  */
 package simplenlg.lexicon.english;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
 import junit.framework.Assert;
 import simplenlg.features.Inflection;
 import simplenlg.features.LexicalFeature;
 import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.WordElement;
 import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.LexiconFilter;
+import simplenlg.lexicon.ResolvedWord;
+import simplenlg.lexicon.WordKey;
 
 /**
  * @author Dave Westwater, Data2Text Ltd
@@ -108,6 +117,90 @@ public class SharedLexiconTests {
 		Assert.assertEquals(lexicon.lookupWord("say", LexicalCategory.VERB).getBaseForm(), "say");
 		Assert.assertEquals(lexicon.lookupWord("said", LexicalCategory.VERB).getBaseForm(), "say");
 		Assert.assertEquals(lexicon.lookupWord("E0054448", LexicalCategory.VERB).getBaseForm(), "say");
+
+		// test resolve word method
+		ResolvedWord say = lexicon.resolveWord("say", LexicalCategory.VERB);
+		Assert.assertEquals("say", say.getWord().getBaseForm());
+		Assert.assertEquals(ResolvedWord.Resolution.BASE, say.getResolution());
+		ResolvedWord said = lexicon.resolveWord("said", LexicalCategory.VERB);
+		Assert.assertEquals("say", said.getWord().getBaseForm());
+		Assert.assertEquals(ResolvedWord.Resolution.VARIANT, said.getResolution());
+		ResolvedWord sayID = lexicon.resolveWord("E0054448");
+		Assert.assertEquals("say", sayID.getWord().getBaseForm());
+		Assert.assertEquals(ResolvedWord.Resolution.ID, sayID.getResolution());
+		ResolvedWord unknown = lexicon.resolveWord("akjmchsgk", LexicalCategory.NOUN);
+		Assert.assertEquals("akjmchsgk", unknown.getWord().getBaseForm());
+		Assert.assertEquals(LexicalCategory.NOUN, unknown.getWord().getCategory());
+		Assert.assertTrue(unknown.isCreated());
+	}
+
+	/**
+	 * Tests that a batch of words is resolved in the same way as each word on
+	 * its own.
+	 */
+	public void doBatchTests(Lexicon lexicon) {
+		List<WordKey> keys = Arrays.asList(new WordKey("say", LexicalCategory.VERB),
+		                                   new WordKey("said", LexicalCategory.VERB),
+		                                   new WordKey("E0054448"),
+		                                   new WordKey("can"),
+		                                   new WordKey("can", LexicalCategory.NOUN),
+		                                   new WordKey("akjmchsgk", LexicalCategory.NOUN),
+		                                   new WordKey("say", LexicalCategory.VERB));
+
+		Map<WordKey, ResolvedWord> resolved = lexicon.resolveWords(keys);
+		// duplicate keys are resolved once, and the order is kept
+		Assert.assertEquals(6, resolved.size());
+		Assert.assertEquals(new LinkedHashSet<WordKey>(keys), new LinkedHashSet<WordKey>(resolved.keySet()));
+		Assert.assertEquals(keys.get(0), resolved.keySet().iterator().next());
+
+		for(WordKey key : resolved.keySet()) {
+			ResolvedWord single = lexicon.resolveWord(key.getBaseForm(), key.getCategory());
+			Assert.assertEquals(single.getResolution(), resolved.get(key).getResolution());
+			Assert.assertEquals(single.getWord().toXML(), resolved.get(key).getWord().toXML());
+		}
+		Assert.assertEquals(ResolvedWord.Resolution.VARIANT, resolved.get(keys.get(1)).getResolution());
+		Assert.assertTrue(resolved.get(keys.get(5)).isCreated());
+
+		Map<WordKey, WordElement> words = lexicon.lookupWords(keys);
+		Assert.assertEquals("say", words.get(new WordKey("said", LexicalCategory.VERB)).getBaseForm());
+		Assert.assertEquals(LexicalCategory.NOUN, words.get(new WordKey("can", LexicalCategory.NOUN)).getCategory());
+		Assert.assertTrue(lexicon.lookupWords(new ArrayList<WordKey>()).isEmpty());
+	}
+
+	/**
+	 * Tests that a lexicon with a filter of its forms finds the same words as
+	 * without it, and that unknown words are filtered.
+	 */
+	public void doFilterTests(Lexicon lexicon) {
+		lexicon.enableFilter(0.01);
+		LexiconFilter filter = lexicon.getFilter();
+		Assert.assertNotNull(filter);
+		Assert.assertTrue(filter.getFormCount() > 0);
+
+		doBasicTests(lexicon);
+		doBatchTests(lexicon);
+		Assert.assertTrue(filter.getQueryCount() > 0);
+
+		// an unknown word is checked once, and either rejected or recorded as
+		// a false positive
+		long queries = filter.getQueryCount();
+		long misses = filter.getRejectionCount() + filter.getFalsePositiveCount();
+		Assert.assertTrue(lexicon.resolveWord("xqzvfhtlw").isCreated());
+		Assert.assertEquals(queries + 1, filter.getQueryCount());
+		Assert.assertEquals(misses + 1, filter.getRejectionCount() + filter.getFalsePositiveCount());
+
+		// as is each of many unknown words, most of which are rejected
+		queries = filter.getQueryCount();
+		long rejections = filter.getRejectionCount();
+		long falsePositives = filter.getFalsePositiveCount();
+		for(int i = 0; i < 100; i++)
+			Assert.assertTrue(lexicon.resolveWord("xqzvfhtlw" + i).isCreated());
+		Assert.assertEquals(queries + 100, filter.getQueryCount());
+		Assert.assertEquals(100, filter.getRejectionCount() - rejections + filter.getFalsePositiveCount() - falsePositives);
+		Assert.assertTrue(filter.getRejectionCount() - rejections > 50);
+
+		lexicon.disableFilter();
+		Assert.assertNull(lexicon.getFilter());
 	}
 
 }
@@ -0,0 +1,108 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.lexicon.english;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+
+import org.junit.Ignore;
+import simplenlg.lexicon.XMLLexicon;
+
+/**
+ * Compares the load time and peak heap use of the DOM, streaming and parallel
+ * loaders of {@link XMLLexicon}. Peak heap is the sum of the peak usage of the heap
+ * memory pools while the lexicon is loaded, less the heap in use beforehand.
+ * <p>
+ * Usage: <code>java simplenlg.lexicon.english.XMLLexiconLoadBenchmark [lexicon.xml [runs]]</code>
+ * <br>
+ * The default lexicon is used if no file is given. For more reliable peak heap
+ * figures run each loader in a fresh JVM, for example with a large NIH dump
+ * created by <code>NIHLexiconXMLDumpUtil</code>. The parallel loader uses the
+ * common fork-join pool, whose size can be set with
+ * <code>-Djava.util.concurrent.ForkJoinPool.common.parallelism=N</code>.
+ */
+@Ignore
+public class XMLLexiconLoadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		URI lexiconURI = args.length > 0 ? new File(args[0]).toURI() : new File(
+				"src/main/resources/default-lexicon.xml").toURI();
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		System.out.println("Lexicon: " + lexiconURI);
+		// warm up the loaders, so that class loading and JIT are not measured
+		for(XMLLexicon.Loader loader : XMLLexicon.Loader.values())
+			new XMLLexicon(lexiconURI, loader);
+
+		for(XMLLexicon.Loader loader : XMLLexicon.Loader.values()) {
+			long totalTime = 0;
+			long maxPeak = 0;
+			for(int i = 0; i < runs; i++) {
+				long used = settleHeap();
+				long startTime = System.nanoTime();
+				XMLLexicon lexicon = new XMLLexicon(lexiconURI, loader);
+				long stopTime = System.nanoTime();
+				long peak = peakHeap() - used;
+
+				totalTime += stopTime - startTime;
+				maxPeak = Math.max(maxPeak, peak);
+				// keep the lexicon reachable until the peak has been read
+				if(lexicon.getWords("be").isEmpty())
+					System.out.println("Lexicon did not load");
+			}
+			System.out.format("%-10s mean load time %8.1f ms, peak heap %8.1f MB%n",
+			                  loader,
+			                  totalTime / 1e6 / runs,
+			                  maxPeak / (1024.0 * 1024.0));
+		}
+	}
+
+	/**
+	 * run the garbage collector and reset the peak usage of the heap pools
+	 *
+	 * @return heap in use after collection
+	 */
+	private static long settleHeap() {
+		for(int i = 0; i < 3; i++)
+			System.gc();
+		long used = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				used += pool.getUsage().getUsed();
+			}
+		}
+		return used;
+	}
+
+	/**
+	 * @return sum of the peak usage of the heap pools since they were reset
+	 */
+	private static long peakHeap() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+}
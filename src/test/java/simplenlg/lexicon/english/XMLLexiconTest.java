@@ -18,14 +18,39 @@
  */
 package simplenlg.lexicon.english;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import junit.framework.Assert;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import simplenlg.features.Feature;
+import simplenlg.features.Inflection;
+import simplenlg.features.LexicalFeature;
 import simplenlg.features.NumberAgreement;
 import simplenlg.features.Tense;
+import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.NLGFactory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.LexiconFilter;
+import simplenlg.lexicon.ResolvedWord;
+import simplenlg.lexicon.StringPool;
 import simplenlg.lexicon.XMLLexicon;
 import simplenlg.phrasespec.NPPhraseSpec;
 import simplenlg.phrasespec.PPPhraseSpec;
@@ -72,6 +97,15 @@ public class XMLLexiconTest {
 		tests.doBasicTests(lexicon);
 	}
 
+	/**
+	 * Runs batch lookup Lexicon Tests.
+	 */
+	@Test
+	public void batchLexiconTests() {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doBatchTests(lexicon);
+	}
+
 	/**
 	 * Tests the immutability of the XMLLexicon by checking to make sure features
 	 * are not inadvertently propagated to the canonical XMLLexicon WordElement object.
@@ -99,4 +133,415 @@ public class XMLLexiconTest {
 		Assert.assertEquals(NumberAgreement.SINGULAR, wall.getFeature(Feature.NUMBER));
 	}
 
+	/**
+	 * Tests that the streaming loader, which is used by default, gives the same
+	 * words as the DOM loader for every base form in the default lexicon.
+	 */
+	@Test
+	public void streamingLoaderTest() throws Exception {
+		File file = new File("src/main/resources/default-lexicon.xml");
+		XMLLexicon domLexicon = new XMLLexicon(file.toURI(), XMLLexicon.Loader.DOM);
+		XMLLexicon streamingLexicon = new XMLLexicon(file.toURI(), XMLLexicon.Loader.STREAMING);
+
+		Pattern base = Pattern.compile("<base>(.*)</base>");
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		int count = 0;
+		for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+			Matcher matcher = base.matcher(line);
+			if(matcher.find()) {
+				String form = matcher.group(1).trim();
+				Assert.assertEquals(toXML(domLexicon.getWords(form)), toXML(streamingLexicon.getWords(form)));
+				Assert.assertEquals(toXML(domLexicon.getWordsFromVariant(form)),
+				                    toXML(streamingLexicon.getWordsFromVariant(form)));
+				count++;
+			}
+		}
+		reader.close();
+
+		Assert.assertTrue(count > 0);
+		Assert.assertEquals(toXML(domLexicon.getWordsFromVariant("was")),
+		                    toXML(streamingLexicon.getWordsFromVariant("was")));
+	}
+
+	/**
+	 * Tests that the parallel loader gives the same words as the streaming
+	 * loader, and reports duplicate IDs in the same order, for a lexicon
+	 * large enough to be split into slices in which every ID occurs twice.
+	 */
+	@Test
+	public void parallelLoaderTest() throws Exception {
+		File file = new File("src/main/resources/default-lexicon.xml");
+		String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		String body = text.substring(text.indexOf("<lexicon>") + 9, text.lastIndexOf("</lexicon>"));
+		File doubled = File.createTempFile("lexicon", ".xml");
+		doubled.deleteOnExit();
+		Files.write(doubled.toPath(), ("<lexicon>" + body + body + "</lexicon>").getBytes(StandardCharsets.UTF_8));
+
+		PrintStream out = System.out;
+		ByteArrayOutputStream streamingOutput = new ByteArrayOutputStream();
+		ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+		XMLLexicon streamingLexicon;
+		XMLLexicon parallelLexicon;
+		try {
+			System.setOut(new PrintStream(streamingOutput, true, "UTF-8"));
+			streamingLexicon = new XMLLexicon(doubled.toURI(), XMLLexicon.Loader.STREAMING);
+			System.setOut(new PrintStream(parallelOutput, true, "UTF-8"));
+			parallelLexicon = new XMLLexicon(doubled.toURI(), XMLLexicon.Loader.PARALLEL);
+		} finally {
+			System.setOut(out);
+		}
+
+		Assert.assertTrue(streamingOutput.toString("UTF-8").contains("Lexicon error: ID E0006419 occurs more than once"));
+		Assert.assertEquals(streamingOutput.toString("UTF-8"), parallelOutput.toString("UTF-8"));
+		Assert.assertEquals(streamingLexicon.getWordCount(), parallelLexicon.getWordCount());
+
+		Pattern base = Pattern.compile("<base>(.*)</base>");
+		Matcher matcher = base.matcher(body);
+		int count = 0;
+		while(matcher.find()) {
+			String form = matcher.group(1).trim();
+			Assert.assertEquals(toXML(streamingLexicon.getWords(form)), toXML(parallelLexicon.getWords(form)));
+			Assert.assertEquals(toXML(streamingLexicon.getWords(form, LexicalCategory.VERB)),
+			                    toXML(parallelLexicon.getWords(form, LexicalCategory.VERB)));
+			Assert.assertEquals(toXML(streamingLexicon.getWordsFromVariant(form)),
+			                    toXML(parallelLexicon.getWordsFromVariant(form)));
+			count++;
+		}
+		Assert.assertTrue(count > 0);
+		Assert.assertEquals(toXML(streamingLexicon.getWordsFromVariant("was")),
+		                    toXML(parallelLexicon.getWordsFromVariant("was")));
+		Assert.assertEquals(toXML(streamingLexicon.getWordsByID("E0006419")),
+		                    toXML(parallelLexicon.getWordsByID("E0006419")));
+	}
+
+	/**
+	 * Tests that the parallel loader falls back to the streaming loader when
+	 * the slices cannot be read, here because the file's encoding is known to
+	 * the XML parser but not to {@link java.nio.charset.Charset}.
+	 */
+	@Test
+	public void parallelLoaderFallbackTest() throws Exception {
+		File file = new File("src/main/resources/default-lexicon.xml");
+		String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		String body = text.substring(text.indexOf("<lexicon>") + 9, text.lastIndexOf("</lexicon>"));
+		File doubled = File.createTempFile("lexicon", ".xml");
+		doubled.deleteOnExit();
+		Files.write(doubled.toPath(),
+		            ("<?xml version=\"1.0\" encoding=\"ISO-8859-8-I\"?><lexicon>" + body + body + "</lexicon>").getBytes(
+				            "ISO-8859-8"));
+
+		PrintStream out = System.out;
+		XMLLexicon streamingLexicon;
+		XMLLexicon parallelLexicon;
+		try {
+			System.setOut(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+			streamingLexicon = new XMLLexicon(doubled.toURI(), XMLLexicon.Loader.STREAMING);
+			parallelLexicon = new XMLLexicon(doubled.toURI(), XMLLexicon.Loader.PARALLEL);
+		} finally {
+			System.setOut(out);
+		}
+
+		Assert.assertTrue(streamingLexicon.getWordCount() > 0);
+		Assert.assertEquals(streamingLexicon.getWordCount(), parallelLexicon.getWordCount());
+		Assert.assertEquals(toXML(streamingLexicon.getWordsFromVariant("was")),
+		                    toXML(parallelLexicon.getWordsFromVariant("was")));
+	}
+
+	/**
+	 * Tests that the default lexicon is a single frozen instance, and that
+	 * createDefaultLexicon gives a separate mutable copy.
+	 */
+	@Test
+	public void sharedDefaultLexiconTest() {
+		Lexicon shared = Lexicon.getDefaultLexicon();
+		Assert.assertSame(shared, Lexicon.getDefaultLexicon());
+		Assert.assertTrue(((XMLLexicon) shared).isFrozen());
+		Assert.assertTrue(shared.hasWord("dog"));
+
+		XMLLexicon copy = Lexicon.createDefaultLexicon();
+		Assert.assertNotSame(shared, copy);
+		Assert.assertFalse(copy.isFrozen());
+		Assert.assertFalse(lexicon.isFrozen());
+
+		// words from the shared lexicon are frozen, and are not copied
+		WordElement dog = shared.getWord("dog", LexicalCategory.NOUN);
+		Assert.assertTrue(dog.isFrozen());
+		Assert.assertSame(dog, shared.getWord("dog", LexicalCategory.NOUN));
+		try {
+			dog.setFeature(LexicalFeature.PLURAL, "doggies");
+			Assert.fail("frozen word was changed");
+		} catch(UnsupportedOperationException e) {
+			// expected
+		}
+
+		// a copy can be changed without affecting the shared word
+		WordElement copyOfDog = new WordElement(dog);
+		copyOfDog.setFeature(LexicalFeature.PLURAL, "doggies");
+		copyOfDog.addInflectionalVariant(Inflection.IRREGULAR, LexicalFeature.PLURAL, "doggies");
+		Assert.assertFalse(dog.hasFeature(LexicalFeature.PLURAL));
+		Assert.assertFalse(dog.hasInflectionalVariant(Inflection.IRREGULAR));
+
+		// words from a mutable lexicon are copies
+		Assert.assertFalse(copy.getWord("dog", LexicalCategory.NOUN).isFrozen());
+		Assert.assertNotSame(copy.getWord("dog", LexicalCategory.NOUN), copy.getWord("dog", LexicalCategory.NOUN));
+
+		// the factory copies frozen words, so they can be used in phrases
+		NLGFactory factory = new NLGFactory(shared);
+		NPPhraseSpec dogs = factory.createNounPhrase("the", dog);
+		dogs.setPlural(true);
+		Assert.assertEquals("The dogs.", new Realiser(shared).realiseSentence(dogs));
+		Assert.assertFalse(dogs.getHead() == dog);
+	}
+
+	/**
+	 * Tests that equal strings and flags in the loaded lexicon share a single
+	 * instance, and that compacted words behave as before.
+	 */
+	@Test
+	public void sharedValuesTest() {
+		Assert.assertTrue(lexicon.getWordCount() > 0);
+
+		// all the words "can" share one base form
+		List<WordElement> cans = lexicon.getWords("can");
+		Assert.assertTrue(cans.size() > 1);
+		for(WordElement can : cans)
+			Assert.assertSame(cans.get(0).getBaseForm(), can.getBaseForm());
+
+		// flags are the shared Boolean instance
+		WordElement eat = lexicon.getWord("eat", LexicalCategory.VERB);
+		Assert.assertSame(Boolean.TRUE, eat.getFeature(LexicalFeature.INTRANSITIVE));
+		Assert.assertSame(eat.getFeature(LexicalFeature.INTRANSITIVE),
+		                  lexicon.getWord("sleep", LexicalCategory.VERB).getFeature(LexicalFeature.INTRANSITIVE));
+
+		// a compacted word can still be changed and copied
+		eat.setFeature(LexicalFeature.PAST, "ate");
+		Assert.assertEquals("ate", new WordElement(eat).getFeatureAsString(LexicalFeature.PAST));
+		try {
+			Lexicon.getDefaultLexicon().getWord("eat", LexicalCategory.VERB).compact();
+			Assert.fail("frozen word was compacted");
+		} catch(UnsupportedOperationException e) {
+			// expected
+		}
+
+		StringPool pool = new StringPool();
+		String pooled = pool.intern(new String("dog"));
+		Assert.assertSame(pooled, pool.intern(new String("dog")));
+		Assert.assertEquals(1, pool.size());
+	}
+
+	/**
+	 * Tests that lookups of a category, which use the indices partitioned by
+	 * category, give the same words as filtering the words of any category,
+	 * in both mutable and frozen lexicons.
+	 */
+	@Test
+	public void categoryIndexTest() throws Exception {
+		XMLLexicon frozenLexicon = Lexicon.createDefaultLexicon().freeze();
+
+		Pattern base = Pattern.compile("<base>(.*)</base>");
+		BufferedReader reader = new BufferedReader(new FileReader("src/main/resources/default-lexicon.xml"));
+		for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+			Matcher matcher = base.matcher(line);
+			if(matcher.find()) {
+				String form = matcher.group(1).trim();
+				for(XMLLexicon lex : new XMLLexicon[]{lexicon, frozenLexicon}) {
+					List<WordElement> words = lex.getWords(form);
+					List<WordElement> variants = lex.getWordsFromVariant(form);
+					for(LexicalCategory category : LexicalCategory.values()) {
+						if(category != LexicalCategory.ANY) {
+							Assert.assertEquals(toXML(filter(words, category)), toXML(lex.getWords(form, category)));
+							Assert.assertEquals(toXML(filter(variants, category)),
+							                    toXML(lex.getWordsFromVariant(form, category)));
+						}
+					}
+				}
+			}
+		}
+		reader.close();
+
+		// the special variants of "be" are indexed by category too
+		Assert.assertEquals("be", lexicon.getWordsFromVariant("was", LexicalCategory.VERB).get(0).getBaseForm());
+		Assert.assertTrue(frozenLexicon.getWordsFromVariant("was", LexicalCategory.NOUN).isEmpty());
+
+		// words of several categories, and their categories, are kept apart
+		Assert.assertEquals(LexicalCategory.NOUN, lexicon.getWord("present", LexicalCategory.NOUN).getCategory());
+		Assert.assertEquals(LexicalCategory.VERB, frozenLexicon.getWord("present", LexicalCategory.VERB).getCategory());
+		Assert.assertEquals(LexicalCategory.ADJECTIVE,
+		                    frozenLexicon.lookupWord("present", LexicalCategory.ADJECTIVE).getCategory());
+		Assert.assertTrue(lexicon.getWords("present").size() > 1);
+	}
+
+	/**
+	 * Tests that a filter of the forms in the lexicon does not change how any
+	 * base form or variant of a word in the lexicon is resolved, or how
+	 * <code>null</code> is resolved, and rejects most unknown forms.
+	 */
+	@Test
+	public void filterTest() throws Exception {
+		SharedLexiconTests tests = new SharedLexiconTests();
+		tests.doFilterTests(lexicon);
+
+		XMLLexicon filteredLexicon = Lexicon.createDefaultLexicon();
+		filteredLexicon.enableFilter(0.01);
+		Pattern form = Pattern.compile("<(base|id|past|plural|present3s|pastParticiple|presentParticiple)>(.*)</");
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(
+				"src/main/resources/default-lexicon.xml"), "UTF-8"));
+		for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+			Matcher matcher = form.matcher(line);
+			if(matcher.find()) {
+				String text = matcher.group(2).trim();
+				ResolvedWord expected = lexicon.resolveWord(text);
+				ResolvedWord actual = filteredLexicon.resolveWord(text);
+				Assert.assertEquals(expected.getResolution(), actual.getResolution());
+				Assert.assertEquals(expected.getWord().toXML(), actual.getWord().toXML());
+			}
+		}
+		reader.close();
+		Assert.assertEquals(0, filteredLexicon.getFilter().getRejectionCount());
+
+		for(int i = 0; i < 10000; i++)
+			Assert.assertTrue(filteredLexicon.resolveWord("unknown" + i).isCreated());
+		LexiconFilter filter = filteredLexicon.getFilter();
+		Assert.assertEquals(10000, filter.getRejectionCount() + filter.getFalsePositiveCount());
+		Assert.assertTrue(filter.getFalsePositiveRate() < 0.03);
+
+		// null is resolved as it is without a filter
+		long queries = filter.getQueryCount();
+		Assert.assertEquals(lexicon.resolveWord(null).getWord().toXML(),
+		                    filteredLexicon.resolveWord(null).getWord().toXML());
+		Assert.assertEquals(queries, filter.getQueryCount());
+	}
+
+	/**
+	 * Tests adding words to a loaded lexicon: they can be looked up by base
+	 * form, variant and ID, are partitioned by category, and are not
+	 * rejected by the filter.
+	 */
+	@Test
+	public void addWordTest() {
+		lexicon.enableFilter(0.01);
+		WordElement word = new WordElement("zorbulator", LexicalCategory.NOUN, "X0000001");
+		word.setFeature(LexicalFeature.PLURAL, "zorbulatorii");
+		lexicon.addWord(word);
+
+		// the lexicon holds a copy of the word
+		word.setFeature(LexicalFeature.PLURAL, "zorbulators");
+		Assert.assertEquals("zorbulatorii",
+		                    lexicon.getWord("zorbulator", LexicalCategory.NOUN).getFeatureAsString(LexicalFeature.PLURAL));
+		Assert.assertEquals("zorbulator", lexicon.getWordFromVariant("zorbulatorii").getBaseForm());
+		Assert.assertEquals("zorbulator", lexicon.getWordByID("X0000001").getBaseForm());
+		Assert.assertFalse(lexicon.resolveWord("zorbulatorii").isCreated());
+
+		// a new category for an existing base form
+		int dogs = lexicon.getWords("dog").size();
+		lexicon.addWords(Arrays.asList(new WordElement("dog", LexicalCategory.ADJECTIVE)));
+		Assert.assertEquals(dogs + 1, lexicon.getWords("dog").size());
+		Assert.assertEquals(1, lexicon.getWords("dog", LexicalCategory.ADJECTIVE).size());
+		Assert.assertEquals(filter(lexicon.getWords("dog"), LexicalCategory.NOUN),
+		                    lexicon.getWords("dog", LexicalCategory.NOUN));
+
+		XMLLexicon frozenLexicon = Lexicon.createDefaultLexicon().freeze();
+		try {
+			frozenLexicon.addWord(new WordElement("zorbulator", LexicalCategory.NOUN));
+			Assert.fail("added a word to a frozen lexicon");
+		} catch(UnsupportedOperationException ex) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that lookups running while words are added never see a word
+	 * under the wrong category, or only part of its words.
+	 */
+	@Test
+	public void concurrentAddWordTest() throws Exception {
+		final int count = 2000;
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicBoolean adding = new AtomicBoolean(true);
+		List<Thread> readers = new ArrayList<Thread>();
+		for(int i = 0; i < 4; i++) {
+			Thread reader = new Thread() {
+
+				@Override
+				public void run() {
+					while(adding.get()) {
+						for(int n = 0; n < count; n += 97) {
+							List<WordElement> nouns = lexicon.getWords("entity" + n, LexicalCategory.NOUN);
+							List<WordElement> verbs = lexicon.getWords("entity" + n, LexicalCategory.VERB);
+							if(nouns.size() > 1 || verbs.size() > 1)
+								failures.incrementAndGet();
+							for(WordElement noun : nouns) {
+								if(noun.getCategory() != LexicalCategory.NOUN)
+									failures.incrementAndGet();
+							}
+							for(WordElement verb : verbs) {
+								if(verb.getCategory() != LexicalCategory.VERB)
+									failures.incrementAndGet();
+							}
+						}
+					}
+				}
+			};
+			readers.add(reader);
+			reader.start();
+		}
+
+		for(int n = 0; n < count; n++) {
+			lexicon.addWord(new WordElement("entity" + n, LexicalCategory.NOUN));
+			lexicon.addWord(new WordElement("entity" + n, LexicalCategory.VERB));
+		}
+		adding.set(false);
+		for(Thread reader : readers)
+			reader.join();
+
+		Assert.assertEquals(0, failures.get());
+		for(int n = 0; n < count; n++) {
+			Assert.assertEquals(2, lexicon.getWords("entity" + n).size());
+			Assert.assertEquals(1, lexicon.getWords("entity" + n, LexicalCategory.VERB).size());
+		}
+	}
+
+	/**
+	 * Tests lookups by ID, for IDs of the NIH shape (which are stored as int
+	 * keys) and other IDs.
+	 */
+	@Test
+	public void idIndexTest() {
+		Assert.assertEquals("a", lexicon.getWordByID("E0006419").getBaseForm());
+		Assert.assertTrue(lexicon.getWordsByID("E0006418").isEmpty());
+		Assert.assertTrue(lexicon.getWordsByID("e0006419").isEmpty());
+		Assert.assertTrue(lexicon.getWordsByID("E006419").isEmpty());
+		Assert.assertTrue(lexicon.getWordsByID(null).isEmpty());
+
+		List<WordElement> added = new ArrayList<WordElement>();
+		for(int i = 0; i < 5000; i++)
+			added.add(new WordElement("idword" + i, LexicalCategory.NOUN, String.format("Z%07d", i * 7)));
+		added.add(new WordElement("custom", LexicalCategory.NOUN, "custom-1"));
+		added.add(new WordElement("zero", LexicalCategory.NOUN, "A0000000"));
+		lexicon.addWords(added);
+
+		for(int i = 0; i < 5000; i++)
+			Assert.assertEquals("idword" + i, lexicon.getWordByID(String.format("Z%07d", i * 7)).getBaseForm());
+		Assert.assertEquals("custom", lexicon.getWordByID("custom-1").getBaseForm());
+		Assert.assertEquals("zero", lexicon.getWordByID("A0000000").getBaseForm());
+		Assert.assertTrue(lexicon.getWordsByID("Z0000001").isEmpty());
+		Assert.assertEquals("a", lexicon.getWordByID("E0006419").getBaseForm());
+	}
+
+	private List<WordElement> filter(List<WordElement> words, LexicalCategory category) {
+		List<WordElement> result = new ArrayList<WordElement>();
+		for(WordElement word : words) {
+			if(word.getCategory() == category)
+				result.add(word);
+		}
+		return result;
+	}
+
+	private List<String> toXML(List<WordElement> words) {
+		List<String> result = new ArrayList<String>();
+		for(WordElement word : words)
+			result.add(word.toXML() + word.getDefaultInflectionalVariant() + word.getInflectionalVariants().keySet());
+		return result;
+	}
+
 }
@@ -0,0 +1,122 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.realiser.english;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Ignore;
+import simplenlg.features.Feature;
+import simplenlg.features.Tense;
+import simplenlg.framework.DocumentElement;
+import simplenlg.framework.NLGElement;
+import simplenlg.framework.NLGFactory;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.NPPhraseSpec;
+import simplenlg.phrasespec.SPhraseSpec;
+
+/**
+ * Compares two ways of getting a fresh copy of a template to fill in:
+ * building it again through the {@link NLGFactory}, which looks up every
+ * word in the lexicon again, and copying a template built once with
+ * {@link NLGElement#deepCopy()}. For each it reports the rate of copies, and
+ * the bytes allocated per copy (where the JVM can report them). It checks
+ * that the copies are realised as the template is.
+ * <p>
+ * Usage: <code>java simplenlg.realiser.english.ElementCopyBenchmark [copies]</code>
+ */
+@Ignore
+public class ElementCopyBenchmark {
+
+	public static void main(String[] args) {
+		int copyCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		Lexicon lexicon = Lexicon.getDefaultLexicon();
+		NLGFactory factory = new NLGFactory(lexicon);
+		Realiser realiser = new Realiser(lexicon);
+
+		NLGElement template = createTemplate(factory);
+		String expected = realiser.realise(createTemplate(factory)).getRealisation();
+		String copied = realiser.realise(template.deepCopy()).getRealisation();
+		if(!expected.equals(copied))
+			System.out.println("The copy was realised as \"" + copied + "\", not \"" + expected + "\"");
+
+		for(int round = 0; round < 3; round++) {
+			measure("NLGFactory rebuild", factory, null, copyCount);
+			measure("NLGElement.deepCopy", factory, template, copyCount);
+		}
+	}
+
+	/**
+	 * @return a paragraph of two sentences, which is about the size of a
+	 * 		typical template
+	 */
+	private static NLGElement createTemplate(NLGFactory factory) {
+		NPPhraseSpec rate = factory.createNounPhrase("the", "rate");
+		rate.addPreModifier("heart");
+		rate.addPostModifier(factory.createPrepositionPhrase("of", factory.createNounPhrase("the", "patient")));
+		SPhraseSpec rising = factory.createClause(rate, "rise");
+		rising.setFeature(Feature.TENSE, Tense.PAST);
+		rising.addModifier("sharply");
+		rising.addComplement(factory.createPrepositionPhrase("after", factory.createNounPhrase("the", "operation")));
+
+		NPPhraseSpec nurse = factory.createNounPhrase("the", "nurse");
+		nurse.addPreModifier("duty");
+		SPhraseSpec calling = factory.createClause(nurse, "call", factory.createNounPhrase("the", "doctor"));
+		calling.setFeature(Feature.TENSE, Tense.PAST);
+		calling.addFrontModifier("immediately");
+
+		DocumentElement paragraph = factory.createParagraph();
+		paragraph.addComponent(factory.createSentence(rising));
+		paragraph.addComponent(factory.createSentence(calling));
+		return paragraph;
+	}
+
+	/**
+	 * report the rate of copies and the bytes allocated per copy, which
+	 * rebuild the template if it is <code>null</code>
+	 */
+	private static void measure(String name, NLGFactory factory, NLGElement template, int copyCount) {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int components = 0;
+		long allocatedBefore = allocatedBytes(threads);
+		long start = System.nanoTime();
+		for(int i = 0; i < copyCount; i++) {
+			NLGElement copy = template == null ? createTemplate(factory) : template.deepCopy();
+			components += copy.getChildren().size();
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocatedBytes(threads) - allocatedBefore;
+
+		System.out.format("%s: %.0f copies/s", name, copyCount * 1e9 / elapsed);
+		if(allocatedBefore >= 0)
+			System.out.format(", %.0f bytes allocated/copy", (double) allocated / copyCount);
+		System.out.println();
+		if(components != 2 * copyCount)
+			System.out.println("Copies were lost");
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, or -1 if the JVM cannot say
+	 */
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+}
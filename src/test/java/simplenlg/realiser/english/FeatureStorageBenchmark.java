@@ -0,0 +1,226 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.realiser.english;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+import org.junit.Ignore;
+import simplenlg.features.*;
+import simplenlg.framework.*;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.*;
+
+/**
+ * Compares the {@link FeatureMap}s which hold the features of elements with
+ * the <code>HashMap</code>s which used to hold them, on the elements of
+ * realised sentences:
+ * <ul>
+ * <li>the heap retained by the features of every element of the input and
+ * realised trees, held in each kind of map;</li>
+ * <li>the rate of feature lookups on those maps, for the features which are
+ * present and for some which are not, as the realiser mostly does;</li>
+ * <li>the rate of {@link Realiser#realise(NLGElement)}, and the bytes it
+ * allocates per sentence (where the JVM can report them), which can be
+ * compared with a build from before feature maps were used.</li>
+ * </ul>
+ * Usage: <code>java simplenlg.realiser.english.FeatureStorageBenchmark [sentences]</code>
+ * <br>
+ * Run with a fixed heap (for example <code>-Xms1g -Xmx1g</code>) for steadier
+ * figures.
+ */
+@Ignore
+public class FeatureStorageBenchmark {
+
+	private static final String[] ABSENT_FEATURES = {Feature.NEGATED, Feature.PASSIVE, Feature.PROGRESSIVE,
+			Feature.PERFECT, Feature.MODAL, Feature.ELIDED, LexicalFeature.PROPER, InternalFeature.NON_MORPH};
+
+	public static void main(String[] args) throws Exception {
+		int sentenceCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		Lexicon lexicon = Lexicon.getDefaultLexicon();
+		NLGFactory factory = new NLGFactory(lexicon);
+		Realiser realiser = new Realiser(lexicon);
+
+		// the features of the input and realised trees
+		List<Map<String, Object>> featureMaps = new ArrayList<Map<String, Object>>();
+		for(int i = 0; i < sentenceCount; i++) {
+			NLGElement sentence = createSentence(factory, i);
+			collectFeatures(sentence, featureMaps);
+			collectFeatures(realiser.realise(sentence), featureMaps);
+		}
+		int featureCount = 0;
+		for(Map<String, Object> features : featureMaps)
+			featureCount += features.size();
+		System.out.format("%d sentences: %d elements, %.1f features per element%n",
+		                  sentenceCount,
+		                  featureMaps.size(),
+		                  (double) featureCount / featureMaps.size());
+
+		long hashMapBytes = measureHeap(featureMaps, false);
+		long featureMapBytes = measureHeap(featureMaps, true);
+		System.out.format("Feature heap: HashMap %.0f bytes/element, FeatureMap %.0f bytes/element (%.1fx smaller)%n",
+		                  (double) hashMapBytes / featureMaps.size(),
+		                  (double) featureMapBytes / featureMaps.size(),
+		                  (double) hashMapBytes / featureMapBytes);
+
+		List<Map<String, Object>> hashMaps = copy(featureMaps, false);
+		List<Map<String, Object>> compactMaps = copy(featureMaps, true);
+		for(int round = 0; round < 3; round++) {
+			double hashMapRate = measureLookups(hashMaps);
+			double featureMapRate = measureLookups(compactMaps);
+			System.out.format("Feature lookups: HashMap %.1f M/s, FeatureMap %.1f M/s%n",
+			                  hashMapRate / 1e6,
+			                  featureMapRate / 1e6);
+		}
+
+		for(int round = 0; round < 3; round++)
+			measureRealise(factory, realiser, sentenceCount);
+	}
+
+	/**
+	 * @return a sentence which varies with its number
+	 */
+	private static NLGElement createSentence(NLGFactory factory, int i) {
+		String[] subjects = {"the man", "Mary", "my dog", "the old woman"};
+		String[] verbs = {"chase", "give", "see", "kiss", "be"};
+		String[] objects = {"the ball", "a monkey", "the red car", "John"};
+
+		NPPhraseSpec subject = factory.createNounPhrase(subjects[i % subjects.length]);
+		if(i % 3 == 0)
+			subject.addModifier("happy");
+		SPhraseSpec clause = factory.createClause(subject, verbs[i % verbs.length], objects[i % objects.length]);
+		clause.setFeature(Feature.TENSE, Tense.values()[i % Tense.values().length]);
+		clause.setFeature(Feature.NEGATED, i % 4 == 0);
+		clause.setFeature(Feature.PROGRESSIVE, i % 5 == 0);
+		if(i % 7 == 0)
+			clause.setFeature(Feature.INTERROGATIVE_TYPE, InterrogativeType.YES_NO);
+		if(i % 2 == 0)
+			clause.addComplement(factory.createPrepositionPhrase("in", factory.createNounPhrase("the", "park")));
+		return factory.createSentence(clause);
+	}
+
+	/**
+	 * add the features of an element and its descendants
+	 */
+	private static void collectFeatures(NLGElement element, List<Map<String, Object>> featureMaps) {
+		if(element == null)
+			return;
+		featureMaps.add(element.getAllFeatures());
+		if(element.getChildren() != null) {
+			for(NLGElement child : element.getChildren())
+				collectFeatures(child, featureMaps);
+		}
+	}
+
+	private static List<Map<String, Object>> copy(List<Map<String, Object>> featureMaps, boolean compact) {
+		List<Map<String, Object>> copies = new ArrayList<Map<String, Object>>(featureMaps.size());
+		for(Map<String, Object> features : featureMaps)
+			copies.add(compact ? new FeatureMap(features) : new HashMap<String, Object>(features));
+		return copies;
+	}
+
+	/**
+	 * @return the heap retained by copies of the feature maps
+	 */
+	private static long measureHeap(List<Map<String, Object>> featureMaps, boolean compact)
+			throws InterruptedException {
+		long before = settledHeap();
+		List<Map<String, Object>> copies = copy(featureMaps, compact);
+		long retained = settledHeap() - before;
+		// keep the copies reachable until the heap has been measured
+		if(copies.size() != featureMaps.size())
+			System.out.println("Copies were lost");
+		return retained;
+	}
+
+	/**
+	 * @return feature lookups per second
+	 */
+	private static double measureLookups(List<Map<String, Object>> featureMaps) {
+		List<String[]> names = new ArrayList<String[]>(featureMaps.size());
+		for(Map<String, Object> features : featureMaps)
+			names.add(features.keySet().toArray(new String[features.size()]));
+
+		long lookups = 0;
+		int found = 0;
+		long start = System.nanoTime();
+		for(int repeat = 0; repeat < 20; repeat++) {
+			for(int i = 0; i < featureMaps.size(); i++) {
+				Map<String, Object> features = featureMaps.get(i);
+				for(String name : names.get(i)) {
+					if(features.get(name) != null)
+						found++;
+				}
+				for(String name : ABSENT_FEATURES) {
+					if(features.get(name) != null)
+						found++;
+				}
+				lookups += names.get(i).length + ABSENT_FEATURES.length;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		if(found < 0)
+			System.out.println(found);
+		return lookups * 1e9 / elapsed;
+	}
+
+	/**
+	 * report the rate of realisation and the bytes allocated per sentence
+	 */
+	private static void measureRealise(NLGFactory factory, Realiser realiser, int sentenceCount) {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long allocatedBefore = allocatedBytes(threads);
+		long start = System.nanoTime();
+		for(int i = 0; i < sentenceCount; i++)
+			realiser.realise(createSentence(factory, i));
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocatedBytes(threads) - allocatedBefore;
+
+		System.out.format("Realiser.realise: %.0f sentences/s", sentenceCount * 1e9 / elapsed);
+		if(allocatedBefore >= 0)
+			System.out.format(", %.0f bytes allocated/sentence", (double) allocated / sentenceCount);
+		System.out.println();
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, or -1 if the JVM cannot say
+	 */
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if(threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	/**
+	 * @return heap in use after garbage collection
+	 */
+	private static long settledHeap() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		// several collections, as one may not free everything
+		for(int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.syntax.english;
+
+import java.util.HashMap;
+import java.util.List;
+
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.features.*;
+import simplenlg.framework.*;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.NPPhraseSpec;
+import simplenlg.phrasespec.SPhraseSpec;
+import simplenlg.phrasespec.VPPhraseSpec;
+import simplenlg.realiser.english.Realiser;
+
+/**
+ * Tests for {@link NLGElement#deepCopy()}.
+ */
+public class ElementCopyTest {
+
+	private Lexicon    lexicon;
+	private NLGFactory factory;
+	private Realiser   realiser;
+
+	@Before
+	public void setUp() {
+		this.lexicon = Lexicon.getDefaultLexicon();
+		this.factory = new NLGFactory(this.lexicon);
+		this.realiser = new Realiser(this.lexicon);
+	}
+
+	/**
+	 * @return "the man gives the woman a red ball in the park"
+	 */
+	private SPhraseSpec createClause() {
+		NPPhraseSpec ball = this.factory.createNounPhrase("a", "ball");
+		ball.addPreModifier(this.lexicon.getWord("red", LexicalCategory.ADJECTIVE));
+		SPhraseSpec clause = this.factory.createClause("the man", "give", ball);
+		clause.setIndirectObject(this.factory.createNounPhrase("the", "woman"));
+		clause.addComplement(this.factory.createPrepositionPhrase("in", this.factory.createNounPhrase("the", "park")));
+		return clause;
+	}
+
+	/**
+	 * Tests that a copy of a clause is realised as the clause, and can be
+	 * changed without changing the clause.
+	 */
+	@Test
+	public void clauseCopyTest() {
+		SPhraseSpec clause = createClause();
+		SPhraseSpec copy = (SPhraseSpec) clause.deepCopy();
+		Assert.assertNotSame(clause, copy);
+		Assert.assertNull(copy.getParent());
+
+		// the elements beneath are copied, and have the copies as parents
+		VPPhraseSpec verbPhrase = (VPPhraseSpec) clause.getVerbPhrase();
+		VPPhraseSpec verbPhraseCopy = (VPPhraseSpec) copy.getVerbPhrase();
+		Assert.assertNotSame(verbPhrase, verbPhraseCopy);
+		Assert.assertSame(clause, verbPhrase.getParent());
+		Assert.assertSame(copy, verbPhraseCopy.getParent());
+		Assert.assertNotSame(verbPhrase.getVerb(), verbPhraseCopy.getVerb());
+		Assert.assertNotSame(verbPhrase.getFeature(InternalFeature.COMPLEMENTS),
+		                     verbPhraseCopy.getFeature(InternalFeature.COMPLEMENTS));
+		List<NLGElement> complements = verbPhrase.getFeatureAsElementList(InternalFeature.COMPLEMENTS);
+		List<NLGElement> complementCopies = verbPhraseCopy.getFeatureAsElementList(InternalFeature.COMPLEMENTS);
+		Assert.assertEquals(complements.size(), complementCopies.size());
+		for(int i = 0; i < complements.size(); i++)
+			Assert.assertNotSame(complements.get(i), complementCopies.get(i));
+
+		copy.setFeature(Feature.TENSE, Tense.PAST);
+		copy.setFeature(Feature.NEGATED, true);
+		((NPPhraseSpec) verbPhraseCopy.getObject()).setPlural(true);
+		copy.addComplement("yesterday");
+
+		Assert.assertEquals("the man did not give the woman some red balls in the park yesterday",
+		                    this.realiser.realise(copy).getRealisation());
+		Assert.assertEquals("the man gives the woman a red ball in the park",
+		                    this.realiser.realise(clause).getRealisation());
+	}
+
+	/**
+	 * Tests that the words of a frozen lexicon, which are read-only, are
+	 * shared by the copies.
+	 */
+	@Test
+	public void sharedWordTest() {
+		SPhraseSpec clause = createClause();
+		SPhraseSpec copy = (SPhraseSpec) clause.deepCopy();
+
+		NLGElement red = ((PhraseElement) clause.getObject()).getPreModifiers().get(0);
+		Assert.assertTrue(red.isFrozen());
+		Assert.assertSame(red, ((PhraseElement) copy.getObject()).getPreModifiers().get(0));
+
+		InflectedWordElement inflected = new InflectedWordElement((WordElement) this.lexicon.getWord("dog",
+		                                                                                             LexicalCategory.NOUN));
+		inflected.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		InflectedWordElement inflectedCopy = (InflectedWordElement) inflected.deepCopy();
+		Assert.assertNotSame(inflected, inflectedCopy);
+		Assert.assertSame(inflected.getBaseWord(), inflectedCopy.getBaseWord());
+		Assert.assertEquals("dogs", this.realiser.realise(inflectedCopy).getRealisation());
+	}
+
+	/**
+	 * Tests copies of coordinated phrases, documents and lists.
+	 */
+	@Test
+	public void documentCopyTest() {
+		CoordinatedPhraseElement both = this.factory.createCoordinatedPhrase("the man", "the woman");
+		SPhraseSpec clause = this.factory.createClause(both, "arrive");
+		DocumentElement paragraph = this.factory.createParagraph();
+		paragraph.addComponent(this.factory.createSentence(clause));
+		paragraph.addComponent(this.factory.createSentence(createClause()));
+
+		DocumentElement copy = (DocumentElement) paragraph.deepCopy();
+		Assert.assertNotSame(paragraph.getComponents(), copy.getComponents());
+		Assert.assertEquals(2, copy.getComponents().size());
+		for(int i = 0; i < 2; i++) {
+			Assert.assertSame(copy, copy.getComponents().get(i).getParent());
+			Assert.assertNotSame(paragraph.getComponents().get(i), copy.getComponents().get(i));
+			Assert.assertEquals(paragraph.getComponents().get(i), copy.getComponents().get(i));
+		}
+
+		SPhraseSpec clauseCopy = (SPhraseSpec) ((DocumentElement) copy.getComponents().get(0)).getComponents().get(0);
+		CoordinatedPhraseElement bothCopy =
+				(CoordinatedPhraseElement) clauseCopy.getFeatureAsElementList(InternalFeature.SUBJECTS).get(0);
+		Assert.assertNotSame(both, bothCopy);
+		bothCopy.addCoordinate("the child");
+
+		Assert.assertEquals("The man, the woman and the child arrive. The man gives the woman a red ball in the park.\n\n",
+		                    this.realiser.realise(copy).getRealisation());
+		Assert.assertEquals("The man and the woman arrive. The man gives the woman a red ball in the park.\n\n",
+		                    this.realiser.realise(paragraph).getRealisation());
+
+		ListElement list = new ListElement(this.factory.createNounPhrase("the", "dog"));
+		ListElement listCopy = (ListElement) list.deepCopy();
+		Assert.assertNotSame(list.getChildren().get(0), listCopy.getChildren().get(0));
+		Assert.assertEquals(1, listCopy.size());
+	}
+
+	/**
+	 * Tests that a copy of a frozen phrase is a copy which can be changed.
+	 */
+	@Test
+	public void frozenCopyTest() {
+		NPPhraseSpec dog = this.factory.createNounPhrase("the", "dog").freeze();
+		NPPhraseSpec copy = (NPPhraseSpec) dog.deepCopy();
+		Assert.assertFalse(copy.isFrozen());
+		Assert.assertFalse(copy.getHead().isFrozen());
+		Assert.assertSame(copy, copy.getHead().getParent());
+		copy.setPlural(true);
+		Assert.assertEquals("the dogs", this.realiser.realise(copy).getRealisation());
+		Assert.assertEquals("the dog", this.realiser.realise(dog).getRealisation());
+	}
+
+	/**
+	 * Tests that elements which hold their features in a map of their own
+	 * kind can still be copied and fingerprinted.
+	 */
+	@Test
+	public void otherFeatureMapTest() {
+		StringElement dog = new HashMapElement("dog");
+		dog.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		dog.setFeature("my_feature", 1);
+		StringElement other = new HashMapElement("dog");
+		other.setFeature("my_feature", 1);
+		other.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		Assert.assertEquals(dog.getFingerprint(), other.getFingerprint());
+
+		NLGElement copy = dog.deepCopy();
+		Assert.assertEquals(dog.getAllFeatures(), copy.getAllFeatures());
+		Assert.assertEquals(dog.getFingerprint(), copy.getFingerprint());
+	}
+
+	private static class HashMapElement extends StringElement {
+
+		HashMapElement(String value) {
+			super(value);
+			this.features = new HashMap<String, Object>(this.features);
+		}
+	}
+}
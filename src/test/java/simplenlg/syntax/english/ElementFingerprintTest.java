@@ -0,0 +1,148 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.syntax.english;
+
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.features.*;
+import simplenlg.framework.*;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.NPPhraseSpec;
+import simplenlg.phrasespec.SPhraseSpec;
+
+/**
+ * Tests for {@link NLGElement#getFingerprint()}.
+ */
+public class ElementFingerprintTest {
+
+	private NLGFactory factory;
+
+	@Before
+	public void setUp() {
+		this.factory = new NLGFactory(Lexicon.getDefaultLexicon());
+	}
+
+	/**
+	 * @return "the man gives the woman a ball in the park"
+	 */
+	private SPhraseSpec createClause() {
+		SPhraseSpec clause = this.factory.createClause("the man", "give", "a ball");
+		clause.setIndirectObject(this.factory.createNounPhrase("the", "woman"));
+		clause.addComplement(this.factory.createPrepositionPhrase("in", this.factory.createNounPhrase("the", "park")));
+		return clause;
+	}
+
+	/**
+	 * Tests that elements with the same structure have the same fingerprint,
+	 * and elements with different structures do not.
+	 */
+	@Test
+	public void structureTest() {
+		SPhraseSpec clause = createClause();
+		ElementFingerprint fingerprint = clause.getFingerprint();
+		Assert.assertEquals(fingerprint, createClause().getFingerprint());
+		Assert.assertEquals(fingerprint, clause.deepCopy().getFingerprint());
+		Assert.assertEquals(fingerprint, createClause().freeze().getFingerprint());
+		Assert.assertEquals(fingerprint.toString(), createClause().getFingerprint().toString());
+		Assert.assertEquals(32, fingerprint.toString().length());
+
+		SPhraseSpec past = createClause();
+		past.setFeature(Feature.TENSE, Tense.PAST);
+		Assert.assertFalse(fingerprint.equals(past.getFingerprint()));
+		SPhraseSpec other = this.factory.createClause("the man", "give", "a ball");
+		Assert.assertFalse(fingerprint.equals(other.getFingerprint()));
+
+		// the order in which features are set does not matter
+		StringElement first = new StringElement("dog");
+		first.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		first.setFeature("my_feature", 1);
+		StringElement second = new StringElement("dog");
+		second.setFeature("my_feature", 1);
+		second.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		Assert.assertEquals(first.getFingerprint(), second.getFingerprint());
+		second.setFeature("my_feature", 1L);
+		Assert.assertEquals(first.getFingerprint(), second.getFingerprint());
+		second.setFeature("my_feature", "1");
+		Assert.assertFalse(first.getFingerprint().equals(second.getFingerprint()));
+
+		// nor does the JVM, so fingerprints can be stored
+		Assert.assertEquals("a69bd0a00450504abf00e7d7cf104456", new StringElement("dog").getFingerprint().toString());
+	}
+
+	/**
+	 * Tests that fingerprints are kept until the element, or one beneath it,
+	 * is changed.
+	 */
+	@Test
+	public void changeTest() {
+		SPhraseSpec clause = createClause();
+		ElementFingerprint fingerprint = clause.getFingerprint();
+		Assert.assertSame(fingerprint, clause.getFingerprint());
+
+		NPPhraseSpec subject = (NPPhraseSpec) clause.getSubject();
+		NPPhraseSpec object = (NPPhraseSpec) clause.getObject();
+		ElementFingerprint subjectFingerprint = subject.getFingerprint();
+
+		object.setPlural(true);
+		ElementFingerprint changed = clause.getFingerprint();
+		Assert.assertFalse(fingerprint.equals(changed));
+		Assert.assertSame(changed, clause.getFingerprint());
+		// the subject was not changed, so its fingerprint was kept
+		Assert.assertSame(subjectFingerprint, subject.getFingerprint());
+
+		SPhraseSpec expected = createClause();
+		((NPPhraseSpec) expected.getObject()).setPlural(true);
+		Assert.assertEquals(expected.getFingerprint(), changed);
+
+		object.setPlural(false);
+		Assert.assertEquals(fingerprint, clause.getFingerprint());
+
+		object.getHead().setFeature(LexicalFeature.PROPER, true);
+		Assert.assertFalse(fingerprint.equals(clause.getFingerprint()));
+	}
+
+	/**
+	 * Tests that a change to an element beneath two others changes the
+	 * fingerprints of both.
+	 */
+	@Test
+	public void sharedElementTest() {
+		NPPhraseSpec dog = this.factory.createNounPhrase("the", "dog");
+		SPhraseSpec barking = this.factory.createClause(dog, "bark");
+		SPhraseSpec sleeping = this.factory.createClause(dog, "sleep");
+		DocumentElement paragraph = this.factory.createParagraph();
+		paragraph.addComponent(this.factory.createSentence(barking));
+		paragraph.addComponent(this.factory.createSentence(sleeping));
+
+		ElementFingerprint barkingFingerprint = barking.getFingerprint();
+		ElementFingerprint sleepingFingerprint = sleeping.getFingerprint();
+		ElementFingerprint paragraphFingerprint = paragraph.getFingerprint();
+
+		dog.setPlural(true);
+		Assert.assertFalse(barkingFingerprint.equals(barking.getFingerprint()));
+		Assert.assertFalse(sleepingFingerprint.equals(sleeping.getFingerprint()));
+		Assert.assertFalse(paragraphFingerprint.equals(paragraph.getFingerprint()));
+
+		dog.setPlural(false);
+		Assert.assertEquals(barkingFingerprint, barking.getFingerprint());
+		Assert.assertEquals(sleepingFingerprint, sleeping.getFingerprint());
+		Assert.assertEquals(paragraphFingerprint, paragraph.getFingerprint());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.syntax.english;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.features.Feature;
+import simplenlg.framework.NLGFactory;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.SPhraseSpec;
+
+/**
+ * Tests that setting and getting primitive feature values, such as the
+ * boolean flags the syntax helpers use all the time, allocates nothing.
+ */
+public class FeatureAllocationTest {
+
+	private static final int ITERATIONS = 100000;
+
+	/**
+	 * Tests that boxed values are the canonical constants.
+	 */
+	@Test
+	@SuppressWarnings("deprecation")
+	public void canonicalValuesTest() {
+		SPhraseSpec clause = new NLGFactory(Lexicon.getDefaultLexicon()).createClause();
+		clause.setFeature(Feature.NEGATED, true);
+		Assert.assertSame(Boolean.TRUE, clause.getFeature(Feature.NEGATED));
+		clause.setFeature(Feature.PASSIVE, new Boolean(false));
+		Assert.assertSame(Boolean.FALSE, clause.getFeature(Feature.PASSIVE));
+		clause.setFeature("count", 3);
+		Assert.assertSame(Integer.valueOf(3), clause.getFeature("count"));
+		Assert.assertSame(clause.getFeatureAsInteger("count"), clause.getFeatureAsInteger("count"));
+
+		Assert.assertTrue(clause.getFeatureAsBooleanPrimitive(Feature.NEGATED));
+		Assert.assertFalse(clause.getFeatureAsBooleanPrimitive(Feature.PASSIVE));
+		Assert.assertFalse(clause.getFeatureAsBooleanPrimitive(Feature.PERFECT));
+		Assert.assertEquals(3, clause.getFeatureAsIntPrimitive("count", -1));
+		Assert.assertEquals(-1, clause.getFeatureAsIntPrimitive(Feature.PERFECT, -1));
+		clause.setFeature("count", "12");
+		Assert.assertEquals(12L, clause.getFeatureAsLongPrimitive("count", -1));
+		Assert.assertEquals(12.0, clause.getFeatureAsDoublePrimitive("count", -1), 0);
+		clause.setFeature("count", "twelve");
+		Assert.assertEquals(-1, clause.getFeatureAsIntPrimitive("count", -1));
+	}
+
+	/**
+	 * Tests that setting and getting the hot flags allocates nothing, by
+	 * counting the bytes this thread allocates. Any allocation per call would
+	 * be at least 16 bytes per call; the limit only allows for the fixed cost
+	 * of counting.
+	 */
+	@Test
+	public void allocationTest() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)
+		   || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			// this JVM cannot count allocations
+			return;
+		}
+		com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+		long thread = Thread.currentThread().getId();
+
+		SPhraseSpec clause = new NLGFactory(Lexicon.getDefaultLexicon()).createClause();
+		// the first run sets every feature, so the feature map has grown
+		exercise(clause);
+
+		long before = allocation.getThreadAllocatedBytes(thread);
+		int count = exercise(clause);
+		long allocated = allocation.getThreadAllocatedBytes(thread) - before;
+
+		Assert.assertTrue(count > 0);
+		Assert.assertTrue("allocated " + allocated + " bytes", allocated < ITERATIONS);
+	}
+
+	/**
+	 * @return the number of flags which were set, so the work is not optimised
+	 * 		away
+	 */
+	private static int exercise(SPhraseSpec clause) {
+		int count = 0;
+		for(int i = 0; i < ITERATIONS; i++) {
+			clause.setFeature(Feature.NEGATED, (i & 1) == 0);
+			clause.setFeature(Feature.PASSIVE, (i & 2) == 0);
+			clause.setFeature(Feature.PROGRESSIVE, (i & 4) == 0);
+			clause.setFeature(Feature.PERFECT, i % 3 == 0);
+			clause.setFeature("count", i & 0x7F);
+			if(clause.getFeatureAsBooleanPrimitive(Feature.NEGATED))
+				count++;
+			if(clause.getFeatureAsBoolean(Feature.PASSIVE).booleanValue())
+				count++;
+			if(clause.getFeatureAsBooleanPrimitive(Feature.PROGRESSIVE))
+				count++;
+			if(clause.getFeatureAsBooleanPrimitive(Feature.PERFECT))
+				count++;
+			count += clause.getFeatureAsIntPrimitive("count", 0) & 1;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.syntax.english;
+
+import java.util.*;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import simplenlg.features.*;
+import simplenlg.framework.FeatureMap;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+
+/**
+ * Tests for {@link FeatureMap}, which holds the features of elements.
+ */
+public class FeatureMapTest {
+
+	/**
+	 * Tests that a feature map behaves as a <code>HashMap</code> for known
+	 * and other feature names.
+	 */
+	@Test
+	public void mapTest() {
+		FeatureMap features = new FeatureMap();
+		Map<String, Object> expected = new HashMap<String, Object>();
+		Random random = new Random(42);
+		String[] names = {Feature.TENSE, Feature.NUMBER, Feature.PERSON, InternalFeature.DISCOURSE_FUNCTION,
+				LexicalFeature.PROPER, LexicalFeature.ACRONYM_OF, "my_feature", "other_feature"};
+
+		for(int i = 0; i < 2000; i++) {
+			String name = names[random.nextInt(names.length)];
+			switch(random.nextInt(4)) {
+			case 0:
+				Assert.assertEquals(expected.remove(name), features.remove(name));
+				break;
+			case 1:
+				Assert.assertEquals(expected.put(name, null), features.put(name, null));
+				break;
+			default:
+				Integer value = random.nextInt(10);
+				Assert.assertEquals(expected.put(name, value), features.put(name, value));
+			}
+			Assert.assertEquals(expected.size(), features.size());
+			Assert.assertEquals(expected.containsKey(name), features.containsKey(name));
+			Assert.assertEquals(expected.get(name), features.get(name));
+		}
+		Assert.assertEquals(expected, features);
+		Assert.assertEquals(features, expected);
+		Assert.assertEquals(expected.hashCode(), features.hashCode());
+		Assert.assertEquals(expected, new FeatureMap(features));
+		Assert.assertNull(features.get(null));
+		Assert.assertNull(features.get(Integer.valueOf(1)));
+
+		features.clear();
+		Assert.assertTrue(features.isEmpty());
+		Assert.assertEquals(Collections.emptyMap(), features);
+	}
+
+	/**
+	 * Tests that the views of a feature map write through to it.
+	 */
+	@Test
+	public void viewsTest() {
+		FeatureMap features = new FeatureMap();
+		features.put(Feature.TENSE, Tense.PAST);
+		features.put(Feature.NUMBER, NumberAgreement.PLURAL);
+		features.put("my_feature", "value");
+		features.put(Feature.PERSON, Person.FIRST);
+
+		Iterator<Map.Entry<String, Object>> entries = features.entrySet().iterator();
+		while(entries.hasNext()) {
+			Map.Entry<String, Object> entry = entries.next();
+			if(entry.getKey().equals(Feature.NUMBER))
+				entries.remove();
+			else if(entry.getKey().equals(Feature.TENSE))
+				entry.setValue(Tense.FUTURE);
+		}
+		Assert.assertEquals(3, features.size());
+		Assert.assertFalse(features.containsKey(Feature.NUMBER));
+		Assert.assertEquals(Tense.FUTURE, features.get(Feature.TENSE));
+
+		features.keySet().remove("my_feature");
+		Assert.assertNull(features.get("my_feature"));
+		features.values().remove(Person.FIRST);
+		Assert.assertEquals(Collections.singleton(Feature.TENSE), features.keySet());
+
+		// the last entry is in the overflow map
+		features.put("my_feature", "value");
+		entries = features.entrySet().iterator();
+		entries.next();
+		entries.next();
+		entries.remove();
+		Assert.assertEquals(Collections.singletonMap(Feature.TENSE, (Object) Tense.FUTURE), features);
+	}
+
+	/**
+	 * Tests that elements keep their features in a feature map, which is
+	 * copied with words and trimmed when they are compacted.
+	 */
+	@Test
+	public void elementFeaturesTest() {
+		WordElement word = new WordElement("dog", LexicalCategory.NOUN);
+		word.setFeature(LexicalFeature.PLURAL, "dogs");
+		word.setFeature("my_feature", true);
+		Assert.assertTrue(word.getAllFeatures() instanceof FeatureMap);
+
+		WordElement copy = new WordElement(word);
+		Assert.assertEquals(word.getAllFeatures(), copy.getAllFeatures());
+		copy.setFeature(LexicalFeature.PLURAL, "doggies");
+		Assert.assertEquals("dogs", word.getFeatureAsString(LexicalFeature.PLURAL));
+
+		word.compact();
+		Assert.assertEquals("dogs", word.getFeatureAsString(LexicalFeature.PLURAL));
+		Assert.assertTrue(word.getFeatureAsBoolean("my_feature"));
+	}
+}
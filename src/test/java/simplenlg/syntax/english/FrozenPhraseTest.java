@@ -0,0 +1,292 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.syntax.english;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.features.Feature;
+import simplenlg.features.InternalFeature;
+import simplenlg.features.NumberAgreement;
+import simplenlg.features.Tense;
+import simplenlg.framework.*;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.phrasespec.AdjPhraseSpec;
+import simplenlg.phrasespec.NPPhraseSpec;
+import simplenlg.phrasespec.SPhraseSpec;
+import simplenlg.realiser.english.Realiser;
+
+/**
+ * Tests for frozen phrases, which are read-only and shared through an
+ * {@link ElementInterner}.
+ */
+public class FrozenPhraseTest {
+
+	private NLGFactory factory;
+	private Realiser   realiser;
+
+	@Before
+	public void setUp() {
+		Lexicon lexicon = Lexicon.getDefaultLexicon();
+		this.factory = new NLGFactory(lexicon);
+		this.realiser = new Realiser(lexicon);
+	}
+
+	/**
+	 * @return "the patient's heart rate", built afresh
+	 */
+	private NPPhraseSpec createHeartRate() {
+		NPPhraseSpec patient = this.factory.createNounPhrase("the", "patient");
+		patient.setFeature(Feature.POSSESSIVE, true);
+		NPPhraseSpec rate = this.factory.createNounPhrase(patient, "rate");
+		rate.addPreModifier("heart");
+		return rate;
+	}
+
+	/**
+	 * Tests that phrases built in the same way are frozen to the same
+	 * instance, and that different phrases are not.
+	 */
+	@Test
+	public void internTest() {
+		NPPhraseSpec first = createHeartRate().freeze();
+		NPPhraseSpec second = createHeartRate().freeze();
+		Assert.assertSame(first, second);
+		Assert.assertTrue(first.isFrozen());
+		Assert.assertTrue(first.getHead().isFrozen());
+		Assert.assertTrue(ElementInterner.getShared().size() > 0);
+
+		NPPhraseSpec plural = createHeartRate();
+		plural.setPlural(true);
+		Assert.assertNotSame(first, plural.freeze());
+		Assert.assertSame(first, first.freeze());
+	}
+
+	/**
+	 * Tests that frozen phrases cannot be changed.
+	 */
+	@Test
+	public void readOnlyTest() {
+		NPPhraseSpec rate = createHeartRate().freeze();
+		try {
+			rate.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+			Assert.fail("a frozen phrase was changed");
+		} catch(UnsupportedOperationException expected) {
+			// expected
+		}
+		try {
+			rate.addPostModifier("at rest");
+			Assert.fail("a frozen phrase was changed");
+		} catch(UnsupportedOperationException expected) {
+			// expected
+		}
+		try {
+			rate.getAllFeatures().clear();
+			Assert.fail("the features of a frozen phrase were changed");
+		} catch(UnsupportedOperationException expected) {
+			// expected
+		}
+		try {
+			((List<?>) rate.getFeature(InternalFeature.PREMODIFIERS)).clear();
+			Assert.fail("the modifiers of a frozen phrase were changed");
+		} catch(UnsupportedOperationException expected) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests that freezing a phrase freezes a copy of it, so the phrase can
+	 * still be changed, and that the phrase returned is the canonical one.
+	 */
+	@Test
+	public void frozenCopyTest() {
+		NPPhraseSpec first = createHeartRate().freeze();
+		NPPhraseSpec second = createHeartRate();
+		NLGElement specifier = second.getSpecifier();
+		NLGElement specifierParent = specifier.getParent();
+		Assert.assertSame(first, second.freeze());
+
+		Assert.assertFalse(second.isFrozen());
+		Assert.assertFalse(specifier.isFrozen());
+		Assert.assertSame(specifier, second.getSpecifier());
+		Assert.assertSame(specifierParent, specifier.getParent());
+		Assert.assertSame(second, second.getHead().getParent());
+		Assert.assertNotSame(first.getHead(), second.getHead());
+		Assert.assertEquals(first.getFingerprint(), second.getFingerprint());
+		Assert.assertEquals(this.realiser.realise(first).getRealisation(),
+		                    this.realiser.realise(second).getRealisation());
+
+		// the phrase which was frozen can still be changed
+		second.setPlural(true);
+		Assert.assertEquals("the patient's heart rates", this.realiser.realise(second).getRealisation());
+		Assert.assertFalse(first.isPlural());
+		Assert.assertSame(first, createHeartRate().freeze());
+	}
+
+	/**
+	 * Tests that a frozen phrase can be used in many clauses, and is realised
+	 * as the phrase it was frozen from.
+	 */
+	@Test
+	public void realiseTest() {
+		NPPhraseSpec rate = createHeartRate().freeze();
+
+		SPhraseSpec rising = this.factory.createClause(rate, "rise");
+		rising.setFeature(Feature.TENSE, Tense.PAST);
+		SPhraseSpec monitor = this.factory.createClause("the nurse", "monitor", rate);
+		SPhraseSpec expected = this.factory.createClause("the nurse", "monitor", createHeartRate());
+
+		NLGElement subject = rising.getSubject();
+		Assert.assertEquals("the patient's heart rate rose", this.realiser.realise(rising).getRealisation());
+		// the clause which was realised still holds what it held
+		Assert.assertSame(subject, rising.getSubject());
+		Assert.assertEquals(subject.isFrozen(), rising.getSubject().isFrozen());
+		Assert.assertEquals("the patient's heart rate rose", this.realiser.realise(rising).getRealisation());
+		Assert.assertEquals(this.realiser.realise(expected).getRealisation(),
+		                    this.realiser.realise(monitor).getRealisation());
+		Assert.assertEquals("The patient's heart rate is high.",
+		                    this.realiser.realiseSentence(this.factory.createClause(rate, "be", "high")));
+
+		CoordinatedPhraseElement both = this.factory.createCoordinatedPhrase(rate, "the blood pressure");
+		Assert.assertEquals("the patient's heart rate and the blood pressure",
+		                    this.realiser.realise(both).getRealisation());
+
+		// the frozen phrase itself can be realised, and was not changed
+		Assert.assertEquals("the patient's heart rate", this.realiser.realise(rate).getRealisation());
+		Assert.assertSame(rate, createHeartRate().freeze());
+		Assert.assertNull(rate.getParent());
+	}
+
+	/**
+	 * @return "apple and pear are sweeter", built afresh from words
+	 */
+	private SPhraseSpec createComparison() {
+		CoordinatedPhraseElement fruit = this.factory.createCoordinatedPhrase(
+				this.factory.createWord("apple", LexicalCategory.NOUN),
+				this.factory.createWord("pear", LexicalCategory.NOUN));
+		AdjPhraseSpec sweet = this.factory.createAdjectivePhrase("sweet");
+		sweet.setFeature(Feature.IS_COMPARATIVE, true);
+		return this.factory.createClause(fruit, "be", sweet);
+	}
+
+	/**
+	 * Tests that the realiser copies the frozen words it changes, rather than
+	 * every word of a frozen clause, and leaves the clause as it was.
+	 */
+	@Test
+	public void realiseSharingWordsTest() {
+		SPhraseSpec clause = (SPhraseSpec) createComparison().freeze();
+		ElementFingerprint fingerprint = clause.getFingerprint();
+		String expected = this.realiser.realise(createComparison()).getRealisation();
+		Assert.assertEquals("apple and pear are sweeter", expected);
+
+		for(int i = 0; i < 3; i++) {
+			Assert.assertEquals(expected, this.realiser.realise(clause).getRealisation());
+		}
+		Assert.assertTrue(clause.isFrozen());
+		Assert.assertEquals(fingerprint, clause.getFingerprint());
+
+		// the words are shared, and the phrases above them are copied
+		SPhraseSpec thawed = (SPhraseSpec) clause.thawSharingWords();
+		Assert.assertFalse(thawed.isFrozen());
+		Assert.assertFalse(thawed.getSubject().isFrozen());
+		NLGElement apple = clause.getSubject().getChildren().get(0);
+		Assert.assertSame(apple, thawed.getSubject().getChildren().get(0));
+		Assert.assertTrue(apple.isFrozen());
+
+		// a tree whose only frozen elements are words is itself
+		Assert.assertSame(thawed, thawed.thawSharingWords());
+		Assert.assertNotSame(thawed, thawed.thaw());
+	}
+
+	/**
+	 * Tests that thawing gives a copy which can be changed, whose elements
+	 * have their parents.
+	 */
+	@Test
+	public void thawTest() {
+		NPPhraseSpec rate = createHeartRate().freeze();
+		NPPhraseSpec copy = (NPPhraseSpec) rate.thaw();
+		Assert.assertNotSame(rate, copy);
+		Assert.assertFalse(copy.isFrozen());
+		Assert.assertSame(copy, copy.getHead().getParent());
+		Assert.assertFalse(copy.getSpecifier().isFrozen());
+
+		copy.setPlural(true);
+		copy.addPostModifier("at rest");
+		Assert.assertEquals("the patient's heart rates at rest", this.realiser.realise(copy).getRealisation());
+		Assert.assertEquals("the patient's heart rate", this.realiser.realise(rate).getRealisation());
+
+		// a tree without frozen elements is itself
+		Assert.assertSame(copy, copy.thaw());
+		SPhraseSpec rising = this.factory.createClause(copy, "rise");
+		Assert.assertSame(rising, rising.thaw());
+
+		// creating a noun phrase from a frozen one gives a copy
+		NPPhraseSpec created = this.factory.createNounPhrase(rate);
+		Assert.assertFalse(created.isFrozen());
+		created.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
+		Assert.assertFalse(rate.isPlural());
+	}
+
+	/**
+	 * Tests that an empty realisation is realised from nothing.
+	 */
+	@Test
+	public void realiseNullTest() {
+		Assert.assertEquals("", this.realiser.realise((NLGElement) null).getRealisation());
+	}
+
+	/**
+	 * Tests that threads can realise clauses which share frozen phrases.
+	 */
+	@Test
+	public void sharedTest() throws InterruptedException {
+		final NPPhraseSpec rate = createHeartRate().freeze();
+		final List<String> failures = new ArrayList<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < 4; t++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					NLGFactory threadFactory = new NLGFactory(Lexicon.getDefaultLexicon());
+					Realiser threadRealiser = new Realiser(Lexicon.getDefaultLexicon());
+					for(int i = 0; i < 200; i++) {
+						SPhraseSpec clause = threadFactory.createClause(rate, "rise");
+						clause.setFeature(Feature.TENSE, Tense.PAST);
+						String text = threadRealiser.realise(clause).getRealisation();
+						if(!"the patient's heart rate rose".equals(text)) {
+							synchronized(failures) {
+								failures.add(text);
+							}
+						}
+					}
+				}
+			});
+		}
+		for(Thread thread : threads)
+			thread.start();
+		for(Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(new ArrayList<String>(), failures);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is "Simplenlg".
+ *
+ * The Initial Developer of the Original Code is Ehud Reiter, Albert Gatt and Dave Westwater.
+ * Portions created by Ehud Reiter, Albert Gatt and Dave Westwater are Copyright (C) 2010-11 The University of Aberdeen. All Rights Reserved.
+ *
+ * Contributor(s): Ehud Reiter, Albert Gatt, Dave Westwater, Roman Kutlak, Margaret Mitchell, and Saad Mahamood.
+ */
+package simplenlg.xmlrealiser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.lexicon.Lexicon;
+import simplenlg.lexicon.WordKey;
+import simplenlg.lexicon.XMLLexicon;
+import simplenlg.util.TestUtility;
+import simplenlg.xmlrealiser.wrapper.RecordSet;
+
+/**
+ * Tests for {@link LexiconWarmUp}.
+ */
+public class LexiconWarmUpTest {
+
+	/**
+	 * Tests warming up from a vocabulary list, and the coverage it reports.
+	 */
+	@Test
+	public void vocabularyTest() throws IOException {
+		List<WordKey> vocabulary = LexiconWarmUp.readVocabulary(new StringReader(
+				"# words used by the service\ndog\nbe\tverb\n\n  blorpish  \n"));
+		Assert.assertEquals(Arrays.asList(new WordKey("dog"),
+		                                  new WordKey("be", LexicalCategory.VERB),
+		                                  new WordKey("blorpish")), vocabulary);
+
+		LexiconWarmUp warmUp = new LexiconWarmUp(Lexicon.getDefaultLexicon());
+		warmUp.setRounds(2);
+		LexiconWarmUp.Report report = warmUp.warmUp(vocabulary);
+		Assert.assertEquals(3, report.getDocumentCount());
+		Assert.assertEquals(0, report.getFailedDocumentCount());
+		Assert.assertEquals(3, report.getLemmaCount());
+		Assert.assertEquals(2, report.getFoundLemmaCount());
+		Assert.assertEquals(Arrays.asList("blorpish"), report.getMissingLemmas());
+		Assert.assertEquals(2.0 / 3.0, report.getCoverage(), 1e-9);
+		Assert.assertTrue(report.toString().contains("2 of 3 lemmas found"));
+	}
+
+	/**
+	 * Tests warming up from a recording: every document is realised, and the
+	 * words of the documents are resolved.
+	 */
+	@Test
+	public void recordingTest() throws XMLRealiserException, IOException, URISyntaxException {
+		String recording = new TestUtility().getResourceFileAsString("XMLRealiserTest/ClauseTest.xml");
+		RecordSet records = XMLRealiser.getRecording(new StringReader(recording));
+
+		LexiconWarmUp.Report report = new LexiconWarmUp(Lexicon.getDefaultLexicon()).warmUp(records);
+		Assert.assertEquals(records.getRecord().size(), report.getDocumentCount());
+		Assert.assertEquals(0, report.getFailedDocumentCount());
+		Assert.assertTrue(report.getMatchingRealisationCount() <= report.getDocumentCount());
+		Assert.assertTrue(report.getLemmaCount() > 0);
+		Assert.assertTrue(report.getFoundLemmaCount() > 0);
+		Assert.assertTrue(report.getTotalTimeMillis() >= report.getLexiconTimeMillis());
+	}
+
+	/**
+	 * Tests that the words of a recording are looked up in the lexicon in one
+	 * batch, and not one at a time before it.
+	 */
+	@Test
+	public void batchOnlyTest() throws XMLRealiserException, IOException, URISyntaxException {
+		String recording = new TestUtility().getResourceFileAsString("XMLRealiserTest/ClauseTest.xml");
+		RecordSet records = XMLRealiser.getRecording(new StringReader(recording));
+
+		XMLLexicon lexicon = new XMLLexicon();
+		lexicon.enableMetrics();
+		LexiconWarmUp warmUp = new LexiconWarmUp(lexicon);
+		warmUp.setRounds(0);
+		LexiconWarmUp.Report report = warmUp.warmUp(records);
+		Assert.assertTrue(report.getLemmaCount() > 0);
+		Assert.assertEquals(report.getLemmaCount(), lexicon.getMetrics().getLookupCount());
+	}
+
+	/**
+	 * Tests that a negative number of rounds is rejected.
+	 */
+	@Test
+	public void negativeRoundsTest() {
+		try {
+			new LexiconWarmUp(Lexicon.getDefaultLexicon()).setRounds(-1);
+			Assert.fail("accepted a negative number of rounds");
+		} catch(IllegalArgumentException expected) {
+			// expected
+		}
+	}
+}